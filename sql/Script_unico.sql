@@ -23,7 +23,13 @@ CREATE TABLE vehiculo (
   -- La validación de rango (1950–añoActual+1) se hace en Java.
   anio INT NOT NULL,
 
-  nroChasis VARCHAR(50) UNIQUE
+  nroChasis VARCHAR(50) UNIQUE,
+
+  -- Momento de la baja logica (lo usa el archivado historico para la retencion)
+  fechaBaja DATETIME NULL,
+
+  -- Ultima modificacion de la fila (la puesta al dia de la instantanea en disco lee desde aca)
+  actualizado TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3)
 ) ENGINE = InnoDB;
 
 -- ============================================================
@@ -37,6 +43,8 @@ CREATE TABLE segurovehicular (
   cobertura ENUM('RC', 'TERCEROS', 'TODO_RIESGO') NOT NULL,
   vencimiento DATE NOT NULL,
   idVehiculo BIGINT NOT NULL UNIQUE,
+  fechaBaja DATETIME NULL,
+  actualizado TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
 
   CONSTRAINT fk_seguro_vehiculo
     FOREIGN KEY (idVehiculo)
@@ -45,6 +53,70 @@ CREATE TABLE segurovehicular (
     ON UPDATE CASCADE
 ) ENGINE = InnoDB;
 
+-- ============================================================
+-- INDICES SECUNDARIOS
+-- ============================================================
+-- Baja automatica de polizas vencidas y busqueda por rango de vencimiento
+CREATE INDEX idx_seguro_eliminado_vencimiento ON segurovehicular (eliminado, vencimiento);
+
+-- Busqueda por criterios: marca (+ rango de año) y aseguradora (+ cobertura), solo activos
+CREATE INDEX idx_vehiculo_eliminado_marca_anio ON vehiculo (eliminado, marca, anio);
+CREATE INDEX idx_seguro_eliminado_aseguradora_cobertura ON segurovehicular (eliminado, aseguradora, cobertura);
+
+-- Archivado historico: bajas logicas mas viejas que la retencion
+CREATE INDEX idx_vehiculo_eliminado_fechabaja ON vehiculo (eliminado, fechaBaja);
+CREATE INDEX idx_seguro_eliminado_fechabaja ON segurovehicular (eliminado, fechaBaja);
+
+-- Puesta al dia de la instantanea: filas cambiadas (o dadas de baja) desde un momento
+CREATE INDEX idx_vehiculo_actualizado ON vehiculo (actualizado);
+CREATE INDEX idx_seguro_actualizado ON segurovehicular (actualizado);
+
+-- En una base ya creada con una version anterior de este script:
+-- ALTER TABLE vehiculo ADD COLUMN fechaBaja DATETIME NULL,
+--   ADD INDEX idx_vehiculo_eliminado_fechabaja (eliminado, fechaBaja);
+-- ALTER TABLE segurovehicular ADD COLUMN fechaBaja DATETIME NULL,
+--   ADD INDEX idx_seguro_eliminado_fechabaja (eliminado, fechaBaja);
+-- (las bajas previas no tienen fecha: se les pone la de la migracion para que entren en la retencion)
+-- UPDATE vehiculo SET fechaBaja = NOW() WHERE eliminado = TRUE AND fechaBaja IS NULL;
+-- UPDATE segurovehicular SET fechaBaja = NOW() WHERE eliminado = TRUE AND fechaBaja IS NULL;
+-- ALTER TABLE vehiculo ADD COLUMN actualizado TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
+--   ADD INDEX idx_vehiculo_actualizado (actualizado);
+-- ALTER TABLE segurovehicular ADD COLUMN actualizado TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
+--   ADD INDEX idx_seguro_actualizado (actualizado);
+
+-- ============================================================
+-- TABLAS HISTORICAS (filas dadas de baja y archivadas)
+-- ============================================================
+-- Sin UNIQUE ni FK: un dominio o una poliza pueden archivarse mas de una vez.
+-- idHist es propio porque el id original podria reutilizarse una vez purgada la fila.
+CREATE TABLE vehiculo_hist (
+  idHist BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  id BIGINT NOT NULL,
+  dominio VARCHAR(10) NOT NULL,
+  marca VARCHAR(50) NOT NULL,
+  modelo VARCHAR(50) NOT NULL,
+  anio INT NOT NULL,
+  nroChasis VARCHAR(50),
+  fechaBaja DATETIME NULL,
+  fechaArchivo DATETIME NOT NULL,
+  INDEX idx_vehiculo_hist_dominio (dominio),
+  INDEX idx_vehiculo_hist_id (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE segurovehicular_hist (
+  idHist BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  id BIGINT NOT NULL,
+  aseguradora VARCHAR(80) NOT NULL,
+  nroPoliza VARCHAR(50) NOT NULL,
+  cobertura ENUM('RC', 'TERCEROS', 'TODO_RIESGO') NOT NULL,
+  vencimiento DATE NOT NULL,
+  idVehiculo BIGINT NOT NULL,
+  fechaBaja DATETIME NULL,
+  fechaArchivo DATETIME NOT NULL,
+  INDEX idx_seguro_hist_vehiculo (idVehiculo),
+  INDEX idx_seguro_hist_poliza (nroPoliza)
+) ENGINE = InnoDB;
+
 -- ============================================================
 -- 5. INSERTS DE PRUEBA (OPCIONALES PARA CORRECCIÓN)
 -- ============================================================
@@ -0,0 +1,74 @@
+package config;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Punto de entrada comun de las operaciones no transaccionales contra la base (lecturas, recorridos).
+ * <ul>
+ *   <li>Admision: cada {@link TipoOperacion} pasa por su propio {@link Compartimento}
+ *       (cupo de operaciones concurrentes); si esta lleno se rechaza rapido.</li>
+ *   <li>Plazo: abre el plazo de la operacion y traduce los cortes por tiempo a {@link TiempoAgotadoException}.</li>
+ *   <li>Disyuntor: si la base viene fallando, rechaza al instante con {@link CircuitoAbiertoException};
+ *       si no, registra el resultado de la operacion (fallo de base, lentitud o exito).</li>
+ * </ul>
+ * Las transacciones pasan por
+ * {@link TransactionManager#ejecutarConReintentos(OperacionTransaccional, OpcionesTransaccion)},
+ * que aplica lo mismo a la transaccion completa.
+ */
+public final class AccesoBD {
+
+    // Cupos por tipo: las lecturas puntuales tienen mas lugar y esperan poco;
+    // lo masivo tiene pocos permisos para no acaparar conexiones ni CPU de la base
+    private static final Map<TipoOperacion, Compartimento> COMPARTIMENTOS = new EnumMap<>(TipoOperacion.class);
+
+    static {
+        COMPARTIMENTOS.put(TipoOperacion.LECTURA, new Compartimento(TipoOperacion.LECTURA, 8, 250));
+        COMPARTIMENTOS.put(TipoOperacion.ESCRITURA, new Compartimento(TipoOperacion.ESCRITURA, 4, 1000));
+        COMPARTIMENTOS.put(TipoOperacion.MASIVA, new Compartimento(TipoOperacion.MASIVA, 2, 500));
+    }
+
+    private AccesoBD() {
+        throw new UnsupportedOperationException("Esta es una clase utilitaria, no se puede instanciar");
+    }
+
+    /**
+     * Ejecuta la operacion dentro de su compartimento y de un plazo del tipo indicado.
+     * @throws SaturacionException Si el compartimento estaba lleno (la operacion no se ejecuto).
+     * @throws CircuitoAbiertoException Si el disyuntor esta abierto (la operacion no se ejecuto).
+     * @throws TiempoAgotadoException Si vencio el plazo o la base corto una sentencia por tiempo.
+     * @throws Exception Cualquier otro error de la operacion, sin cambios.
+     */
+    public static <T> T ejecutar(TipoOperacion tipo, OperacionBD<T> operacion) throws Exception {
+        Plazos.Plazo plazo = Plazos.abrir(tipo);
+        try {
+            Compartimento.Permiso permiso = compartimento(tipo).entrar();
+            try {
+                return DatabaseConnection.getDisyuntor().ejecutar(tipo == TipoOperacion.MASIVA, operacion);
+            } finally {
+                permiso.close();
+            }
+        } catch (Exception e) {
+            throw Plazos.traducir(e, tipo);
+        } finally {
+            plazo.close();
+        }
+    }
+
+    /** El compartimento de un tipo de operacion. */
+    public static Compartimento compartimento(TipoOperacion tipo) {
+        return COMPARTIMENTOS.get(tipo);
+    }
+
+    /** Resumen de todos los compartimentos para mostrar por consola. */
+    public static String resumenCompartimentos() {
+        StringBuilder sb = new StringBuilder();
+        for (Compartimento c : COMPARTIMENTOS.values()) {
+            if (sb.length() > 0) {
+                sb.append(" | ");
+            }
+            sb.append(c.resumen());
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,24 @@
+package config;
+
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * Falla rapida: el {@link Disyuntor} de la base esta abierto (o semiabierto sin lugar para
+ * otra sonda, o la operacion es masiva) y no se intento. Se puede volver a intentar mas tarde.
+ */
+public class CircuitoAbiertoException extends SQLTransientConnectionException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long reintentarEnMs;
+
+    public CircuitoAbiertoException(String mensaje, long reintentarEnMs) {
+        super(mensaje);
+        this.reintentarEnMs = reintentarEnMs;
+    }
+
+    /** Tiempo estimado hasta que el disyuntor deje pasar una sonda (0 si ya esta sondeando). */
+    public long getReintentarEnMs() {
+        return reintentarEnMs;
+    }
+}
@@ -0,0 +1,138 @@
+package config;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compartimento estanco (bulkhead) de acceso a la base para una clase de operacion.
+ * <p>
+ * Cada {@link TipoOperacion} tiene su propio cupo de operaciones concurrentes, asi un
+ * listado grande o un proceso masivo no deja esperando a las lecturas puntuales del menu.
+ * Si no hay permiso libre se espera como maximo {@code esperaMaximaMs} (o lo que quede
+ * del plazo, si es menos) y despues se rechaza con {@link SaturacionException}.
+ * <p>
+ * Un hilo que ya tiene un permiso de este compartimento no pide otro: reentrar no debe poder
+ * bloquearse contra si mismo. Tener el de otro compartimento no cuenta (un proceso MASIVA que
+ * escribe pasa igual por el cupo de ESCRITURA).
+ */
+public final class Compartimento {
+
+    private final TipoOperacion tipo;
+    private final int permisos;
+    private final long esperaMaximaMs;
+    private final Semaphore semaforo;
+    // true mientras el hilo actual tiene un permiso de este compartimento
+    private final ThreadLocal<Boolean> ocupado = new ThreadLocal<>();
+
+    // --- Metricas ---
+    private final AtomicInteger enEspera = new AtomicInteger();
+    private final AtomicInteger maxEnEspera = new AtomicInteger();
+    private final LongAdder admitidas = new LongAdder();
+    private final LongAdder rechazadas = new LongAdder();
+    private final LongAdder reentradas = new LongAdder();
+
+    public Compartimento(TipoOperacion tipo, int permisos, long esperaMaximaMs) {
+        if (permisos < 1) {
+            throw new IllegalArgumentException("Un compartimento necesita al menos un permiso.");
+        }
+        this.tipo = tipo;
+        this.permisos = permisos;
+        this.esperaMaximaMs = esperaMaximaMs;
+        this.semaforo = new Semaphore(permisos, true); // Justo: los que esperan entran en orden
+    }
+
+    /**
+     * Permiso de uso del compartimento. Se libera con try-with-resources.
+     */
+    public static final class Permiso implements AutoCloseable {
+
+        private static final Permiso REENTRANTE = new Permiso(null);
+
+        private final Compartimento compartimento;
+
+        private Permiso(Compartimento compartimento) {
+            this.compartimento = compartimento;
+        }
+
+        @Override
+        public void close() {
+            if (compartimento != null) {
+                compartimento.ocupado.remove();
+                compartimento.semaforo.release();
+            }
+        }
+    }
+
+    /**
+     * Obtiene un permiso, esperando como maximo la espera configurada (acotada por el plazo actual).
+     * @throws SaturacionException Si no se libero ningun permiso a tiempo.
+     */
+    public Permiso entrar() throws SaturacionException {
+        if (ocupado.get() != null) {
+            reentradas.increment();
+            return Permiso.REENTRANTE;
+        }
+        long espera = Math.max(0, Math.min(esperaMaximaMs, Plazos.restanteMs()));
+        boolean admitido;
+        int cola = enEspera.incrementAndGet();
+        maxEnEspera.accumulateAndGet(cola, Math::max);
+        try {
+            admitido = semaforo.tryAcquire(espera, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitido = false;
+        } finally {
+            enEspera.decrementAndGet();
+        }
+        if (!admitido) {
+            rechazadas.increment();
+            throw new SaturacionException("Sistema ocupado: no hay lugar para otra operacion " + tipo
+                    + " (" + permisos + " en curso). Intente nuevamente en unos segundos.", tipo);
+        }
+        admitidas.increment();
+        ocupado.set(Boolean.TRUE);
+        return new Permiso(this);
+    }
+
+    // --- Metricas publicas ---
+
+    public TipoOperacion getTipo() {
+        return tipo;
+    }
+
+    /** Operaciones que pueden estar en curso a la vez. */
+    public int getPermisos() {
+        return permisos;
+    }
+
+    public int getEnUso() {
+        return permisos - semaforo.availablePermits();
+    }
+
+    /** Operaciones esperando un permiso en este momento. */
+    public int getEnEspera() {
+        return enEspera.get();
+    }
+
+    public int getMaxEnEspera() {
+        return maxEnEspera.get();
+    }
+
+    public long getAdmitidas() {
+        return admitidas.sum();
+    }
+
+    public long getRechazadas() {
+        return rechazadas.sum();
+    }
+
+    /** Resumen para mostrar por consola. */
+    public String resumen() {
+        return tipo + ": " + getEnUso() + "/" + permisos + " en uso, cola " + enEspera.get()
+                + " (max " + maxEnEspera.get() + "), " + admitidas.sum() + " admitidas, "
+                + rechazadas.sum() + " rechazadas"
+                + (reentradas.sum() == 0 ? "" : ", " + reentradas.sum() + " reentradas");
+    }
+}
@@ -6,17 +6,30 @@ import java.sql.SQLException;
 
 public final class DatabaseConnection {
     
-    private static final String URL = "jdbc:mysql://localhost:3306/BaseVehiculos";
+    // connectTimeout acota la espera cuando el servidor no responde (el default del driver es muy largo)
+    private static final String URL = "jdbc:mysql://localhost:3306/BaseVehiculos?connectTimeout=3000";
     private static final String USER = "root";
     
     // ATENCION: Poner tu contrasena de MySQL aqui
     private static final String PASSWORD = ""; // O la contrasena que uses
 
-    static {
-        try {
-            Class.forName("com.mysql.cj.jdbc.Driver");
-        } catch (ClassNotFoundException e) {
-            throw new ExceptionInInitializerError("No se encontro el driver de MySQL (com.mysql.cj.jdbc.Driver). Asegurate de anadir el JAR a las bibliotecas del proyecto.");
+    // Abre con 5 fallos seguidos o 5 operaciones de mas de 2 s seguidas; sondea a los 10 s
+    private static final Disyuntor DISYUNTOR = new Disyuntor(5, 2000, 5, 10_000, 1, 2);
+
+    // El driver se carga al abrir la primera conexion (al iniciar lo hace el precalentamiento en
+    // segundo plano), no al inicializar esta clase: el menu consulta el disyuntor sin esperar la carga
+    private static final class Driver {
+
+        static {
+            try {
+                Class.forName("com.mysql.cj.jdbc.Driver");
+            } catch (ClassNotFoundException e) {
+                throw new ExceptionInInitializerError("No se encontro el driver de MySQL (com.mysql.cj.jdbc.Driver). Asegurate de anadir el JAR a las bibliotecas del proyecto.");
+            }
+        }
+
+        static void cargar() {
+            // Basta con referenciar la clase para que corra el bloque estatico
         }
     }
 
@@ -24,7 +37,31 @@ public final class DatabaseConnection {
         throw new UnsupportedOperationException("Esta es una clase utilitaria, no se puede instanciar");
     }
 
+    /**
+     * Abre una conexion, pasando por el disyuntor: si la base viene fallando se rechaza
+     * al instante con {@link CircuitoAbiertoException} en lugar de esperar el timeout de conexion.
+     * Dentro de una {@link UnidadDeTrabajo} devuelve la conexion compartida de la unidad.
+     */
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(URL, USER, PASSWORD);
+        UnidadDeTrabajo unidad = UnidadDeTrabajo.actual();
+        return unidad != null ? unidad.conexion() : abrirConexion();
+    }
+
+    // Conexion nueva (la usa tambien la unidad de trabajo para abrir la suya)
+    static Connection abrirConexion() throws SQLException {
+        Driver.cargar();
+        try {
+            // Se entrega envuelta para saber quien la tiene y hace cuanto (ver RegistroConexiones)
+            return DISYUNTOR.ejecutar(false, () -> RegistroConexiones.rastrear(DriverManager.getConnection(URL, USER, PASSWORD)));
+        } catch (SQLException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SQLException(e.getMessage(), e); // No ocurre: DriverManager solo lanza SQLException
+        }
+    }
+
+    /** El disyuntor que protege el acceso a la base (conexiones y operaciones). */
+    public static Disyuntor getDisyuntor() {
+        return DISYUNTOR;
     }
 }
\ No newline at end of file
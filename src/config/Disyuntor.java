@@ -0,0 +1,228 @@
+package config;
+
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Disyuntor (circuit breaker) del acceso a la base.
+ * <ul>
+ *   <li>CERRADO: todo pasa. Se abre tras {@code umbralFallos} fallos de base seguidos
+ *       (conexion rechazada o caida, timeouts) o {@code umbralLentas} operaciones lentas seguidas.</li>
+ *   <li>ABIERTO: falla rapido con {@link CircuitoAbiertoException}, sin esperar el timeout de conexion,
+ *       durante {@code tiempoAbiertoMs}.</li>
+ *   <li>SEMIABIERTO: deja pasar como maximo {@code maxSondas} operaciones a la vez. Con
+ *       {@code exitosParaCerrar} exitos se cierra; con un fallo (o una sonda lenta) se vuelve a abrir.
+ *       Las operaciones masivas no se admiten como sonda (ocuparian el lugar durante todo el
+ *       recorrido): se rechazan hasta que el disyuntor se cierre.</li>
+ * </ul>
+ * Solo cuentan como fallo los errores que indican que la base no responde: los errores de
+ * negocio o de SQL (clave duplicada, deadlock) significan que la base contesto. Tampoco cuenta
+ * el vencimiento del plazo propio antes de enviar una sentencia: la base no llego a intervenir.
+ * <p>
+ * Las operaciones anidadas en el mismo hilo (por ejemplo pedir la conexion dentro de una
+ * transaccion) no se vuelven a contar: el resultado lo registra la operacion de afuera.
+ */
+public final class Disyuntor {
+
+    public enum Estado { CERRADO, ABIERTO, SEMIABIERTO }
+
+    private static final ThreadLocal<Boolean> EN_OPERACION = new ThreadLocal<>();
+
+    private final int umbralFallos;
+    private final long latenciaLentaMs;
+    private final int umbralLentas;
+    private final long tiempoAbiertoMs;
+    private final int maxSondas;
+    private final int exitosParaCerrar;
+
+    // --- Estado (protegido por el monitor del disyuntor) ---
+    private Estado estado = Estado.CERRADO;
+    private long abiertoDesdeNanos;
+    private int fallosSeguidos;
+    private int lentasSeguidas;
+    private int sondasEnCurso;
+    private int exitosSemiabierto;
+
+    // --- Metricas ---
+    private final LongAdder llamadas = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder lentas = new LongAdder();
+    private final LongAdder rechazadas = new LongAdder();
+    private final LongAdder aperturas = new LongAdder();
+    private volatile String ultimoFallo;
+
+    public Disyuntor(int umbralFallos, long latenciaLentaMs, int umbralLentas,
+                     long tiempoAbiertoMs, int maxSondas, int exitosParaCerrar) {
+        if (umbralFallos < 1 || umbralLentas < 1 || maxSondas < 1 || exitosParaCerrar < 1) {
+            throw new IllegalArgumentException("Los umbrales del disyuntor deben ser positivos.");
+        }
+        this.umbralFallos = umbralFallos;
+        this.latenciaLentaMs = latenciaLentaMs;
+        this.umbralLentas = umbralLentas;
+        this.tiempoAbiertoMs = tiempoAbiertoMs;
+        this.maxSondas = maxSondas;
+        this.exitosParaCerrar = exitosParaCerrar;
+    }
+
+    /**
+     * Ejecuta la operacion si el disyuntor lo permite y registra su resultado.
+     * @param masiva Si es true la duracion no cuenta (los procesos masivos son lentos por naturaleza)
+     *               y la operacion no se admite como sonda del estado semiabierto.
+     * @throws CircuitoAbiertoException Si el disyuntor no deja pasar la operacion.
+     */
+    public <T> T ejecutar(boolean masiva, OperacionBD<T> operacion) throws Exception {
+        if (EN_OPERACION.get() != null) {
+            return operacion.ejecutar();
+        }
+        boolean controlarLatencia = !masiva;
+        boolean sonda = admitir(masiva);
+        EN_OPERACION.set(Boolean.TRUE);
+        long inicio = System.nanoTime();
+        try {
+            T resultado = operacion.ejecutar();
+            registrar(sonda, false, controlarLatencia && esLenta(inicio));
+            return resultado;
+        } catch (Exception e) {
+            boolean falloDeBase = esFalloDeBase(e);
+            if (falloDeBase) {
+                ultimoFallo = e.getMessage();
+            }
+            registrar(sonda, falloDeBase, !falloDeBase && controlarLatencia && esLenta(inicio));
+            throw e;
+        } finally {
+            EN_OPERACION.remove();
+        }
+    }
+
+    /**
+     * Indica si el error (o alguna de sus causas) muestra que la base no esta respondiendo.
+     */
+    public static boolean esFalloDeBase(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof CircuitoAbiertoException || t instanceof SaturacionException
+                    || (t instanceof TiempoAgotadoException && ((TiempoAgotadoException) t).isVencimientoLocal())) {
+                return false; // Rechazos propios: la base no llego a intervenir
+            }
+            if (t instanceof SQLTransientConnectionException || t instanceof SQLNonTransientConnectionException) {
+                return true;
+            }
+            if (t instanceof SQLException) {
+                String estadoSql = ((SQLException) t).getSQLState();
+                if (estadoSql != null && estadoSql.startsWith("08")) { // Clase 08: errores de conexion
+                    return true;
+                }
+            }
+        }
+        return Plazos.esTiempoAgotado(error);
+    }
+
+    private boolean esLenta(long inicioNanos) {
+        return (System.nanoTime() - inicioNanos) / 1_000_000 > latenciaLentaMs;
+    }
+
+    // Devuelve true si la operacion entra como sonda del estado semiabierto
+    private synchronized boolean admitir(boolean masiva) throws CircuitoAbiertoException {
+        llamadas.increment();
+        if (estado == Estado.ABIERTO) {
+            long abiertoMs = (System.nanoTime() - abiertoDesdeNanos) / 1_000_000;
+            if (abiertoMs < tiempoAbiertoMs) {
+                rechazadas.increment();
+                throw new CircuitoAbiertoException("Base de datos no disponible (disyuntor abierto). Reintente en "
+                        + ((tiempoAbiertoMs - abiertoMs + 999) / 1000) + " s.", tiempoAbiertoMs - abiertoMs);
+            }
+            estado = Estado.SEMIABIERTO;
+            sondasEnCurso = 0;
+            exitosSemiabierto = 0;
+        }
+        if (estado == Estado.SEMIABIERTO) {
+            if (masiva) {
+                rechazadas.increment();
+                throw new CircuitoAbiertoException("Base de datos en verificacion (disyuntor semiabierto): los procesos masivos esperan a que se normalice.", 0);
+            }
+            if (sondasEnCurso >= maxSondas) {
+                rechazadas.increment();
+                throw new CircuitoAbiertoException("Base de datos en verificacion (disyuntor semiabierto). Reintente en unos segundos.", 0);
+            }
+            sondasEnCurso++;
+            return true;
+        }
+        return false;
+    }
+
+    private synchronized void registrar(boolean sonda, boolean fallo, boolean lenta) {
+        if (fallo) fallos.increment();
+        if (lenta) lentas.increment();
+
+        if (sonda) {
+            sondasEnCurso--;
+            if (estado != Estado.SEMIABIERTO) {
+                return;
+            }
+            if (fallo || lenta) {
+                abrir();
+            } else if (++exitosSemiabierto >= exitosParaCerrar) {
+                estado = Estado.CERRADO;
+                fallosSeguidos = 0;
+                lentasSeguidas = 0;
+            }
+            return;
+        }
+        if (estado != Estado.CERRADO) {
+            return; // Operacion admitida antes de abrirse: ya no cambia el estado
+        }
+        fallosSeguidos = fallo ? fallosSeguidos + 1 : 0;
+        lentasSeguidas = lenta ? lentasSeguidas + 1 : 0;
+        if (fallosSeguidos >= umbralFallos || lentasSeguidas >= umbralLentas) {
+            abrir();
+        }
+    }
+
+    private void abrir() {
+        estado = Estado.ABIERTO;
+        abiertoDesdeNanos = System.nanoTime();
+        aperturas.increment();
+    }
+
+    // --- Estado y metricas publicas ---
+
+    public synchronized Estado getEstado() {
+        // Un ABIERTO vencido se informa como listo para sondear aunque nadie lo haya intentado
+        if (estado == Estado.ABIERTO && (System.nanoTime() - abiertoDesdeNanos) / 1_000_000 >= tiempoAbiertoMs) {
+            return Estado.SEMIABIERTO;
+        }
+        return estado;
+    }
+
+    /** Texto corto del estado para el encabezado del menu. */
+    public String descripcionEstado() {
+        switch (getEstado()) {
+            case ABIERTO:
+                return "NO DISPONIBLE (falla rapida)";
+            case SEMIABIERTO:
+                return "VERIFICANDO CONEXION";
+            default:
+                return "OK";
+        }
+    }
+
+    public long getAperturas() {
+        return aperturas.sum();
+    }
+
+    public long getRechazadas() {
+        return rechazadas.sum();
+    }
+
+    /** Resumen para mostrar por consola. */
+    public String resumen() {
+        return "Estado: " + getEstado()
+                + " | Llamadas: " + llamadas.sum()
+                + " | Fallos de base: " + fallos.sum()
+                + " | Lentas (>" + latenciaLentaMs + " ms): " + lentas.sum()
+                + " | Aperturas: " + aperturas.sum()
+                + " | Rechazos rapidos: " + rechazadas.sum()
+                + (ultimoFallo == null ? "" : " | Ultimo fallo: " + ultimoFallo);
+    }
+}
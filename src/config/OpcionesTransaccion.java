@@ -0,0 +1,119 @@
+package config;
+
+import java.sql.Connection;
+
+/**
+ * Opciones con las que {@link TransactionManager#ejecutarConReintentos(OperacionTransaccional, OpcionesTransaccion)}
+ * abre y ejecuta una transaccion.
+ */
+public class OpcionesTransaccion {
+
+    private PoliticaReintentos politica = PoliticaReintentos.PREDETERMINADA;
+    private boolean registroEnConsola = true;
+    private TipoOperacion tipo = TipoOperacion.ESCRITURA;
+    private long plazoMs = 0; // 0 = el del tipo
+    private boolean soloLectura = false;
+    private Integer aislamiento = null; // null = el nivel por defecto del servidor
+
+    /** Opciones por defecto: politica de reintentos predeterminada y log por consola. */
+    public static OpcionesTransaccion predeterminadas() {
+        return new OpcionesTransaccion();
+    }
+
+    /**
+     * Opciones para flujos que solo leen varias veces y quieren una vista coherente:
+     * transaccion READ ONLY con aislamiento REPEATABLE READ, tipo LECTURA y sin log por consola.
+     * InnoDB no le asigna ID de transaccion ni arma estructuras de escritura, y con REPEATABLE READ
+     * todas las lecturas ven la misma foto (la de la primera lectura). La transaccion es corta,
+     * asi que retener esa vista no frena la purga.
+     */
+    public static OpcionesTransaccion lecturas() {
+        return new OpcionesTransaccion()
+                .conTipo(TipoOperacion.LECTURA)
+                .conSoloLectura(true)
+                .conAislamiento(Connection.TRANSACTION_REPEATABLE_READ)
+                .conRegistroEnConsola(false);
+    }
+
+    /** Politica de reintentos (y metricas) a usar. */
+    public OpcionesTransaccion conPolitica(PoliticaReintentos politica) {
+        this.politica = politica;
+        return this;
+    }
+
+    /**
+     * Si es false no se imprimen los LOG de inicio/commit/rollback/reintento.
+     * Lo usan los procesos en segundo plano para no ensuciar el menu.
+     */
+    public OpcionesTransaccion conRegistroEnConsola(boolean registroEnConsola) {
+        this.registroEnConsola = registroEnConsola;
+        return this;
+    }
+
+    /**
+     * Clase de operacion: define el plazo de la transaccion (incluidos los reintentos)
+     * y el tope de query timeout de sus sentencias. Por defecto ESCRITURA.
+     */
+    public OpcionesTransaccion conTipo(TipoOperacion tipo) {
+        this.tipo = tipo;
+        return this;
+    }
+
+    /** Plazo propio para esta transaccion, en lugar del de su tipo. */
+    public OpcionesTransaccion conPlazoMs(long plazoMs) {
+        if (plazoMs <= 0) {
+            throw new IllegalArgumentException("El plazo debe ser positivo.");
+        }
+        this.plazoMs = plazoMs;
+        return this;
+    }
+
+    /**
+     * Transaccion de solo lectura (equivale a START TRANSACTION READ ONLY).
+     * Cualquier escritura dentro de ella falla.
+     */
+    public OpcionesTransaccion conSoloLectura(boolean soloLectura) {
+        this.soloLectura = soloLectura;
+        return this;
+    }
+
+    /**
+     * Nivel de aislamiento de esta transaccion (constantes {@code Connection.TRANSACTION_*}).
+     * Al cerrar la transaccion la conexion vuelve a su nivel anterior.
+     */
+    public OpcionesTransaccion conAislamiento(int aislamiento) {
+        if (aislamiento != Connection.TRANSACTION_READ_UNCOMMITTED
+                && aislamiento != Connection.TRANSACTION_READ_COMMITTED
+                && aislamiento != Connection.TRANSACTION_REPEATABLE_READ
+                && aislamiento != Connection.TRANSACTION_SERIALIZABLE) {
+            throw new IllegalArgumentException("Nivel de aislamiento invalido: " + aislamiento);
+        }
+        this.aislamiento = aislamiento;
+        return this;
+    }
+
+    public PoliticaReintentos getPolitica() {
+        return politica;
+    }
+
+    public boolean isRegistroEnConsola() {
+        return registroEnConsola;
+    }
+
+    public TipoOperacion getTipo() {
+        return tipo;
+    }
+
+    public long getPlazoMs() {
+        return plazoMs > 0 ? plazoMs : tipo.getPlazoMs();
+    }
+
+    public boolean isSoloLectura() {
+        return soloLectura;
+    }
+
+    /** El nivel de aislamiento pedido, o null para usar el del servidor. */
+    public Integer getAislamiento() {
+        return aislamiento;
+    }
+}
@@ -0,0 +1,13 @@
+package config;
+
+/**
+ * Operacion contra la base que se ejecuta fuera de una transaccion administrada
+ * (lecturas, recorridos) a traves de {@link AccesoBD}.
+ *
+ * @param <T> El tipo del resultado.
+ */
+@FunctionalInterface
+public interface OperacionBD<T> {
+
+    T ejecutar() throws Exception;
+}
@@ -0,0 +1,19 @@
+package config;
+
+/**
+ * Trabajo sobre un item de un lote procesado con
+ * {@link TransactionManager#ejecutarLote(java.util.List, int, OperacionItem, OpcionesTransaccion)}.
+ *
+ * @param <T> El tipo de item.
+ */
+@FunctionalInterface
+public interface OperacionItem<T> {
+
+    /**
+     * @param item El item a procesar.
+     * @param tm La transaccion del lote (ya iniciada). No hacer commit ni rollback.
+     * @throws Exception Un error propio del item (dato invalido, clave duplicada, fila inexistente)
+     *         descarta solo ese item; un error de la base o de concurrencia aborta el lote.
+     */
+    void ejecutar(T item, TransactionManager tm) throws Exception;
+}
@@ -0,0 +1,20 @@
+package config;
+
+/**
+ * Unidad de trabajo que se ejecuta dentro de una transaccion administrada
+ * por {@link TransactionManager}. Debe poder re-ejecutarse completa: si la
+ * transaccion se reintenta (deadlock, lock wait timeout) se vuelve a llamar
+ * desde el principio con una transaccion nueva.
+ *
+ * @param <T> El tipo del resultado (usar {@code Void} y devolver null si no hay resultado).
+ */
+@FunctionalInterface
+public interface OperacionTransaccional<T> {
+
+    /**
+     * @param tm La transaccion activa (ya iniciada). El commit lo hace el llamador.
+     * @return El resultado de la operacion.
+     * @throws Exception Cualquier error provoca rollback.
+     */
+    T ejecutar(TransactionManager tm) throws Exception;
+}
@@ -0,0 +1,235 @@
+package config;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Plazos (deadlines) de las operaciones contra la base y query timeout de cada sentencia.
+ * <p>
+ * Una operacion abre un {@link Plazo} en el hilo actual; las sentencias que preparan los
+ * DAO dentro de ese plazo reciben como query timeout lo que queda del presupuesto
+ * (con el tope de su {@link TipoOperacion}). Si el plazo ya vencio, la sentencia ni se ejecuta.
+ * Los plazos anidados nunca extienden al de afuera.
+ * <p>
+ * Los cortes por tiempo se informan siempre como {@link TiempoAgotadoException} y se cuentan por tipo.
+ */
+public final class Plazos {
+
+    // Codigos de MySQL: sentencia interrumpida (KILL QUERY / query timeout) y max_execution_time
+    private static final int ER_QUERY_INTERRUPTED = 1317;
+    private static final int ER_QUERY_TIMEOUT = 3024;
+
+    private static final ThreadLocal<Plazo> ACTUAL = new ThreadLocal<>();
+
+    // --- Metricas ---
+    private static final Map<TipoOperacion, LongAdder> VENCIDOS_ANTES = new EnumMap<>(TipoOperacion.class);
+    private static final Map<TipoOperacion, LongAdder> CORTADOS_POR_BASE = new EnumMap<>(TipoOperacion.class);
+
+    static {
+        for (TipoOperacion tipo : TipoOperacion.values()) {
+            VENCIDOS_ANTES.put(tipo, new LongAdder());
+            CORTADOS_POR_BASE.put(tipo, new LongAdder());
+        }
+    }
+
+    private Plazos() {
+        throw new UnsupportedOperationException("Esta es una clase utilitaria, no se puede instanciar");
+    }
+
+    /**
+     * Plazo de una operacion en el hilo actual. Se cierra con try-with-resources,
+     * que restaura el plazo anterior.
+     */
+    public static final class Plazo implements AutoCloseable {
+
+        private final TipoOperacion tipo;
+        private final long limiteNanos;
+        private final Plazo anterior;
+
+        private Plazo(TipoOperacion tipo, long limiteNanos, Plazo anterior) {
+            this.tipo = tipo;
+            this.limiteNanos = limiteNanos;
+            this.anterior = anterior;
+        }
+
+        public TipoOperacion getTipo() {
+            return tipo;
+        }
+
+        /** Milisegundos que quedan (0 o negativo si ya vencio). */
+        public long restanteMs() {
+            return (limiteNanos - System.nanoTime()) / 1_000_000;
+        }
+
+        public boolean vencido() {
+            return limiteNanos - System.nanoTime() <= 0;
+        }
+
+        @Override
+        public void close() {
+            if (anterior == null) {
+                ACTUAL.remove();
+            } else {
+                ACTUAL.set(anterior);
+            }
+        }
+    }
+
+    // ============================================================
+    // APERTURA
+    // ============================================================
+
+    /** Abre un plazo con el presupuesto configurado para el tipo de operacion. */
+    public static Plazo abrir(TipoOperacion tipo) {
+        return abrir(tipo, tipo.getPlazoMs());
+    }
+
+    /**
+     * Abre un plazo de {@code plazoMs} milisegundos en el hilo actual.
+     * Si ya hay uno abierto y vence antes, se conserva el limite de afuera.
+     */
+    public static Plazo abrir(TipoOperacion tipo, long plazoMs) {
+        Plazo anterior = ACTUAL.get();
+        long limite = System.nanoTime() + plazoMs * 1_000_000;
+        if (anterior != null && anterior.limiteNanos - limite < 0) {
+            limite = anterior.limiteNanos;
+        }
+        Plazo plazo = new Plazo(tipo, limite, anterior);
+        ACTUAL.set(plazo);
+        return plazo;
+    }
+
+    /** El plazo abierto en el hilo actual, o null. */
+    public static Plazo actual() {
+        return ACTUAL.get();
+    }
+
+    /** Milisegundos que quedan del plazo actual ({@code Long.MAX_VALUE} si no hay plazo). */
+    public static long restanteMs() {
+        Plazo plazo = ACTUAL.get();
+        return plazo == null ? Long.MAX_VALUE : plazo.restanteMs();
+    }
+
+    // ============================================================
+    // SENTENCIAS
+    // ============================================================
+
+    /** Prepara la sentencia con el query timeout que corresponde al plazo actual. */
+    public static PreparedStatement preparar(Connection conn, String sql, TipoOperacion tipo) throws SQLException {
+        verificar(tipo);
+        PreparedStatement stmt = conn.prepareStatement(sql);
+        aplicarTimeout(stmt, tipo);
+        return stmt;
+    }
+
+    /** Igual que {@link #preparar(Connection, String, TipoOperacion)}, pidiendo las claves generadas. */
+    public static PreparedStatement prepararConClaves(Connection conn, String sql, TipoOperacion tipo) throws SQLException {
+        verificar(tipo);
+        PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+        aplicarTimeout(stmt, tipo);
+        return stmt;
+    }
+
+    /** Igual que {@link #preparar(Connection, String, TipoOperacion)}, con tipo y concurrencia de ResultSet. */
+    public static PreparedStatement preparar(Connection conn, String sql, TipoOperacion tipo,
+                                             int tipoResultSet, int concurrencia) throws SQLException {
+        verificar(tipo);
+        PreparedStatement stmt = conn.prepareStatement(sql, tipoResultSet, concurrencia);
+        aplicarTimeout(stmt, tipo);
+        return stmt;
+    }
+
+    /**
+     * Fija el query timeout de la sentencia: el menor entre el tope del tipo y lo que queda
+     * del plazo actual (redondeado hacia arriba a segundos, minimo 1).
+     */
+    public static void aplicarTimeout(Statement stmt, TipoOperacion tipo) throws SQLException {
+        long segundos = tipo.getTimeoutSentenciaSeg();
+        long restante = restanteMs();
+        if (restante != Long.MAX_VALUE) {
+            segundos = Math.min(segundos, Math.max(1, (restante + 999) / 1000));
+        }
+        stmt.setQueryTimeout((int) segundos);
+    }
+
+    /**
+     * Lanza {@link TiempoAgotadoException} si el plazo actual ya vencio.
+     */
+    public static void verificar(TipoOperacion tipo) throws TiempoAgotadoException {
+        Plazo plazo = ACTUAL.get();
+        if (plazo != null && plazo.vencido()) {
+            // Se cuenta para el tipo de la operacion duenia del plazo, no el de la sentencia
+            VENCIDOS_ANTES.get(plazo.tipo).increment();
+            throw TiempoAgotadoException.vencimientoLocal("Se agoto el plazo de la operacion (" + plazo.tipo
+                    + ") antes de ejecutar una sentencia " + tipo + ".", plazo.tipo);
+        }
+    }
+
+    // ============================================================
+    // CLASIFICACION DE ERRORES
+    // ============================================================
+
+    /**
+     * Indica si el error (o alguna de sus causas) es un corte por tiempo.
+     * No incluye el lock wait timeout de InnoDB, que se trata como conflicto reintentable.
+     */
+    public static boolean esTiempoAgotado(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof SQLTimeoutException) {
+                return true;
+            }
+            if (t instanceof SQLException) {
+                int codigo = ((SQLException) t).getErrorCode();
+                if (codigo == ER_QUERY_INTERRUPTED || codigo == ER_QUERY_TIMEOUT) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Si el error es un corte por tiempo lo devuelve como {@link TiempoAgotadoException}
+     * (contandolo); si no, lo devuelve tal cual.
+     */
+    public static Exception traducir(Exception error, TipoOperacion tipo) {
+        if (error instanceof TiempoAgotadoException || !esTiempoAgotado(error)) {
+            return error;
+        }
+        CORTADOS_POR_BASE.get(tipo).increment();
+        return TiempoAgotadoException.corteDeBase("La base corto la sentencia por tiempo (" + tipo + "): " + error.getMessage(), tipo, error);
+    }
+
+    // ============================================================
+    // METRICAS
+    // ============================================================
+
+    public static long getVencidosAntesDeEjecutar(TipoOperacion tipo) {
+        return VENCIDOS_ANTES.get(tipo).sum();
+    }
+
+    public static long getCortadosPorBase(TipoOperacion tipo) {
+        return CORTADOS_POR_BASE.get(tipo).sum();
+    }
+
+    /** Resumen para mostrar por consola. */
+    public static String resumen() {
+        StringBuilder sb = new StringBuilder();
+        for (TipoOperacion tipo : TipoOperacion.values()) {
+            if (sb.length() > 0) {
+                sb.append(" | ");
+            }
+            sb.append(tipo).append(" (").append(tipo.getPlazoMs()).append(" ms, ")
+              .append(tipo.getTimeoutSentenciaSeg()).append(" s/sent.): ")
+              .append(VENCIDOS_ANTES.get(tipo).sum()).append(" vencidos, ")
+              .append(CORTADOS_POR_BASE.get(tipo).sum()).append(" cortados");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,154 @@
+package config;
+
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Politica de reintentos para transacciones que fallan por conflictos de concurrencia
+ * de InnoDB (deadlock, lock wait timeout, serializacion).
+ * <ul>
+ *   <li>Backoff exponencial con "full jitter": espera aleatoria entre 0 y base * 2^intento (con tope).</li>
+ *   <li>Presupuesto de reintentos (token bucket): cada operacion aporta una fraccion de ficha
+ *       y cada reintento consume una ficha entera. Si la base esta saturada y todo falla,
+ *       el presupuesto se agota y se deja de reintentar, evitando tormentas de reintentos.</li>
+ *   <li>Metricas acumuladas para saber cuanto se reintenta.</li>
+ * </ul>
+ */
+public class PoliticaReintentos {
+
+    // Codigos de error de MySQL
+    private static final int ER_LOCK_DEADLOCK = 1213;
+    private static final int ER_LOCK_WAIT_TIMEOUT = 1205;
+
+    /** Politica usada por defecto por {@link TransactionManager#ejecutarConReintentos}. */
+    public static final PoliticaReintentos PREDETERMINADA = new PoliticaReintentos(4, 20, 1000, 0.1, 10);
+
+    private final int maxIntentos;
+    private final long esperaBaseMs;
+    private final long esperaMaximaMs;
+    private final double fichasPorOperacion;
+    private final double maxFichas;
+
+    private double fichas;
+
+    // --- Metricas ---
+    private final AtomicLong operaciones = new AtomicLong();
+    private final AtomicLong reintentos = new AtomicLong();
+    private final AtomicLong exitosTrasReintento = new AtomicLong();
+    private final AtomicLong intentosAgotados = new AtomicLong();
+    private final AtomicLong sinPresupuesto = new AtomicLong();
+
+    /**
+     * @param maxIntentos Intentos totales (el primero + reintentos).
+     * @param esperaBaseMs Espera base del backoff.
+     * @param esperaMaximaMs Tope de la espera del backoff.
+     * @param fichasPorOperacion Fichas que aporta cada operacion al presupuesto (ej. 0.1 = 10% de reintentos).
+     * @param maxFichas Maximo de fichas acumulables (rafaga de reintentos permitida).
+     */
+    public PoliticaReintentos(int maxIntentos, long esperaBaseMs, long esperaMaximaMs,
+                              double fichasPorOperacion, double maxFichas) {
+        if (maxIntentos < 1) {
+            throw new IllegalArgumentException("Debe haber al menos un intento.");
+        }
+        this.maxIntentos = maxIntentos;
+        this.esperaBaseMs = esperaBaseMs;
+        this.esperaMaximaMs = esperaMaximaMs;
+        this.fichasPorOperacion = fichasPorOperacion;
+        this.maxFichas = maxFichas;
+        this.fichas = maxFichas;
+    }
+
+    public int getMaxIntentos() {
+        return maxIntentos;
+    }
+
+    /**
+     * Indica si el error (o alguna de sus causas) es un conflicto transitorio de concurrencia
+     * que se resuelve re-ejecutando la transaccion completa.
+     */
+    public static boolean esReintentable(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof SQLTransactionRollbackException) {
+                return true;
+            }
+            if (t instanceof SQLException) {
+                SQLException sql = (SQLException) t;
+                if ("40001".equals(sql.getSQLState())
+                        || sql.getErrorCode() == ER_LOCK_DEADLOCK
+                        || sql.getErrorCode() == ER_LOCK_WAIT_TIMEOUT) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // --- Uso interno de TransactionManager ---
+
+    void registrarOperacion() {
+        operaciones.incrementAndGet();
+        synchronized (this) {
+            fichas = Math.min(maxFichas, fichas + fichasPorOperacion);
+        }
+    }
+
+    /** Consume una ficha para reintentar. Devuelve false si no queda presupuesto. */
+    boolean consumirReintento() {
+        synchronized (this) {
+            if (fichas < 1.0) {
+                sinPresupuesto.incrementAndGet();
+                return false;
+            }
+            fichas -= 1.0;
+        }
+        reintentos.incrementAndGet();
+        return true;
+    }
+
+    void registrarExitoTrasReintento() {
+        exitosTrasReintento.incrementAndGet();
+    }
+
+    void registrarIntentosAgotados() {
+        intentosAgotados.incrementAndGet();
+    }
+
+    /** Espera del backoff antes del reintento numero {@code intento} (1 = primer reintento). */
+    long calcularEsperaMs(int intento) {
+        long tope = Math.min(esperaMaximaMs, esperaBaseMs << Math.min(intento, 20));
+        return ThreadLocalRandom.current().nextLong(tope + 1);
+    }
+
+    // --- Metricas publicas ---
+
+    public long getOperaciones() {
+        return operaciones.get();
+    }
+
+    public long getReintentos() {
+        return reintentos.get();
+    }
+
+    public long getExitosTrasReintento() {
+        return exitosTrasReintento.get();
+    }
+
+    public long getIntentosAgotados() {
+        return intentosAgotados.get();
+    }
+
+    public long getSinPresupuesto() {
+        return sinPresupuesto.get();
+    }
+
+    /** Resumen de las metricas para mostrar por consola. */
+    public String resumen() {
+        long ops = operaciones.get();
+        long reint = reintentos.get();
+        double tasa = ops == 0 ? 0.0 : (reint * 100.0) / ops;
+        return String.format("Transacciones: %d | Reintentos: %d (%.2f%%) | Exito tras reintento: %d | Intentos agotados: %d | Sin presupuesto: %d",
+                ops, reint, tasa, exitosTrasReintento.get(), intentosAgotados.get(), sinPresupuesto.get());
+    }
+}
@@ -0,0 +1,270 @@
+package config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registro de las conexiones y transacciones entregadas que todavia no se cerraron.
+ * <p>
+ * {@link DatabaseConnection#getConnection()} entrega la conexion envuelta en un proxy que
+ * se anota al abrirse (con el hilo, el tipo de operacion y la pila de quien la pidio) y se
+ * borra al cerrarse. {@link TransactionManager} hace lo mismo con cada transaccion.
+ * {@link #revisar(long, long)} informa lo que sigue abierto despues de un umbral: una conexion
+ * que nunca se cerro (fuga) o una transaccion que lleva demasiado tiempo abierta.
+ */
+public final class RegistroConexiones {
+
+    public enum Clase { CONEXION, TRANSACCION }
+
+    private static final int MAX_REPORTES = 20;
+    private static final int FRAMES_POR_PILA = 6;
+
+    private static final ConcurrentHashMap<Long, Prestamo> ABIERTOS = new ConcurrentHashMap<>();
+    private static final AtomicLong SECUENCIA = new AtomicLong();
+    private static final Deque<String> ULTIMOS_REPORTES = new ArrayDeque<>();
+
+    // --- Metricas ---
+    private static final LongAdder CONEXIONES_ENTREGADAS = new LongAdder();
+    private static final LongAdder TRANSACCIONES_ENTREGADAS = new LongAdder();
+    private static final LongAdder FUGAS_REPORTADAS = new LongAdder();
+    private static final LongAdder TRANSACCIONES_LARGAS_REPORTADAS = new LongAdder();
+    private static final AtomicInteger MAX_CONEXIONES_ABIERTAS = new AtomicInteger();
+    private static final AtomicInteger CONEXIONES_ABIERTAS = new AtomicInteger();
+
+    private RegistroConexiones() {
+        throw new UnsupportedOperationException("Esta es una clase utilitaria, no se puede instanciar");
+    }
+
+    /**
+     * Una conexion o transaccion entregada y todavia abierta.
+     */
+    public static final class Prestamo {
+
+        private final long id;
+        private final Clase clase;
+        private final String hilo;
+        private final TipoOperacion tipo;
+        private final LocalDateTime desde;
+        private final long desdeNanos;
+        private final StackTraceElement[] pila;
+        private volatile long transaccionDesdeNanos; // 0 = todavia sin startTransaction
+        private volatile boolean reportado;
+
+        private Prestamo(Clase clase) {
+            this.id = SECUENCIA.incrementAndGet();
+            this.clase = clase;
+            this.hilo = Thread.currentThread().getName().isEmpty()
+                    ? Thread.currentThread().toString() : Thread.currentThread().getName();
+            Plazos.Plazo plazo = Plazos.actual();
+            this.tipo = plazo == null ? null : plazo.getTipo();
+            this.desde = LocalDateTime.now();
+            this.desdeNanos = System.nanoTime();
+            this.pila = new Throwable().getStackTrace();
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public Clase getClase() {
+            return clase;
+        }
+
+        public String getHilo() {
+            return hilo;
+        }
+
+        /** Tipo de la operacion en curso al pedirla (null si se pidio fuera de un plazo). */
+        public TipoOperacion getTipo() {
+            return tipo;
+        }
+
+        public LocalDateTime getDesde() {
+            return desde;
+        }
+
+        /** Edad en milisegundos: desde que se entrego, o desde startTransaction si es una transaccion iniciada. */
+        public long edadMs() {
+            long inicio = transaccionDesdeNanos != 0 ? transaccionDesdeNanos : desdeNanos;
+            return (System.nanoTime() - inicio) / 1_000_000;
+        }
+
+        public boolean isTransaccionIniciada() {
+            return transaccionDesdeNanos != 0;
+        }
+
+        /** Los primeros frames de la aplicacion (dao, service, main) de la pila de quien la pidio. */
+        public List<String> pilaResumida() {
+            List<String> frames = new ArrayList<>();
+            for (StackTraceElement e : pila) {
+                String clase = e.getClassName();
+                if (clase.startsWith("config.") || clase.startsWith("java.") || clase.startsWith("jdk.")) {
+                    continue;
+                }
+                frames.add(e.toString());
+                if (frames.size() == FRAMES_POR_PILA) {
+                    break;
+                }
+            }
+            return frames;
+        }
+
+        /** Descripcion de una linea (sin la pila). */
+        public String descripcion() {
+            return clase + " #" + id + " | hilo " + hilo + " | " + (tipo == null ? "sin plazo" : tipo)
+                    + " | abierta desde " + desde.withNano(0) + " (" + edadMs() + " ms)"
+                    + (clase == Clase.TRANSACCION && !isTransaccionIniciada() ? " | sin iniciar" : "");
+        }
+    }
+
+    // ============================================================
+    // REGISTRO
+    // ============================================================
+
+    /**
+     * Envuelve la conexion en un proxy que se borra del registro al cerrarse.
+     */
+    public static Connection rastrear(Connection real) {
+        Prestamo prestamo = new Prestamo(Clase.CONEXION);
+        ABIERTOS.put(prestamo.id, prestamo);
+        CONEXIONES_ENTREGADAS.increment();
+        MAX_CONEXIONES_ABIERTAS.accumulateAndGet(CONEXIONES_ABIERTAS.incrementAndGet(), Math::max);
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, new ConexionRastreada(real, prestamo));
+    }
+
+    static Prestamo registrarTransaccion() {
+        Prestamo prestamo = new Prestamo(Clase.TRANSACCION);
+        ABIERTOS.put(prestamo.id, prestamo);
+        TRANSACCIONES_ENTREGADAS.increment();
+        return prestamo;
+    }
+
+    static void transaccionIniciada(Prestamo prestamo) {
+        prestamo.transaccionDesdeNanos = System.nanoTime();
+    }
+
+    static void liberar(Prestamo prestamo) {
+        if (ABIERTOS.remove(prestamo.id) != null && prestamo.clase == Clase.CONEXION) {
+            CONEXIONES_ABIERTAS.decrementAndGet();
+        }
+    }
+
+    // Intercepta close() para borrar la conexion del registro; el resto pasa directo a la real
+    private static final class ConexionRastreada implements InvocationHandler {
+
+        private final Connection real;
+        private final Prestamo prestamo;
+
+        ConexionRastreada(Connection real, Prestamo prestamo) {
+            this.real = real;
+            this.prestamo = prestamo;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            switch (metodo.getName()) {
+                case "close":
+                    liberar(prestamo);
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Conexion #" + prestamo.id + " (" + real + ")";
+                default:
+                    break;
+            }
+            try {
+                return metodo.invoke(real, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause(); // Se propaga la SQLException original
+            }
+        }
+    }
+
+    // ============================================================
+    // DETECCION
+    // ============================================================
+
+    /**
+     * Informa (una sola vez cada una) las conexiones abiertas hace mas de {@code umbralConexionMs}
+     * y las transacciones abiertas hace mas de {@code umbralTransaccionMs}. Lo pedido dentro de
+     * una operacion MASIVA se mide contra el plazo de ese tipo, que es largo a proposito.
+     * @return La cantidad de reportes nuevos.
+     */
+    public static int revisar(long umbralConexionMs, long umbralTransaccionMs) {
+        int nuevos = 0;
+        for (Prestamo p : ABIERTOS.values()) {
+            long umbral = p.clase == Clase.CONEXION ? umbralConexionMs : umbralTransaccionMs;
+            if (p.tipo == TipoOperacion.MASIVA) {
+                umbral = Math.max(umbral, TipoOperacion.MASIVA.getPlazoMs());
+            }
+            if (p.reportado || p.edadMs() < umbral) {
+                continue;
+            }
+            p.reportado = true;
+            nuevos++;
+            if (p.clase == Clase.CONEXION) {
+                FUGAS_REPORTADAS.increment();
+            } else {
+                TRANSACCIONES_LARGAS_REPORTADAS.increment();
+            }
+            StringBuilder reporte = new StringBuilder(p.clase == Clase.CONEXION ? "Posible fuga: " : "Transaccion larga: ")
+                    .append(p.descripcion());
+            for (String frame : p.pilaResumida()) {
+                reporte.append("\n      en ").append(frame);
+            }
+            synchronized (ULTIMOS_REPORTES) {
+                if (ULTIMOS_REPORTES.size() == MAX_REPORTES) {
+                    ULTIMOS_REPORTES.removeFirst();
+                }
+                ULTIMOS_REPORTES.addLast(reporte.toString());
+            }
+        }
+        return nuevos;
+    }
+
+    /** Foto de lo abierto en este momento (de la clase indicada, o todo si es null), de lo mas viejo a lo mas nuevo. */
+    public static List<Prestamo> instantanea(Clase clase) {
+        List<Prestamo> abiertos = new ArrayList<>();
+        for (Prestamo p : ABIERTOS.values()) {
+            if (clase == null || p.clase == clase) {
+                abiertos.add(p);
+            }
+        }
+        // Por el instante de entrega (fijo), no por edadMs(): la edad cambia mientras se ordena y
+        // una transaccion que arranca en el medio la corre. nanoTime se compara por diferencia.
+        abiertos.sort((a, b) -> a.desdeNanos != b.desdeNanos
+                ? Long.signum(a.desdeNanos - b.desdeNanos) : Long.compare(a.id, b.id));
+        return abiertos;
+    }
+
+    /** Los ultimos reportes de {@link #revisar(long, long)}, del mas viejo al mas nuevo. */
+    public static List<String> ultimosReportes() {
+        synchronized (ULTIMOS_REPORTES) {
+            return new ArrayList<>(ULTIMOS_REPORTES);
+        }
+    }
+
+    /** Resumen para mostrar por consola. */
+    public static String resumen() {
+        return "Conexiones abiertas: " + CONEXIONES_ABIERTAS.get() + " (max " + MAX_CONEXIONES_ABIERTAS.get() + ")"
+                + " | Transacciones abiertas: " + instantanea(Clase.TRANSACCION).size()
+                + " | Entregadas: " + CONEXIONES_ENTREGADAS.sum() + " conexiones, " + TRANSACCIONES_ENTREGADAS.sum() + " transacciones"
+                + " | Reportes: " + FUGAS_REPORTADAS.sum() + " posibles fugas, " + TRANSACCIONES_LARGAS_REPORTADAS.sum() + " transacciones largas";
+    }
+}
@@ -0,0 +1,76 @@
+package config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de un lote procesado en una sola transaccion con puntos de guardado:
+ * cuantos items se confirmaron y cuales se descartaron (con el motivo).
+ *
+ * @param <T> El tipo de item.
+ */
+public class ResultadoLote<T> {
+
+    /** Un item descartado y el error que lo descarto. */
+    public static final class Fallo<T> {
+
+        private final T item;
+        private final String error;
+
+        Fallo(T item, String error) {
+            this.item = item;
+            this.error = error;
+        }
+
+        public T getItem() {
+            return item;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return item + " -> " + error;
+        }
+    }
+
+    private int exitosos;
+    private int sublotesRevertidos;
+    private final List<Fallo<T>> fallidos = new ArrayList<>();
+
+    void registrarExitosos(int cantidad) {
+        exitosos += cantidad;
+    }
+
+    void registrarSubloteRevertido() {
+        sublotesRevertidos++;
+    }
+
+    void registrarFallo(T item, Exception error) {
+        fallidos.add(new Fallo<>(item, error.getMessage() == null ? error.getClass().getSimpleName() : error.getMessage()));
+    }
+
+    /** Items confirmados. */
+    public int getExitosos() {
+        return exitosos;
+    }
+
+    /** Items descartados, en el orden del lote. */
+    public List<Fallo<T>> getFallidos() {
+        return Collections.unmodifiableList(fallidos);
+    }
+
+    /** Sublotes que fallaron y se volvieron a procesar item por item. */
+    public int getSublotesRevertidos() {
+        return sublotesRevertidos;
+    }
+
+    /** Resumen de una linea para mostrar por consola. */
+    public String resumen() {
+        return "Confirmados: " + exitosos + " | Descartados: " + fallidos.size()
+                + (sublotesRevertidos == 0 ? "" : " | Sublotes reprocesados item por item: " + sublotesRevertidos);
+    }
+}
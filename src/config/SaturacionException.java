@@ -0,0 +1,24 @@
+package config;
+
+import java.sql.SQLTransientException;
+
+/**
+ * Rechazo rapido: el compartimento de la operacion estaba lleno y no se libero un permiso
+ * dentro de la espera maxima. No se llego a pedir conexion ni a tocar la base; se puede
+ * volver a intentar mas tarde. Cada rechazo queda contado en su {@link Compartimento}.
+ */
+public class SaturacionException extends SQLTransientException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final TipoOperacion tipo;
+
+    public SaturacionException(String mensaje, TipoOperacion tipo) {
+        super(mensaje);
+        this.tipo = tipo;
+    }
+
+    public TipoOperacion getTipo() {
+        return tipo;
+    }
+}
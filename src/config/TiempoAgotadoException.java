@@ -0,0 +1,47 @@
+package config;
+
+import java.sql.SQLTimeoutException;
+
+/**
+ * Una operacion contra la base se quedo sin tiempo: vencio el plazo de la operacion
+ * (antes de ejecutar una sentencia) o la base corto una sentencia por su query timeout.
+ * <p>
+ * No se reintenta: el presupuesto de tiempo ya se consumio. Cada instancia queda
+ * contada en las metricas de {@link Plazos}.
+ */
+public class TiempoAgotadoException extends SQLTimeoutException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final TipoOperacion tipo;
+    private final boolean local;
+
+    private TiempoAgotadoException(String mensaje, TipoOperacion tipo, Throwable causa, boolean local) {
+        super(mensaje, causa);
+        this.tipo = tipo;
+        this.local = local;
+    }
+
+    /** Vencio el plazo propio antes de enviar la sentencia: la base no llego a intervenir. */
+    public static TiempoAgotadoException vencimientoLocal(String mensaje, TipoOperacion tipo) {
+        return new TiempoAgotadoException(mensaje, tipo, null, true);
+    }
+
+    /** La base corto la sentencia por su query timeout; la causa es el error del driver. */
+    public static TiempoAgotadoException corteDeBase(String mensaje, TipoOperacion tipo, Throwable causa) {
+        return new TiempoAgotadoException(mensaje, tipo, causa, false);
+    }
+
+    /** La clase de operacion que se quedo sin tiempo (null si no se conoce). */
+    public TipoOperacion getTipo() {
+        return tipo;
+    }
+
+    /**
+     * true si vencio el plazo propio antes de enviar la sentencia (la base no llego a
+     * intervenir); false si la base corto la sentencia por su query timeout.
+     */
+    public boolean isVencimientoLocal() {
+        return local;
+    }
+}
@@ -0,0 +1,46 @@
+package config;
+
+/**
+ * Clases de operacion contra la base, cada una con sus tiempos configurables:
+ * <ul>
+ *   <li>{@code plazoMs}: presupuesto total de la operacion (todas sus sentencias y reintentos).</li>
+ *   <li>{@code timeoutSentenciaSeg}: tope de cada sentencia, aunque sobre presupuesto.</li>
+ * </ul>
+ * El timeout efectivo de cada sentencia es el menor entre su tope y lo que queda del plazo.
+ */
+public enum TipoOperacion {
+
+    /** Consultas puntuales y listados del menu. */
+    LECTURA(10_000, 5),
+    /** Altas, bajas y modificaciones (transacciones cortas). */
+    ESCRITURA(30_000, 10),
+    /** Recorridos completos y procesos por lotes (indice, analitica, archivado). */
+    MASIVA(30 * 60_000, 300);
+
+    private volatile long plazoMs;
+    private volatile int timeoutSentenciaSeg;
+
+    TipoOperacion(long plazoMs, int timeoutSentenciaSeg) {
+        this.plazoMs = plazoMs;
+        this.timeoutSentenciaSeg = timeoutSentenciaSeg;
+    }
+
+    public long getPlazoMs() {
+        return plazoMs;
+    }
+
+    public int getTimeoutSentenciaSeg() {
+        return timeoutSentenciaSeg;
+    }
+
+    /**
+     * Cambia los tiempos de esta clase de operacion (afecta a las operaciones que empiezan despues).
+     */
+    public void configurar(long plazoMs, int timeoutSentenciaSeg) {
+        if (plazoMs <= 0 || timeoutSentenciaSeg <= 0) {
+            throw new IllegalArgumentException("El plazo y el timeout de sentencia deben ser positivos.");
+        }
+        this.plazoMs = plazoMs;
+        this.timeoutSentenciaSeg = timeoutSentenciaSeg;
+    }
+}
@@ -2,11 +2,32 @@ package config;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class TransactionManager implements AutoCloseable {
 
+    // Transaccion en curso en cada hilo (la usan los DAO para diferir trabajo hasta el commit)
+    private static final ThreadLocal<TransactionManager> EN_CURSO = new ThreadLocal<>();
+
     private Connection conn;
     private boolean transactionActive;
+    private boolean registroEnConsola = true;
+    private final RegistroConexiones.Prestamo prestamo; // Registro de transacciones abiertas
+
+    // Modo de la transaccion (se aplica en startTransaction y se deshace en close)
+    private boolean soloLectura = false;
+    private Integer aislamiento = null;
+    private boolean modoAplicado = false;
+    private boolean soloLecturaAnterior;
+    private int aislamientoAnterior;
+
+    // Acciones diferidas hasta el commit, y cuantas habia al marcar cada punto de guardado
+    private final List<Runnable> alConfirmar = new ArrayList<>();
+    private final Map<Savepoint, Integer> accionesAlMarcar = new HashMap<>();
 
     public TransactionManager(Connection conn) throws SQLException {
         if (conn == null) {
@@ -14,20 +35,43 @@ public class TransactionManager implements AutoCloseable {
         }
         this.conn = conn;
         this.transactionActive = false;
+        this.prestamo = RegistroConexiones.registrarTransaccion();
     }
 
     public Connection getConnection() {
         return conn;
     }
 
+    /** Activa o desactiva los mensajes LOG por consola de esta transaccion. */
+    public void setRegistroEnConsola(boolean registroEnConsola) {
+        this.registroEnConsola = registroEnConsola;
+    }
+
+    /**
+     * Define el modo de la proxima transaccion. Debe llamarse antes de {@link #startTransaction()}.
+     * @param soloLectura true para una transaccion READ ONLY (Connection.setReadOnly).
+     * @param aislamiento Nivel {@code Connection.TRANSACTION_*}, o null para el del servidor.
+     */
+    public void setModo(boolean soloLectura, Integer aislamiento) {
+        if (transactionActive) {
+            throw new IllegalStateException("El modo no se puede cambiar con la transaccion iniciada.");
+        }
+        this.soloLectura = soloLectura;
+        this.aislamiento = aislamiento;
+    }
+
     public void startTransaction() throws SQLException {
         if (conn == null || conn.isClosed()) {
             throw new SQLException("No se puede iniciar la transaccion: la conexion no esta disponible.");
         }
+        aplicarModo();
         conn.setAutoCommit(false);
         transactionActive = true;
+        EN_CURSO.set(this);
+        RegistroConexiones.transaccionIniciada(prestamo);
         //  LOGGING DE INICIO
-        System.out.println("--- LOG: Transaccion INICIADA (AutoCommit=false) ---");
+        if (registroEnConsola) System.out.println("--- LOG: Transaccion INICIADA (AutoCommit=false"
+                + (soloLectura ? ", READ ONLY" : "") + (aislamiento != null ? ", " + nombreAislamiento(aislamiento) : "") + ") ---");
     }
 
     public void commit() throws SQLException {
@@ -36,20 +80,346 @@ public class TransactionManager implements AutoCloseable {
         }
         conn.commit();
         // LOGGING DE COMMIT EXITOSO
-        System.out.println("--- LOG: Transaccion finalizada con COMMIT. ---");
-        transactionActive = false;
+        if (registroEnConsola) System.out.println("--- LOG: Transaccion finalizada con COMMIT. ---");
+        terminar();
+        for (Runnable accion : alConfirmar) {
+            accion.run();
+        }
+        alConfirmar.clear();
     }
 
     public void rollback() {
         if (conn != null && transactionActive) {
             try {
                 conn.rollback();
+                UnidadDeTrabajo unidad = UnidadDeTrabajo.actual();
+                if (unidad != null) {
+                    unidad.limpiarIdentidad(); // Lo leido en la transaccion descartada ya no vale
+                }
                 //  LOGGING DE ROLLBACK
-                System.err.println("!!! LOG: ROLLBACK ejecutado exitosamente. Los cambios se descartaron. !!!");
-                transactionActive = false;
+                if (registroEnConsola) System.err.println("!!! LOG: ROLLBACK ejecutado exitosamente. Los cambios se descartaron. !!!");
+                terminar();
             } catch (SQLException e) {
                 System.err.println("Error MUY GRAVE durante el rollback: " + e.getMessage());
             }
+            alConfirmar.clear(); // Lo que iban a dar por guardado no se guardo
+        }
+    }
+
+    // La transaccion ya no esta en curso (commit o rollback)
+    private void terminar() {
+        transactionActive = false;
+        accionesAlMarcar.clear();
+        if (EN_CURSO.get() == this) {
+            EN_CURSO.remove();
+        }
+    }
+
+    // ============================================================
+    // ACCIONES AL CONFIRMAR
+    // ============================================================
+
+    /**
+     * Ejecuta la accion recien cuando se confirme la transaccion en curso sobre esa conexion (en este
+     * hilo). Si la transaccion se deshace, o se vuelve a un punto de guardado marcado antes de
+     * registrarla, la accion se descarta. Sin transaccion en curso (autocommit) se ejecuta enseguida.
+     * <p>
+     * La usan los DAO para dar por guardado el estado de una entidad: si lo hicieran apenas
+     * ejecutada la sentencia, un reintento despues de un rollback ya no sabria que habia cambiado.
+     */
+    public static void alConfirmar(Connection conn, Runnable accion) {
+        TransactionManager tm = EN_CURSO.get();
+        if (tm != null && tm.transactionActive && tm.conn == conn) {
+            tm.alConfirmar.add(accion);
+        } else {
+            accion.run();
+        }
+    }
+
+    // ============================================================
+    // PUNTOS DE GUARDADO (rollback parcial)
+    // ============================================================
+
+    /**
+     * Marca un punto de la transaccion al que se puede volver sin perder lo anterior.
+     * @param nombre Nombre del punto (identificador SQL simple).
+     */
+    public Savepoint establecerPuntoGuardado(String nombre) throws SQLException {
+        if (!transactionActive) {
+            throw new SQLException("No hay una transaccion activa para establecer un punto de guardado.");
+        }
+        Savepoint punto = conn.setSavepoint(nombre);
+        accionesAlMarcar.put(punto, alConfirmar.size());
+        return punto;
+    }
+
+    /**
+     * Deshace lo hecho despues del punto de guardado. La transaccion sigue activa
+     * y el punto sigue existiendo hasta que se libera.
+     */
+    public void volverAPuntoGuardado(Savepoint punto) throws SQLException {
+        if (!transactionActive) {
+            throw new SQLException("No hay una transaccion activa para volver al punto de guardado.");
+        }
+        conn.rollback(punto);
+        Integer acciones = accionesAlMarcar.get(punto);
+        if (acciones != null) {
+            alConfirmar.subList(acciones, alConfirmar.size()).clear(); // Lo registrado despues del punto ya no se guarda
+        }
+        UnidadDeTrabajo unidad = UnidadDeTrabajo.actual();
+        if (unidad != null) {
+            unidad.limpiarIdentidad(); // Lo leido despues del punto puede no existir mas
+        }
+    }
+
+    /** Libera el punto de guardado (lo hecho despues de el queda en la transaccion). */
+    public void liberarPuntoGuardado(Savepoint punto) throws SQLException {
+        if (!transactionActive) {
+            throw new SQLException("No hay una transaccion activa para liberar el punto de guardado.");
+        }
+        conn.releaseSavepoint(punto);
+        accionesAlMarcar.remove(punto);
+    }
+
+    // ============================================================
+    // UNIDAD DE TRABAJO CON REINTENTOS
+    // ============================================================
+
+    /**
+     * Ejecuta la operacion en una transaccion propia (conexion nueva, commit al final)
+     * con las opciones predeterminadas.
+     * @see #ejecutarConReintentos(OperacionTransaccional, OpcionesTransaccion)
+     */
+    public static <T> T ejecutarConReintentos(OperacionTransaccional<T> operacion) throws Exception {
+        return ejecutarConReintentos(operacion, OpcionesTransaccion.predeterminadas());
+    }
+
+    /**
+     * Ejecuta la operacion en una transaccion propia. Si falla por deadlock, lock wait timeout
+     * o error de serializacion, se hace rollback y se re-ejecuta la operacion COMPLETA en una
+     * transaccion nueva, esperando con backoff exponencial con jitter, mientras queden intentos,
+     * presupuesto de reintentos y tiempo. Cualquier otro error se propaga sin reintentar.
+     * <p>
+     * Toda la unidad de trabajo (reintentos incluidos) ocupa un unico permiso del compartimento
+     * de su tipo y corre dentro de un unico plazo. Si el compartimento esta lleno se rechaza con
+     * {@link SaturacionException}; si se agota el plazo, el error es una {@link TiempoAgotadoException}.
+     * Cada intento pasa por el {@link Disyuntor}: con la base caida falla al instante con
+     * {@link CircuitoAbiertoException}, que no se reintenta.
+     *
+     * @param operacion La unidad de trabajo (debe poder re-ejecutarse desde cero).
+     * @param opciones Politica de reintentos, tipo de operacion y plazo, y log.
+     * @return El resultado de la operacion.
+     * @throws Exception El ultimo error si no se pudo completar.
+     */
+    public static <T> T ejecutarConReintentos(OperacionTransaccional<T> operacion, OpcionesTransaccion opciones) throws Exception {
+        UnidadDeTrabajo unidad = UnidadDeTrabajo.actual();
+        if (unidad != null && unidad.getTransaccion() != null) {
+            // Llamada anidada dentro de otra transaccion sobre la misma conexion: se suma a la de afuera
+            // (un commit propio confirmaria a medias el trabajo de afuera; los reintentos son de la externa)
+            return operacion.ejecutar(unidad.getTransaccion());
+        }
+        opciones.getPolitica().registrarOperacion();
+        try (Plazos.Plazo plazo = Plazos.abrir(opciones.getTipo(), opciones.getPlazoMs())) {
+            Compartimento.Permiso permiso = AccesoBD.compartimento(opciones.getTipo()).entrar();
+            try {
+                return ejecutarIntentos(operacion, opciones, plazo);
+            } finally {
+                permiso.close();
+            }
+        }
+    }
+
+    // Intentos sucesivos con backoff, ya dentro del plazo y con el permiso del compartimento
+    private static <T> T ejecutarIntentos(OperacionTransaccional<T> operacion, OpcionesTransaccion opciones,
+                                          Plazos.Plazo plazo) throws Exception {
+        PoliticaReintentos politica = opciones.getPolitica();
+        int intento = 1;
+        while (true) {
+            Plazos.verificar(opciones.getTipo());
+            try {
+                // Cada intento pasa por el disyuntor (la espera del backoff no cuenta como latencia)
+                T resultado = DatabaseConnection.getDisyuntor().ejecutar(opciones.getTipo() == TipoOperacion.MASIVA,
+                        () -> ejecutarIntento(operacion, opciones));
+
+                if (intento > 1) {
+                    politica.registrarExitoTrasReintento();
+                }
+                return resultado;
+
+            } catch (Exception e) {
+                // El rollback ya lo hizo close()
+                if (!PoliticaReintentos.esReintentable(e)) {
+                    throw Plazos.traducir(e, opciones.getTipo());
+                }
+                if (intento >= politica.getMaxIntentos()) {
+                    politica.registrarIntentosAgotados();
+                    throw e;
+                }
+                long espera = politica.calcularEsperaMs(intento);
+                if (espera >= plazo.restanteMs()) {
+                    throw e; // No queda tiempo para otro intento: se informa el conflicto original
+                }
+                if (!politica.consumirReintento()) {
+                    throw e;
+                }
+                if (opciones.isRegistroEnConsola()) System.err.println("!!! LOG: Conflicto de concurrencia (" + e.getMessage() + "). Reintento "
+                        + intento + "/" + (politica.getMaxIntentos() - 1) + " en " + espera + " ms. !!!");
+                try {
+                    Thread.sleep(espera);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                intento++;
+            }
+        }
+    }
+
+    /**
+     * Procesa un lote de items en UNA transaccion, de a sublotes protegidos por puntos de guardado.
+     * <ul>
+     *   <li>Si un sublote falla por un error propio de algun item, se vuelve al punto de guardado y
+     *       el sublote se reprocesa item por item (cada uno con su punto): los items malos se
+     *       descartan y se informan, los demas quedan.</li>
+     *   <li>Un error de concurrencia, de plazo o de la base (no del item) aborta el intento
+     *       completo, que se reintenta segun las opciones como cualquier otra transaccion.</li>
+     * </ul>
+     * Asi un item malo no tira abajo todo el lote, y no hace falta una transaccion por item.
+     *
+     * @param items Los items, en el orden en que se procesan.
+     * @param tamanioSublote Items por punto de guardado (1 = un punto por item).
+     * @param operacion El trabajo de cada item.
+     * @param opciones Politica de reintentos, tipo de operacion y plazo, y log.
+     * @return Los confirmados y los descartados con su motivo.
+     * @throws Exception Si el lote no se pudo confirmar.
+     */
+    public static <T> ResultadoLote<T> ejecutarLote(List<T> items, int tamanioSublote, OperacionItem<T> operacion,
+                                                    OpcionesTransaccion opciones) throws Exception {
+        if (tamanioSublote < 1) {
+            throw new IllegalArgumentException("El tamanio de sublote debe ser al menos 1.");
+        }
+        return ejecutarConReintentos(tm -> {
+            ResultadoLote<T> resultado = new ResultadoLote<>(); // Nuevo en cada intento
+            for (int desde = 0; desde < items.size(); desde += tamanioSublote) {
+                Plazos.verificar(opciones.getTipo());
+                List<T> sublote = items.subList(desde, Math.min(desde + tamanioSublote, items.size()));
+                Savepoint punto = tm.establecerPuntoGuardado("sublote_" + desde);
+                try {
+                    for (T item : sublote) {
+                        operacion.ejecutar(item, tm);
+                    }
+                    tm.liberarPuntoGuardado(punto);
+                    resultado.registrarExitosos(sublote.size());
+                } catch (Exception e) {
+                    if (!esErrorDeItem(e)) {
+                        throw e;
+                    }
+                    tm.volverAPuntoGuardado(punto);
+                    tm.liberarPuntoGuardado(punto);
+                    if (sublote.size() == 1) {
+                        resultado.registrarFallo(sublote.get(0), e);
+                    } else {
+                        resultado.registrarSubloteRevertido();
+                        procesarItemPorItem(sublote, desde, operacion, tm, resultado);
+                    }
+                }
+            }
+            return resultado;
+        }, opciones);
+    }
+
+    private static <T> void procesarItemPorItem(List<T> sublote, int desde, OperacionItem<T> operacion,
+                                                TransactionManager tm, ResultadoLote<T> resultado) throws Exception {
+        int posicion = desde;
+        for (T item : sublote) {
+            Savepoint punto = tm.establecerPuntoGuardado("item_" + posicion++);
+            try {
+                operacion.ejecutar(item, tm);
+                tm.liberarPuntoGuardado(punto);
+                resultado.registrarExitosos(1);
+            } catch (Exception e) {
+                if (!esErrorDeItem(e)) {
+                    throw e;
+                }
+                tm.volverAPuntoGuardado(punto);
+                tm.liberarPuntoGuardado(punto);
+                resultado.registrarFallo(item, e);
+            }
+        }
+    }
+
+    // Errores que solo afectan al item. Un deadlock, por ejemplo, ya deshizo la transaccion entera
+    // en MySQL: no se puede volver a un punto de guardado, hay que reintentar todo. Un plazo
+    // vencido (local o cortado por la base) tampoco es del item: el intento se aborta entero.
+    private static boolean esErrorDeItem(Exception e) {
+        return !(e instanceof InterruptedException
+                || Plazos.esTiempoAgotado(e)
+                || PoliticaReintentos.esReintentable(e)
+                || Disyuntor.esFalloDeBase(e)
+                || e instanceof SaturacionException
+                || e instanceof CircuitoAbiertoException);
+    }
+
+    // Se aplica antes de iniciar la transaccion: MySQL no permite cambiar estas caracteristicas con una en curso
+    private void aplicarModo() throws SQLException {
+        if (!soloLectura && aislamiento == null) {
+            return;
+        }
+        soloLecturaAnterior = conn.isReadOnly();
+        aislamientoAnterior = conn.getTransactionIsolation();
+        modoAplicado = true;
+        if (soloLectura != soloLecturaAnterior) {
+            conn.setReadOnly(soloLectura);
+        }
+        if (aislamiento != null && aislamiento != aislamientoAnterior) {
+            conn.setTransactionIsolation(aislamiento);
+        }
+    }
+
+    // Deja la conexion como estaba (se llama con la transaccion ya terminada)
+    private void restaurarModo() throws SQLException {
+        if (!modoAplicado) {
+            return;
+        }
+        modoAplicado = false;
+        if (conn.isReadOnly() != soloLecturaAnterior) {
+            conn.setReadOnly(soloLecturaAnterior);
+        }
+        if (conn.getTransactionIsolation() != aislamientoAnterior) {
+            conn.setTransactionIsolation(aislamientoAnterior);
+        }
+    }
+
+    private static String nombreAislamiento(int nivel) {
+        switch (nivel) {
+            case Connection.TRANSACTION_READ_UNCOMMITTED: return "READ UNCOMMITTED";
+            case Connection.TRANSACTION_READ_COMMITTED: return "READ COMMITTED";
+            case Connection.TRANSACTION_REPEATABLE_READ: return "REPEATABLE READ";
+            case Connection.TRANSACTION_SERIALIZABLE: return "SERIALIZABLE";
+            default: return "NIVEL " + nivel;
+        }
+    }
+
+    // Un intento: conexion (la de la unidad de trabajo, si hay una), transaccion, operacion y commit
+    // (close() hace rollback si algo fallo)
+    private static <T> T ejecutarIntento(OperacionTransaccional<T> operacion, OpcionesTransaccion opciones) throws Exception {
+        UnidadDeTrabajo unidad = UnidadDeTrabajo.actual();
+        try (Connection conn = DatabaseConnection.getConnection();
+             TransactionManager tm = new TransactionManager(conn)) {
+
+            tm.setRegistroEnConsola(opciones.isRegistroEnConsola());
+            tm.setModo(opciones.isSoloLectura(), opciones.getAislamiento());
+            tm.startTransaction();
+            if (unidad != null) {
+                unidad.setTransaccion(tm);
+            }
+            T resultado = operacion.ejecutar(tm);
+            tm.commit();
+            return resultado;
+        } finally {
+            if (unidad != null) {
+                unidad.setTransaccion(null);
+            }
         }
     }
 
@@ -58,13 +428,18 @@ public class TransactionManager implements AutoCloseable {
         if (conn != null) {
             try {
                 if (transactionActive) {
-                    System.err.println("Advertencia: Transaccion cerrada sin commit explicito. Ejecutando rollback automatico.");
+                    if (registroEnConsola) System.err.println("Advertencia: Transaccion cerrada sin commit explicito. Ejecutando rollback automatico.");
                     rollback();
                 }
                 conn.setAutoCommit(true);
+                restaurarModo();
             } catch (SQLException e) {
-                System.err.println("Error al restaurar autoCommit: " + e.getMessage());
+                System.err.println("Error al restaurar autoCommit / modo de la conexion: " + e.getMessage());
             } finally {
+                if (EN_CURSO.get() == this) {
+                    EN_CURSO.remove();
+                }
+                RegistroConexiones.liberar(prestamo);
                 try {
                     conn.close();
                 } catch (SQLException e) {
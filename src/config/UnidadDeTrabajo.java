@@ -0,0 +1,204 @@
+package config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contexto de una llamada de servicio, ligado al hilo que la ejecuta.
+ * <ul>
+ *   <li>Conexion: mientras la unidad este abierta, {@link DatabaseConnection#getConnection()}
+ *       entrega siempre la misma conexion (abierta la primera vez que se pide). El close() de los
+ *       DAO no la cierra: la cierra la unidad al terminar. Asi las validaciones previas, las
+ *       lecturas y la transaccion de una misma llamada usan una sola conexion.</li>
+ *   <li>Mapa de identidad: cada entidad leida se guarda por clase e ID; las lecturas siguientes
+ *       de la misma fila devuelven la misma instancia sin volver a la base.</li>
+ * </ul>
+ * Se abre con try-with-resources en el servicio. Las aperturas anidadas comparten la unidad de
+ * afuera. Fuera de una unidad todo funciona como antes (una conexion por operacion, sin cache).
+ * <p>
+ * No se usa en los recorridos masivos: un resultado en streaming ocupa la conexion hasta terminar.
+ */
+public final class UnidadDeTrabajo implements AutoCloseable {
+
+    private static final ThreadLocal<UnidadDeTrabajo> ACTUAL = new ThreadLocal<>();
+
+    // --- Metricas ---
+    private static final LongAdder UNIDADES = new LongAdder();
+    private static final LongAdder CONEXIONES_REUTILIZADAS = new LongAdder();
+    private static final LongAdder ACIERTOS_IDENTIDAD = new LongAdder();
+
+    private final Map<Class<?>, Map<Long, Object>> identidad = new HashMap<>();
+    private Connection real;       // La conexion (rastreada) que se cierra al final
+    private Connection compartida; // Lo que reciben los DAO: igual a la real, pero close() no la cierra
+    private TransactionManager transaccion; // Transaccion en curso sobre la conexion compartida
+    private int profundidad = 1;
+
+    private UnidadDeTrabajo() {
+    }
+
+    /**
+     * Abre una unidad de trabajo en el hilo actual, o se suma a la que ya esta abierta.
+     */
+    public static UnidadDeTrabajo abrir() {
+        UnidadDeTrabajo unidad = ACTUAL.get();
+        if (unidad != null) {
+            unidad.profundidad++;
+            return unidad;
+        }
+        unidad = new UnidadDeTrabajo();
+        ACTUAL.set(unidad);
+        UNIDADES.increment();
+        return unidad;
+    }
+
+    /** La unidad abierta en el hilo actual, o null. */
+    public static UnidadDeTrabajo actual() {
+        return ACTUAL.get();
+    }
+
+    // ============================================================
+    // CONEXION COMPARTIDA
+    // ============================================================
+
+    // La pide DatabaseConnection: la primera vez se abre, despues se reutiliza
+    Connection conexion() throws SQLException {
+        if (real != null && real.isClosed()) {
+            real = null; // El driver la cerro (ej. se corto la comunicacion): se abre otra
+        }
+        if (real == null) {
+            real = DatabaseConnection.abrirConexion();
+            compartida = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] {Connection.class}, new ConexionCompartida(real));
+        } else {
+            CONEXIONES_REUTILIZADAS.increment();
+        }
+        return compartida;
+    }
+
+    TransactionManager getTransaccion() {
+        return transaccion;
+    }
+
+    void setTransaccion(TransactionManager transaccion) {
+        this.transaccion = transaccion;
+    }
+
+    // close() no hace nada: la conexion es de la unidad
+    private static final class ConexionCompartida implements InvocationHandler {
+
+        private final Connection real;
+
+        ConexionCompartida(Connection real) {
+            this.real = real;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            switch (metodo.getName()) {
+                case "close":
+                    return null;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            try {
+                return metodo.invoke(real, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    // ============================================================
+    // MAPA DE IDENTIDAD (no hace nada si no hay unidad abierta)
+    // ============================================================
+
+    /** La entidad de esa clase e ID ya leida en la unidad actual, o null. */
+    public static <T> T buscar(Class<T> clase, long id) {
+        UnidadDeTrabajo unidad = ACTUAL.get();
+        if (unidad == null) {
+            return null;
+        }
+        Map<Long, Object> porId = unidad.identidad.get(clase);
+        Object entidad = porId == null ? null : porId.get(id);
+        if (entidad != null) {
+            ACIERTOS_IDENTIDAD.increment();
+        }
+        return clase.cast(entidad);
+    }
+
+    /**
+     * Registra la entidad recien leida. Si la fila ya estaba en la unidad devuelve la instancia
+     * registrada antes (con sus cambios sin guardar), no la nueva.
+     */
+    public static <T> T unificar(Class<T> clase, long id, T entidad) {
+        UnidadDeTrabajo unidad = ACTUAL.get();
+        if (unidad == null || entidad == null) {
+            return entidad;
+        }
+        Object previa = unidad.identidad.computeIfAbsent(clase, c -> new HashMap<>()).putIfAbsent(id, entidad);
+        return previa == null ? entidad : clase.cast(previa);
+    }
+
+    /** Saca una entidad de la unidad actual (ej. despues de darla de baja). */
+    public static void olvidar(Class<?> clase, long id) {
+        UnidadDeTrabajo unidad = ACTUAL.get();
+        if (unidad != null) {
+            Map<Long, Object> porId = unidad.identidad.get(clase);
+            if (porId != null) {
+                porId.remove(id);
+            }
+        }
+    }
+
+    /** Saca todas las entidades de una clase de la unidad actual. */
+    public static void olvidarTodo(Class<?> clase) {
+        UnidadDeTrabajo unidad = ACTUAL.get();
+        if (unidad != null) {
+            unidad.identidad.remove(clase);
+        }
+    }
+
+    // Despues de un rollback lo leido dentro de la transaccion puede no existir mas
+    void limpiarIdentidad() {
+        identidad.clear();
+    }
+
+    // ============================================================
+    // CIERRE Y METRICAS
+    // ============================================================
+
+    @Override
+    public void close() {
+        if (--profundidad > 0) {
+            return; // Cierra la unidad de afuera
+        }
+        ACTUAL.remove();
+        identidad.clear();
+        if (real != null) {
+            try {
+                real.close();
+            } catch (SQLException e) {
+                System.err.println("Error al cerrar la conexion de la unidad de trabajo: " + e.getMessage());
+            }
+            real = null;
+        }
+    }
+
+    /** Resumen para mostrar por consola. */
+    public static String resumen() {
+        return "Unidades abiertas: " + UNIDADES.sum()
+                + " | Conexiones reutilizadas: " + CONEXIONES_REUTILIZADAS.sum()
+                + " | Lecturas resueltas por el mapa de identidad: " + ACIERTOS_IDENTIDAD.sum();
+    }
+}
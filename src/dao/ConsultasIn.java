@@ -0,0 +1,134 @@
+package dao;
+
+import config.DatabaseConnection;
+import config.Plazos;
+import config.TipoOperacion;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Utilidades para armar listas de parametros de clausulas {@code IN (?, ?, ...)} y para
+ * las busquedas masivas que las recorren de a chunks.
+ * Las listas hasta {@link #MAX_CACHEADO} parametros se arman una sola vez.
+ */
+public final class ConsultasIn {
+
+    /** Claves por consulta IN en las busquedas y bajas masivas. */
+    public static final int TAMANIO_CHUNK = 500;
+
+    /** Tamanio maximo de lista que se cachea (coincide con el tamanio de chunk mas grande usado). */
+    public static final int MAX_CACHEADO = 1000;
+
+    private static final String[] CACHE = new String[MAX_CACHEADO + 1];
+
+    private ConsultasIn() {
+        throw new UnsupportedOperationException("Esta es una clase utilitaria, no se puede instanciar");
+    }
+
+    /**
+     * Devuelve "?, ?, ..., ?" con {@code cantidad} parametros.
+     */
+    public static String parametros(int cantidad) {
+        if (cantidad <= 0) {
+            throw new IllegalArgumentException("Una clausula IN necesita al menos un parametro.");
+        }
+        if (cantidad > MAX_CACHEADO) {
+            return armar(cantidad);
+        }
+        String lista = CACHE[cantidad];
+        if (lista == null) {
+            lista = armar(cantidad);
+            CACHE[cantidad] = lista; // Carrera benigna: todos los hilos arman el mismo String
+        }
+        return lista;
+    }
+
+    /**
+     * Arma un valor a partir de la fila actual del ResultSet.
+     */
+    @FunctionalInterface
+    public interface LectorFila<T> {
+        T leer(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Normaliza las claves de una busqueda o baja masiva y quita las repetidas, manteniendo el orden.
+     * @param claves Las claves tal como llegaron.
+     * @param normalizar Lo que se le aplica a cada una (por ejemplo, pasar a mayusculas).
+     * @throws IllegalArgumentException Si la coleccion o alguna clave es null.
+     */
+    public static <K> List<K> clavesDistintas(Collection<K> claves, UnaryOperator<K> normalizar) {
+        if (claves == null) {
+            throw new IllegalArgumentException("La lista de claves no puede ser nula.");
+        }
+        Set<K> distintas = new LinkedHashSet<>();
+        for (K clave : claves) {
+            if (clave == null) {
+                throw new IllegalArgumentException("La lista de claves no puede contener valores nulos.");
+            }
+            distintas.add(normalizar.apply(clave));
+        }
+        return new ArrayList<>(distintas);
+    }
+
+    /**
+     * Busca las filas de muchas claves con una sola conexion y consultas {@code prefijoSql + "?, ...)"}
+     * de a {@link #TAMANIO_CHUNK} claves.
+     * @param prefijoSql La consulta hasta el parentesis de apertura del IN, inclusive.
+     * @param claves Claves sin repetir y no nulas (ver {@link #clavesDistintas}).
+     * @param lector Arma el valor de cada fila.
+     * @param clave Devuelve la clave de cada valor leido, con la misma normalizacion que las buscadas.
+     * @return Los encontrados por clave (las claves sin fila no aparecen).
+     * @throws Exception Si falla la conexión o la consulta.
+     */
+    public static <K, T> Map<K, T> buscarPorClaves(String prefijoSql, List<K> claves, LectorFila<T> lector,
+                                                 Function<T, K> clave) throws Exception {
+        Map<K, T> encontrados = new HashMap<>(claves.size() * 2);
+        if (claves.isEmpty()) {
+            return encontrados;
+        }
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            for (int desde = 0; desde < claves.size(); desde += TAMANIO_CHUNK) {
+                List<K> chunk = claves.subList(desde, Math.min(desde + TAMANIO_CHUNK, claves.size()));
+                String sql = prefijoSql + parametros(chunk.size()) + ")";
+                try (PreparedStatement stmt = Plazos.preparar(conn, sql, TipoOperacion.LECTURA)) {
+                    int i = 1;
+                    for (K k : chunk) {
+                        stmt.setObject(i++, k);
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            T valor = lector.leer(rs);
+                            encontrados.put(clave.apply(valor), valor);
+                        }
+                    }
+                }
+            }
+        }
+        return encontrados;
+    }
+
+    private static String armar(int cantidad) {
+        char[] chars = new char[cantidad * 3 - 2];
+        Arrays.fill(chars, ' ');
+        for (int i = 0; i < cantidad; i++) {
+            chars[i * 3] = '?';
+            if (i < cantidad - 1) {
+                chars[i * 3 + 1] = ',';
+            }
+        }
+        return new String(chars);
+    }
+}
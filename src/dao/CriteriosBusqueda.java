@@ -0,0 +1,127 @@
+package dao;
+
+import entities.Cobertura;
+
+import java.time.LocalDate;
+
+/**
+ * Filtros opcionales para {@link VehiculoDAO#buscarPorCriterios(CriteriosBusqueda)}.
+ * Los campos en null no filtran. Cada combinacion de filtros presentes ("forma" de la
+ * consulta) genera un SQL parametrizado distinto que el DAO arma una vez y cachea.
+ */
+public class CriteriosBusqueda {
+
+    /** Limite de filas por defecto y maximo permitido. */
+    public static final int LIMITE_POR_DEFECTO = 100;
+    public static final int LIMITE_MAXIMO = 1000;
+
+    private String marca;
+    private Integer anioDesde;
+    private Integer anioHasta;
+    private Cobertura cobertura;
+    private String aseguradora;
+    private LocalDate vencimientoDesde;
+    private LocalDate vencimientoHasta;
+    private Boolean conSeguro;
+    private int limite = LIMITE_POR_DEFECTO;
+
+    // --- Getters y Setters ---
+
+    public String getMarca() {
+        return marca;
+    }
+
+    public void setMarca(String marca) {
+        this.marca = marca;
+    }
+
+    public Integer getAnioDesde() {
+        return anioDesde;
+    }
+
+    public void setAnioDesde(Integer anioDesde) {
+        this.anioDesde = anioDesde;
+    }
+
+    public Integer getAnioHasta() {
+        return anioHasta;
+    }
+
+    public void setAnioHasta(Integer anioHasta) {
+        this.anioHasta = anioHasta;
+    }
+
+    public Cobertura getCobertura() {
+        return cobertura;
+    }
+
+    public void setCobertura(Cobertura cobertura) {
+        this.cobertura = cobertura;
+    }
+
+    public String getAseguradora() {
+        return aseguradora;
+    }
+
+    public void setAseguradora(String aseguradora) {
+        this.aseguradora = aseguradora;
+    }
+
+    public LocalDate getVencimientoDesde() {
+        return vencimientoDesde;
+    }
+
+    public void setVencimientoDesde(LocalDate vencimientoDesde) {
+        this.vencimientoDesde = vencimientoDesde;
+    }
+
+    public LocalDate getVencimientoHasta() {
+        return vencimientoHasta;
+    }
+
+    public void setVencimientoHasta(LocalDate vencimientoHasta) {
+        this.vencimientoHasta = vencimientoHasta;
+    }
+
+    /**
+     * TRUE = solo vehiculos con seguro activo, FALSE = solo sin seguro, null = todos.
+     */
+    public Boolean getConSeguro() {
+        return conSeguro;
+    }
+
+    public void setConSeguro(Boolean conSeguro) {
+        this.conSeguro = conSeguro;
+    }
+
+    public int getLimite() {
+        return limite;
+    }
+
+    public void setLimite(int limite) {
+        this.limite = limite;
+    }
+
+    /**
+     * Si hay algun filtro sobre la poliza (cobertura, aseguradora o vencimiento).
+     * No se pueden combinar con {@code conSeguro = FALSE}: ningun vehiculo sin seguro los cumple.
+     */
+    public boolean tieneFiltrosDePoliza() {
+        return cobertura != null || aseguradora != null || vencimientoDesde != null || vencimientoHasta != null;
+    }
+
+    @Override
+    public String toString() {
+        return "CriteriosBusqueda{" +
+                "marca='" + marca + '\'' +
+                ", anioDesde=" + anioDesde +
+                ", anioHasta=" + anioHasta +
+                ", cobertura=" + cobertura +
+                ", aseguradora='" + aseguradora + '\'' +
+                ", vencimientoDesde=" + vencimientoDesde +
+                ", vencimientoHasta=" + vencimientoHasta +
+                ", conSeguro=" + conSeguro +
+                ", limite=" + limite +
+                '}';
+    }
+}
@@ -0,0 +1,99 @@
+package dao;
+
+import entities.Cobertura;
+
+import java.time.LocalDate;
+
+/**
+ * Que polizas activas se renuevan y como, para la renovacion masiva de seguros.
+ * <ul>
+ *   <li>Filtros (los null no filtran, pero tiene que haber al menos uno): aseguradora,
+ *       cobertura y rango del vencimiento actual.</li>
+ *   <li>Renovacion (exactamente una): fijar un vencimiento nuevo, o correr el actual
+ *       una cantidad de meses.</li>
+ * </ul>
+ */
+public class CriteriosRenovacion {
+
+    /** Maximo de meses que se puede correr un vencimiento de una vez. */
+    public static final int MAX_MESES_EXTENSION = 120;
+
+    private String aseguradora;
+    private Cobertura cobertura;
+    private LocalDate vencimientoDesde;
+    private LocalDate vencimientoHasta;
+    private LocalDate nuevoVencimiento;
+    private Integer mesesExtension;
+
+    /** El vencimiento que queda despues de renovar una poliza que vence en {@code actual}. */
+    public LocalDate vencimientoRenovado(LocalDate actual) {
+        // plusMonths ajusta al ultimo dia del mes igual que DATE_ADD(..., INTERVAL n MONTH) de MySQL
+        return nuevoVencimiento != null ? nuevoVencimiento : actual.plusMonths(mesesExtension);
+    }
+
+    public boolean tieneFiltros() {
+        return aseguradora != null || cobertura != null || vencimientoDesde != null || vencimientoHasta != null;
+    }
+
+    // --- Getters y Setters ---
+
+    public String getAseguradora() {
+        return aseguradora;
+    }
+
+    public void setAseguradora(String aseguradora) {
+        this.aseguradora = aseguradora;
+    }
+
+    public Cobertura getCobertura() {
+        return cobertura;
+    }
+
+    public void setCobertura(Cobertura cobertura) {
+        this.cobertura = cobertura;
+    }
+
+    public LocalDate getVencimientoDesde() {
+        return vencimientoDesde;
+    }
+
+    public void setVencimientoDesde(LocalDate vencimientoDesde) {
+        this.vencimientoDesde = vencimientoDesde;
+    }
+
+    public LocalDate getVencimientoHasta() {
+        return vencimientoHasta;
+    }
+
+    public void setVencimientoHasta(LocalDate vencimientoHasta) {
+        this.vencimientoHasta = vencimientoHasta;
+    }
+
+    public LocalDate getNuevoVencimiento() {
+        return nuevoVencimiento;
+    }
+
+    public void setNuevoVencimiento(LocalDate nuevoVencimiento) {
+        this.nuevoVencimiento = nuevoVencimiento;
+    }
+
+    public Integer getMesesExtension() {
+        return mesesExtension;
+    }
+
+    public void setMesesExtension(Integer mesesExtension) {
+        this.mesesExtension = mesesExtension;
+    }
+
+    @Override
+    public String toString() {
+        return "CriteriosRenovacion{" +
+                "aseguradora='" + aseguradora + '\'' +
+                ", cobertura=" + cobertura +
+                ", vencimientoDesde=" + vencimientoDesde +
+                ", vencimientoHasta=" + vencimientoHasta +
+                ", nuevoVencimiento=" + nuevoVencimiento +
+                ", mesesExtension=" + mesesExtension +
+                '}';
+    }
+}
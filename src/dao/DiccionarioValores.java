@@ -0,0 +1,116 @@
+package dao;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Diccionario concurrente para columnas de baja cardinalidad (marca, modelo, aseguradora).
+ * <p>
+ * Al mapear un ResultSet cada fila trae su propio String, aunque se repitan los mismos
+ * pocos valores en millones de filas. El DAO pasa esos valores por aca y se queda con la
+ * instancia canonica, asi todos los "Toyota" del resultado comparten un unico String.
+ * Ademas cada valor tiene un codigo entero chico y estable (0, 1, 2...) que pueden usar
+ * las estructuras en memoria que prefieren arrays de primitivos.
+ * <p>
+ * Para no crecer sin limite, al llegar a {@code maxValores} deja de incorporar valores
+ * nuevos y los devuelve tal cual (sin canonizar).
+ */
+public final class DiccionarioValores {
+
+    /** Codigo devuelto cuando el valor es null o el diccionario esta lleno. */
+    public static final int SIN_CODIGO = -1;
+
+    public static final DiccionarioValores MARCAS = new DiccionarioValores("marca", 10_000);
+    public static final DiccionarioValores MODELOS = new DiccionarioValores("modelo", 50_000);
+    public static final DiccionarioValores ASEGURADORAS = new DiccionarioValores("aseguradora", 10_000);
+
+    private final String nombre;
+    private final int maxValores;
+    private final ConcurrentHashMap<String, Integer> codigos = new ConcurrentHashMap<>();
+    private volatile String[] valores = new String[64];
+    private volatile int cantidad = 0;
+
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder altas = new LongAdder();
+    private final LongAdder desbordes = new LongAdder();
+
+    public DiccionarioValores(String nombre, int maxValores) {
+        this.nombre = nombre;
+        this.maxValores = maxValores;
+    }
+
+    /**
+     * Devuelve la instancia canonica del valor (la misma para todos los valores iguales).
+     */
+    public String canonico(String valor) {
+        int codigo = codigo(valor);
+        return codigo == SIN_CODIGO ? valor : valores[codigo];
+    }
+
+    /**
+     * Devuelve el codigo del valor, dandolo de alta si es nuevo.
+     * @return El codigo (0..tamanio-1) o {@link #SIN_CODIGO} si es null o no hay lugar.
+     */
+    public int codigo(String valor) {
+        if (valor == null) {
+            return SIN_CODIGO;
+        }
+        Integer codigo = codigos.get(valor);
+        if (codigo != null) {
+            aciertos.increment();
+            return codigo;
+        }
+        return alta(valor);
+    }
+
+    /**
+     * Devuelve el valor de un codigo obtenido con {@link #codigo(String)}.
+     */
+    public String valor(int codigo) {
+        if (codigo < 0 || codigo >= cantidad) {
+            return null;
+        }
+        return valores[codigo];
+    }
+
+    /** Cantidad de valores distintos registrados. */
+    public int tamanio() {
+        return cantidad;
+    }
+
+    /** Porcentaje de busquedas que encontraron el valor ya registrado (una por fila mapeada). */
+    public double tasaAciertos() {
+        long a = aciertos.sum();
+        long total = a + altas.sum() + desbordes.sum();
+        return total == 0 ? 0.0 : (a * 100.0) / total;
+    }
+
+    /** Resumen para mostrar por consola. */
+    public String resumen() {
+        return String.format("%s: %d valores, aciertos %.2f%%%s", nombre, cantidad, tasaAciertos(),
+                desbordes.sum() == 0 ? "" : " (lleno, " + desbordes.sum() + " sin canonizar)");
+    }
+
+    // Las altas se serializan; las lecturas (el caso comun) no bloquean
+    private synchronized int alta(String valor) {
+        Integer existente = codigos.get(valor);
+        if (existente != null) {
+            aciertos.increment();
+            return existente;
+        }
+        if (cantidad >= maxValores) {
+            desbordes.increment();
+            return SIN_CODIGO;
+        }
+        int codigo = cantidad;
+        if (codigo == valores.length) {
+            valores = Arrays.copyOf(valores, valores.length * 2);
+        }
+        valores[codigo] = valor;
+        cantidad = codigo + 1;           // Se publica despues de escribir el valor
+        codigos.put(valor, codigo);
+        altas.increment();
+        return codigo;
+    }
+}
@@ -0,0 +1,245 @@
+package dao;
+
+import config.DatabaseConnection;
+import config.Plazos;
+import config.TipoOperacion;
+import entities.Cobertura;
+import entities.SeguroVehicular;
+import entities.Vehiculo;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Acceso a las tablas historicas (vehiculo_hist, segurovehicular_hist).
+ * <p>
+ * El archivado mueve filas dadas de baja logica fuera de las tablas activas:
+ * INSERT ... SELECT hacia la tabla historica y DELETE de la original, dentro de la misma
+ * transaccion y por chunks de IDs ya bloqueados. Asi los indices y el buffer pool de las
+ * tablas activas solo contienen filas vivas (y las bajas recientes, dentro de la retencion).
+ * <p>
+ * Las lecturas del historico son a pedido y usan su propia conexion.
+ */
+public class HistoricoDAO {
+
+    // --- SELECCION DE CANDIDATOS (indice (eliminado, fechaBaja)) ---
+    // Igual que la baja de vencidos: las filas archivadas salen de la tabla, asi que cada chunk
+    // vuelve a empezar desde el principio del indice. FOR UPDATE bloquea solo el chunk.
+    private static final String SELECT_IDS_SEGUROS_SQL =
+        "SELECT id FROM segurovehicular WHERE eliminado = TRUE AND fechaBaja < ? ORDER BY fechaBaja, id LIMIT ? FOR UPDATE";
+    private static final String SELECT_IDS_VEHICULOS_SQL =
+        "SELECT id FROM vehiculo WHERE eliminado = TRUE AND fechaBaja < ? ORDER BY fechaBaja, id LIMIT ? FOR UPDATE";
+
+    // --- MOVIMIENTO A HISTORICO ---
+    private static final String COPIAR_SEGUROS_PREFIJO =
+        "INSERT INTO segurovehicular_hist (id, aseguradora, nroPoliza, cobertura, vencimiento, idVehiculo, fechaBaja, fechaArchivo) "
+        + "SELECT id, aseguradora, nroPoliza, cobertura, vencimiento, idVehiculo, fechaBaja, NOW() FROM segurovehicular WHERE id IN (";
+    private static final String BORRAR_SEGUROS_PREFIJO =
+        "DELETE FROM segurovehicular WHERE id IN (";
+
+    // El seguro de un vehiculo archivado se archiva con el (la FK lo borraria en cascada)
+    private static final String COPIAR_SEGUROS_DE_VEHICULOS_PREFIJO =
+        "INSERT INTO segurovehicular_hist (id, aseguradora, nroPoliza, cobertura, vencimiento, idVehiculo, fechaBaja, fechaArchivo) "
+        + "SELECT s.id, s.aseguradora, s.nroPoliza, s.cobertura, s.vencimiento, s.idVehiculo, COALESCE(s.fechaBaja, v.fechaBaja), NOW() "
+        + "FROM segurovehicular s JOIN vehiculo v ON v.id = s.idVehiculo WHERE s.idVehiculo IN (";
+    private static final String BORRAR_SEGUROS_DE_VEHICULOS_PREFIJO =
+        "DELETE FROM segurovehicular WHERE idVehiculo IN (";
+
+    private static final String COPIAR_VEHICULOS_PREFIJO =
+        "INSERT INTO vehiculo_hist (id, dominio, marca, modelo, anio, nroChasis, fechaBaja, fechaArchivo) "
+        + "SELECT id, dominio, marca, modelo, anio, nroChasis, fechaBaja, NOW() FROM vehiculo WHERE id IN (";
+    private static final String BORRAR_VEHICULOS_PREFIJO =
+        "DELETE FROM vehiculo WHERE id IN (";
+
+    // --- CONSULTAS DEL HISTORICO ---
+    private static final String SELECT_VEHICULOS_POR_DOMINIO_SQL =
+        "SELECT * FROM vehiculo_hist WHERE dominio = ? ORDER BY fechaArchivo DESC, idHist DESC";
+    private static final String SELECT_SEGUROS_POR_VEHICULO_SQL =
+        "SELECT * FROM segurovehicular_hist WHERE idVehiculo = ? ORDER BY fechaArchivo DESC, idHist DESC";
+    private static final String SELECT_SEGUROS_POR_POLIZA_SQL =
+        "SELECT * FROM segurovehicular_hist WHERE nroPoliza = ? ORDER BY fechaArchivo DESC, idHist DESC";
+
+    // ============================================================
+    // ARCHIVADO (metodos transaccionales, reciben la Connection)
+    // ============================================================
+
+    /**
+     * Busca (y bloquea) hasta {@code limite} seguros dados de baja antes de {@code corte}.
+     */
+    public List<Long> buscarIdsSegurosArchivablesTx(LocalDateTime corte, int limite, Connection conn) throws SQLException {
+        return buscarIds(SELECT_IDS_SEGUROS_SQL, corte, limite, conn);
+    }
+
+    /**
+     * Busca (y bloquea) hasta {@code limite} vehiculos dados de baja antes de {@code corte}.
+     */
+    public List<Long> buscarIdsVehiculosArchivablesTx(LocalDateTime corte, int limite, Connection conn) throws SQLException {
+        return buscarIds(SELECT_IDS_VEHICULOS_SQL, corte, limite, conn);
+    }
+
+    /**
+     * Copia los seguros indicados a segurovehicular_hist y los borra de la tabla activa.
+     * @return La cantidad de seguros archivados.
+     */
+    public int archivarSegurosTx(List<Long> ids, Connection conn) throws SQLException {
+        return mover(COPIAR_SEGUROS_PREFIJO, BORRAR_SEGUROS_PREFIJO, ids, conn);
+    }
+
+    /**
+     * Copia a segurovehicular_hist los seguros (activos o no) de los vehiculos indicados
+     * y los borra. Debe llamarse antes de {@link #archivarVehiculosTx(List, Connection)}.
+     * @return La cantidad de seguros archivados.
+     */
+    public int archivarSegurosDeVehiculosTx(List<Long> idsVehiculos, Connection conn) throws SQLException {
+        return mover(COPIAR_SEGUROS_DE_VEHICULOS_PREFIJO, BORRAR_SEGUROS_DE_VEHICULOS_PREFIJO, idsVehiculos, conn);
+    }
+
+    /**
+     * Copia los vehiculos indicados a vehiculo_hist y los borra de la tabla activa.
+     * @return La cantidad de vehiculos archivados.
+     */
+    public int archivarVehiculosTx(List<Long> ids, Connection conn) throws SQLException {
+        return mover(COPIAR_VEHICULOS_PREFIJO, BORRAR_VEHICULOS_PREFIJO, ids, conn);
+    }
+
+    // ============================================================
+    // CONSULTAS DEL HISTORICO (no transaccionales)
+    // ============================================================
+
+    /** Versiones archivadas de un dominio, de la mas reciente a la mas vieja. */
+    public List<RegistroHistorico<Vehiculo>> buscarVehiculosPorDominio(String dominio) throws Exception {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return buscarVehiculosPorDominioTx(dominio, conn);
+        }
+    }
+
+    /** Igual que {@link #buscarVehiculosPorDominio(String)}, dentro de una transaccion activa. */
+    public List<RegistroHistorico<Vehiculo>> buscarVehiculosPorDominioTx(String dominio, Connection conn) throws SQLException {
+        List<RegistroHistorico<Vehiculo>> registros = new ArrayList<>();
+        try (PreparedStatement stmt = Plazos.preparar(conn, SELECT_VEHICULOS_POR_DOMINIO_SQL, TipoOperacion.LECTURA)) {
+            stmt.setString(1, dominio);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    registros.add(new RegistroHistorico<>(mapearVehiculo(rs), fecha(rs, "fechaBaja"), fecha(rs, "fechaArchivo")));
+                }
+            }
+        }
+        return registros;
+    }
+
+    /** Seguros archivados de un vehiculo (por su ID original). */
+    public List<RegistroHistorico<SeguroVehicular>> buscarSegurosPorVehiculo(long idVehiculo) throws Exception {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return buscarSegurosPorVehiculoTx(idVehiculo, conn);
+        }
+    }
+
+    /** Igual que {@link #buscarSegurosPorVehiculo(long)}, dentro de una transaccion activa. */
+    public List<RegistroHistorico<SeguroVehicular>> buscarSegurosPorVehiculoTx(long idVehiculo, Connection conn) throws SQLException {
+        List<RegistroHistorico<SeguroVehicular>> registros = new ArrayList<>();
+        try (PreparedStatement stmt = Plazos.preparar(conn, SELECT_SEGUROS_POR_VEHICULO_SQL, TipoOperacion.LECTURA)) {
+            stmt.setLong(1, idVehiculo);
+            leerSeguros(stmt, registros);
+        }
+        return registros;
+    }
+
+    /** Versiones archivadas de una poliza. */
+    public List<RegistroHistorico<SeguroVehicular>> buscarSegurosPorPoliza(String nroPoliza) throws Exception {
+        List<RegistroHistorico<SeguroVehicular>> registros = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = Plazos.preparar(conn, SELECT_SEGUROS_POR_POLIZA_SQL, TipoOperacion.LECTURA)) {
+            stmt.setString(1, nroPoliza);
+            leerSeguros(stmt, registros);
+        }
+        return registros;
+    }
+
+    // ============================================================
+    // AUXILIARES
+    // ============================================================
+
+    private List<Long> buscarIds(String sql, LocalDateTime corte, int limite, Connection conn) throws SQLException {
+        try (PreparedStatement stmt = Plazos.preparar(conn, sql, TipoOperacion.ESCRITURA)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(corte));
+            stmt.setInt(2, limite);
+            try (ResultSet rs = stmt.executeQuery()) {
+                List<Long> ids = new ArrayList<>(limite);
+                while (rs.next()) {
+                    ids.add(rs.getLong(1));
+                }
+                return ids;
+            }
+        }
+    }
+
+    // Copia y borra el mismo conjunto de IDs (las filas ya estan bloqueadas por el SELECT ... FOR UPDATE)
+    private int mover(String prefijoCopia, String prefijoBorrado, List<Long> ids, Connection conn) throws SQLException {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String parametros = ConsultasIn.parametros(ids.size()) + ")";
+        int copiadas;
+        try (PreparedStatement stmt = Plazos.preparar(conn, prefijoCopia + parametros, TipoOperacion.ESCRITURA)) {
+            enlazarIds(stmt, ids);
+            copiadas = stmt.executeUpdate();
+        }
+        try (PreparedStatement stmt = Plazos.preparar(conn, prefijoBorrado + parametros, TipoOperacion.ESCRITURA)) {
+            enlazarIds(stmt, ids);
+            int borradas = stmt.executeUpdate();
+            if (borradas != copiadas) {
+                // No deberia pasar: se hace rollback antes de perder filas
+                throw new SQLException("El archivado copio " + copiadas + " filas pero borro " + borradas + ".");
+            }
+            return borradas;
+        }
+    }
+
+    private static void enlazarIds(PreparedStatement stmt, List<Long> ids) throws SQLException {
+        int i = 1;
+        for (Long id : ids) {
+            stmt.setLong(i++, id);
+        }
+    }
+
+    private void leerSeguros(PreparedStatement stmt, List<RegistroHistorico<SeguroVehicular>> registros) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                registros.add(new RegistroHistorico<>(mapearSeguro(rs), fecha(rs, "fechaBaja"), fecha(rs, "fechaArchivo")));
+            }
+        }
+    }
+
+    private static LocalDateTime fecha(ResultSet rs, String columna) throws SQLException {
+        Timestamp ts = rs.getTimestamp(columna);
+        return ts == null ? null : ts.toLocalDateTime();
+    }
+
+    private Vehiculo mapearVehiculo(ResultSet rs) throws SQLException {
+        Vehiculo vehiculo = new Vehiculo();
+        vehiculo.setId(rs.getLong("id"));
+        vehiculo.setEliminado(true);
+        vehiculo.setDominio(rs.getString("dominio"));
+        vehiculo.setMarca(DiccionarioValores.MARCAS.canonico(rs.getString("marca")));
+        vehiculo.setModelo(DiccionarioValores.MODELOS.canonico(rs.getString("modelo")));
+        vehiculo.setAnio(rs.getInt("anio"));
+        vehiculo.setNroChasis(rs.getString("nroChasis"));
+        return vehiculo;
+    }
+
+    private SeguroVehicular mapearSeguro(ResultSet rs) throws SQLException {
+        SeguroVehicular seguro = new SeguroVehicular();
+        seguro.setId(rs.getLong("id"));
+        seguro.setEliminado(true);
+        seguro.setAseguradora(DiccionarioValores.ASEGURADORAS.canonico(rs.getString("aseguradora")));
+        seguro.setNroPoliza(rs.getString("nroPoliza"));
+        seguro.setCobertura(Cobertura.valueOf(rs.getString("cobertura")));
+        Date vencimientoDate = rs.getDate("vencimiento");
+        if (vencimientoDate != null) {
+            seguro.setVencimiento(vencimientoDate.toLocalDate());
+        }
+        return seguro;
+    }
+}
@@ -0,0 +1,42 @@
+package dao;
+
+import entities.SeguroVehicular;
+
+/**
+ * Una fila del padron de polizas que envia una aseguradora: la poliza con sus datos
+ * y el dominio del vehiculo al que corresponde.
+ */
+public class NovedadPoliza {
+
+    private final int linea;
+    private final String dominio;
+    private final SeguroVehicular seguro;
+
+    /**
+     * @param linea Numero de linea en el archivo de origen (para el informe).
+     * @param dominio Dominio del vehiculo asegurado.
+     * @param seguro Los datos de la poliza (sin ID).
+     */
+    public NovedadPoliza(int linea, String dominio, SeguroVehicular seguro) {
+        this.linea = linea;
+        this.dominio = dominio;
+        this.seguro = seguro;
+    }
+
+    public int getLinea() {
+        return linea;
+    }
+
+    public String getDominio() {
+        return dominio;
+    }
+
+    public SeguroVehicular getSeguro() {
+        return seguro;
+    }
+
+    @Override
+    public String toString() {
+        return "linea " + linea + " (" + seguro.getNroPoliza() + " / " + dominio + ")";
+    }
+}
@@ -0,0 +1,36 @@
+package dao;
+
+import entities.SeguroVehicular;
+
+/**
+ * Poliza activa leida junto con el vehiculo al que pertenece (la entidad no tiene la FK).
+ */
+public class PolizaVigente {
+
+    private final SeguroVehicular seguro;
+    private final long idVehiculo;
+    private final String dominio;
+
+    public PolizaVigente(SeguroVehicular seguro, long idVehiculo, String dominio) {
+        this.seguro = seguro;
+        this.idVehiculo = idVehiculo;
+        this.dominio = dominio;
+    }
+
+    public SeguroVehicular getSeguro() {
+        return seguro;
+    }
+
+    public long getIdVehiculo() {
+        return idVehiculo;
+    }
+
+    public String getDominio() {
+        return dominio;
+    }
+
+    @Override
+    public String toString() {
+        return seguro.getNroPoliza() + " / " + dominio;
+    }
+}
@@ -0,0 +1,41 @@
+package dao;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fila leida de una tabla historica: la entidad tal como estaba al archivarse,
+ * junto con el momento de su baja logica y el de su archivado.
+ *
+ * @param <T> La entidad archivada (Vehiculo o SeguroVehicular).
+ */
+public class RegistroHistorico<T> {
+
+    private final T entidad;
+    private final LocalDateTime fechaBaja;
+    private final LocalDateTime fechaArchivo;
+
+    public RegistroHistorico(T entidad, LocalDateTime fechaBaja, LocalDateTime fechaArchivo) {
+        this.entidad = entidad;
+        this.fechaBaja = fechaBaja;
+        this.fechaArchivo = fechaArchivo;
+    }
+
+    public T getEntidad() {
+        return entidad;
+    }
+
+    /** Momento de la baja logica (null si la fila se dio de baja antes de registrarse la fecha). */
+    public LocalDateTime getFechaBaja() {
+        return fechaBaja;
+    }
+
+    public LocalDateTime getFechaArchivo() {
+        return fechaArchivo;
+    }
+
+    @Override
+    public String toString() {
+        return entidad + " [baja: " + (fechaBaja == null ? "-" : fechaBaja.withNano(0))
+                + ", archivado: " + fechaArchivo.withNano(0) + "]";
+    }
+}
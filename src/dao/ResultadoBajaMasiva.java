@@ -0,0 +1,71 @@
+package dao;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Resultado clave por clave (ID o dominio) de una baja logica masiva de vehiculos.
+ *
+ * @param <K> El tipo de clave pedida.
+ */
+public class ResultadoBajaMasiva<K> {
+
+    public enum Desenlace { DADO_DE_BAJA, NO_ENCONTRADO, NO_PROCESADO }
+
+    private final Map<K, Desenlace> desenlaces = new LinkedHashMap<>();
+    private final Map<Desenlace, Integer> cantidades = new EnumMap<>(Desenlace.class);
+    private int segurosDadosDeBaja;
+    private String error;
+
+    public ResultadoBajaMasiva() {
+        for (Desenlace d : Desenlace.values()) {
+            cantidades.put(d, 0);
+        }
+    }
+
+    public void registrar(K clave, Desenlace desenlace) {
+        Desenlace previo = desenlaces.put(clave, desenlace);
+        if (previo != null) {
+            cantidades.merge(previo, -1, Integer::sum);
+        }
+        cantidades.merge(desenlace, 1, Integer::sum);
+    }
+
+    public void sumarSeguros(int cantidad) {
+        segurosDadosDeBaja += cantidad;
+    }
+
+    /** Anota el error que corto el proceso (las claves que faltaban quedan NO_PROCESADO). */
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    /** El desenlace de cada clave, en el orden de entrada (sin repetidas). */
+    public Map<K, Desenlace> getDesenlaces() {
+        return Collections.unmodifiableMap(desenlaces);
+    }
+
+    public int cantidad(Desenlace desenlace) {
+        return cantidades.get(desenlace);
+    }
+
+    public int getSegurosDadosDeBaja() {
+        return segurosDadosDeBaja;
+    }
+
+    /** El error que corto el proceso, o null si se proceso todo. */
+    public String getError() {
+        return error;
+    }
+
+    /** Resumen de una linea para mostrar por consola. */
+    public String resumen() {
+        return "Claves: " + desenlaces.size()
+                + " | Dados de baja: " + cantidad(Desenlace.DADO_DE_BAJA) + " vehiculos, " + segurosDadosDeBaja + " seguros"
+                + " | No encontrados: " + cantidad(Desenlace.NO_ENCONTRADO)
+                + (cantidad(Desenlace.NO_PROCESADO) == 0 ? "" : " | No procesados: " + cantidad(Desenlace.NO_PROCESADO))
+                + (error == null ? "" : " | Error: " + error);
+    }
+}
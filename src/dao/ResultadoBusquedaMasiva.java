@@ -0,0 +1,61 @@
+package dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resultado de una busqueda masiva por claves (IDs, dominios, polizas).
+ * Conserva el orden de las claves de entrada (sin repetidas) e informa las que no se encontraron.
+ *
+ * @param <K> El tipo de clave buscada.
+ * @param <T> El tipo de entidad encontrada.
+ */
+public class ResultadoBusquedaMasiva<K, T> {
+
+    private final Map<K, T> encontrados;
+    private final List<K> faltantes;
+
+    /**
+     * @param claves Las claves pedidas, ya normalizadas y sin repetidas, en el orden de entrada.
+     * @param porClave Las entidades encontradas indexadas por clave.
+     */
+    public ResultadoBusquedaMasiva(List<K> claves, Map<K, T> porClave) {
+        this.encontrados = new LinkedHashMap<>();
+        this.faltantes = new ArrayList<>();
+        for (K clave : claves) {
+            T entidad = porClave.get(clave);
+            if (entidad != null) {
+                encontrados.put(clave, entidad);
+            } else {
+                faltantes.add(clave);
+            }
+        }
+    }
+
+    /** Las entidades encontradas, en el orden de las claves de entrada. */
+    public List<T> getEncontrados() {
+        return new ArrayList<>(encontrados.values());
+    }
+
+    /** Las claves que no corresponden a ninguna entidad activa, en el orden de entrada. */
+    public List<K> getFaltantes() {
+        return Collections.unmodifiableList(faltantes);
+    }
+
+    /** La entidad de una clave, o null si no se encontro. */
+    public T get(K clave) {
+        return encontrados.get(clave);
+    }
+
+    public int cantidadEncontrados() {
+        return encontrados.size();
+    }
+
+    /** Cantidad de claves distintas consultadas (encontradas mas faltantes). */
+    public int cantidadConsultadas() {
+        return encontrados.size() + faltantes.size();
+    }
+}
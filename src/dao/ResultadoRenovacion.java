@@ -0,0 +1,59 @@
+package dao;
+
+/**
+ * Cantidades de una renovacion masiva de polizas.
+ */
+public class ResultadoRenovacion {
+
+    private int encontradas;
+    private int renovadas;
+    private int omitidasPorFecha;
+    private int chunks;
+    private String error;
+
+    /** Suma lo hecho en un chunk ya confirmado. */
+    public void sumarChunk(int encontradas, int renovadas, int omitidasPorFecha) {
+        this.encontradas += encontradas;
+        this.renovadas += renovadas;
+        this.omitidasPorFecha += omitidasPorFecha;
+        this.chunks++;
+    }
+
+    /** Anota el error que corto el proceso (lo confirmado en chunks anteriores queda). */
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    /** Polizas activas que cumplian los filtros (en los chunks confirmados). */
+    public int getEncontradas() {
+        return encontradas;
+    }
+
+    /** Filas efectivamente actualizadas. */
+    public int getRenovadas() {
+        return renovadas;
+    }
+
+    /** Polizas que no se tocaron porque el vencimiento renovado no seria una fecha futura. */
+    public int getOmitidasPorFecha() {
+        return omitidasPorFecha;
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+
+    /** El error que corto el proceso, o null si se proceso todo. */
+    public String getError() {
+        return error;
+    }
+
+    /** Resumen de una linea para mostrar por consola. */
+    public String resumen() {
+        return "Encontradas: " + encontradas
+                + " | Renovadas: " + renovadas
+                + " | Omitidas (vencimiento no futuro): " + omitidasPorFecha
+                + " | Chunks: " + chunks
+                + (error == null ? "" : " | Error: " + error);
+    }
+}
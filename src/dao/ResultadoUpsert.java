@@ -0,0 +1,101 @@
+package dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resultado fila por fila de un upsert masivo de polizas.
+ */
+public class ResultadoUpsert {
+
+    public enum Desenlace { INSERTADA, ACTUALIZADA, SIN_CAMBIOS, RECHAZADA }
+
+    /** El desenlace de una fila (con el motivo si fue rechazada). */
+    public static final class Fila {
+
+        private final NovedadPoliza novedad;
+        private final Desenlace desenlace;
+        private final String motivo;
+        private final long idVehiculo;
+
+        Fila(NovedadPoliza novedad, Desenlace desenlace, String motivo, long idVehiculo) {
+            this.novedad = novedad;
+            this.desenlace = desenlace;
+            this.motivo = motivo;
+            this.idVehiculo = idVehiculo;
+        }
+
+        public NovedadPoliza getNovedad() {
+            return novedad;
+        }
+
+        public Desenlace getDesenlace() {
+            return desenlace;
+        }
+
+        /** Motivo del rechazo (null si no fue rechazada). */
+        public String getMotivo() {
+            return motivo;
+        }
+
+        /** Vehiculo al que quedo asociada la poliza (0 si fue rechazada). */
+        public long getIdVehiculo() {
+            return idVehiculo;
+        }
+
+        @Override
+        public String toString() {
+            return novedad + ": " + desenlace + (motivo == null ? "" : " - " + motivo);
+        }
+    }
+
+    private final List<Fila> filas = new ArrayList<>();
+    private final Map<Desenlace, Integer> cantidades = new EnumMap<>(Desenlace.class);
+
+    public ResultadoUpsert() {
+        for (Desenlace d : Desenlace.values()) {
+            cantidades.put(d, 0);
+        }
+    }
+
+    public void registrar(NovedadPoliza novedad, Desenlace desenlace, long idVehiculo) {
+        agregar(new Fila(novedad, desenlace, null, idVehiculo));
+    }
+
+    public void rechazar(NovedadPoliza novedad, String motivo) {
+        agregar(new Fila(novedad, Desenlace.RECHAZADA, motivo, 0));
+    }
+
+    /** Agrega las filas de otro resultado (ej. el de un chunk ya confirmado). */
+    public void agregarTodo(ResultadoUpsert otro) {
+        for (Fila fila : otro.filas) {
+            agregar(fila);
+        }
+    }
+
+    private void agregar(Fila fila) {
+        filas.add(fila);
+        cantidades.merge(fila.desenlace, 1, Integer::sum);
+    }
+
+    /** Todas las filas, en el orden en que se resolvieron. */
+    public List<Fila> getFilas() {
+        return Collections.unmodifiableList(filas);
+    }
+
+    public int cantidad(Desenlace desenlace) {
+        return cantidades.get(desenlace);
+    }
+
+    /** Resumen de una linea para mostrar por consola. */
+    public String resumen() {
+        return "Filas: " + filas.size()
+                + " | Insertadas: " + cantidad(Desenlace.INSERTADA)
+                + " | Actualizadas: " + cantidad(Desenlace.ACTUALIZADA)
+                + " | Sin cambios: " + cantidad(Desenlace.SIN_CAMBIOS)
+                + " | Rechazadas: " + cantidad(Desenlace.RECHAZADA);
+    }
+}
@@ -2,23 +2,41 @@ package dao;
 
 import entities.SeguroVehicular;
 import entities.Cobertura;
+import entities.Vehiculo;
 import config.DatabaseConnection;
+import config.Plazos;
+import config.TipoOperacion;
+import config.TransactionManager;
+import config.UnidadDeTrabajo;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
 public class SeguroVehicularDAO implements GenericDAO<SeguroVehicular> {
     
     private static final String INSERT_SQL = 
         "INSERT INTO segurovehicular (aseguradora, nroPoliza, cobertura, vencimiento, idVehiculo) VALUES (?, ?, ?, ?, ?)";
     
-    private static final String UPDATE_SQL = 
-        "UPDATE segurovehicular SET aseguradora = ?, nroPoliza = ?, cobertura = ?, vencimiento = ? WHERE id = ?";
+    // UPDATE parcial: solo las columnas modificadas (el SQL de cada forma queda cacheado)
+    private static final UpdateParcial UPDATE_PARCIAL =
+        new UpdateParcial("segurovehicular", "aseguradora", "nroPoliza", "cobertura", "vencimiento");
+
+    // Actualizacion sin cambios: solo se comprueba (y bloquea) que la fila siga activa
+    private static final String SELECT_ACTIVO_PARA_ACTUALIZAR_SQL =
+        "SELECT id FROM segurovehicular WHERE id = ? AND eliminado = FALSE FOR UPDATE";
     
     private static final String DELETE_SQL = 
-        "UPDATE segurovehicular SET eliminado = TRUE WHERE id = ?";
+        "UPDATE segurovehicular SET eliminado = TRUE, fechaBaja = NOW() WHERE id = ? AND eliminado = FALSE";
     
     private static final String SELECT_BY_ID_SQL = 
         "SELECT * FROM segurovehicular WHERE id = ? AND eliminado = FALSE";
@@ -28,6 +46,102 @@ public class SeguroVehicularDAO implements GenericDAO<SeguroVehicular> {
     
     private static final String SELECT_BY_POLIZA_SQL = 
         "SELECT * FROM segurovehicular WHERE nroPoliza = ? AND eliminado = FALSE";
+
+    // Paginacion por clave (keyset), igual que en VehiculoDAO
+    private static final String SELECT_PAGINA_SQL =
+        "SELECT * FROM segurovehicular WHERE eliminado = FALSE AND id > ? ORDER BY id LIMIT ?";
+
+    // Busquedas masivas: se completan con "(?, ?, ...)" del tamanio de cada chunk
+    private static final String SELECT_BY_IDS_PREFIJO =
+        "SELECT * FROM segurovehicular WHERE eliminado = FALSE AND id IN (";
+
+    private static final String SELECT_BY_POLIZAS_PREFIJO =
+        "SELECT * FROM segurovehicular WHERE eliminado = FALSE AND nroPoliza IN (";
+
+    // Las que usan las opciones del menu (las prepara el precalentamiento al iniciar)
+    private static final String[] SENTENCIAS_FRECUENTES = {
+        INSERT_SQL, DELETE_SQL, SELECT_BY_ID_SQL, SELECT_ALL_SQL, SELECT_BY_POLIZA_SQL, SELECT_PAGINA_SQL
+    };
+
+    // Recorre el indice (eliminado, vencimiento): las filas que se van dando de baja salen del rango,
+    // asi que cada chunk vuelve a empezar desde el principio del indice sin necesidad de cursor.
+    // FOR UPDATE bloquea solo las filas del chunk hasta el commit (transaccion corta).
+    private static final String SELECT_IDS_VENCIDOS_SQL =
+        "SELECT id FROM segurovehicular WHERE eliminado = FALSE AND vencimiento < ? ORDER BY vencimiento, id LIMIT ? FOR UPDATE";
+
+    // Se re-verifica la condicion por si alguien renovo la poliza entre el SELECT y el UPDATE
+    private static final String DELETE_VENCIDOS_SQL_PREFIJO =
+        "UPDATE segurovehicular SET eliminado = TRUE, fechaBaja = NOW() WHERE eliminado = FALSE AND vencimiento < ? AND id IN (";
+    
+    // --- UPSERT MASIVO (padron de polizas de una aseguradora) ---
+
+    /** Filas por sentencia (y por transaccion) en el upsert masivo. */
+    public static final int TAMANIO_CHUNK_UPSERT = 500;
+
+    // FOR UPDATE: un vehiculo no puede darse de baja entre la clasificacion y el upsert
+    private static final String SELECT_IDS_VEHICULOS_POR_DOMINIO_PREFIJO =
+        "SELECT id, dominio FROM vehiculo WHERE eliminado = FALSE AND dominio IN (";
+
+    // Incluye las dadas de baja: nroPoliza es UNIQUE tambien para ellas. FOR UPDATE bloquea las
+    // existentes hasta el commit, asi la clasificacion previa sigue valiendo al hacer el upsert.
+    private static final String SELECT_POR_POLIZAS_PREFIJO =
+        "SELECT id, nroPoliza, aseguradora, cobertura, vencimiento, eliminado, idVehiculo FROM segurovehicular WHERE nroPoliza IN (";
+
+    // idVehiculo tambien es UNIQUE (incluidas las bajas): un vehiculo no puede recibir una segunda poliza.
+    // FOR UPDATE bloquea esas filas (y el hueco del indice) hasta el commit, como con las polizas.
+    private static final String SELECT_POLIZAS_POR_VEHICULOS_PREFIJO =
+        "SELECT idVehiculo, nroPoliza FROM segurovehicular WHERE idVehiculo IN (";
+
+    private static final String SELECT_IDS_POR_POLIZAS_PREFIJO =
+        "SELECT id, nroPoliza FROM segurovehicular WHERE nroPoliza IN (";
+
+    private static final String UPSERT_SQL_PREFIJO =
+        "INSERT INTO segurovehicular (aseguradora, nroPoliza, cobertura, vencimiento, idVehiculo) VALUES ";
+
+    // Solo se actualizan los datos de la poliza: nunca cambia de vehiculo.
+    // Alias de fila (MySQL 8.0.19+) en lugar de VALUES(col), que esta deprecado
+    private static final String UPSERT_SQL_SUFIJO =
+        " AS nuevo ON DUPLICATE KEY UPDATE aseguradora = nuevo.aseguradora, cobertura = nuevo.cobertura, vencimiento = nuevo.vencimiento";
+    
+    // --- CONCILIACION (padron ordenado contra la base) ---
+
+    // Orden binario: el mismo que String.compareTo en Java (la collation por defecto ignora
+    // mayusculas y acentos y ordenaria distinto que el archivo)
+    private static final String SELECT_VIGENTES_POR_POLIZA_SQL =
+        "SELECT s.id, s.nroPoliza, s.aseguradora, s.cobertura, s.vencimiento, s.eliminado, s.idVehiculo, v.dominio " +
+        "FROM segurovehicular s JOIN vehiculo v ON v.id = s.idVehiculo " +
+        "WHERE s.eliminado = FALSE AND s.aseguradora = ? ORDER BY CAST(s.nroPoliza AS BINARY)";
+
+    private static final String SELECT_ID_VEHICULO_POR_DOMINIO_SQL =
+        "SELECT id FROM vehiculo WHERE dominio = ? AND eliminado = FALSE";
+
+    private static final String MOVER_SQL =
+        "UPDATE segurovehicular SET idVehiculo = ?, aseguradora = ?, cobertura = ?, vencimiento = ? WHERE id = ? AND eliminado = FALSE";
+
+    // Puesta al dia de la instantanea: polizas cambiadas (o dadas de baja, o pasadas a otro vehiculo)
+    private static final String SELECT_IDS_CAMBIADOS_DESDE_SQL =
+        "SELECT id FROM segurovehicular WHERE actualizado >= ?";
+
+    // --- RENOVACION MASIVA ---
+
+    /** Polizas por chunk (y por transaccion) en la renovacion masiva. */
+    public static final int TAMANIO_CHUNK_RENOVACION = 500;
+
+    // Se avanza por id (keyset): las polizas renovadas pueden seguir dentro del rango de vencimiento,
+    // asi que no alcanza con volver a empezar como en la baja de vencidos. Este SELECT no bloquea:
+    // con FOR UPDATE, InnoDB bloquearia cada fila que recorre por la PK, cumpla o no los filtros
+    private static final String SELECT_IDS_PARA_RENOVAR_BASE =
+        "SELECT id FROM segurovehicular WHERE eliminado = FALSE AND id > ?";
+
+    // Despues se bloquean solo los candidatos, por PK, y se vuelven a comprobar los filtros
+    private static final String SELECT_PARA_RENOVAR_PREFIJO =
+        "SELECT * FROM segurovehicular WHERE eliminado = FALSE AND id IN (";
+
+    private static final String RENOVAR_FIJO_SQL_PREFIJO =
+        "UPDATE segurovehicular SET vencimiento = ? WHERE eliminado = FALSE AND id IN (";
+
+    private static final String RENOVAR_EXTENSION_SQL_PREFIJO =
+        "UPDATE segurovehicular SET vencimiento = DATE_ADD(vencimiento, INTERVAL ? MONTH) WHERE eliminado = FALSE AND id IN (";
     
     // --- MÉTODOS DEL CRUD NO TRANSACCIONAL (Manejan su propia Connection) ---
 
@@ -63,8 +177,12 @@ public class SeguroVehicularDAO implements GenericDAO<SeguroVehicular> {
 
     @Override
     public SeguroVehicular getById(int id) throws Exception {
+        SeguroVehicular leido = UnidadDeTrabajo.buscar(SeguroVehicular.class, id);
+        if (leido != null) {
+            return leido; // Ya se leyo en esta unidad de trabajo
+        }
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(SELECT_BY_ID_SQL)) {
+             PreparedStatement stmt = Plazos.preparar(conn, SELECT_BY_ID_SQL, TipoOperacion.LECTURA)) {
             stmt.setInt(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
                 return rs.next() ? mapearResultSetASeguro(rs) : null;
@@ -75,7 +193,7 @@ public class SeguroVehicularDAO implements GenericDAO<SeguroVehicular> {
     @Override
     public List<SeguroVehicular> getAll() throws Exception {
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(SELECT_ALL_SQL);
+             PreparedStatement stmt = Plazos.preparar(conn, SELECT_ALL_SQL, TipoOperacion.LECTURA);
              ResultSet rs = stmt.executeQuery()) {
             
             List<SeguroVehicular> seguros = new ArrayList<>();
@@ -85,22 +203,73 @@ public class SeguroVehicularDAO implements GenericDAO<SeguroVehicular> {
             return seguros;
         }
     }
+
+    /**
+     * Obtiene una pagina de seguros activos ordenados por ID.
+     * @param despuesDeId El ultimo ID de la pagina anterior (0 para la primera pagina).
+     * @param tamanio Cantidad maxima de seguros de la pagina.
+     * @return La pagina (vacia si no hay mas seguros).
+     * @throws Exception Si falla la conexión o la consulta.
+     */
+    public List<SeguroVehicular> getPagina(long despuesDeId, int tamanio) throws Exception {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = Plazos.preparar(conn, SELECT_PAGINA_SQL, TipoOperacion.LECTURA)) {
+            stmt.setLong(1, despuesDeId);
+            stmt.setInt(2, tamanio);
+            try (ResultSet rs = stmt.executeQuery()) {
+                List<SeguroVehicular> seguros = new ArrayList<>(tamanio);
+                while (rs.next()) {
+                    seguros.add(mapearResultSetASeguro(rs));
+                }
+                return seguros;
+            }
+        }
+    }
     
     @Override
     public SeguroVehicular buscarPorCampoClave(String valor, Connection conn) throws Exception {
-        Connection usedConn = (conn != null) ? conn : DatabaseConnection.getConnection();
-        try (PreparedStatement stmt = usedConn.prepareStatement(SELECT_BY_POLIZA_SQL)) {
+        if (conn == null) {
+            // Sin transaccion: conexion propia, cerrada por el try-with-resources
+            try (Connection propia = DatabaseConnection.getConnection()) {
+                return buscarPorCampoClave(valor, propia);
+            }
+        }
+        try (PreparedStatement stmt = Plazos.preparar(conn, SELECT_BY_POLIZA_SQL, TipoOperacion.LECTURA)) {
             stmt.setString(1, valor.toUpperCase());
             try (ResultSet rs = stmt.executeQuery()) {
                 return rs.next() ? mapearResultSetASeguro(rs) : null;
             }
-        } finally {
-            if (conn == null && usedConn != null) {
-                usedConn.close();
-            }
         }
     }
     
+    /**
+     * Busca muchos seguros activos por ID usando una sola conexion y consultas
+     * {@code IN (...)} de a {@link ConsultasIn#TAMANIO_CHUNK} claves.
+     * @param ids Los IDs a buscar (se ignoran los repetidos; ninguno puede ser null).
+     * @return Los encontrados en el orden de entrada y los IDs faltantes.
+     * @throws Exception Si falla la conexión o la consulta.
+     */
+    public ResultadoBusquedaMasiva<Long, SeguroVehicular> getByIds(Collection<Long> ids) throws Exception {
+        List<Long> claves = ConsultasIn.clavesDistintas(ids, UnaryOperator.identity());
+        Map<Long, SeguroVehicular> porId = ConsultasIn.buscarPorClaves(SELECT_BY_IDS_PREFIJO, claves,
+                this::mapearResultSetASeguro, SeguroVehicular::getId);
+        return new ResultadoBusquedaMasiva<>(claves, porId);
+    }
+
+    /**
+     * Busca muchos seguros activos por numero de poliza, como {@link #getByIds(Collection)}.
+     * @param polizas Los numeros de poliza (se pasan a mayusculas y se ignoran los repetidos; ninguno puede ser null).
+     * @return Los encontrados en el orden de entrada y las polizas faltantes.
+     * @throws Exception Si falla la conexión o la consulta.
+     */
+    public ResultadoBusquedaMasiva<String, SeguroVehicular> buscarPorPolizas(Collection<String> polizas) throws Exception {
+        List<String> claves = ConsultasIn.clavesDistintas(polizas, String::toUpperCase);
+        Map<String, SeguroVehicular> porPoliza = ConsultasIn.buscarPorClaves(SELECT_BY_POLIZAS_PREFIJO, claves,
+                this::mapearResultSetASeguro, s -> s.getNroPoliza().toUpperCase());
+        return new ResultadoBusquedaMasiva<>(claves, porPoliza);
+    }
+
+    
     // --- MÉTODOS DEL CRUD TRANSACCIONAL (Reciben Connection del Service) ---
 
     @Override
@@ -113,7 +282,7 @@ public class SeguroVehicularDAO implements GenericDAO<SeguroVehicular> {
             throw new SQLException("Error de logica (DAO): Intentando insertar un seguro sin un ID de Vehiculo valido.");
         }
         
-        try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+        try (PreparedStatement stmt = Plazos.prepararConClaves(conn, INSERT_SQL, TipoOperacion.ESCRITURA)) {
             
             setSeguroParameters(stmt, seguro);
             stmt.setLong(5, idVehiculo); 
@@ -133,31 +302,474 @@ public class SeguroVehicularDAO implements GenericDAO<SeguroVehicular> {
         }
     }
     
+    /**
+     * Actualiza solo las columnas modificadas desde que el seguro se cargo.
+     * Si no hubo cambios no se envia el UPDATE, solo se comprueba que la fila siga activa. Si la
+     * entidad no tiene seguimiento (no se cargo desde la BD) se actualizan todas las columnas.
+     * Los cambios se dan por guardados cuando se confirma la transaccion.
+     */
     @Override
     public void actualizarTx(SeguroVehicular seguro, Connection conn) throws Exception {
-        try (PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
-            stmt.setString(1, seguro.getAseguradora());
-            stmt.setString(2, seguro.getNroPoliza().toUpperCase());
-            stmt.setString(3, seguro.getCobertura().name());
-            stmt.setDate(4, Date.valueOf(seguro.getVencimiento()));
-            stmt.setLong(5, seguro.getId());
+        int mascara = seguro.tieneSeguimiento()
+                ? UPDATE_PARCIAL.mascara(seguro.getCamposModificados())
+                : UPDATE_PARCIAL.mascaraCompleta();
+        if (mascara == 0) {
+            // Nada cambio: no hay UPDATE, pero la fila tiene que seguir existiendo (y queda bloqueada como con el UPDATE)
+            try (PreparedStatement stmt = Plazos.preparar(conn, SELECT_ACTIVO_PARA_ACTUALIZAR_SQL, TipoOperacion.ESCRITURA)) {
+                stmt.setLong(1, seguro.getId());
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) {
+                        throw new SQLException("Fallo al actualizar Seguro. ID: " + seguro.getId());
+                    }
+                }
+            }
+            return;
+        }
+
+        try (PreparedStatement stmt = Plazos.preparar(conn, UPDATE_PARCIAL.sql(mascara), TipoOperacion.ESCRITURA)) {
+            String[] columnas = UPDATE_PARCIAL.columnas(mascara);
+            for (int i = 0; i < columnas.length; i++) {
+                setColumna(stmt, i + 1, columnas[i], seguro);
+            }
+            stmt.setLong(columnas.length + 1, seguro.getId());
             
             if (stmt.executeUpdate() == 0) {
                 throw new SQLException("Fallo al actualizar Seguro. ID: " + seguro.getId());
             }
         }
+        // Lo enviado pasa a ser el estado "limpio" recien con el commit: si la transaccion se deshace
+        // (y se reintenta) los campos tienen que seguir marcados como modificados
+        TransactionManager.alConfirmar(conn, seguro::iniciarSeguimiento);
     }
     
     @Override
     public void eliminarTx(int id, Connection conn) throws Exception {
-        try (PreparedStatement stmt = conn.prepareStatement(DELETE_SQL)) {
+        try (PreparedStatement stmt = Plazos.preparar(conn, DELETE_SQL, TipoOperacion.ESCRITURA)) {
             stmt.setInt(1, id);
             if (stmt.executeUpdate() == 0) {
                 throw new SQLException("Fallo al eliminar (baja logica) Seguro. ID: " + id);
             }
         }
+        UnidadDeTrabajo.olvidar(SeguroVehicular.class, id);
+        UnidadDeTrabajo.olvidarTodo(Vehiculo.class); // Los vehiculos leidos todavia lo tienen como seguro activo
+    }
+    
+    // --- MANTENIMIENTO (Baja logica de polizas vencidas por chunks) ---
+
+    /**
+     * Busca (y bloquea) hasta {@code limite} IDs de seguros activos vencidos antes de {@code corte}.
+     * @param corte Fecha de corte (se toman los vencimientos estrictamente anteriores).
+     * @param limite Tamanio maximo del chunk.
+     * @param conn La conexion transaccional activa.
+     * @return Los IDs encontrados (vacia si no quedan vencidos).
+     */
+    public List<Long> buscarIdsVencidosTx(LocalDate corte, int limite, Connection conn) throws SQLException {
+        try (PreparedStatement stmt = Plazos.preparar(conn, SELECT_IDS_VENCIDOS_SQL, TipoOperacion.ESCRITURA)) {
+            stmt.setDate(1, Date.valueOf(corte));
+            stmt.setInt(2, limite);
+            try (ResultSet rs = stmt.executeQuery()) {
+                List<Long> ids = new ArrayList<>(limite);
+                while (rs.next()) {
+                    ids.add(rs.getLong(1));
+                }
+                return ids;
+            }
+        }
+    }
+
+    /**
+     * Da de baja logica los seguros indicados siempre que sigan activos y vencidos.
+     * @return La cantidad de filas efectivamente dadas de baja.
+     */
+    public int eliminarVencidosTx(List<Long> ids, LocalDate corte, Connection conn) throws SQLException {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String sql = DELETE_VENCIDOS_SQL_PREFIJO + ConsultasIn.parametros(ids.size()) + ")";
+        try (PreparedStatement stmt = Plazos.preparar(conn, sql, TipoOperacion.ESCRITURA)) {
+            stmt.setDate(1, Date.valueOf(corte));
+            int i = 2;
+            for (Long id : ids) {
+                stmt.setLong(i++, id);
+            }
+            return stmt.executeUpdate();
+        }
     }
     
+    /**
+     * Inserta o actualiza un chunk de polizas con un unico {@code INSERT ... ON DUPLICATE KEY UPDATE}
+     * sobre nroPoliza. Antes clasifica cada fila con tres consultas IN (vehiculos por dominio, polizas
+     * existentes, polizas de esos vehiculos), asi el informe dice fila por fila que paso y las filas
+     * sin cambios ni siquiera se envian. Las tres bloquean (FOR UPDATE) lo que leen: la clasificacion
+     * sigue valiendo hasta el commit.
+     * <p>
+     * Se rechazan: dominio sin vehiculo activo, poliza dada de baja, poliza de otro vehiculo, y poliza
+     * nueva para un vehiculo que ya tiene otra (activa o de baja: idVehiculo es UNIQUE).
+     *
+     * @param chunk Hasta {@link #TAMANIO_CHUNK_UPSERT} filas ya validadas, sin polizas repetidas.
+     * @param conn La conexion transaccional activa.
+     * @return El desenlace de cada fila del chunk. Los seguros insertados o actualizados quedan con su ID.
+     */
+    public ResultadoUpsert upsertTx(List<NovedadPoliza> chunk, Connection conn) throws SQLException {
+        if (chunk.size() > TAMANIO_CHUNK_UPSERT) {
+            throw new SQLException("Chunk de upsert demasiado grande: " + chunk.size() + " filas (maximo " + TAMANIO_CHUNK_UPSERT + ").");
+        }
+        ResultadoUpsert resultado = new ResultadoUpsert();
+        if (chunk.isEmpty()) {
+            return resultado;
+        }
+
+        // 1. Vehiculos por dominio (bloqueados)
+        Set<String> dominios = new HashSet<>();
+        for (NovedadPoliza n : chunk) {
+            dominios.add(n.getDominio().toUpperCase());
+        }
+        Map<String, Long> idPorDominio = new HashMap<>();
+        try (PreparedStatement stmt = prepararIn(conn, SELECT_IDS_VEHICULOS_POR_DOMINIO_PREFIJO, dominios, " FOR UPDATE")) {
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    idPorDominio.put(rs.getString("dominio").toUpperCase(), rs.getLong("id"));
+                }
+            }
+        }
+
+        // 2. Polizas existentes (bloqueadas)
+        List<String> polizas = new ArrayList<>(chunk.size());
+        for (NovedadPoliza n : chunk) {
+            polizas.add(n.getSeguro().getNroPoliza().toUpperCase());
+        }
+        Map<String, PolizaExistente> existentes = new HashMap<>();
+        try (PreparedStatement stmt = prepararIn(conn, SELECT_POR_POLIZAS_PREFIJO, polizas, " FOR UPDATE")) {
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    PolizaExistente e = new PolizaExistente(mapearResultSetASeguro(rs), rs.getLong("idVehiculo"));
+                    existentes.put(e.seguro.getNroPoliza().toUpperCase(), e);
+                }
+            }
+        }
+
+        // 3. Polizas que ya tienen los vehiculos de las polizas nuevas (bloqueadas)
+        Set<Long> vehiculosDeNuevas = new HashSet<>();
+        for (NovedadPoliza n : chunk) {
+            Long idVehiculo = idPorDominio.get(n.getDominio().toUpperCase());
+            if (idVehiculo != null && !existentes.containsKey(n.getSeguro().getNroPoliza().toUpperCase())) {
+                vehiculosDeNuevas.add(idVehiculo);
+            }
+        }
+        Map<Long, String> polizaPorVehiculo = new HashMap<>();
+        if (!vehiculosDeNuevas.isEmpty()) {
+            try (PreparedStatement stmt = prepararIn(conn, SELECT_POLIZAS_POR_VEHICULOS_PREFIJO, vehiculosDeNuevas, " FOR UPDATE")) {
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        polizaPorVehiculo.put(rs.getLong("idVehiculo"), rs.getString("nroPoliza"));
+                    }
+                }
+            }
+        }
+
+        // 4. Clasificacion
+        List<NovedadPoliza> aEnviar = new ArrayList<>();
+        List<Long> vehiculosAEnviar = new ArrayList<>();
+        List<NovedadPoliza> insertadas = new ArrayList<>();
+        for (NovedadPoliza n : chunk) {
+            SeguroVehicular nuevo = n.getSeguro();
+            Long idVehiculo = idPorDominio.get(n.getDominio().toUpperCase());
+            PolizaExistente existente = existentes.get(nuevo.getNroPoliza().toUpperCase());
+            if (idVehiculo == null) {
+                resultado.rechazar(n, "No hay un vehiculo activo con dominio " + n.getDominio());
+            } else if (existente != null && existente.seguro.isEliminado()) {
+                resultado.rechazar(n, "La poliza esta dada de baja");
+            } else if (existente != null && existente.idVehiculo != idVehiculo) {
+                resultado.rechazar(n, "La poliza pertenece a otro vehiculo (ID " + existente.idVehiculo + ")");
+            } else if (existente != null) {
+                nuevo.setId(existente.seguro.getId());
+                if (mismosDatos(existente.seguro, nuevo)) {
+                    resultado.registrar(n, ResultadoUpsert.Desenlace.SIN_CAMBIOS, idVehiculo);
+                } else {
+                    resultado.registrar(n, ResultadoUpsert.Desenlace.ACTUALIZADA, idVehiculo);
+                    aEnviar.add(n);
+                    vehiculosAEnviar.add(idVehiculo);
+                }
+            } else if (polizaPorVehiculo.containsKey(idVehiculo)) {
+                resultado.rechazar(n, "El vehiculo ya tiene otra poliza (" + polizaPorVehiculo.get(idVehiculo) + ")");
+            } else {
+                polizaPorVehiculo.put(idVehiculo, nuevo.getNroPoliza()); // Una segunda fila nueva del mismo vehiculo se rechaza
+                resultado.registrar(n, ResultadoUpsert.Desenlace.INSERTADA, idVehiculo);
+                aEnviar.add(n);
+                vehiculosAEnviar.add(idVehiculo);
+                insertadas.add(n);
+            }
+        }
+        if (aEnviar.isEmpty()) {
+            return resultado;
+        }
+
+        // 5. Un unico INSERT ... ON DUPLICATE KEY UPDATE multi-fila
+        StringBuilder sql = new StringBuilder(UPSERT_SQL_PREFIJO);
+        for (int i = 0; i < aEnviar.size(); i++) {
+            sql.append(i == 0 ? "(?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?)");
+        }
+        sql.append(UPSERT_SQL_SUFIJO);
+        try (PreparedStatement stmt = Plazos.preparar(conn, sql.toString(), TipoOperacion.MASIVA)) {
+            int p = 1;
+            for (int i = 0; i < aEnviar.size(); i++) {
+                SeguroVehicular seguro = aEnviar.get(i).getSeguro();
+                stmt.setString(p++, seguro.getAseguradora());
+                stmt.setString(p++, seguro.getNroPoliza().toUpperCase());
+                stmt.setString(p++, seguro.getCobertura().name());
+                stmt.setDate(p++, Date.valueOf(seguro.getVencimiento()));
+                stmt.setLong(p++, vehiculosAEnviar.get(i));
+            }
+            stmt.executeUpdate();
+        }
+
+        // 6. IDs de las insertadas (las claves generadas de un upsert multi-fila no son confiables)
+        if (!insertadas.isEmpty()) {
+            Map<String, SeguroVehicular> porPoliza = new HashMap<>();
+            for (NovedadPoliza n : insertadas) {
+                porPoliza.put(n.getSeguro().getNroPoliza().toUpperCase(), n.getSeguro());
+            }
+            try (PreparedStatement stmt = prepararIn(conn, SELECT_IDS_POR_POLIZAS_PREFIJO, porPoliza.keySet(), "")) {
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        porPoliza.get(rs.getString("nroPoliza").toUpperCase()).setId(rs.getLong("id"));
+                    }
+                }
+            }
+        }
+        for (NovedadPoliza n : aEnviar) {
+            // Lo enviado es el estado guardado recien cuando la transaccion confirma
+            TransactionManager.alConfirmar(conn, n.getSeguro()::iniciarSeguimiento);
+        }
+        return resultado;
+    }
+
+    /**
+     * Recorre en modo streaming las polizas activas de una aseguradora ordenadas por nroPoliza
+     * (orden binario), con el dominio de su vehiculo. Memoria constante: una fila por vez.
+     * @param aseguradora La aseguradora cuyas polizas se recorren.
+     * @param consumidor Recibe cada poliza, en orden.
+     * @return La cantidad de polizas recorridas.
+     * @throws Exception Si falla la conexión o la consulta.
+     */
+    public long recorrerVigentesPorPoliza(String aseguradora, Consumer<PolizaVigente> consumidor) throws Exception {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = Plazos.preparar(conn, SELECT_VIGENTES_POR_POLIZA_SQL, TipoOperacion.MASIVA,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(Integer.MIN_VALUE); // Streaming fila por fila en Connector/J
+            stmt.setString(1, aseguradora);
+            long cantidad = 0;
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    consumidor.accept(new PolizaVigente(mapearResultSetASeguro(rs), rs.getLong("idVehiculo"), rs.getString("dominio")));
+                    cantidad++;
+                }
+            }
+            return cantidad;
+        }
+    }
+
+    /**
+     * Pasa una poliza activa al vehiculo activo con ese dominio, con los datos nuevos.
+     * @return El ID del vehiculo destino.
+     * @throws SQLException Si el dominio no tiene vehiculo activo, la poliza ya no esta activa,
+     *         o el vehiculo destino ya tiene una poliza (idVehiculo es UNIQUE).
+     */
+    public long moverAVehiculoTx(SeguroVehicular seguro, String dominio, Connection conn) throws SQLException {
+        long idVehiculo;
+        try (PreparedStatement stmt = Plazos.preparar(conn, SELECT_ID_VEHICULO_POR_DOMINIO_SQL, TipoOperacion.ESCRITURA)) {
+            stmt.setString(1, dominio.toUpperCase());
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("No hay un vehiculo activo con dominio " + dominio);
+                }
+                idVehiculo = rs.getLong(1);
+            }
+        }
+        try (PreparedStatement stmt = Plazos.preparar(conn, MOVER_SQL, TipoOperacion.ESCRITURA)) {
+            stmt.setLong(1, idVehiculo);
+            stmt.setString(2, seguro.getAseguradora());
+            stmt.setString(3, seguro.getCobertura().name());
+            stmt.setDate(4, Date.valueOf(seguro.getVencimiento()));
+            stmt.setLong(5, seguro.getId());
+            if (stmt.executeUpdate() == 0) {
+                throw new SQLException("Fallo al mover Seguro (ya no esta activo). ID: " + seguro.getId());
+            }
+        }
+        UnidadDeTrabajo.olvidarTodo(Vehiculo.class); // Los vehiculos leidos tienen el seguro en el vehiculo anterior
+        return idVehiculo;
+    }
+
+    /**
+     * Prepara (y cierra) las sentencias de las operaciones frecuentes sobre la conexion dada.
+     * @return La cantidad de sentencias preparadas.
+     * @see VehiculoDAO#prepararSentencias(Connection)
+     */
+    public int prepararSentencias(Connection conn) throws SQLException {
+        for (String sql : SENTENCIAS_FRECUENTES) {
+            conn.prepareStatement(sql).close();
+        }
+        return SENTENCIAS_FRECUENTES.length;
+    }
+
+    /**
+     * IDs de las polizas modificadas desde {@code desde}, activas o no.
+     * @param conn La conexion transaccional activa (la misma lectura coherente que el recorrido de
+     *             {@link VehiculoDAO#recorrerCambiadosDesdeTx(Timestamp, Consumer, Connection)}).
+     * @throws SQLException Si falla la consulta.
+     */
+    public List<Long> buscarIdsCambiadosDesdeTx(Timestamp desde, Connection conn) throws SQLException {
+        try (PreparedStatement stmt = Plazos.preparar(conn, SELECT_IDS_CAMBIADOS_DESDE_SQL, TipoOperacion.MASIVA)) {
+            stmt.setTimestamp(1, desde);
+            try (ResultSet rs = stmt.executeQuery()) {
+                List<Long> ids = new ArrayList<>();
+                while (rs.next()) {
+                    ids.add(rs.getLong(1));
+                }
+                return ids;
+            }
+        }
+    }
+
+    /**
+     * Busca (sin bloquear) los IDs del siguiente chunk de polizas activas que cumplen los filtros,
+     * ordenados a partir de {@code despuesDeId}.
+     * @param criterios Los filtros de la renovacion.
+     * @param despuesDeId El ultimo ID del chunk anterior (0 para empezar).
+     * @param limite Tamanio maximo del chunk.
+     * @param conn La conexion transaccional activa.
+     * @return Los IDs candidatos (vacia si no quedan).
+     */
+    public List<Long> buscarIdsParaRenovarTx(CriteriosRenovacion criterios, long despuesDeId, int limite,
+                                             Connection conn) throws SQLException {
+        StringBuilder sql = new StringBuilder(SELECT_IDS_PARA_RENOVAR_BASE);
+        agregarFiltrosRenovacion(sql, criterios);
+        sql.append(" ORDER BY id LIMIT ?");
+
+        try (PreparedStatement stmt = Plazos.preparar(conn, sql.toString(), TipoOperacion.MASIVA)) {
+            stmt.setLong(1, despuesDeId);
+            int i = setFiltrosRenovacion(stmt, 2, criterios);
+            stmt.setInt(i, limite);
+            try (ResultSet rs = stmt.executeQuery()) {
+                List<Long> ids = new ArrayList<>(limite);
+                while (rs.next()) {
+                    ids.add(rs.getLong(1));
+                }
+                return ids;
+            }
+        }
+    }
+
+    /**
+     * Bloquea (FOR UPDATE, por PK) los candidatos de {@link #buscarIdsParaRenovarTx} que siguen activos
+     * y cumpliendo los filtros: entre las dos lecturas otra transaccion pudo cambiarlos.
+     * @param ids Los IDs candidatos del chunk.
+     * @param criterios Los filtros de la renovacion.
+     * @param conn La conexion transaccional activa.
+     * @return Las polizas bloqueadas, ordenadas por ID.
+     */
+    public List<SeguroVehicular> bloquearParaRenovarTx(List<Long> ids, CriteriosRenovacion criterios,
+                                                       Connection conn) throws SQLException {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        StringBuilder sql = new StringBuilder(SELECT_PARA_RENOVAR_PREFIJO)
+                .append(ConsultasIn.parametros(ids.size())).append(')');
+        agregarFiltrosRenovacion(sql, criterios);
+        sql.append(" ORDER BY id FOR UPDATE");
+
+        try (PreparedStatement stmt = Plazos.preparar(conn, sql.toString(), TipoOperacion.MASIVA)) {
+            int i = 1;
+            for (Long id : ids) {
+                stmt.setLong(i++, id);
+            }
+            setFiltrosRenovacion(stmt, i, criterios);
+            try (ResultSet rs = stmt.executeQuery()) {
+                List<SeguroVehicular> seguros = new ArrayList<>(ids.size());
+                while (rs.next()) {
+                    seguros.add(mapearResultSetASeguro(rs));
+                }
+                return seguros;
+            }
+        }
+    }
+
+    private static void agregarFiltrosRenovacion(StringBuilder sql, CriteriosRenovacion criterios) {
+        if (criterios.getAseguradora() != null) sql.append(" AND aseguradora = ?");
+        if (criterios.getCobertura() != null) sql.append(" AND cobertura = ?");
+        if (criterios.getVencimientoDesde() != null) sql.append(" AND vencimiento >= ?");
+        if (criterios.getVencimientoHasta() != null) sql.append(" AND vencimiento <= ?");
+    }
+
+    // Devuelve la posicion del siguiente parametro
+    private static int setFiltrosRenovacion(PreparedStatement stmt, int i, CriteriosRenovacion criterios) throws SQLException {
+        if (criterios.getAseguradora() != null) stmt.setString(i++, criterios.getAseguradora());
+        if (criterios.getCobertura() != null) stmt.setString(i++, criterios.getCobertura().name());
+        if (criterios.getVencimientoDesde() != null) stmt.setDate(i++, Date.valueOf(criterios.getVencimientoDesde()));
+        if (criterios.getVencimientoHasta() != null) stmt.setDate(i++, Date.valueOf(criterios.getVencimientoHasta()));
+        return i;
+    }
+
+    /**
+     * Renueva las polizas indicadas con una sola sentencia: fija el vencimiento nuevo o corre
+     * el actual los meses pedidos, segun los criterios.
+     * @param ids Polizas ya bloqueadas por {@link #bloquearParaRenovarTx} y que pasaron la regla de fecha futura.
+     * @return La cantidad de filas actualizadas.
+     */
+    public int renovarTx(List<Long> ids, CriteriosRenovacion criterios, Connection conn) throws SQLException {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        boolean fijo = criterios.getNuevoVencimiento() != null;
+        String sql = (fijo ? RENOVAR_FIJO_SQL_PREFIJO : RENOVAR_EXTENSION_SQL_PREFIJO) + ConsultasIn.parametros(ids.size()) + ")";
+        try (PreparedStatement stmt = Plazos.preparar(conn, sql, TipoOperacion.MASIVA)) {
+            if (fijo) {
+                stmt.setDate(1, Date.valueOf(criterios.getNuevoVencimiento()));
+            } else {
+                stmt.setInt(1, criterios.getMesesExtension());
+            }
+            int i = 2;
+            for (Long id : ids) {
+                stmt.setLong(i++, id);
+            }
+            return stmt.executeUpdate();
+        }
+    }
+
+    private static boolean mismosDatos(SeguroVehicular guardado, SeguroVehicular nuevo) {
+        return Objects.equals(guardado.getAseguradora(), nuevo.getAseguradora())
+                && guardado.getCobertura() == nuevo.getCobertura()
+                && Objects.equals(guardado.getVencimiento(), nuevo.getVencimiento());
+    }
+
+    private static PreparedStatement prepararIn(Connection conn, String prefijo, Collection<?> claves,
+                                                String sufijo) throws SQLException {
+        PreparedStatement stmt = Plazos.preparar(conn, prefijo + ConsultasIn.parametros(claves.size()) + ")" + sufijo,
+                TipoOperacion.MASIVA);
+        try {
+            int i = 1;
+            for (Object clave : claves) {
+                stmt.setObject(i++, clave);
+            }
+            return stmt;
+        } catch (SQLException e) {
+            stmt.close();
+            throw e;
+        }
+    }
+
+    // Fila existente de segurovehicular con el vehiculo al que pertenece (la entidad no lo tiene)
+    private static final class PolizaExistente {
+
+        private final SeguroVehicular seguro;
+        private final long idVehiculo;
+
+        PolizaExistente(SeguroVehicular seguro, long idVehiculo) {
+            this.seguro = seguro;
+            this.idVehiculo = idVehiculo;
+        }
+    }
+
     private void setSeguroParameters(PreparedStatement stmt, SeguroVehicular seguro) throws SQLException {
         stmt.setString(1, seguro.getAseguradora());
         stmt.setString(2, seguro.getNroPoliza().toUpperCase());
@@ -165,11 +777,30 @@ public class SeguroVehicularDAO implements GenericDAO<SeguroVehicular> {
         stmt.setDate(4, Date.valueOf(seguro.getVencimiento()));
     }
 
+    private void setColumna(PreparedStatement stmt, int indice, String columna, SeguroVehicular seguro) throws SQLException {
+        switch (columna) {
+            case "aseguradora":
+                stmt.setString(indice, seguro.getAseguradora());
+                break;
+            case "nroPoliza":
+                stmt.setString(indice, seguro.getNroPoliza().toUpperCase());
+                break;
+            case "cobertura":
+                stmt.setString(indice, seguro.getCobertura().name());
+                break;
+            case "vencimiento":
+                stmt.setDate(indice, Date.valueOf(seguro.getVencimiento()));
+                break;
+            default:
+                throw new SQLException("Columna de seguro desconocida: " + columna);
+        }
+    }
+
     private SeguroVehicular mapearResultSetASeguro(ResultSet rs) throws SQLException {
         SeguroVehicular seguro = new SeguroVehicular();
         seguro.setId(rs.getLong("id"));
         seguro.setEliminado(rs.getBoolean("eliminado"));
-        seguro.setAseguradora(rs.getString("aseguradora"));
+        seguro.setAseguradora(DiccionarioValores.ASEGURADORAS.canonico(rs.getString("aseguradora")));
         seguro.setNroPoliza(rs.getString("nroPoliza"));
         seguro.setCobertura(Cobertura.valueOf(rs.getString("cobertura")));
         
@@ -177,6 +808,7 @@ public class SeguroVehicularDAO implements GenericDAO<SeguroVehicular> {
         if (vencimientoDate != null) {
             seguro.setVencimiento(vencimientoDate.toLocalDate());
         }
-        return seguro;
+        seguro.iniciarSeguimiento();
+        return UnidadDeTrabajo.unificar(SeguroVehicular.class, seguro.getId(), seguro);
     }
 }
\ No newline at end of file
@@ -0,0 +1,85 @@
+package dao;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Generador de sentencias UPDATE parciales (solo las columnas modificadas).
+ * Cada combinacion de columnas ("forma" del UPDATE) se identifica con una mascara
+ * de bits y su SQL se arma una sola vez y queda cacheado.
+ * Evita reescribir columnas UNIQUE (dominio, nroChasis, nroPoliza) que no cambiaron,
+ * con lo que InnoDB no tiene que mantener esos indices secundarios.
+ */
+public final class UpdateParcial {
+
+    private final String tabla;
+    private final String[] columnas;
+    private final ConcurrentHashMap<Integer, String> cacheSql = new ConcurrentHashMap<>();
+
+    /**
+     * @param tabla Nombre de la tabla a actualizar.
+     * @param columnas Columnas actualizables, en el orden en que se enlazan los parametros.
+     *                 Deben llamarse igual que los campos de la entidad.
+     */
+    public UpdateParcial(String tabla, String... columnas) {
+        if (columnas.length > Integer.SIZE - 1) {
+            throw new IllegalArgumentException("Demasiadas columnas para una mascara de UPDATE parcial.");
+        }
+        this.tabla = tabla;
+        this.columnas = columnas.clone();
+    }
+
+    /**
+     * Calcula la mascara de columnas a partir de los campos modificados de la entidad.
+     * Los campos que no son columnas actualizables se ignoran.
+     */
+    public int mascara(Set<String> camposModificados) {
+        int mascara = 0;
+        for (int i = 0; i < columnas.length; i++) {
+            if (camposModificados.contains(columnas[i])) {
+                mascara |= 1 << i;
+            }
+        }
+        return mascara;
+    }
+
+    /** Mascara con todas las columnas (UPDATE completo). */
+    public int mascaraCompleta() {
+        return (1 << columnas.length) - 1;
+    }
+
+    /** Devuelve el SQL del UPDATE para la mascara dada (cacheado por forma). */
+    public String sql(int mascara) {
+        if (mascara == 0) {
+            throw new IllegalArgumentException("No hay columnas para actualizar.");
+        }
+        return cacheSql.computeIfAbsent(mascara, this::armarSql);
+    }
+
+    /** Columnas incluidas en la mascara, en orden de parametro. */
+    public String[] columnas(int mascara) {
+        String[] incluidas = new String[Integer.bitCount(mascara)];
+        int j = 0;
+        for (int i = 0; i < columnas.length; i++) {
+            if ((mascara & (1 << i)) != 0) {
+                incluidas[j++] = columnas[i];
+            }
+        }
+        return incluidas;
+    }
+
+    /** Cantidad de formas distintas de UPDATE generadas hasta ahora. */
+    public int formasCacheadas() {
+        return cacheSql.size();
+    }
+
+    private String armarSql(int mascara) {
+        StringBuilder sb = new StringBuilder("UPDATE ").append(tabla).append(" SET ");
+        String separador = "";
+        for (String columna : columnas(mascara)) {
+            sb.append(separador).append(columna).append(" = ?");
+            separador = ", ";
+        }
+        return sb.append(" WHERE id = ? AND eliminado = FALSE").toString();
+    }
+}
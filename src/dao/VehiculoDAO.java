@@ -4,10 +4,20 @@ import entities.Vehiculo;
 import entities.SeguroVehicular;
 import entities.Cobertura;
 import config.DatabaseConnection;
+import config.Plazos;
+import config.TipoOperacion;
+import config.TransactionManager;
+import config.UnidadDeTrabajo;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 import java.time.LocalDate;
 
 public class VehiculoDAO implements GenericDAO<Vehiculo> {
@@ -21,11 +31,16 @@ public class VehiculoDAO implements GenericDAO<Vehiculo> {
     private static final String INSERT_SQL = 
         "INSERT INTO vehiculo (dominio, marca, modelo, anio, nroChasis) VALUES (?, ?, ?, ?, ?)";
     
-    private static final String UPDATE_SQL = 
-        "UPDATE vehiculo SET dominio = ?, marca = ?, modelo = ?, anio = ?, nroChasis = ? WHERE id = ?";
+    // UPDATE parcial: solo las columnas modificadas (el SQL de cada forma queda cacheado)
+    private static final UpdateParcial UPDATE_PARCIAL =
+        new UpdateParcial("vehiculo", "dominio", "marca", "modelo", "anio", "nroChasis");
+
+    // Actualizacion sin cambios: solo se comprueba (y bloquea) que la fila siga activa
+    private static final String SELECT_ACTIVO_PARA_ACTUALIZAR_SQL =
+        "SELECT id FROM vehiculo WHERE id = ? AND eliminado = FALSE FOR UPDATE";
     
     private static final String DELETE_SQL = 
-        "UPDATE vehiculo SET eliminado = TRUE WHERE id = ?";
+        "UPDATE vehiculo SET eliminado = TRUE, fechaBaja = NOW() WHERE id = ? AND eliminado = FALSE";
     
     private static final String SELECT_JOIN_FIELDS = 
         "v.id, v.dominio, v.marca, v.modelo, v.anio, v.nroChasis, v.eliminado, " +
@@ -46,6 +61,85 @@ public class VehiculoDAO implements GenericDAO<Vehiculo> {
         "FROM vehiculo v LEFT JOIN segurovehicular s ON v.id = s.idVehiculo AND s.eliminado = FALSE " +
         "WHERE v.dominio = ? AND v.eliminado = FALSE";
     
+    // Paginacion por clave (keyset): arranca despues del ultimo ID visto, usa la PK y no
+    // necesita recorrer las paginas anteriores como haria un OFFSET
+    private static final String SELECT_PAGINA_SQL =
+        "SELECT " + SELECT_JOIN_FIELDS +
+        "FROM vehiculo v LEFT JOIN segurovehicular s ON v.id = s.idVehiculo AND s.eliminado = FALSE " +
+        "WHERE v.eliminado = FALSE AND v.id > ? ORDER BY v.id LIMIT ?";
+    
+    // Las que usan las opciones del menu (las prepara el precalentamiento al iniciar)
+    private static final String[] SENTENCIAS_FRECUENTES = {
+        INSERT_SQL, DELETE_SQL, SELECT_BY_ID_SQL, SELECT_ALL_SQL, SELECT_BY_DOMINIO_SQL, SELECT_PAGINA_SQL
+    };
+    
+    // Exportacion: cada lector recorre su tramo de la PK (rango contiguo, ya ordenado por id)
+    private static final String SELECT_RANGO_IDS_SQL =
+        "SELECT MIN(id), MAX(id) FROM vehiculo WHERE eliminado = FALSE";
+
+    private static final String SELECT_ACTIVOS_EN_RANGO_SQL =
+        "SELECT " + SELECT_JOIN_FIELDS +
+        "FROM vehiculo v LEFT JOIN segurovehicular s ON v.id = s.idVehiculo AND s.eliminado = FALSE " +
+        "WHERE v.eliminado = FALSE AND v.id BETWEEN ? AND ? ORDER BY v.id";
+    
+    // Puesta al dia de la instantanea: vehiculos cambiados y vehiculos cuya poliza cambio,
+    // incluidos los dados de baja (eliminado = TRUE). Cada mitad usa su indice por actualizado.
+    private static final String SELECT_CAMBIADOS_DESDE_SQL =
+        "SELECT " + SELECT_JOIN_FIELDS +
+        "FROM vehiculo v LEFT JOIN segurovehicular s ON v.id = s.idVehiculo AND s.eliminado = FALSE " +
+        "WHERE v.actualizado >= ? " +
+        "UNION " +
+        "SELECT " + SELECT_JOIN_FIELDS +
+        "FROM vehiculo v LEFT JOIN segurovehicular s ON v.id = s.idVehiculo AND s.eliminado = FALSE " +
+        "WHERE v.id IN (SELECT idVehiculo FROM segurovehicular WHERE actualizado >= ?) " +
+        "ORDER BY id";
+
+    private static final String SELECT_AHORA_SQL = "SELECT NOW(3)";
+    
+    // Busquedas masivas: se completan con "(?, ?, ...)" del tamanio de cada chunk
+    private static final String SELECT_BY_IDS_PREFIJO =
+        "SELECT " + SELECT_JOIN_FIELDS +
+        "FROM vehiculo v LEFT JOIN segurovehicular s ON v.id = s.idVehiculo AND s.eliminado = FALSE " +
+        "WHERE v.eliminado = FALSE AND v.id IN (";
+
+    private static final String SELECT_BY_DOMINIOS_PREFIJO =
+        "SELECT " + SELECT_JOIN_FIELDS +
+        "FROM vehiculo v LEFT JOIN segurovehicular s ON v.id = s.idVehiculo AND s.eliminado = FALSE " +
+        "WHERE v.eliminado = FALSE AND v.dominio IN (";
+
+    // Baja masiva: se bloquean los vehiculos activos del chunk y se dan de baja por conjunto
+    private static final String SELECT_ACTIVOS_POR_IDS_PREFIJO =
+        "SELECT id, dominio FROM vehiculo WHERE eliminado = FALSE AND id IN (";
+
+    private static final String SELECT_ACTIVOS_POR_DOMINIOS_PREFIJO =
+        "SELECT id, dominio FROM vehiculo WHERE eliminado = FALSE AND dominio IN (";
+
+    private static final String DELETE_SEGUROS_DE_VEHICULOS_PREFIJO =
+        "UPDATE segurovehicular SET eliminado = TRUE, fechaBaja = NOW() WHERE eliminado = FALSE AND idVehiculo IN (";
+
+    private static final String DELETE_VEHICULOS_PREFIJO =
+        "UPDATE vehiculo SET eliminado = TRUE, fechaBaja = NOW() WHERE eliminado = FALSE AND id IN (";
+    
+    // --- BUSQUEDA POR CRITERIOS (SQL dinamico cacheado por forma) ---
+
+    private static final String SELECT_CRITERIOS_BASE =
+        "SELECT " + SELECT_JOIN_FIELDS +
+        "FROM vehiculo v LEFT JOIN segurovehicular s ON v.id = s.idVehiculo AND s.eliminado = FALSE " +
+        "WHERE v.eliminado = FALSE";
+
+    // Un bit por filtro presente; el orden de los bits es el orden de los parametros
+    private static final int F_MARCA = 1;
+    private static final int F_ANIO_DESDE = 1 << 1;
+    private static final int F_ANIO_HASTA = 1 << 2;
+    private static final int F_COBERTURA = 1 << 3;
+    private static final int F_ASEGURADORA = 1 << 4;
+    private static final int F_VENC_DESDE = 1 << 5;
+    private static final int F_VENC_HASTA = 1 << 6;
+    private static final int F_CON_SEGURO = 1 << 7;
+    private static final int F_SIN_SEGURO = 1 << 8;
+
+    private static final ConcurrentHashMap<Integer, String> CACHE_SQL_CRITERIOS = new ConcurrentHashMap<>();
+    
     // --- MÉTODOS DEL CRUD NO TRANSACCIONAL (Manejan su propia Connection) ---
     
     // Dejamos con excepción clara: La inserción de A (Vehiculo) es siempre una operación
@@ -74,8 +168,12 @@ public class VehiculoDAO implements GenericDAO<Vehiculo> {
 
     @Override
     public Vehiculo getById(int id) throws Exception {
+        Vehiculo leido = UnidadDeTrabajo.buscar(Vehiculo.class, id);
+        if (leido != null) {
+            return leido; // Ya se leyo en esta unidad de trabajo
+        }
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(SELECT_BY_ID_SQL)) {
+             PreparedStatement stmt = Plazos.preparar(conn, SELECT_BY_ID_SQL, TipoOperacion.LECTURA)) {
             stmt.setInt(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
                 return rs.next() ? mapearResultSetAVehiculoConSeguro(rs) : null;
@@ -86,7 +184,7 @@ public class VehiculoDAO implements GenericDAO<Vehiculo> {
     @Override
     public List<Vehiculo> getAll() throws Exception {
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(SELECT_ALL_SQL);
+             PreparedStatement stmt = Plazos.preparar(conn, SELECT_ALL_SQL, TipoOperacion.LECTURA);
              ResultSet rs = stmt.executeQuery()) {
             
             List<Vehiculo> vehiculos = new ArrayList<>();
@@ -97,26 +195,252 @@ public class VehiculoDAO implements GenericDAO<Vehiculo> {
         }
     }
     
+    /**
+     * Busca muchos vehiculos activos por ID usando una sola conexion y consultas
+     * {@code IN (...)} de a {@link ConsultasIn#TAMANIO_CHUNK} claves.
+     * @param ids Los IDs a buscar (se ignoran los repetidos; ninguno puede ser null).
+     * @return Los encontrados en el orden de entrada y los IDs faltantes.
+     * @throws Exception Si falla la conexión o la consulta.
+     */
+    public ResultadoBusquedaMasiva<Long, Vehiculo> getByIds(Collection<Long> ids) throws Exception {
+        List<Long> claves = ConsultasIn.clavesDistintas(ids, UnaryOperator.identity());
+        Map<Long, Vehiculo> porId = ConsultasIn.buscarPorClaves(SELECT_BY_IDS_PREFIJO, claves,
+                this::mapearResultSetAVehiculoConSeguro, Vehiculo::getId);
+        return new ResultadoBusquedaMasiva<>(claves, porId);
+    }
+
+    /**
+     * Busca muchos vehiculos activos por dominio usando una sola conexion y consultas
+     * {@code IN (...)} de a {@link ConsultasIn#TAMANIO_CHUNK} claves.
+     * @param dominios Los dominios a buscar (se pasan a mayusculas y se ignoran los repetidos; ninguno puede ser null).
+     * @return Los encontrados en el orden de entrada y los dominios faltantes.
+     * @throws Exception Si falla la conexión o la consulta.
+     */
+    public ResultadoBusquedaMasiva<String, Vehiculo> buscarPorDominios(Collection<String> dominios) throws Exception {
+        List<String> claves = ConsultasIn.clavesDistintas(dominios, String::toUpperCase);
+        Map<String, Vehiculo> porDominio = ConsultasIn.buscarPorClaves(SELECT_BY_DOMINIOS_PREFIJO, claves,
+                this::mapearResultSetAVehiculoConSeguro, v -> v.getDominio().toUpperCase());
+        return new ResultadoBusquedaMasiva<>(claves, porDominio);
+    }
+
+    /**
+     * Obtiene una pagina de vehiculos activos (con su seguro) ordenados por ID.
+     * @param despuesDeId El ultimo ID de la pagina anterior (0 para la primera pagina).
+     * @param tamanio Cantidad maxima de vehiculos de la pagina.
+     * @return La pagina (vacia si no hay mas vehiculos).
+     * @throws Exception Si falla la conexión o la consulta.
+     */
+    public List<Vehiculo> getPagina(long despuesDeId, int tamanio) throws Exception {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = Plazos.preparar(conn, SELECT_PAGINA_SQL, TipoOperacion.LECTURA)) {
+            stmt.setLong(1, despuesDeId);
+            stmt.setInt(2, tamanio);
+            try (ResultSet rs = stmt.executeQuery()) {
+                List<Vehiculo> vehiculos = new ArrayList<>(tamanio);
+                while (rs.next()) {
+                    vehiculos.add(mapearResultSetAVehiculoConSeguro(rs));
+                }
+                return vehiculos;
+            }
+        }
+    }
+
+    /**
+     * Recorre todos los vehiculos activos (con su seguro) en modo streaming: el driver
+     * entrega las filas de a una sin cargar todo el resultado en memoria, asi sirve
+     * para construir estructuras en memoria sobre tablas grandes.
+     * @param consumidor Recibe cada vehiculo mapeado.
+     * @return La cantidad de vehiculos recorridos.
+     * @throws Exception Si falla la conexión o la consulta.
+     */
+    public long recorrerActivos(Consumer<Vehiculo> consumidor) throws Exception {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = Plazos.preparar(conn, SELECT_ALL_SQL, TipoOperacion.MASIVA, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(Integer.MIN_VALUE); // Streaming fila por fila en Connector/J
+            long cantidad = 0;
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    consumidor.accept(mapearResultSetAVehiculoConSeguro(rs));
+                    cantidad++;
+                }
+            }
+            return cantidad;
+        }
+    }
+    
+    /**
+     * Prepara (y cierra) las sentencias de las operaciones frecuentes sobre la conexion dada.
+     * Lo usa el precalentamiento: la primera preparacion carga y compila el camino del driver.
+     * @return La cantidad de sentencias preparadas.
+     */
+    public int prepararSentencias(Connection conn) throws SQLException {
+        for (String sql : SENTENCIAS_FRECUENTES) {
+            conn.prepareStatement(sql).close();
+        }
+        return SENTENCIAS_FRECUENTES.length;
+    }
+
+    /**
+     * El menor y el mayor ID de los vehiculos activos.
+     * @return {min, max}, o null si no hay vehiculos activos.
+     * @throws Exception Si falla la conexión o la consulta.
+     */
+    public long[] rangoIdsActivos() throws Exception {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = Plazos.preparar(conn, SELECT_RANGO_IDS_SQL, TipoOperacion.MASIVA);
+             ResultSet rs = stmt.executeQuery()) {
+            if (!rs.next()) {
+                return null;
+            }
+            long min = rs.getLong(1);
+            return rs.wasNull() ? null : new long[] {min, rs.getLong(2)};
+        }
+    }
+
+    /**
+     * Como {@link #recorrerActivos(Consumer)}, pero solo los IDs entre {@code desde} y {@code hasta}
+     * (inclusive) y en orden de ID. Varios tramos disjuntos se pueden recorrer en paralelo, cada uno
+     * con su conexion.
+     * @return La cantidad de vehiculos recorridos.
+     * @throws Exception Si falla la conexión o la consulta.
+     */
+    public long recorrerActivosEnRango(long desde, long hasta, Consumer<Vehiculo> consumidor) throws Exception {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = Plazos.preparar(conn, SELECT_ACTIVOS_EN_RANGO_SQL, TipoOperacion.MASIVA, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(Integer.MIN_VALUE); // Streaming fila por fila en Connector/J
+            stmt.setLong(1, desde);
+            stmt.setLong(2, hasta);
+            long cantidad = 0;
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    consumidor.accept(mapearResultSetAVehiculoConSeguro(rs));
+                    cantidad++;
+                }
+            }
+            return cantidad;
+        }
+    }
+    
+    /**
+     * La hora actual del servidor de base de datos (la misma que usan las columnas {@code actualizado}).
+     * @throws Exception Si falla la conexión o la consulta.
+     */
+    public Timestamp ahoraEnBase() throws Exception {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = Plazos.preparar(conn, SELECT_AHORA_SQL, TipoOperacion.LECTURA);
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            return rs.getTimestamp(1);
+        }
+    }
+
+    /**
+     * Recorre, en orden de ID, los vehiculos modificados desde {@code desde} y los vehiculos cuya
+     * poliza se modifico desde entonces, con su seguro activo actual. Incluye los dados de baja
+     * (con {@code eliminado} en true) para que quien arma una estructura en memoria los pueda sacar.
+     * @param conn La conexion transaccional activa.
+     * @return La cantidad de vehiculos recorridos.
+     * @throws SQLException Si falla la consulta.
+     */
+    public long recorrerCambiadosDesdeTx(Timestamp desde, Consumer<Vehiculo> consumidor, Connection conn) throws SQLException {
+        try (PreparedStatement stmt = Plazos.preparar(conn, SELECT_CAMBIADOS_DESDE_SQL, TipoOperacion.MASIVA, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(Integer.MIN_VALUE); // Streaming fila por fila en Connector/J
+            stmt.setTimestamp(1, desde);
+            stmt.setTimestamp(2, desde);
+            long cantidad = 0;
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    consumidor.accept(mapearResultSetAVehiculoConSeguro(rs));
+                    cantidad++;
+                }
+            }
+            return cantidad;
+        }
+    }
+    
     @Override
     public Vehiculo buscarPorCampoClave(String valor, Connection conn) throws Exception {
-        Connection usedConn = (conn != null) ? conn : DatabaseConnection.getConnection();
-        try (PreparedStatement stmt = usedConn.prepareStatement(SELECT_BY_DOMINIO_SQL)) {
+        if (conn == null) {
+            // Sin transaccion: conexion propia, cerrada por el try-with-resources
+            try (Connection propia = DatabaseConnection.getConnection()) {
+                return buscarPorCampoClave(valor, propia);
+            }
+        }
+        try (PreparedStatement stmt = Plazos.preparar(conn, SELECT_BY_DOMINIO_SQL, TipoOperacion.LECTURA)) {
             stmt.setString(1, valor.toUpperCase());
             try (ResultSet rs = stmt.executeQuery()) {
                 return rs.next() ? mapearResultSetAVehiculoConSeguro(rs) : null;
             }
-        } finally {
-            if (conn == null && usedConn != null) {
-                usedConn.close();
+        }
+    }
+
+    /**
+     * Busca vehiculos activos (con su seguro) que cumplan todos los filtros presentes.
+     * El filtrado lo hace MySQL con un SQL parametrizado, que se apoya en los indices
+     * (eliminado, marca, anio), (eliminado, aseguradora, cobertura) y (eliminado, vencimiento).
+     * @param criterios Los filtros (los null no filtran) y el limite de filas.
+     * @return Los vehiculos encontrados, ordenados por ID, como maximo {@code criterios.getLimite()}.
+     * @throws Exception Si falla la conexión o la consulta.
+     */
+    public List<Vehiculo> buscarPorCriterios(CriteriosBusqueda criterios) throws Exception {
+        int forma = formaDe(criterios);
+        String sql = CACHE_SQL_CRITERIOS.computeIfAbsent(forma, VehiculoDAO::armarSqlCriterios);
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = Plazos.preparar(conn, sql, TipoOperacion.LECTURA)) {
+            int i = 1;
+            if ((forma & F_MARCA) != 0) stmt.setString(i++, criterios.getMarca());
+            if ((forma & F_ANIO_DESDE) != 0) stmt.setInt(i++, criterios.getAnioDesde());
+            if ((forma & F_ANIO_HASTA) != 0) stmt.setInt(i++, criterios.getAnioHasta());
+            if ((forma & F_COBERTURA) != 0) stmt.setString(i++, criterios.getCobertura().name());
+            if ((forma & F_ASEGURADORA) != 0) stmt.setString(i++, criterios.getAseguradora());
+            if ((forma & F_VENC_DESDE) != 0) stmt.setDate(i++, Date.valueOf(criterios.getVencimientoDesde()));
+            if ((forma & F_VENC_HASTA) != 0) stmt.setDate(i++, Date.valueOf(criterios.getVencimientoHasta()));
+            stmt.setInt(i, criterios.getLimite());
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                List<Vehiculo> vehiculos = new ArrayList<>();
+                while (rs.next()) {
+                    vehiculos.add(mapearResultSetAVehiculoConSeguro(rs));
+                }
+                return vehiculos;
             }
         }
     }
 
+    private static int formaDe(CriteriosBusqueda c) {
+        int forma = 0;
+        if (c.getMarca() != null) forma |= F_MARCA;
+        if (c.getAnioDesde() != null) forma |= F_ANIO_DESDE;
+        if (c.getAnioHasta() != null) forma |= F_ANIO_HASTA;
+        if (c.getCobertura() != null) forma |= F_COBERTURA;
+        if (c.getAseguradora() != null) forma |= F_ASEGURADORA;
+        if (c.getVencimientoDesde() != null) forma |= F_VENC_DESDE;
+        if (c.getVencimientoHasta() != null) forma |= F_VENC_HASTA;
+        if (Boolean.TRUE.equals(c.getConSeguro())) forma |= F_CON_SEGURO;
+        if (Boolean.FALSE.equals(c.getConSeguro())) forma |= F_SIN_SEGURO;
+        return forma;
+    }
+
+    private static String armarSqlCriterios(int forma) {
+        StringBuilder sql = new StringBuilder(SELECT_CRITERIOS_BASE);
+        if ((forma & F_MARCA) != 0) sql.append(" AND v.marca = ?");
+        if ((forma & F_ANIO_DESDE) != 0) sql.append(" AND v.anio >= ?");
+        if ((forma & F_ANIO_HASTA) != 0) sql.append(" AND v.anio <= ?");
+        if ((forma & F_COBERTURA) != 0) sql.append(" AND s.cobertura = ?");
+        if ((forma & F_ASEGURADORA) != 0) sql.append(" AND s.aseguradora = ?");
+        if ((forma & F_VENC_DESDE) != 0) sql.append(" AND s.vencimiento >= ?");
+        if ((forma & F_VENC_HASTA) != 0) sql.append(" AND s.vencimiento <= ?");
+        if ((forma & F_CON_SEGURO) != 0) sql.append(" AND s.id IS NOT NULL");
+        if ((forma & F_SIN_SEGURO) != 0) sql.append(" AND s.id IS NULL");
+        return sql.append(" ORDER BY v.id LIMIT ?").toString();
+    }
+
     // --- MÉTODOS DEL CRUD TRANSACCIONAL (Reciben Connection del Service) ---
 
     @Override
     public long insertarTx(Vehiculo vehiculo, Connection conn) throws Exception {
-        try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+        try (PreparedStatement stmt = Plazos.prepararConClaves(conn, INSERT_SQL, TipoOperacion.ESCRITURA)) {
             
             setVehiculoParameters(stmt, vehiculo);
 
@@ -135,28 +459,133 @@ public class VehiculoDAO implements GenericDAO<Vehiculo> {
         }
     }
 
+    /**
+     * Actualiza solo las columnas modificadas desde que el vehiculo se cargo.
+     * Si no hubo cambios no se envia el UPDATE, solo se comprueba que la fila siga activa. Si la
+     * entidad no tiene seguimiento (no se cargo desde la BD) se actualizan todas las columnas.
+     * Los cambios se dan por guardados cuando se confirma la transaccion.
+     */
     @Override
     public void actualizarTx(Vehiculo vehiculo, Connection conn) throws Exception {
-        try (PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
-            setVehiculoParameters(stmt, vehiculo);
-            stmt.setLong(6, vehiculo.getId());
+        int mascara = vehiculo.tieneSeguimiento()
+                ? UPDATE_PARCIAL.mascara(vehiculo.getCamposModificados())
+                : UPDATE_PARCIAL.mascaraCompleta();
+        if (mascara == 0) {
+            // Nada cambio: no hay UPDATE, pero la fila tiene que seguir existiendo (y queda bloqueada como con el UPDATE)
+            try (PreparedStatement stmt = Plazos.preparar(conn, SELECT_ACTIVO_PARA_ACTUALIZAR_SQL, TipoOperacion.ESCRITURA)) {
+                stmt.setLong(1, vehiculo.getId());
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) {
+                        throw new SQLException("Fallo al actualizar Vehiculo. ID: " + vehiculo.getId());
+                    }
+                }
+            }
+            return;
+        }
+
+        try (PreparedStatement stmt = Plazos.preparar(conn, UPDATE_PARCIAL.sql(mascara), TipoOperacion.ESCRITURA)) {
+            String[] columnas = UPDATE_PARCIAL.columnas(mascara);
+            for (int i = 0; i < columnas.length; i++) {
+                setColumna(stmt, i + 1, columnas[i], vehiculo);
+            }
+            stmt.setLong(columnas.length + 1, vehiculo.getId());
             
             if (stmt.executeUpdate() == 0) {
                 throw new SQLException("Fallo al actualizar Vehiculo. ID: " + vehiculo.getId());
             }
         }
+        // Lo enviado pasa a ser el estado "limpio" recien con el commit: si la transaccion se deshace
+        // (y se reintenta) los campos tienen que seguir marcados como modificados
+        TransactionManager.alConfirmar(conn, vehiculo::iniciarSeguimiento);
     }
 
     @Override
     public void eliminarTx(int id, Connection conn) throws Exception {
-        try (PreparedStatement stmt = conn.prepareStatement(DELETE_SQL)) {
+        try (PreparedStatement stmt = Plazos.preparar(conn, DELETE_SQL, TipoOperacion.ESCRITURA)) {
             stmt.setInt(1, id);
             if (stmt.executeUpdate() == 0) {
                 throw new SQLException("Fallo al eliminar (baja logica) Vehiculo. ID: " + id);
             }
         }
+        UnidadDeTrabajo.olvidar(Vehiculo.class, id);
     }
     
+    // --- BAJA MASIVA (por conjunto, de a chunks) ---
+
+    /**
+     * Da de baja logica los vehiculos activos con esos IDs y sus seguros, con tres sentencias por
+     * conjunto: bloqueo de los activos (FOR UPDATE), baja de sus seguros y baja de los vehiculos.
+     * @param ids Hasta {@link ConsultasIn#TAMANIO_CHUNK} IDs sin repetir.
+     * @param conn La conexion transaccional activa.
+     * @param seguros Recibe la cantidad de seguros dados de baja.
+     * @return Los IDs efectivamente dados de baja, con su ID (los demas no existen o ya estaban de baja).
+     */
+    public Map<Long, Long> eliminarPorIdsTx(List<Long> ids, Connection conn, Consumer<Integer> seguros) throws SQLException {
+        return eliminarPorClavesTx(SELECT_ACTIVOS_POR_IDS_PREFIJO, ids, rs -> rs.getLong("id"), conn, seguros);
+    }
+
+    /**
+     * Igual que {@link #eliminarPorIdsTx(List, Connection, Consumer)}, por dominio.
+     * @return Los dominios (en mayusculas) efectivamente dados de baja, con el ID de su vehiculo.
+     */
+    public Map<String, Long> eliminarPorDominiosTx(List<String> dominios, Connection conn, Consumer<Integer> seguros) throws SQLException {
+        List<String> normalizados = new ArrayList<>(dominios.size());
+        for (String dominio : dominios) {
+            normalizados.add(dominio.toUpperCase());
+        }
+        return eliminarPorClavesTx(SELECT_ACTIVOS_POR_DOMINIOS_PREFIJO, normalizados,
+                rs -> rs.getString("dominio").toUpperCase(), conn, seguros);
+    }
+
+    private <K> Map<K, Long> eliminarPorClavesTx(String prefijoSelect, List<K> claves, ConsultasIn.LectorFila<K> lectorClave,
+                                           Connection conn, Consumer<Integer> seguros) throws SQLException {
+        if (claves.size() > ConsultasIn.TAMANIO_CHUNK) {
+            throw new SQLException("Chunk de baja demasiado grande: " + claves.size() + " claves (maximo " + ConsultasIn.TAMANIO_CHUNK + ").");
+        }
+        Map<K, Long> encontradas = new LinkedHashMap<>();
+        if (claves.isEmpty()) {
+            return encontradas;
+        }
+        List<Long> ids = new ArrayList<>(claves.size());
+        String select = prefijoSql(prefijoSelect, claves.size()) + " FOR UPDATE";
+        try (PreparedStatement stmt = Plazos.preparar(conn, select, TipoOperacion.ESCRITURA)) {
+            int i = 1;
+            for (K clave : claves) {
+                stmt.setObject(i++, clave);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getLong("id"));
+                    encontradas.put(lectorClave.leer(rs), rs.getLong("id"));
+                }
+            }
+        }
+        if (ids.isEmpty()) {
+            return encontradas;
+        }
+        seguros.accept(actualizarPorIds(DELETE_SEGUROS_DE_VEHICULOS_PREFIJO, ids, conn));
+        actualizarPorIds(DELETE_VEHICULOS_PREFIJO, ids, conn);
+        for (Long id : ids) {
+            UnidadDeTrabajo.olvidar(Vehiculo.class, id);
+        }
+        UnidadDeTrabajo.olvidarTodo(SeguroVehicular.class);
+        return encontradas;
+    }
+
+    private static int actualizarPorIds(String prefijo, List<Long> ids, Connection conn) throws SQLException {
+        try (PreparedStatement stmt = Plazos.preparar(conn, prefijoSql(prefijo, ids.size()), TipoOperacion.ESCRITURA)) {
+            int i = 1;
+            for (Long id : ids) {
+                stmt.setLong(i++, id);
+            }
+            return stmt.executeUpdate();
+        }
+    }
+
+    private static String prefijoSql(String prefijo, int cantidad) {
+        return prefijo + ConsultasIn.parametros(cantidad) + ")";
+    }
+
     private void setVehiculoParameters(PreparedStatement stmt, Vehiculo vehiculo) throws SQLException {
         stmt.setString(1, vehiculo.getDominio().toUpperCase());
         stmt.setString(2, vehiculo.getMarca());
@@ -165,13 +594,36 @@ public class VehiculoDAO implements GenericDAO<Vehiculo> {
         stmt.setString(5, vehiculo.getNroChasis().toUpperCase());
     }
     
+    private void setColumna(PreparedStatement stmt, int indice, String columna, Vehiculo vehiculo) throws SQLException {
+        switch (columna) {
+            case "dominio":
+                stmt.setString(indice, vehiculo.getDominio().toUpperCase());
+                break;
+            case "marca":
+                stmt.setString(indice, vehiculo.getMarca());
+                break;
+            case "modelo":
+                stmt.setString(indice, vehiculo.getModelo());
+                break;
+            case "anio":
+                stmt.setInt(indice, vehiculo.getAnio());
+                break;
+            case "nroChasis":
+                stmt.setString(indice, vehiculo.getNroChasis().toUpperCase());
+                break;
+            default:
+                throw new SQLException("Columna de vehiculo desconocida: " + columna);
+        }
+    }
+    
     private Vehiculo mapearResultSetAVehiculoConSeguro(ResultSet rs) throws SQLException {
         Vehiculo vehiculo = new Vehiculo();
         vehiculo.setId(rs.getLong("id"));
         vehiculo.setEliminado(rs.getBoolean("eliminado"));
         vehiculo.setDominio(rs.getString("dominio"));
-        vehiculo.setMarca(rs.getString("marca"));
-        vehiculo.setModelo(rs.getString("modelo"));
+        // Columnas de baja cardinalidad: se comparte una unica instancia por valor
+        vehiculo.setMarca(DiccionarioValores.MARCAS.canonico(rs.getString("marca")));
+        vehiculo.setModelo(DiccionarioValores.MODELOS.canonico(rs.getString("modelo")));
         vehiculo.setAnio(rs.getInt("anio"));
         vehiculo.setNroChasis(rs.getString("nroChasis"));
         
@@ -180,7 +632,7 @@ public class VehiculoDAO implements GenericDAO<Vehiculo> {
             SeguroVehicular seguro = new SeguroVehicular();
             seguro.setId(seguroId);
             seguro.setEliminado(rs.getBoolean("seguro_eliminado"));
-            seguro.setAseguradora(rs.getString("aseguradora"));
+            seguro.setAseguradora(DiccionarioValores.ASEGURADORAS.canonico(rs.getString("aseguradora")));
             seguro.setNroPoliza(rs.getString("nroPoliza"));
             seguro.setCobertura(Cobertura.valueOf(rs.getString("cobertura")));
             
@@ -189,8 +641,10 @@ public class VehiculoDAO implements GenericDAO<Vehiculo> {
                 seguro.setVencimiento(vencimientoDate.toLocalDate());
             }
             
-            vehiculo.setSeguro(seguro);
+            seguro.iniciarSeguimiento();
+            vehiculo.setSeguro(UnidadDeTrabajo.unificar(SeguroVehicular.class, seguroId, seguro));
         }
-        return vehiculo;
+        vehiculo.iniciarSeguimiento();
+        return UnidadDeTrabajo.unificar(Vehiculo.class, vehiculo.getId(), vehiculo);
     }
 }
\ No newline at end of file
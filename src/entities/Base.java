@@ -1,5 +1,12 @@
 package entities;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
 // Clase base que usan todas nuestras entidades para no repetir código
 // Es abstracta porque no queremos que se pueda crear un objeto "Base" directamente
 // Solo la usamos para heredar
@@ -7,6 +14,14 @@ public abstract class Base {
     private long id;           // Este id lo genera automáticamente la base de datos
     private boolean eliminado; // Para la baja lógica - no borramos de verdad
 
+    // Campos modificados desde que la entidad se cargo de la base (dirty tracking).
+    // Si es null la entidad nunca se cargo desde la BD (ej. la armo el menu a mano)
+    // y el DAO no puede saber que cambio, entonces actualiza todas las columnas.
+    private Set<String> camposModificados;
+
+    // Valor cargado de cada campo modificado, para desmarcarlo si vuelve a ese valor
+    private Map<String, Object> valoresOriginales;
+
     // Constructor vacío - lo necesitan algunos frameworks
     public Base() {}
 
@@ -17,7 +32,7 @@ public abstract class Base {
     }
 
     // GETTERS Y SETTERS - forma segura de acceder a los atributos privados
-    
+
     public long getId() {
         return id;
     }
@@ -34,9 +49,49 @@ public abstract class Base {
         this.eliminado = eliminado;
     }
 
+    // SEGUIMIENTO DE CAMBIOS - lo usan los DAOs para armar UPDATEs parciales
+
+    // Lo llama el DAO despues de mapear o cuando se confirma una actualizacion: desde aca se empiezan a anotar los cambios
+    public void iniciarSeguimiento() {
+        camposModificados = new LinkedHashSet<>();
+        valoresOriginales = new HashMap<>();
+    }
+
+    public boolean tieneSeguimiento() {
+        return camposModificados != null;
+    }
+
+    // Las subclases lo llaman desde sus setters con los valores tal como se guardan en la base
+    // (ej. el dominio en mayusculas): cambiar solo la capitalizacion no es un cambio, y volver
+    // al valor cargado deja el campo sin modificar
+    protected void marcarModificado(String campo, Object actual, Object nuevo) {
+        if (camposModificados == null) {
+            return;
+        }
+        if (!valoresOriginales.containsKey(campo)) {
+            if (!Objects.equals(actual, nuevo)) {
+                valoresOriginales.put(campo, actual);
+                camposModificados.add(campo);
+            }
+        } else if (Objects.equals(valoresOriginales.get(campo), nuevo)) {
+            valoresOriginales.remove(campo);
+            camposModificados.remove(campo);
+        }
+    }
+
+    // Como lo normalizan los DAOs al guardar las claves de negocio
+    protected static String enMayusculas(String valor) {
+        return valor == null ? null : valor.toUpperCase();
+    }
+
+    // Devuelve los campos cambiados (vacio si no hubo cambios o si no hay seguimiento)
+    public Set<String> getCamposModificados() {
+        return camposModificados == null ? Collections.emptySet() : Collections.unmodifiableSet(camposModificados);
+    }
+
     // toString() nos ayuda a debuggear - muestra el objeto como texto
     @Override
     public String toString() {
         return "id=" + id + ", eliminado=" + eliminado;
     }
-}
\ No newline at end of file
+}
@@ -34,6 +34,7 @@ public class SeguroVehicular extends Base {
     }
 
     public void setAseguradora(String aseguradora) {
+        marcarModificado("aseguradora", this.aseguradora, aseguradora);
         this.aseguradora = aseguradora;
     }
 
@@ -42,6 +43,7 @@ public class SeguroVehicular extends Base {
     }
 
     public void setNroPoliza(String nroPoliza) {
+        marcarModificado("nroPoliza", enMayusculas(this.nroPoliza), enMayusculas(nroPoliza));
         this.nroPoliza = nroPoliza;
     }
 
@@ -50,6 +52,7 @@ public class SeguroVehicular extends Base {
     }
 
     public void setCobertura(Cobertura cobertura) {
+        marcarModificado("cobertura", this.cobertura, cobertura);
         this.cobertura = cobertura;
     }
 
@@ -62,6 +65,7 @@ public class SeguroVehicular extends Base {
      * @param vencimiento La fecha de vencimiento.
      */
     public void setVencimiento(LocalDate vencimiento) {
+        marcarModificado("vencimiento", this.vencimiento, vencimiento);
         this.vencimiento = vencimiento;
     }
 
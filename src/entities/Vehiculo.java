@@ -28,6 +28,7 @@ public class Vehiculo extends Base {
     }
 
     public void setDominio(String dominio) {
+        marcarModificado("dominio", enMayusculas(this.dominio), enMayusculas(dominio));
         this.dominio = dominio;
     }
 
@@ -36,6 +37,7 @@ public class Vehiculo extends Base {
     }
 
     public void setMarca(String marca) {
+        marcarModificado("marca", this.marca, marca);
         this.marca = marca;
     }
 
@@ -44,6 +46,7 @@ public class Vehiculo extends Base {
     }
 
     public void setModelo(String modelo) {
+        marcarModificado("modelo", this.modelo, modelo);
         this.modelo = modelo;
     }
 
@@ -52,6 +55,7 @@ public class Vehiculo extends Base {
     }
 
     public void setAnio(int anio) {
+        marcarModificado("anio", this.anio, anio);
         this.anio = anio;
     }
 
@@ -60,6 +64,7 @@ public class Vehiculo extends Base {
     }
 
     public void setNroChasis(String nroChasis) {
+        marcarModificado("nroChasis", enMayusculas(this.nroChasis), enMayusculas(nroChasis));
         this.nroChasis = nroChasis;
     }
 
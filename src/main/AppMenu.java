@@ -1,12 +1,29 @@
 package main;
 
+import config.RegistroConexiones;
+import dao.HistoricoDAO;
 import dao.SeguroVehicularDAO;
 import dao.VehiculoDAO;
+import service.AnaliticaFlota;
+import service.ArchivadoHistorico;
+import service.ConciliacionPolizas;
+import service.ExportacionFlota;
+import service.HistoricoService;
+import service.IndiceBusqueda;
+import service.InstantaneaFlota;
+import service.MantenimientoSegurosVencidos;
+import service.Precalentamiento;
 import service.SeguroVehicularServiceImpl;
 import service.VehiculoServiceImpl;
 
+import java.nio.file.Path;
 import java.util.InputMismatchException;
 import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Orquestador principal del menu de la aplicacion (Punto de entrada).
@@ -15,6 +32,8 @@ public class AppMenu {
 
     private final Scanner scanner;
     private final MenuHandler menuHandler;
+    private final ScheduledExecutorService scheduler;
+    private final Precalentamiento precalentamiento;
     // 'running' ya no es necesario, el loop se controla con 'opcion != 0'
 
     public AppMenu() {
@@ -28,8 +47,64 @@ public class AppMenu {
         SeguroVehicularServiceImpl seguroService = new SeguroVehicularServiceImpl(seguroDAO);
         VehiculoServiceImpl vehiculoService = new VehiculoServiceImpl(vehiculoDAO, seguroService);
         
+        // --- PROCESOS EN SEGUNDO PLANO (hilos daemon: no impiden cerrar la app) ---
+        // Dos hilos: un proceso largo (indice, archivado) no deja sin correr a la vigilancia de conexiones
+        AtomicInteger hilos = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(2, r -> {
+            Thread t = new Thread(r, "mantenimiento-bd-" + hilos.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        // Conexiones abiertas hace mas de 60 s y transacciones de mas de 15 s se reportan (opcion 22)
+        scheduler.scheduleWithFixedDelay(() -> RegistroConexiones.revisar(60_000, 15_000), 15, 15, TimeUnit.SECONDS);
+        // Indice en memoria para busquedas por marca/modelo/aseguradora: se construye en segundo
+        // plano y despues lo mantienen al dia las escrituras de los Services
+        IndiceBusqueda indice = new IndiceBusqueda();
+        vehiculoService.agregarObservador(indice);
+        seguroService.agregarObservador(indice);
+        
+        // Foto columnar de la flota para analitica (se puede refrescar desde el menu)
+        AnaliticaFlota analitica = new AnaliticaFlota(vehiculoDAO);
+        
+        // Instantanea en disco de la flota: indice y analitica arrancan desde ella puesta al dia
+        // (sin recorrer la tabla). La carga la hace el precalentamiento, mas abajo.
+        InstantaneaFlota instantanea = new InstantaneaFlota(Path.of("datos", "flota.instantanea"),
+                vehiculoDAO, seguroDAO, TimeUnit.DAYS.toMillis(7));
+        instantanea.programar(scheduler, 6 * 60, 6 * 60, TimeUnit.MINUTES);
+        
+        MantenimientoSegurosVencidos mantenimiento = new MantenimientoSegurosVencidos(seguroDAO, 500, 200);
+        mantenimiento.agregarObservador(indice);
+        mantenimiento.programar(scheduler, 1, 360, TimeUnit.MINUTES);
+        
+        // Bajas logicas de mas de 90 dias: se mueven a las tablas historicas una vez por dia
+        HistoricoDAO historicoDAO = new HistoricoDAO();
+        HistoricoService historicoService = new HistoricoService(historicoDAO);
+        ArchivadoHistorico archivado = new ArchivadoHistorico(historicoDAO, 90, 500, 200);
+        archivado.programar(scheduler, 10, 24 * 60, TimeUnit.MINUTES);
+        
+        // Precalentamiento en segundo plano: primera conexion, sentencias, mapeos y caches.
+        // El menu se muestra enseguida; el estado queda en el encabezado. Tiene sus propios hilos
+        // (uno por recorrido): en el scheduler frenaria la vigilancia de conexiones y el mantenimiento
+        this.precalentamiento = new Precalentamiento(vehiculoDAO, seguroDAO, historicoDAO, instantanea, indice, analitica);
+        AtomicInteger hilosArranque = new AtomicInteger();
+        ExecutorService arranque = Executors.newFixedThreadPool(2, r -> {
+            Thread t = new Thread(r, "precalentamiento-" + hilosArranque.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        precalentamiento.iniciar(arranque);
+        arranque.shutdown(); // Los hilos terminan con sus recorridos
+        
+        // Conciliacion de padrones de aseguradoras (a pedido desde el menu)
+        ConciliacionPolizas conciliacion = new ConciliacionPolizas(seguroDAO, seguroService);
+        conciliacion.agregarObservador(indice);
+        
+        // Exportacion de la flota a archivo (a pedido desde el menu)
+        ExportacionFlota exportacion = new ExportacionFlota(vehiculoDAO);
+        
         // El Handler necesita el Scanner y los Services para operar
-        this.menuHandler = new MenuHandler(scanner, vehiculoService, seguroService);
+        this.menuHandler = new MenuHandler(scanner, vehiculoService, seguroService, mantenimiento, indice,
+                analitica, historicoService, archivado, conciliacion, exportacion, instantanea, precalentamiento);
         // --- FIN INYECCIÓN ---
     }
 
@@ -44,18 +119,19 @@ public class AppMenu {
     public void run() {
         int opcion;
         do {
-            MenuDisplay.mostrarMenuPrincipal();
+            MenuDisplay.mostrarMenuPrincipal(precalentamiento.descripcionEstado());
             opcion = readOption();
             
             if (opcion != 0) {
                 processOption(opcion);
-                if (opcion >= 1 && opcion <= 11) { // Pausar solo si se ejecuta una opción válida
+                if (opcion >= 1 && opcion <= 22) { // Pausar solo si se ejecuta una opción válida
                     menuHandler.pausarParaContinuar(); 
                 }
             }
             
         } while (opcion != 0);
         
+        scheduler.shutdownNow();
         System.out.println("\nCerrando la aplicacion. Hasta luego!");
     }
     
@@ -117,6 +193,42 @@ public class AppMenu {
                 case 11: // ✅ NUEVA OPCIÓN
                     menuHandler.buscarSeguroPorPoliza();
                     break;
+                case 12:
+                    menuHandler.buscarEnIndice();
+                    break;
+                case 13:
+                    menuHandler.buscarConFiltros();
+                    break;
+                case 14:
+                    menuHandler.consultaMasivaDominios();
+                    break;
+                case 15:
+                    menuHandler.consultarHistorico();
+                    break;
+                // ANALITICA
+                case 16:
+                    menuHandler.analiticaFlota();
+                    break;
+                // OPERACIONES MASIVAS
+                case 17:
+                    menuHandler.importarPadronPolizas();
+                    break;
+                case 18:
+                    menuHandler.conciliarPadronPolizas();
+                    break;
+                case 19:
+                    menuHandler.bajaMasivaVehiculos();
+                    break;
+                case 20:
+                    menuHandler.renovarPolizasMasivo();
+                    break;
+                case 21:
+                    menuHandler.exportarFlota();
+                    break;
+                // SISTEMA
+                case 22:
+                    menuHandler.mostrarEstadoSistema();
+                    break;
                 case 0:
                     // La logica de salida esta en el loop run()
                     break;
@@ -1,5 +1,7 @@
 package main;
 
+import config.DatabaseConnection;
+
 /**
  * Clase utilitaria (solo métodos estáticos) para mostrar el menú de la aplicación.
  */
@@ -8,10 +10,13 @@ public class MenuDisplay {
     /**
      * Muestra el menú principal con las opciones del TPI de Vehículos.
      */
-    public static void mostrarMenuPrincipal() {
+    public static void mostrarMenuPrincipal(String estadoArranque) {
         System.out.println("\n+---------------------------------------------------+");
         System.out.println("|      *** GESTION DE FLOTA VEHICULAR (TPI) *** |");
         System.out.println("+---------------------------------------------------+");
+        System.out.printf("| Base de datos: %-34s |%n", DatabaseConnection.getDisyuntor().descripcionEstado());
+        System.out.printf("| Arranque:      %-34s |%n", estadoArranque);
+        System.out.println("+---------------------------------------------------+");
         System.out.println("|                                                   |");
         System.out.println("|    VEHICULOS (CRUD Compuesto A + B)               |");
         System.out.println("|---------------------------------------------------|");
@@ -32,6 +37,26 @@ public class MenuDisplay {
         System.out.println("|---------------------------------------------------|");
         System.out.println("| 10. Buscar Vehiculo por Dominio (Patente)         |"); 
         System.out.println("| 11. Buscar Seguro por Nro. de Poliza              |"); 
+        System.out.println("| 12. Buscar por Marca/Modelo/Aseguradora (rapida)  |");
+        System.out.println("| 13. Busqueda con Filtros (ano, cobertura, etc.)   |");
+        System.out.println("| 14. Consulta Masiva de Dominios (lista/archivo)   |");
+        System.out.println("| 15. Consultar Historico (bajas archivadas)        |");
+        System.out.println("|                                                   |");
+        System.out.println("|    ANALITICA                                      |");
+        System.out.println("|---------------------------------------------------|");
+        System.out.println("| 16. Analitica de Flota (agrupamientos)            |");
+        System.out.println("|                                                   |");
+        System.out.println("|    OPERACIONES MASIVAS                            |");
+        System.out.println("|---------------------------------------------------|");
+        System.out.println("| 17. Importar Padron de Polizas (CSV aseguradora)  |");
+        System.out.println("| 18. Conciliar Padron de Polizas (ordenado)        |");
+        System.out.println("| 19. Baja Masiva de Vehiculos (IDs o dominios)     |");
+        System.out.println("| 20. Renovacion Masiva de Polizas                  |");
+        System.out.println("| 21. Exportar Flota (CSV / JSON Lines, gzip)       |");
+        System.out.println("|                                                   |");
+        System.out.println("|    SISTEMA                                        |");
+        System.out.println("|---------------------------------------------------|");
+        System.out.println("| 22. Estado y metricas del sistema                 |");
         System.out.println("|                                                   |");
         System.out.println("+---------------------------------------------------+");
         System.out.println("| 0. Salir                                          |");
@@ -1,16 +1,52 @@
 package main;
 
+import config.AccesoBD;
+import config.DatabaseConnection;
+import config.Plazos;
+import config.PoliticaReintentos;
+import config.RegistroConexiones;
+import config.UnidadDeTrabajo;
+import dao.CriteriosBusqueda;
+import dao.CriteriosRenovacion;
+import dao.DiccionarioValores;
+import dao.NovedadPoliza;
+import dao.RegistroHistorico;
+import dao.ResultadoBajaMasiva;
+import dao.ResultadoBusquedaMasiva;
+import dao.ResultadoRenovacion;
+import dao.ResultadoUpsert;
 import entities.Vehiculo;
 import entities.SeguroVehicular;
 import entities.Cobertura;
+import service.AnaliticaFlota;
+import service.ArchivadoHistorico;
+import service.ConciliacionPolizas;
+import service.ExportacionFlota;
+import service.HistoricoService;
+import service.IndiceBusqueda;
+import service.InstantaneaFlota;
+import service.LectorPadronPolizas;
+import service.MantenimientoSegurosVencidos;
+import service.Precalentamiento;
 import service.VehiculoServiceImpl;
 import service.SeguroVehicularServiceImpl;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.InputMismatchException;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
 import java.util.regex.Pattern; 
 
 /**
@@ -24,15 +60,50 @@ public class MenuHandler {
     private final Scanner scanner;
     private final VehiculoServiceImpl vehiculoService;
     private final SeguroVehicularServiceImpl seguroService;
+    private final MantenimientoSegurosVencidos mantenimiento;
+    private final IndiceBusqueda indice;
+    private final AnaliticaFlota analitica;
+    private final HistoricoService historicoService;
+    private final ArchivadoHistorico archivado;
+    private final ConciliacionPolizas conciliacion;
+    private final ExportacionFlota exportacion;
+    private final InstantaneaFlota instantanea;
+    private final Precalentamiento precalentamiento;
+
+    // TAMANIOS DE PAGINA DE LOS LISTADOS
+    private static final int FILAS_POR_PAGINA = 20;
+    private static final int FICHAS_POR_PAGINA = 5;
+
+    // FILAS CON PROBLEMAS QUE SE MUESTRAN EN LOS INFORMES DE IMPORTACION
+    private static final int MAX_FILAS_INFORME = 50;
+
+    private final RenderizadorConsola renderizador = new RenderizadorConsola();
 
     // PATRON DE REGEX PARA EL FORMATO DE DOMINIO (LLNNNLL)
     private static final String PATRON_DOMINIO = "^[A-Z]{2}[0-9]{3}[A-Z]{2}$";
     private static final Pattern PATTERN = Pattern.compile(PATRON_DOMINIO);
+
+    // SEPARADORES PARA LISTAS DE CLAVES (coma, punto y coma, espacios, saltos de linea)
+    private static final Pattern SEPARADORES_LISTA = Pattern.compile("[,;\\s]+");
     
-    public MenuHandler(Scanner scanner, VehiculoServiceImpl vehiculoService, SeguroVehicularServiceImpl seguroService) {
+    public MenuHandler(Scanner scanner, VehiculoServiceImpl vehiculoService, SeguroVehicularServiceImpl seguroService,
+                       MantenimientoSegurosVencidos mantenimiento, IndiceBusqueda indice,
+                       AnaliticaFlota analitica, HistoricoService historicoService,
+                       ArchivadoHistorico archivado, ConciliacionPolizas conciliacion,
+                       ExportacionFlota exportacion, InstantaneaFlota instantanea,
+                       Precalentamiento precalentamiento) {
         this.scanner = scanner;
         this.vehiculoService = vehiculoService;
         this.seguroService = seguroService;
+        this.mantenimiento = mantenimiento;
+        this.indice = indice;
+        this.analitica = analitica;
+        this.historicoService = historicoService;
+        this.archivado = archivado;
+        this.conciliacion = conciliacion;
+        this.exportacion = exportacion;
+        this.instantanea = instantanea;
+        this.precalentamiento = precalentamiento;
     }
 
     // =================================================================
@@ -87,18 +158,94 @@ public class MenuHandler {
         }
     }
 
+    /**
+     * Lista los vehiculos de a una pagina por vez, en tabla compacta (por defecto)
+     * o en fichas detalladas. Las paginas se piden a la base a medida que se muestran
+     * (mientras se ve una, la siguiente ya se esta buscando en segundo plano) y el
+     * usuario puede cortar el listado en cualquier pagina.
+     */
     public void listarVehiculos() throws Exception {
         System.out.println("\n--- 2. Listar Vehiculos (con Seguros) ---");
-        List<Vehiculo> vehiculos = vehiculoService.getAll();
-        
-        if (vehiculos.isEmpty()) {
-            System.out.println("No hay vehiculos activos en el sistema.");
+        String formato = leerStringOpcional("Formato: [T]abla compacta / [F]ichas detalladas (Enter = T): ");
+        if (formato.equalsIgnoreCase("F")) {
+            listarVehiculosPorPaginas(FICHAS_POR_PAGINA, null, v -> {
+                renderizador.agregarFicha(v);
+                renderizador.agregarLinea("--------------------");
+            });
+        } else {
+            listarVehiculosPorPaginas(FILAS_POR_PAGINA, renderizador::agregarEncabezadoVehiculos,
+                    renderizador::agregarFilaVehiculo);
+        }
+    }
+
+    private void listarVehiculosPorPaginas(int porPagina, Runnable encabezado, Consumer<Vehiculo> agregarFila) throws Exception {
+        listarPorPaginas(vehiculoService::getPagina, Vehiculo::getId, "No hay vehiculos activos en el sistema.",
+                porPagina, encabezado, agregarFila);
+    }
+
+    // Pide a la base la pagina que sigue al ultimo ID mostrado
+    private interface CargaPagina<T> {
+        List<T> cargar(long despuesDeId, int tamanio) throws Exception;
+    }
+
+    /**
+     * Paginado contra la base con prefetch: apenas llega la pagina N se lanza en un hilo
+     * virtual la consulta de la pagina N+1, asi cuando el usuario pide seguir la pagina
+     * normalmente ya esta en memoria. Si el usuario corta, el prefetch se cancela.
+     * Los hilos son del listado: al salir se cierra el executor (y se espera al prefetch cancelado).
+     */
+    private <T> void listarPorPaginas(CargaPagina<T> carga, ToLongFunction<T> id, String mensajeVacio,
+                                      int porPagina, Runnable encabezado, Consumer<T> agregarFila) throws Exception {
+        List<T> pagina = carga.cargar(0, porPagina);
+        if (pagina.isEmpty()) {
+            System.out.println(mensajeVacio);
             return;
         }
-        
-        for (Vehiculo v : vehiculos) {
-            imprimirVehiculoFormatoCuadro(v);
-            System.out.println("--------------------");
+
+        try (ExecutorService prefetch = Executors.newVirtualThreadPerTaskExecutor()) {
+            int numeroPagina = 1;
+            long mostrados = 0;
+            while (true) {
+                Future<List<T>> siguiente = null;
+                if (pagina.size() == porPagina) {
+                    long ultimoId = id.applyAsLong(pagina.get(pagina.size() - 1));
+                    siguiente = prefetch.submit(() -> carga.cargar(ultimoId, porPagina));
+                }
+
+                if (encabezado != null) {
+                    encabezado.run();
+                }
+                for (T elemento : pagina) {
+                    agregarFila.accept(elemento);
+                }
+                mostrados += pagina.size();
+                renderizador.agregarLinea("Pagina " + numeroPagina + " | Registros " + (mostrados - pagina.size() + 1)
+                        + "-" + mostrados + (siguiente == null ? " (fin del listado)" : ""));
+                renderizador.volcar();
+
+                if (siguiente == null) {
+                    return;
+                }
+                if (!continuarPaginado()) {
+                    siguiente.cancel(true);
+                    return;
+                }
+                pagina = esperarPagina(siguiente);
+                if (pagina.isEmpty()) {
+                    System.out.println("(fin del listado)");
+                    return;
+                }
+                numeroPagina++;
+            }
+        }
+    }
+
+    private <T> List<T> esperarPagina(Future<List<T>> pagina) throws Exception {
+        try {
+            return pagina.get();
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            throw causa instanceof Exception ? (Exception) causa : e;
         }
     }
 
@@ -263,17 +410,9 @@ public class MenuHandler {
     public void listarSeguros() throws Exception {
          System.out.println("\n--- 9. Listar Seguros ---");
          
-        List<SeguroVehicular> seguros = seguroService.getAll();
-        
-        if (seguros.isEmpty()) {
-            System.out.println("No hay seguros activos en el sistema.");
-            return;
-        }
-        
-        for (SeguroVehicular s : seguros) {
-            System.out.println(s.toString());
-            System.out.println("--------------------");
-        }
+        // Paginas pedidas a la base a medida que se muestran, como el listado de vehiculos
+        listarPorPaginas(seguroService::getPagina, SeguroVehicular::getId, "No hay seguros activos en el sistema.",
+                FILAS_POR_PAGINA, renderizador::agregarEncabezadoSeguros, renderizador::agregarFilaSeguro);
     }
 
     // --- BÚSQUEDAS POR CAMPO CLAVE ---
@@ -308,6 +447,401 @@ public class MenuHandler {
         System.out.println("\nSeguro encontrado:");
         System.out.println(s.toString());
     }
+
+    /**
+     * Busqueda por texto libre sobre marca, modelo y aseguradora respondida desde el
+     * indice en memoria (sin ir a la base). Acepta prefijos: "toy cor", "sanc".
+     */
+    public void buscarEnIndice() {
+        System.out.println("\n--- 12. Buscar por Marca / Modelo / Aseguradora ---");
+        if (!indice.isConstruido()) {
+            System.err.println("El indice de busqueda todavia se esta construyendo. Intente en unos segundos.");
+            return;
+        }
+        String consulta = leerString("Ingrese palabras o prefijos (ej. 'toyota corolla', 'sancor'): ");
+
+        long inicio = System.nanoTime();
+        List<Vehiculo> resultados = indice.buscar(consulta);
+        long micros = (System.nanoTime() - inicio) / 1_000;
+
+        if (resultados.isEmpty()) {
+            System.out.println("Sin resultados para: " + consulta + " (" + micros + " us)");
+            return;
+        }
+        System.out.println(resultados.size() + " resultado(s) en " + micros + " us (indice en memoria).");
+        mostrarPaginado(resultados, FILAS_POR_PAGINA, renderizador::agregarEncabezadoVehiculos,
+                renderizador::agregarFilaVehiculo);
+    }
+    
+    /**
+     * Busqueda con filtros combinables. Todos los campos son opcionales y el
+     * filtrado lo hace la base (no se traen todos los vehiculos a memoria).
+     */
+    public void buscarConFiltros() throws Exception {
+        System.out.println("\n--- 13. Busqueda con Filtros (dejar vacio para no filtrar) ---");
+        CriteriosBusqueda criterios = new CriteriosBusqueda();
+
+        String marca = leerStringOpcional("Marca: ");
+        if (!marca.isEmpty()) criterios.setMarca(marca);
+        criterios.setAnioDesde(leerEnteroOpcional("Ano desde: ", 1950, LocalDate.now().getYear() + 1));
+        criterios.setAnioHasta(leerEnteroOpcional("Ano hasta: ", 1950, LocalDate.now().getYear() + 1));
+        criterios.setCobertura(leerCoberturaOpcional());
+        String aseguradora = leerStringOpcional("Aseguradora: ");
+        if (!aseguradora.isEmpty()) criterios.setAseguradora(aseguradora);
+        criterios.setVencimientoDesde(leerFechaFiltro("Vencimiento desde (YYYY-MM-DD): "));
+        criterios.setVencimientoHasta(leerFechaFiltro("Vencimiento hasta (YYYY-MM-DD): "));
+
+        String asegurado = leerStringOpcional("Con seguro? (S = asegurados, N = sin seguro, vacio = todos): ").toUpperCase();
+        if (asegurado.equals("S")) criterios.setConSeguro(Boolean.TRUE);
+        if (asegurado.equals("N")) criterios.setConSeguro(Boolean.FALSE);
+
+        Integer limite = leerEnteroOpcional("Maximo de resultados [" + CriteriosBusqueda.LIMITE_POR_DEFECTO + "]: ",
+                1, CriteriosBusqueda.LIMITE_MAXIMO);
+        if (limite != null) criterios.setLimite(limite);
+
+        List<Vehiculo> resultados = vehiculoService.buscarPorCriterios(criterios);
+        if (resultados.isEmpty()) {
+            System.out.println("No hay vehiculos que cumplan los filtros.");
+            return;
+        }
+        mostrarPaginado(resultados, FILAS_POR_PAGINA, renderizador::agregarEncabezadoVehiculos,
+                renderizador::agregarFilaVehiculo);
+        System.out.println(resultados.size() + " resultado(s)" + (resultados.size() == criterios.getLimite() ? " (limite alcanzado)." : "."));
+    }
+    
+    /**
+     * Agrupamientos ad hoc sobre la foto columnar de la flota (en memoria).
+     */
+    public void analiticaFlota() {
+        System.out.println("\n--- 16. Analitica de Flota (en memoria) ---");
+        System.out.println("Foto actual: " + analitica.resumen());
+        String refrescar = leerStringOpcional("Refrescar la foto desde la base antes de consultar? (S/N) [N]: ");
+        if (refrescar.equalsIgnoreCase("S") || !analitica.isCargada()) {
+            System.out.println("Refrescando...");
+            analitica.refrescar();
+            System.out.println("Foto actual: " + analitica.resumen());
+            if (!analitica.isCargada()) {
+                return;
+            }
+        }
+
+        AnaliticaFlota.Dimension[] dimensiones = AnaliticaFlota.Dimension.values();
+        for (int i = 0; i < dimensiones.length; i++) {
+            System.out.println((i + 1) + ". Agrupar por " + dimensiones[i]);
+        }
+        AnaliticaFlota.Dimension dimension = dimensiones[leerInt("Dimension: ", 1, dimensiones.length) - 1];
+
+        AnaliticaFlota.Filtro filtro = new AnaliticaFlota.Filtro();
+        Integer anioDesde = leerEnteroOpcional("Filtro ano desde (vacio = sin filtro): ", 1950, LocalDate.now().getYear() + 1);
+        if (anioDesde != null) filtro.setAnioDesde(anioDesde);
+        Integer anioHasta = leerEnteroOpcional("Filtro ano hasta (vacio = sin filtro): ", 1950, LocalDate.now().getYear() + 1);
+        if (anioHasta != null) filtro.setAnioHasta(anioHasta);
+        filtro.setCobertura(leerCoberturaOpcional());
+        Integer dias = leerEnteroOpcional("Solo polizas que vencen en los proximos N dias (vacio = sin filtro): ", 0, 3650);
+        if (dias != null) filtro.setVenceDentroDeDias(dias);
+
+        AnaliticaFlota.Resultado resultado = analitica.agrupar(dimension, filtro);
+        System.out.printf("%-30s %10s %10s%n", dimension, "CANTIDAD", "ANO PROM.");
+        for (Map.Entry<String, long[]> grupo : resultado.getGrupos().entrySet()) {
+            long[] valores = grupo.getValue();
+            System.out.printf("%-30s %10d %10.1f%n", grupo.getKey(), valores[0], (double) valores[1] / valores[0]);
+        }
+        System.out.println(resultado.getGrupos().size() + " grupo(s) sobre " + resultado.getFilasRecorridas()
+                + " vehiculos en " + resultado.getMicros() + " us.");
+    }
+    
+    /**
+     * Verificacion masiva de patentes: se ingresan a mano (separadas por coma o espacio)
+     * o desde un archivo con "@ruta". Se consultan todas juntas por chunks.
+     */
+    public void consultaMasivaDominios() throws Exception {
+        System.out.println("\n--- 14. Consulta Masiva de Dominios ---");
+        List<String> dominios = leerListaClaves("Dominios separados por coma/espacio, o @archivo.txt: ");
+        if (dominios.isEmpty()) {
+            System.err.println("No se ingreso ningun dominio.");
+            return;
+        }
+
+        long inicio = System.nanoTime();
+        ResultadoBusquedaMasiva<String, Vehiculo> resultado = vehiculoService.buscarPorDominios(dominios);
+        long ms = (System.nanoTime() - inicio) / 1_000_000;
+
+        System.out.println("Consultados: " + resultado.cantidadConsultadas() + " | Encontrados: " + resultado.cantidadEncontrados()
+                + " | Faltantes: " + resultado.getFaltantes().size() + " (" + ms + " ms)");
+        if (resultado.cantidadEncontrados() > 0) {
+            mostrarPaginado(resultado.getEncontrados(), FILAS_POR_PAGINA, renderizador::agregarEncabezadoVehiculos,
+                    renderizador::agregarFilaVehiculo);
+        }
+        if (!resultado.getFaltantes().isEmpty()) {
+            System.out.println("Dominios sin vehiculo activo: " + String.join(", ", resultado.getFaltantes()));
+        }
+    }
+    
+    /**
+     * Baja logica de muchos vehiculos (y sus seguros) por ID o por dominio, ingresados a mano
+     * o desde un archivo con "@ruta". Se procesan por conjunto, de a chunks.
+     */
+    public void bajaMasivaVehiculos() {
+        System.out.println("\n--- 19. Baja Masiva de Vehiculos ---");
+        System.out.println("1. Por IDs");
+        System.out.println("2. Por Dominios");
+        boolean porIds = leerInt("Opcion: ", 1, 2) == 1;
+        List<String> claves = leerListaClaves((porIds ? "IDs" : "Dominios") + " separados por coma/espacio, o @archivo.txt: ");
+        if (claves.isEmpty()) {
+            System.err.println("No se ingreso ninguna clave.");
+            return;
+        }
+        List<Long> ids = new ArrayList<>();
+        if (porIds) {
+            for (String clave : claves) {
+                try {
+                    ids.add(Long.parseLong(clave));
+                } catch (NumberFormatException e) {
+                    System.err.println("Se ignora (no es un ID): " + clave);
+                }
+            }
+        }
+        int cantidad = porIds ? ids.size() : claves.size();
+        String confirmacion = leerStringOpcional("Se daran de baja hasta " + cantidad + " vehiculos con sus seguros. Confirma? (S/N) [N]: ");
+        if (!confirmacion.equalsIgnoreCase("S")) {
+            System.out.println("Operacion cancelada.");
+            return;
+        }
+
+        long inicio = System.nanoTime();
+        ResultadoBajaMasiva<?> resultado = porIds ? vehiculoService.eliminarPorIds(ids) : vehiculoService.eliminarPorDominios(claves);
+        long ms = (System.nanoTime() - inicio) / 1_000_000;
+
+        System.out.println(resultado.resumen() + " (" + ms + " ms)");
+        int mostradas = 0;
+        for (Map.Entry<?, ResultadoBajaMasiva.Desenlace> e : resultado.getDesenlaces().entrySet()) {
+            if (e.getValue() == ResultadoBajaMasiva.Desenlace.DADO_DE_BAJA) {
+                continue;
+            }
+            if (mostradas++ == MAX_FILAS_INFORME) {
+                System.out.println("  ... (se muestran las primeras " + MAX_FILAS_INFORME + ")");
+                break;
+            }
+            System.out.println("  " + e.getKey() + ": " + e.getValue());
+        }
+    }
+    
+    /**
+     * Renovacion masiva de polizas: fija o corre el vencimiento de todas las polizas activas
+     * que cumplen los filtros. La hace la base por chunks, sin traer los seguros uno por uno.
+     */
+    public void renovarPolizasMasivo() {
+        System.out.println("\n--- 20. Renovacion Masiva de Polizas (dejar vacio para no filtrar) ---");
+        CriteriosRenovacion criterios = new CriteriosRenovacion();
+        String aseguradora = leerStringOpcional("Aseguradora: ");
+        if (!aseguradora.isEmpty()) criterios.setAseguradora(aseguradora);
+        criterios.setCobertura(leerCoberturaOpcional());
+        criterios.setVencimientoDesde(leerFechaFiltro("Vencimiento actual desde (YYYY-MM-DD): "));
+        criterios.setVencimientoHasta(leerFechaFiltro("Vencimiento actual hasta (YYYY-MM-DD): "));
+        if (!criterios.tieneFiltros()) {
+            System.err.println("Indique al menos un filtro.");
+            return;
+        }
+
+        System.out.println("1. Fijar una fecha de vencimiento");
+        System.out.println("2. Extender el vencimiento actual N meses");
+        if (leerInt("Opcion: ", 1, 2) == 1) {
+            criterios.setNuevoVencimiento(leerFecha("Nueva Fecha Vencimiento (YYYY-MM-DD): "));
+        } else {
+            criterios.setMesesExtension(leerInt("Meses: ", 1, CriteriosRenovacion.MAX_MESES_EXTENSION));
+        }
+        String confirmacion = leerStringOpcional("Se renovaran todas las polizas activas que cumplan los filtros. Confirma? (S/N) [N]: ");
+        if (!confirmacion.equalsIgnoreCase("S")) {
+            System.out.println("Operacion cancelada.");
+            return;
+        }
+
+        long inicio = System.nanoTime();
+        ResultadoRenovacion resultado = seguroService.renovarPolizas(criterios);
+        long ms = (System.nanoTime() - inicio) / 1_000_000;
+        System.out.println(resultado.resumen() + " (" + ms + " ms)");
+    }
+    
+    /**
+     * Exporta los vehiculos activos con su seguro a un archivo CSV o JSON Lines (opcionalmente
+     * comprimido), leyendo la base con varias conexiones en paralelo.
+     */
+    public void exportarFlota() throws Exception {
+        System.out.println("\n--- 21. Exportar Flota (CSV / JSON Lines) ---");
+        System.out.println("1. CSV");
+        System.out.println("2. JSON Lines");
+        ExportacionFlota.Formato formato = leerInt("Formato: ", 1, 2) == 1 ? ExportacionFlota.Formato.CSV : ExportacionFlota.Formato.JSONL;
+        boolean comprimir = leerStringOpcional("Comprimir con gzip? (S/N) [N]: ").equalsIgnoreCase("S");
+        String extension = (formato == ExportacionFlota.Formato.CSV ? ".csv" : ".jsonl") + (comprimir ? ".gz" : "");
+        String ruta = leerStringOpcional("Archivo destino [flota" + extension + "]: ");
+        Path destino = Path.of(ruta.isEmpty() ? "flota" + extension : ruta);
+        int maximo = ExportacionFlota.maximoLectores();
+        int sugeridos = ExportacionFlota.lectoresSugeridos();
+        int lectores = leerIntOpcional("Lectores en paralelo (1-" + maximo + ") [" + sugeridos + "]: ", sugeridos, 1, maximo);
+
+        System.out.println("Exportando a " + destino.toAbsolutePath() + " ...");
+        ExportacionFlota.Resumen resumen = exportacion.exportar(destino, formato, comprimir, lectores);
+        System.out.println(resumen.resumen());
+    }
+    
+    /**
+     * Consulta a pedido de las filas archivadas (las tablas activas ya no las tienen).
+     */
+    public void consultarHistorico() throws Exception {
+        System.out.println("\n--- 15. Consultar Historico ---");
+        System.out.println("1. Por Dominio (vehiculo y sus seguros)");
+        System.out.println("2. Por Nro. de Poliza");
+        int tipo = leerInt("Opcion: ", 1, 2);
+
+        if (tipo == 1) {
+            String dominio = leerDominio("Ingrese Dominio (Patente LLNNNLL): ");
+            Map<RegistroHistorico<Vehiculo>, List<RegistroHistorico<SeguroVehicular>>> historial =
+                    historicoService.buscarHistorialPorDominio(dominio);
+            if (historial.isEmpty()) {
+                System.out.println("No hay registros archivados para el dominio: " + dominio);
+                return;
+            }
+            for (Map.Entry<RegistroHistorico<Vehiculo>, List<RegistroHistorico<SeguroVehicular>>> registro : historial.entrySet()) {
+                System.out.println("\n" + registro.getKey());
+                for (RegistroHistorico<SeguroVehicular> seguro : registro.getValue()) {
+                    System.out.println("   " + seguro);
+                }
+            }
+        } else {
+            String poliza = leerString("Ingrese Nro. Poliza: ");
+            List<RegistroHistorico<SeguroVehicular>> seguros = historicoService.buscarSegurosPorPoliza(poliza);
+            if (seguros.isEmpty()) {
+                System.out.println("No hay registros archivados para la poliza: " + poliza);
+                return;
+            }
+            for (RegistroHistorico<SeguroVehicular> seguro : seguros) {
+                System.out.println(seguro);
+            }
+        }
+    }
+
+    /**
+     * Importa el padron de polizas de una aseguradora desde un archivo CSV
+     * (dominio;nroPoliza;aseguradora;cobertura;vencimiento). Las polizas nuevas se insertan,
+     * las existentes se actualizan si cambiaron, y se informa el desenlace de cada fila.
+     */
+    public void importarPadronPolizas() throws Exception {
+        System.out.println("\n--- 17. Importar Padron de Polizas (CSV) ---");
+        String ruta = leerString("Ruta del archivo (dominio;nroPoliza;aseguradora;cobertura;vencimiento): ");
+        List<NovedadPoliza> novedades = new ArrayList<>();
+        List<String> ilegibles = new ArrayList<>();
+        try (LectorPadronPolizas lector = new LectorPadronPolizas(Path.of(ruta))) {
+            while (true) {
+                try {
+                    NovedadPoliza novedad = lector.siguiente();
+                    if (novedad == null) {
+                        break;
+                    }
+                    novedades.add(novedad);
+                } catch (LectorPadronPolizas.LineaIlegible e) {
+                    ilegibles.add(e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error: No se pudo leer el archivo: " + e.getMessage());
+            return;
+        }
+
+        long inicio = System.nanoTime();
+        ResultadoUpsert resultado = seguroService.sincronizarPolizas(novedades);
+        long ms = (System.nanoTime() - inicio) / 1_000_000;
+
+        System.out.println(resultado.resumen() + " | Ilegibles: " + ilegibles.size() + " (" + ms + " ms)");
+        int mostradas = 0;
+        for (String ilegible : ilegibles) {
+            if (mostradas++ == MAX_FILAS_INFORME) {
+                break;
+            }
+            System.out.println("  Ilegible, " + ilegible);
+        }
+        for (ResultadoUpsert.Fila fila : resultado.getFilas()) {
+            if (fila.getDesenlace() != ResultadoUpsert.Desenlace.RECHAZADA) {
+                continue;
+            }
+            if (mostradas++ == MAX_FILAS_INFORME) {
+                System.out.println("  ... (se muestran las primeras " + MAX_FILAS_INFORME + ")");
+                break;
+            }
+            System.out.println("  Rechazada, " + fila.getNovedad() + ": " + fila.getMotivo());
+        }
+    }
+    
+    /**
+     * Concilia el padron ordenado de una aseguradora contra la base en una sola pasada
+     * (altas, modificaciones, cambios de vehiculo y bajas), y opcionalmente aplica las diferencias.
+     */
+    public void conciliarPadronPolizas() throws Exception {
+        System.out.println("\n--- 18. Conciliar Padron de Polizas (archivo ordenado por poliza) ---");
+        String ruta = leerString("Ruta del archivo (dominio;nroPoliza;aseguradora;cobertura;vencimiento): ");
+        String aseguradora = leerString("Aseguradora del padron: ");
+        System.out.println("1. Solo informar diferencias");
+        System.out.println("2. Informar y aplicar");
+        boolean aplicar = leerInt("Opcion: ", 1, 2) == 2;
+
+        int[] mostradas = {0};
+        long inicio = System.nanoTime();
+        ConciliacionPolizas.Resumen resumen;
+        try {
+            resumen = conciliacion.conciliar(Path.of(ruta), aseguradora, aplicar, d -> {
+                if (mostradas[0]++ < MAX_FILAS_INFORME) {
+                    System.out.println("  " + d);
+                } else if (mostradas[0] == MAX_FILAS_INFORME + 1) {
+                    System.out.println("  ... (se muestran las primeras " + MAX_FILAS_INFORME + ")");
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Error: No se pudo leer el archivo: " + e.getMessage());
+            return;
+        } catch (IllegalStateException e) {
+            System.err.println("Error: " + e.getMessage());
+            return;
+        }
+        long ms = (System.nanoTime() - inicio) / 1_000_000;
+        System.out.println(resumen.resumen() + " (" + ms + " ms)");
+    }
+    
+    // --- SISTEMA ---
+
+    public void mostrarEstadoSistema() {
+        System.out.println("\n--- 22. Estado y Metricas del Sistema ---");
+        System.out.println("Reintentos de transacciones: " + PoliticaReintentos.PREDETERMINADA.resumen());
+        System.out.println("Plazos y timeouts:           " + Plazos.resumen());
+        System.out.println("Compartimentos (admision):   " + AccesoBD.resumenCompartimentos());
+        System.out.println("Disyuntor de la base:        " + DatabaseConnection.getDisyuntor().resumen());
+        System.out.println("Conexiones y transacciones:  " + RegistroConexiones.resumen());
+        System.out.println("Unidades de trabajo:         " + UnidadDeTrabajo.resumen());
+
+        List<RegistroConexiones.Prestamo> transacciones = RegistroConexiones.instantanea(RegistroConexiones.Clase.TRANSACCION);
+        if (!transacciones.isEmpty()) {
+            System.out.println("\nTransacciones abiertas ahora:");
+            for (RegistroConexiones.Prestamo t : transacciones) {
+                System.out.println("  " + t.descripcion());
+                for (String frame : t.pilaResumida()) {
+                    System.out.println("      en " + frame);
+                }
+            }
+        }
+        List<String> reportes = RegistroConexiones.ultimosReportes();
+        if (!reportes.isEmpty()) {
+            System.out.println("\nUltimos reportes de conexiones/transacciones retenidas:");
+            for (String reporte : reportes) {
+                System.out.println("  " + reporte);
+            }
+        }
+        System.out.println("Precalentamiento:            " + precalentamiento.resumen());
+        System.out.println("Baja de polizas vencidas:    " + mantenimiento.resumen());
+        System.out.println("Indice de busqueda:          " + indice.resumen());
+        System.out.println("Analitica de flota:          " + analitica.resumen());
+        System.out.println("Instantanea en disco:        " + instantanea.resumen());
+        System.out.println("Archivado historico:         " + archivado.resumen());
+        System.out.println("Diccionarios de valores:     " + DiccionarioValores.MARCAS.resumen()
+                + " | " + DiccionarioValores.MODELOS.resumen() + " | " + DiccionarioValores.ASEGURADORAS.resumen());
+    }
     
     // =================================================================
     // MÉTODOS AUXILIARES CON CICLO CERRADO Y VALIDACIÓN DE FORMATO/UNICIDAD
@@ -421,6 +955,34 @@ public class MenuHandler {
         }
     }
     
+    /**
+     * Lee una lista de claves (dominios, IDs) separadas por coma, punto y coma o espacios.
+     * Si la entrada empieza con "@" se toma como ruta de un archivo de texto con las claves.
+     * Los guiones se eliminan (ej. "AB-123-CD") y se pasa todo a mayusculas.
+     */
+    private List<String> leerListaClaves(String mensaje) {
+        while (true) {
+            String entrada = leerString(mensaje);
+            String texto = entrada;
+            if (entrada.startsWith("@")) {
+                try {
+                    texto = Files.readString(Path.of(entrada.substring(1).trim()));
+                } catch (IOException e) {
+                    System.err.println("Error: No se pudo leer el archivo: " + e.getMessage());
+                    continue;
+                }
+            }
+            List<String> claves = new ArrayList<>();
+            for (String clave : SEPARADORES_LISTA.split(texto)) {
+                clave = clave.replace("-", "").trim().toUpperCase();
+                if (!clave.isEmpty()) {
+                    claves.add(clave);
+                }
+            }
+            return claves;
+        }
+    }
+
     /**
      * Lee un String opcional (puede estar vacío).
      */
@@ -486,6 +1048,65 @@ public class MenuHandler {
         }
     }
 
+    /**
+     * Lee un entero OPCIONAL para filtros: devuelve null si se deja vacio (ciclo cerrado).
+     */
+    private Integer leerEnteroOpcional(String mensaje, int min, int max) {
+        while (true) {
+            System.out.print(mensaje);
+            String inputStr = scanner.nextLine().trim();
+            if (inputStr.isEmpty()) {
+                return null;
+            }
+            try {
+                int input = Integer.parseInt(inputStr);
+                if (input < min || input > max) {
+                    System.err.println("Error: El numero debe estar entre " + min + " y " + max + ".");
+                } else {
+                    return input;
+                }
+            } catch (NumberFormatException e) {
+                System.err.println("Error: Debe ingresar un numero entero valido.");
+            }
+        }
+    }
+
+    /**
+     * Lee una Cobertura OPCIONAL para filtros: devuelve null si se deja vacio (ciclo cerrado).
+     */
+    private Cobertura leerCoberturaOpcional() {
+        while (true) {
+            System.out.print("Cobertura (RC, TERCEROS, TODO_RIESGO): ");
+            String input = scanner.nextLine().trim().toUpperCase();
+            if (input.isEmpty()) {
+                return null;
+            }
+            try {
+                return Cobertura.valueOf(input);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Error: Valor no valido. Use una de las opciones.");
+            }
+        }
+    }
+
+    /**
+     * Lee una fecha OPCIONAL para filtros (puede ser pasada): null si se deja vacio (ciclo cerrado).
+     */
+    private LocalDate leerFechaFiltro(String mensaje) {
+        while (true) {
+            System.out.print(mensaje);
+            String input = scanner.nextLine().trim();
+            if (input.isEmpty()) {
+                return null;
+            }
+            try {
+                return LocalDate.parse(input);
+            } catch (DateTimeParseException e) {
+                System.err.println("Error: Formato de fecha invalido. Use YYYY-MM-DD.");
+            }
+        }
+    }
+
     /**
      * Lee una Cobertura (Enum), repite hasta que sea una opción válida (ciclo cerrado).
      */
@@ -556,32 +1177,42 @@ public class MenuHandler {
     // MÉTODOS DE IMPRESIÓN Y UTILIDAD
     // =================================================================
     
+    // El cuadro se arma en el buffer del renderizador y sale en una sola escritura
     private void imprimirVehiculoFormatoCuadro(Vehiculo v) {
-        System.out.println("----------------------------------------");
-        System.out.println("|    DETALLES DEL VEHICULO (A)         |");
-        System.out.println("----------------------------------------");
-        System.out.println("| ID Vehiculo: " + v.getId());
-        System.out.println("| Dominio:     " + v.getDominio());
-        System.out.println("| Marca:       " + v.getMarca());
-        System.out.println("| Modelo:      " + v.getModelo());
-        System.out.println("| Ano:         " + v.getAnio());
-        System.out.println("| Nro. Chasis: " + v.getNroChasis());
-        System.out.println("| Eliminado:   " + v.isEliminado());
-        System.out.println("----------------------------------------");
-        
-        if (v.getSeguro() != null) {
-            SeguroVehicular s = v.getSeguro();
-            System.out.println("|    DETALLES DEL SEGURO (B)           |");
-            System.out.println("----------------------------------------");
-            System.out.println("| ID Seguro:   " + s.getId());
-            System.out.println("| Aseguradora: " + s.getAseguradora());
-            System.out.println("| Nro. Poliza: " + s.getNroPoliza());
-            System.out.println("| Cobertura:   " + s.getCobertura());
-            System.out.println("| Vencimiento: " + s.getVencimiento());
-        } else {
-            System.out.println("|    SEGURO (B): Sin seguro asociado   |");
+        renderizador.imprimirFicha(v);
+    }
+
+    /**
+     * Muestra la lista de a una pagina: arma la pagina completa en el buffer, la vuelca
+     * de una vez y pregunta si seguir. Devuelve cuando se termina la lista o el usuario corta.
+     * @param encabezado Se agrega al principio de cada pagina (puede ser null).
+     * @param agregarFila Agrega un elemento al buffer del renderizador.
+     */
+    private <T> void mostrarPaginado(List<T> elementos, int porPagina, Runnable encabezado, Consumer<T> agregarFila) {
+        int paginas = (elementos.size() + porPagina - 1) / porPagina;
+        for (int pagina = 0; pagina < paginas; pagina++) {
+            if (encabezado != null) {
+                encabezado.run();
+            }
+            int desde = pagina * porPagina;
+            int hasta = Math.min(desde + porPagina, elementos.size());
+            for (int i = desde; i < hasta; i++) {
+                agregarFila.accept(elementos.get(i));
+            }
+            renderizador.agregarLinea("Pagina " + (pagina + 1) + "/" + paginas + " | Registros " + (desde + 1)
+                    + "-" + hasta + " de " + elementos.size());
+            renderizador.volcar();
+
+            if (pagina < paginas - 1 && !continuarPaginado()) {
+                return;
+            }
         }
-        System.out.println("----------------------------------------");
+    }
+
+    /** Pregunta si mostrar la pagina siguiente. Enter = si, Q = cortar. */
+    private boolean continuarPaginado() {
+        System.out.print("[Enter] pagina siguiente | [Q] terminar: ");
+        return !scanner.nextLine().trim().equalsIgnoreCase("Q");
     }
 
     public void pausarParaContinuar() {
@@ -0,0 +1,198 @@
+package main;
+
+import entities.SeguroVehicular;
+import entities.Vehiculo;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+/**
+ * Capa de impresion por consola para listados.
+ * <p>
+ * Cada {@code System.out.println} es una escritura sincronizada que ademas hace flush.
+ * Aca las filas se arman en un StringBuilder reutilizable (sin String.format ni concatenaciones)
+ * y se vuelcan a un Writer con buffer grande; el flush se hace al terminar cada bloque
+ * (una pagina, una ficha), no por linea.
+ * <p>
+ * Ofrece dos formatos: ficha detallada (un cuadro por vehiculo) y tabla compacta de una linea por fila.
+ */
+public class RenderizadorConsola {
+
+    /** Volcar al Writer cuando el buffer supera este tamanio. */
+    private static final int UMBRAL_VOLCADO = 32 * 1024;
+
+    // Anchos de las columnas de la tabla compacta de vehiculos
+    private static final int[] ANCHOS_VEHICULO = {7, 9, 14, 16, 5, 14, 12, 11};
+    private static final String[] TITULOS_VEHICULO = {"ID", "DOMINIO", "MARCA", "MODELO", "ANO", "ASEGURADORA", "POLIZA", "VENCE"};
+
+    // Anchos de las columnas de la tabla compacta de seguros
+    private static final int[] ANCHOS_SEGURO = {7, 16, 14, 12, 11};
+    private static final String[] TITULOS_SEGURO = {"ID", "ASEGURADORA", "POLIZA", "COBERTURA", "VENCE"};
+
+    private static final String LINEA_FICHA = "----------------------------------------\n";
+
+    private final PrintWriter salida;
+    private final StringBuilder buffer = new StringBuilder(UMBRAL_VOLCADO * 2);
+
+    public RenderizadorConsola() {
+        // Se escribe a traves de System.out (con su charset: el de la consola, no el de la plataforma),
+        // con buffer propio: System.out recibe bloques grandes ya armados, no una escritura por linea
+        this.salida = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, System.out.charset()),
+                64 * 1024));
+    }
+
+    // ============================================================
+    // FICHA DETALLADA
+    // ============================================================
+
+    /** Imprime el cuadro de detalle de un vehiculo (y su seguro) en una sola escritura. */
+    public void imprimirFicha(Vehiculo v) {
+        agregarFicha(v);
+        volcar();
+    }
+
+    /** Agrega el cuadro de detalle al buffer (sin volcar). */
+    public void agregarFicha(Vehiculo v) {
+        StringBuilder sb = buffer;
+        sb.append(LINEA_FICHA);
+        sb.append("|    DETALLES DEL VEHICULO (A)         |\n");
+        sb.append(LINEA_FICHA);
+        sb.append("| ID Vehiculo: ").append(v.getId()).append('\n');
+        sb.append("| Dominio:     ").append(v.getDominio()).append('\n');
+        sb.append("| Marca:       ").append(v.getMarca()).append('\n');
+        sb.append("| Modelo:      ").append(v.getModelo()).append('\n');
+        sb.append("| Ano:         ").append(v.getAnio()).append('\n');
+        sb.append("| Nro. Chasis: ").append(v.getNroChasis()).append('\n');
+        sb.append("| Eliminado:   ").append(v.isEliminado()).append('\n');
+        sb.append(LINEA_FICHA);
+
+        SeguroVehicular s = v.getSeguro();
+        if (s != null) {
+            sb.append("|    DETALLES DEL SEGURO (B)           |\n");
+            sb.append(LINEA_FICHA);
+            sb.append("| ID Seguro:   ").append(s.getId()).append('\n');
+            sb.append("| Aseguradora: ").append(s.getAseguradora()).append('\n');
+            sb.append("| Nro. Poliza: ").append(s.getNroPoliza()).append('\n');
+            sb.append("| Cobertura:   ").append(s.getCobertura()).append('\n');
+            sb.append("| Vencimiento: ").append(s.getVencimiento()).append('\n');
+        } else {
+            sb.append("|    SEGURO (B): Sin seguro asociado   |\n");
+        }
+        sb.append(LINEA_FICHA);
+        volcarSiHaceFalta();
+    }
+
+    // ============================================================
+    // TABLA COMPACTA (una linea por fila)
+    // ============================================================
+
+    public void agregarEncabezadoVehiculos() {
+        agregarEncabezado(TITULOS_VEHICULO, ANCHOS_VEHICULO);
+    }
+
+    public void agregarFilaVehiculo(Vehiculo v) {
+        StringBuilder sb = buffer;
+        int[] a = ANCHOS_VEHICULO;
+        celda(sb, v.getId(), a[0]);
+        celda(sb, v.getDominio(), a[1]);
+        celda(sb, v.getMarca(), a[2]);
+        celda(sb, v.getModelo(), a[3]);
+        celda(sb, v.getAnio(), a[4]);
+        SeguroVehicular s = v.getSeguro();
+        if (s != null) {
+            celda(sb, s.getAseguradora(), a[5]);
+            celda(sb, s.getNroPoliza(), a[6]);
+            celda(sb, s.getVencimiento() == null ? "-" : s.getVencimiento().toString(), a[7]);
+        } else {
+            celda(sb, "(sin seguro)", a[5]);
+            celda(sb, "-", a[6]);
+            celda(sb, "-", a[7]);
+        }
+        finFila(sb);
+    }
+
+    public void agregarEncabezadoSeguros() {
+        agregarEncabezado(TITULOS_SEGURO, ANCHOS_SEGURO);
+    }
+
+    public void agregarFilaSeguro(SeguroVehicular s) {
+        StringBuilder sb = buffer;
+        int[] a = ANCHOS_SEGURO;
+        celda(sb, s.getId(), a[0]);
+        celda(sb, s.getAseguradora(), a[1]);
+        celda(sb, s.getNroPoliza(), a[2]);
+        celda(sb, s.getCobertura() == null ? "-" : s.getCobertura().name(), a[3]);
+        celda(sb, s.getVencimiento() == null ? "-" : s.getVencimiento().toString(), a[4]);
+        finFila(sb);
+    }
+
+    /** Agrega una linea de texto libre (ej. el pie de una pagina). */
+    public void agregarLinea(String texto) {
+        buffer.append(texto).append('\n');
+        volcarSiHaceFalta();
+    }
+
+    /** Escribe lo acumulado y hace flush (llamar al terminar cada pagina o bloque). */
+    public void volcar() {
+        salida.append(buffer);
+        salida.flush();
+        buffer.setLength(0);
+        if (salida.checkError()) {
+            System.err.println("Error al escribir en la consola.");
+        }
+    }
+
+    // ============================================================
+    // AUXILIARES
+    // ============================================================
+
+    private void agregarEncabezado(String[] titulos, int[] anchos) {
+        StringBuilder sb = buffer;
+        int total = 0;
+        for (int i = 0; i < titulos.length; i++) {
+            celda(sb, titulos[i], anchos[i]);
+            total += anchos[i] + 1;
+        }
+        finFila(sb);
+        for (int i = 0; i < total - 1; i++) {
+            sb.append('-');
+        }
+        sb.append('\n');
+    }
+
+    // Escribe el texto truncado/rellenado al ancho y un separador, sin crear Strings intermedios
+    private static void celda(StringBuilder sb, CharSequence texto, int ancho) {
+        int largo = texto == null ? 0 : Math.min(texto.length(), ancho);
+        if (texto != null) {
+            sb.append(texto, 0, largo);
+        }
+        for (int i = largo; i < ancho; i++) {
+            sb.append(' ');
+        }
+        sb.append(' ');
+    }
+
+    private static void celda(StringBuilder sb, long numero, int ancho) {
+        int inicio = sb.length();
+        sb.append(numero);
+        int largo = sb.length() - inicio;
+        for (int i = largo; i < ancho; i++) {
+            sb.append(' ');
+        }
+        sb.append(' ');
+    }
+
+    private void finFila(StringBuilder sb) {
+        // Se quita el separador final de la fila
+        sb.setCharAt(sb.length() - 1, '\n');
+        volcarSiHaceFalta();
+    }
+
+    private void volcarSiHaceFalta() {
+        if (buffer.length() >= UMBRAL_VOLCADO) {
+            salida.append(buffer); // Sin flush: el BufferedWriter escribe en bloques grandes
+            buffer.setLength(0);
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package service;
+
+import dao.DiccionarioValores;
+import dao.VehiculoDAO;
+import entities.Cobertura;
+import entities.SeguroVehicular;
+import entities.Vehiculo;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Motor de analitica en memoria sobre la flota activa, con almacenamiento columnar.
+ * <p>
+ * En lugar de una {@code List<Vehiculo>} guarda una foto de la flota en arrays de primitivos
+ * (un array por columna, una posicion por vehiculo): año, ordinal de cobertura, vencimiento
+ * como dia epoch y codigos de diccionario para marca y aseguradora. Los filtros y agrupamientos
+ * son loops sobre esos arrays, repartidos en paralelo con fork/join.
+ * <p>
+ * La foto se arma con un recorrido streaming del DAO y se reemplaza completa al refrescar;
+ * las consultas siempre trabajan sobre una foto inmutable.
+ */
+public class AnaliticaFlota {
+
+    /** Sin seguro / sin valor en las columnas de codigos. */
+    private static final int NINGUNO = -1;
+    /** Aseguradora que no entro en el diccionario (lleno): se agrupa aparte, no como "sin seguro". */
+    private static final int OTRAS = -2;
+    private static final int SIN_VENCIMIENTO = Integer.MIN_VALUE;
+
+    /** Filas por tarea a partir de las cuales no se sigue dividiendo. */
+    private static final int UMBRAL_TAREA = 64 * 1024;
+
+    /** Columnas por las que se puede agrupar. */
+    public enum Dimension {
+        MARCA, ASEGURADORA, COBERTURA, ANIO
+    }
+
+    /**
+     * Filtros de una consulta. Los valores por defecto no filtran.
+     */
+    public static class Filtro {
+        private int anioDesde = Integer.MIN_VALUE;
+        private int anioHasta = Integer.MAX_VALUE;
+        private Cobertura cobertura;
+        private boolean soloAsegurados;
+        private int venceDentroDeDias = -1;
+
+        public void setAnioDesde(int anioDesde) {
+            this.anioDesde = anioDesde;
+        }
+
+        public void setAnioHasta(int anioHasta) {
+            this.anioHasta = anioHasta;
+        }
+
+        public void setCobertura(Cobertura cobertura) {
+            this.cobertura = cobertura;
+        }
+
+        public void setSoloAsegurados(boolean soloAsegurados) {
+            this.soloAsegurados = soloAsegurados;
+        }
+
+        /** Solo polizas que vencen entre hoy y hoy + dias (incluye soloAsegurados). */
+        public void setVenceDentroDeDias(int dias) {
+            this.venceDentroDeDias = dias;
+        }
+    }
+
+    /** Foto columnar inmutable de la flota. */
+    private static final class Columnas {
+        final int filas;
+        final int[] anio;
+        final byte[] cobertura;      // Ordinal de Cobertura o NINGUNO
+        final int[] vencimiento;     // LocalDate.toEpochDay() o SIN_VENCIMIENTO
+        final int[] marca;           // Codigo en DiccionarioValores.MARCAS
+        final int[] aseguradora;     // Codigo en DiccionarioValores.ASEGURADORAS, OTRAS o NINGUNO
+        final int anioMinimo;
+        final int anioMaximo;
+        final int cardinalidadMarca;
+        final int cardinalidadAseguradora;
+        final LocalDateTime momento;
+
+        Columnas(Constructor c) {
+            this.filas = c.filas;
+            this.anio = Arrays.copyOf(c.anio, c.filas);
+            this.cobertura = Arrays.copyOf(c.cobertura, c.filas);
+            this.vencimiento = Arrays.copyOf(c.vencimiento, c.filas);
+            this.marca = Arrays.copyOf(c.marca, c.filas);
+            this.aseguradora = Arrays.copyOf(c.aseguradora, c.filas);
+            this.anioMinimo = c.filas == 0 ? 0 : c.anioMinimo;
+            this.anioMaximo = c.filas == 0 ? 0 : c.anioMaximo;
+            this.cardinalidadMarca = c.maxMarca + 1;
+            this.cardinalidadAseguradora = c.maxAseguradora + 1;
+            this.momento = LocalDateTime.now();
+        }
+    }
+
+    /** Acumula filas en arrays que crecen (se usa solo durante el refresco). */
+    private static final class Constructor {
+        int filas;
+        int[] anio = new int[1024];
+        byte[] cobertura = new byte[1024];
+        int[] vencimiento = new int[1024];
+        int[] marca = new int[1024];
+        int[] aseguradora = new int[1024];
+        int anioMinimo = Integer.MAX_VALUE;
+        int anioMaximo = Integer.MIN_VALUE;
+        int maxMarca = NINGUNO;
+        int maxAseguradora = NINGUNO;
+        // Cada valor distinto se codifica una sola vez por refresco: los valores ya vienen canonizados
+        // por el DAO y consultar el diccionario en cada fila inflaria su tasa de aciertos
+        final Map<String, Integer> codigosMarca = new HashMap<>();
+        final Map<String, Integer> codigosAseguradora = new HashMap<>();
+
+        void agregar(Vehiculo v) {
+            if (filas == anio.length) {
+                int nuevo = filas * 2;
+                anio = Arrays.copyOf(anio, nuevo);
+                cobertura = Arrays.copyOf(cobertura, nuevo);
+                vencimiento = Arrays.copyOf(vencimiento, nuevo);
+                marca = Arrays.copyOf(marca, nuevo);
+                aseguradora = Arrays.copyOf(aseguradora, nuevo);
+            }
+            anio[filas] = v.getAnio();
+            anioMinimo = Math.min(anioMinimo, v.getAnio());
+            anioMaximo = Math.max(anioMaximo, v.getAnio());
+            marca[filas] = codigosMarca.computeIfAbsent(v.getMarca(), DiccionarioValores.MARCAS::codigo);
+            maxMarca = Math.max(maxMarca, marca[filas]);
+
+            SeguroVehicular s = v.getSeguro();
+            if (s != null) {
+                cobertura[filas] = (byte) s.getCobertura().ordinal();
+                vencimiento[filas] = s.getVencimiento() == null ? SIN_VENCIMIENTO : (int) s.getVencimiento().toEpochDay();
+                int codigo = codigosAseguradora.computeIfAbsent(s.getAseguradora(), DiccionarioValores.ASEGURADORAS::codigo);
+                aseguradora[filas] = codigo == DiccionarioValores.SIN_CODIGO ? OTRAS : codigo;
+                maxAseguradora = Math.max(maxAseguradora, aseguradora[filas]);
+            } else {
+                cobertura[filas] = NINGUNO;
+                vencimiento[filas] = SIN_VENCIMIENTO;
+                aseguradora[filas] = NINGUNO;
+            }
+            filas++;
+        }
+    }
+
+    /**
+     * Resultado de un agrupamiento: por cada grupo, cantidad de vehiculos y año promedio.
+     */
+    public static class Resultado {
+        private final Map<String, long[]> grupos; // {cantidad, sumaAnios}
+        private final long filasRecorridas;
+        private final long micros;
+
+        Resultado(Map<String, long[]> grupos, long filasRecorridas, long micros) {
+            this.grupos = grupos;
+            this.filasRecorridas = filasRecorridas;
+            this.micros = micros;
+        }
+
+        public Map<String, long[]> getGrupos() {
+            return grupos;
+        }
+
+        public long getFilasRecorridas() {
+            return filasRecorridas;
+        }
+
+        public long getMicros() {
+            return micros;
+        }
+    }
+
+    private final VehiculoDAO vehiculoDAO;
+    private final ForkJoinPool pool = ForkJoinPool.commonPool();
+    private volatile Columnas columnas;
+    private volatile long duracionRefrescoMs;
+    private volatile String ultimoError;
+
+    public AnaliticaFlota(VehiculoDAO vehiculoDAO) {
+        this.vehiculoDAO = vehiculoDAO;
+    }
+
+    // ============================================================
+    // CARGA
+    // ============================================================
+
+    /**
+     * Vuelve a armar la foto columnar con un recorrido streaming de la flota activa.
+     * Mientras tanto las consultas siguen usando la foto anterior. Un error queda en el resumen.
+     */
+    public void refrescar() {
+        try {
+            refrescar(RecorridoFlota.desdeBase(vehiculoDAO));
+        } catch (Exception e) {
+            // Ya quedo en ultimoError
+        }
+    }
+
+    /**
+     * Vuelve a armar la foto columnar desde la fuente indicada (la base o una instantanea).
+     * @throws Exception Si falla el recorrido: la foto anterior queda como estaba.
+     */
+    public void refrescar(RecorridoFlota fuente) throws Exception {
+        long inicio = System.nanoTime();
+        try {
+            Constructor c = new Constructor();
+            fuente.recorrer(c::agregar);
+            columnas = new Columnas(c);
+            duracionRefrescoMs = (System.nanoTime() - inicio) / 1_000_000;
+            ultimoError = null;
+        } catch (Exception e) {
+            ultimoError = e.getMessage();
+            throw e;
+        }
+    }
+
+    public boolean isCargada() {
+        return columnas != null;
+    }
+
+    /** Resumen del estado para mostrar por consola. */
+    public String resumen() {
+        Columnas c = columnas;
+        return (c == null ? "Sin cargar" : "Filas: " + c.filas + " | Foto del " + c.momento.withNano(0)
+                + " | Refresco: " + duracionRefrescoMs + " ms")
+                + (ultimoError == null ? "" : " | Ultimo error: " + ultimoError);
+    }
+
+    // ============================================================
+    // CONSULTAS
+    // ============================================================
+
+    /**
+     * Cuenta los vehiculos que pasan el filtro agrupados por la dimension indicada.
+     * @return Los grupos (ordenados por cantidad descendente) con cantidad y año promedio.
+     */
+    public Resultado agrupar(Dimension dimension, Filtro filtro) {
+        Columnas c = columnas;
+        if (c == null) {
+            throw new IllegalStateException("La analitica todavia no se cargo.");
+        }
+        long inicio = System.nanoTime();
+
+        int cardinalidad = cardinalidad(c, dimension);
+        int hoy = (int) LocalDate.now().toEpochDay();
+        long[][] acumulado = pool.invoke(new TareaAgrupar(c, dimension, filtro, hoy, cardinalidad, 0, c.filas));
+
+        Map<String, long[]> grupos = new LinkedHashMap<>();
+        Integer[] orden = new Integer[cardinalidad];
+        for (int i = 0; i < cardinalidad; i++) {
+            orden[i] = i;
+        }
+        Arrays.sort(orden, (a, b) -> Long.compare(acumulado[0][b], acumulado[0][a]));
+        for (int bucket : orden) {
+            if (acumulado[0][bucket] > 0) {
+                grupos.put(etiqueta(c, dimension, bucket), new long[]{acumulado[0][bucket], acumulado[1][bucket]});
+            }
+        }
+        return new Resultado(grupos, c.filas, (System.nanoTime() - inicio) / 1_000);
+    }
+
+    // El bucket 0 queda reservado para "sin valor" en las dimensiones de codigos; en ASEGURADORA
+    // el 0 es "(otras)" (diccionario lleno) y el 1 "(sin seguro)"
+    private static int cardinalidad(Columnas c, Dimension dimension) {
+        switch (dimension) {
+            case MARCA:
+                return c.cardinalidadMarca + 1;
+            case ASEGURADORA:
+                return c.cardinalidadAseguradora + 2;
+            case COBERTURA:
+                return Cobertura.values().length + 1;
+            case ANIO:
+                return c.anioMaximo - c.anioMinimo + 1;
+            default:
+                throw new IllegalArgumentException("Dimension no soportada: " + dimension);
+        }
+    }
+
+    private static int bucket(Columnas c, Dimension dimension, int fila) {
+        switch (dimension) {
+            case MARCA:
+                return c.marca[fila] + 1;
+            case ASEGURADORA:
+                return c.aseguradora[fila] - OTRAS;
+            case COBERTURA:
+                return c.cobertura[fila] + 1;
+            default:
+                return c.anio[fila] - c.anioMinimo;
+        }
+    }
+
+    private static String etiqueta(Columnas c, Dimension dimension, int bucket) {
+        switch (dimension) {
+            case MARCA:
+                return bucket == 0 ? "(otras)" : DiccionarioValores.MARCAS.valor(bucket - 1);
+            case ASEGURADORA:
+                return bucket == 0 ? "(otras)" : bucket == 1 ? "(sin seguro)" : DiccionarioValores.ASEGURADORAS.valor(bucket + OTRAS);
+            case COBERTURA:
+                return bucket == 0 ? "(sin seguro)" : Cobertura.values()[bucket - 1].name();
+            default:
+                return String.valueOf(c.anioMinimo + bucket);
+        }
+    }
+
+    /**
+     * Tarea fork/join: divide el rango de filas hasta el umbral y recorre cada parte con un
+     * loop sobre los arrays. Devuelve {cantidades[], sumasDeAnios[]} por bucket.
+     */
+    private static final class TareaAgrupar extends RecursiveTask<long[][]> {
+        private static final long serialVersionUID = 1L;
+
+        // La tarea nunca se serializa (ForkJoinTask es Serializable): la foto y el filtro no viajan
+        private final transient Columnas c;
+        private final Dimension dimension;
+        private final transient Filtro f;
+        private final int hoy;
+        private final int cardinalidad;
+        private final int desde;
+        private final int hasta;
+
+        TareaAgrupar(Columnas c, Dimension dimension, Filtro f, int hoy, int cardinalidad, int desde, int hasta) {
+            this.c = c;
+            this.dimension = dimension;
+            this.f = f;
+            this.hoy = hoy;
+            this.cardinalidad = cardinalidad;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected long[][] compute() {
+            if (hasta - desde > UMBRAL_TAREA) {
+                int medio = (desde + hasta) >>> 1;
+                TareaAgrupar izquierda = new TareaAgrupar(c, dimension, f, hoy, cardinalidad, desde, medio);
+                izquierda.fork();
+                long[][] derecha = new TareaAgrupar(c, dimension, f, hoy, cardinalidad, medio, hasta).compute();
+                long[][] izq = izquierda.join();
+                for (int i = 0; i < cardinalidad; i++) {
+                    derecha[0][i] += izq[0][i];
+                    derecha[1][i] += izq[1][i];
+                }
+                return derecha;
+            }
+
+            long[] cantidades = new long[cardinalidad];
+            long[] sumaAnios = new long[cardinalidad];
+            int coberturaBuscada = f.cobertura == null ? Integer.MIN_VALUE : f.cobertura.ordinal();
+            int venceHasta = f.venceDentroDeDias < 0 ? Integer.MAX_VALUE : hoy + f.venceDentroDeDias;
+            boolean exigeSeguro = f.soloAsegurados || f.venceDentroDeDias >= 0 || f.cobertura != null;
+
+            for (int i = desde; i < hasta; i++) {
+                int anio = c.anio[i];
+                if (anio < f.anioDesde || anio > f.anioHasta) continue;
+                if (exigeSeguro && c.cobertura[i] == NINGUNO) continue;
+                if (f.cobertura != null && c.cobertura[i] != coberturaBuscada) continue;
+                if (f.venceDentroDeDias >= 0 && (c.vencimiento[i] < hoy || c.vencimiento[i] > venceHasta)) continue;
+
+                int b = bucket(c, dimension, i);
+                cantidades[b]++;
+                sumaAnios[b] += anio;
+            }
+            return new long[][]{cantidades, sumaAnios};
+        }
+    }
+}
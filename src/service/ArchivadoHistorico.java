@@ -0,0 +1,153 @@
+package service;
+
+import config.OpcionesTransaccion;
+import config.TipoOperacion;
+import config.TransactionManager;
+import dao.HistoricoDAO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Proceso en segundo plano que mueve a las tablas historicas las filas dadas de baja
+ * logica hace mas de {@code diasRetencion} dias, y las borra de las tablas activas.
+ * <ul>
+ *   <li>Archiva primero los seguros dados de baja y luego los vehiculos (cada vehiculo se lleva su seguro).</li>
+ *   <li>Cada chunk es una transaccion corta (con reintentos) y entre chunks hay una pausa.</li>
+ *   <li>Es reanudable por la misma razon que la baja de vencidos: lo archivado sale del indice.</li>
+ * </ul>
+ * Las filas archivadas ya estaban dadas de baja, asi que no hay que avisar al indice en memoria.
+ */
+public class ArchivadoHistorico implements Runnable {
+
+    private final HistoricoDAO historicoDAO;
+    private final int diasRetencion;
+    private final int tamanioChunk;
+    private final long pausaEntreChunksMs;
+
+    private final AtomicBoolean enEjecucion = new AtomicBoolean(false);
+    private volatile boolean detenido = false;
+
+    // --- Progreso ---
+    private final AtomicLong pasadas = new AtomicLong();
+    private final AtomicLong chunksProcesados = new AtomicLong();
+    private final AtomicLong vehiculosArchivados = new AtomicLong();
+    private final AtomicLong segurosArchivados = new AtomicLong();
+    private volatile LocalDateTime ultimaEjecucion;
+    private volatile String ultimoError;
+
+    public ArchivadoHistorico(HistoricoDAO historicoDAO, int diasRetencion, int tamanioChunk, long pausaEntreChunksMs) {
+        if (diasRetencion < 0) {
+            throw new IllegalArgumentException("Los dias de retencion no pueden ser negativos.");
+        }
+        if (tamanioChunk <= 0 || tamanioChunk > 1000) {
+            throw new IllegalArgumentException("El tamanio de chunk debe estar entre 1 y 1000.");
+        }
+        this.historicoDAO = historicoDAO;
+        this.diasRetencion = diasRetencion;
+        this.tamanioChunk = tamanioChunk;
+        this.pausaEntreChunksMs = pausaEntreChunksMs;
+    }
+
+    /**
+     * Programa el proceso para que se ejecute periodicamente.
+     * @see MantenimientoSegurosVencidos#programar(ScheduledExecutorService, long, long, TimeUnit)
+     */
+    public void programar(ScheduledExecutorService scheduler, long demoraInicial, long periodo, TimeUnit unidad) {
+        scheduler.scheduleWithFixedDelay(this, demoraInicial, periodo, unidad);
+    }
+
+    /** Pide que la pasada en curso se detenga al terminar el chunk actual. */
+    public void detener() {
+        detenido = true;
+    }
+
+    /**
+     * Ejecuta una pasada completa. Si ya hay una pasada en curso no hace nada.
+     */
+    @Override
+    public void run() {
+        if (!enEjecucion.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            pasadas.incrementAndGet();
+            ultimoError = null;
+            LocalDateTime corte = LocalDateTime.now().minusDays(diasRetencion); // Fijo durante toda la pasada
+            OpcionesTransaccion opciones = OpcionesTransaccion.predeterminadas()
+                    .conTipo(TipoOperacion.MASIVA) // Compite por el cupo masivo, no con las escrituras del menu
+                    .conRegistroEnConsola(false);
+
+            // 1. Seguros dados de baja (de vehiculos que siguen activos o no)
+            while (continuar()) {
+                int archivados = TransactionManager.ejecutarConReintentos(tm -> {
+                    List<Long> ids = historicoDAO.buscarIdsSegurosArchivablesTx(corte, tamanioChunk, tm.getConnection());
+                    return historicoDAO.archivarSegurosTx(ids, tm.getConnection());
+                }, opciones);
+                if (archivados == 0) {
+                    break;
+                }
+                chunksProcesados.incrementAndGet();
+                segurosArchivados.addAndGet(archivados);
+                pausar();
+            }
+
+            // 2. Vehiculos dados de baja, junto con su seguro
+            while (continuar()) {
+                int[] archivados = TransactionManager.ejecutarConReintentos(tm -> {
+                    List<Long> ids = historicoDAO.buscarIdsVehiculosArchivablesTx(corte, tamanioChunk, tm.getConnection());
+                    int seguros = historicoDAO.archivarSegurosDeVehiculosTx(ids, tm.getConnection());
+                    int vehiculos = historicoDAO.archivarVehiculosTx(ids, tm.getConnection());
+                    return new int[] {vehiculos, seguros};
+                }, opciones);
+                if (archivados[0] == 0) {
+                    break;
+                }
+                chunksProcesados.incrementAndGet();
+                vehiculosArchivados.addAndGet(archivados[0]);
+                segurosArchivados.addAndGet(archivados[1]);
+                pausar();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // No se imprime: correria sobre el menu. Queda en el resumen de progreso.
+            ultimoError = e.getMessage();
+        } finally {
+            ultimaEjecucion = LocalDateTime.now();
+            detenido = false;
+            enEjecucion.set(false);
+        }
+    }
+
+    private boolean continuar() {
+        return !detenido && !Thread.currentThread().isInterrupted();
+    }
+
+    private void pausar() throws InterruptedException {
+        if (pausaEntreChunksMs > 0) {
+            Thread.sleep(pausaEntreChunksMs); // Throttling
+        }
+    }
+
+    // --- Progreso ---
+
+    public boolean isEnEjecucion() {
+        return enEjecucion.get();
+    }
+
+    /** Resumen del progreso para mostrar por consola. */
+    public String resumen() {
+        return "Estado: " + (enEjecucion.get() ? "EN EJECUCION" : "en espera")
+                + " | Retencion: " + diasRetencion + " dias"
+                + " | Pasadas: " + pasadas.get()
+                + " | Chunks: " + chunksProcesados.get()
+                + " | Archivados: " + vehiculosArchivados.get() + " vehiculos, " + segurosArchivados.get() + " seguros"
+                + " | Ultima ejecucion: " + (ultimaEjecucion == null ? "-" : ultimaEjecucion.withNano(0))
+                + (ultimoError == null ? "" : " | Ultimo error: " + ultimoError);
+    }
+}
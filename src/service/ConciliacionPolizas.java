@@ -0,0 +1,539 @@
+package service;
+
+import config.AccesoBD;
+import config.OpcionesTransaccion;
+import config.ResultadoLote;
+import config.TipoOperacion;
+import config.TransactionManager;
+import dao.NovedadPoliza;
+import dao.PolizaVigente;
+import dao.ResultadoBusquedaMasiva;
+import dao.ResultadoUpsert;
+import dao.SeguroVehicularDAO;
+import entities.SeguroVehicular;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Conciliacion del padron de una aseguradora contra la base, por sort-merge en una sola pasada.
+ * <ul>
+ *   <li>El archivo (ordenado por nroPoliza) se lee de a una linea y las polizas activas de la
+ *       aseguradora se recorren con un cursor en streaming ordenado igual: se avanza por el lado
+ *       de la clave menor, asi la memoria es constante sin importar el tamanio.</li>
+ *   <li>Diferencias: ALTA (solo en el archivo), BAJA (solo en la base), MODIFICACION (cambio
+ *       aseguradora, cobertura o vencimiento), CAMBIO_VEHICULO (la poliza paso a otro dominio)
+ *       e ILEGIBLE (lineas que no se pudieron interpretar, repetidas, de otra aseguradora o con
+ *       una poliza que ya existe en otra aseguradora).</li>
+ *   <li>Si se pide aplicar, las diferencias se juntan de a {@link #TAMANIO_LOTE} y se aplican en
+ *       transacciones por lote: altas y modificaciones con el upsert multi-fila, bajas y cambios
+ *       de vehiculo con puntos de guardado (una que falla no descarta las demas).</li>
+ * </ul>
+ * Antes de aplicar se verifica en una pasada previa que el archivo este ordenado y que todas las
+ * lineas tengan nro. de poliza: una linea sin clave se tomaria como baja de una poliza vigente.
+ */
+public class ConciliacionPolizas {
+
+    public enum TipoDiferencia { ALTA, MODIFICACION, CAMBIO_VEHICULO, BAJA, ILEGIBLE }
+
+    /** Diferencias por lote aplicado. */
+    public static final int TAMANIO_LOTE = 500;
+    private static final int TAMANIO_SUBLOTE = 50;
+
+    /**
+     * Una diferencia entre el archivo y la base.
+     */
+    public static final class Diferencia {
+
+        private final TipoDiferencia tipo;
+        private final String nroPoliza;
+        private final NovedadPoliza novedad;  // null en las bajas
+        private final PolizaVigente vigente;  // null en las altas
+        private final String detalle;
+        private String aplicacion;            // null si no se aplico (o no se pidio aplicar)
+        private boolean aplicada;
+        private long idVehiculoDestino;
+
+        Diferencia(TipoDiferencia tipo, String nroPoliza, NovedadPoliza novedad, PolizaVigente vigente, String detalle) {
+            this.tipo = tipo;
+            this.nroPoliza = nroPoliza;
+            this.novedad = novedad;
+            this.vigente = vigente;
+            this.detalle = detalle;
+        }
+
+        public TipoDiferencia getTipo() {
+            return tipo;
+        }
+
+        public String getNroPoliza() {
+            return nroPoliza;
+        }
+
+        public NovedadPoliza getNovedad() {
+            return novedad;
+        }
+
+        public PolizaVigente getVigente() {
+            return vigente;
+        }
+
+        public String getDetalle() {
+            return detalle;
+        }
+
+        /** Resultado de aplicarla (null si no se aplico). */
+        public String getAplicacion() {
+            return aplicacion;
+        }
+
+        public boolean isAplicada() {
+            return aplicada;
+        }
+
+        private void resolver(boolean ok, String descripcion) {
+            this.aplicada = ok;
+            this.aplicacion = descripcion;
+        }
+
+        @Override
+        public String toString() {
+            return tipo + " " + (nroPoliza == null ? "?" : nroPoliza) + (detalle == null ? "" : ": " + detalle)
+                    + (aplicacion == null ? "" : " -> " + aplicacion);
+        }
+    }
+
+    /**
+     * Totales de una conciliacion.
+     */
+    public static final class Resumen {
+
+        private final Map<TipoDiferencia, Long> diferencias = new EnumMap<>(TipoDiferencia.class);
+        private long filasArchivo;
+        private long polizasVigentes;
+        private long aplicadas;
+        private long fallidas;
+
+        Resumen() {
+            for (TipoDiferencia t : TipoDiferencia.values()) {
+                diferencias.put(t, 0L);
+            }
+        }
+
+        public long cantidad(TipoDiferencia tipo) {
+            return diferencias.get(tipo);
+        }
+
+        public long getFilasArchivo() {
+            return filasArchivo;
+        }
+
+        public long getPolizasVigentes() {
+            return polizasVigentes;
+        }
+
+        public long getAplicadas() {
+            return aplicadas;
+        }
+
+        public long getFallidas() {
+            return fallidas;
+        }
+
+        /** Resumen de una linea para mostrar por consola. */
+        public String resumen() {
+            return "Archivo: " + filasArchivo + " filas | Base: " + polizasVigentes + " polizas vigentes"
+                    + " | Altas: " + cantidad(TipoDiferencia.ALTA)
+                    + " | Modificaciones: " + cantidad(TipoDiferencia.MODIFICACION)
+                    + " | Cambios de vehiculo: " + cantidad(TipoDiferencia.CAMBIO_VEHICULO)
+                    + " | Bajas: " + cantidad(TipoDiferencia.BAJA)
+                    + " | Ilegibles: " + cantidad(TipoDiferencia.ILEGIBLE)
+                    + (aplicadas + fallidas == 0 ? "" : " | Aplicadas: " + aplicadas + " | Fallidas: " + fallidas);
+        }
+    }
+
+    private final SeguroVehicularDAO seguroDAO;
+    private final SeguroVehicularServiceImpl seguroService;
+    private final List<ObservadorCambios> observadores = new CopyOnWriteArrayList<>();
+
+    public ConciliacionPolizas(SeguroVehicularDAO seguroDAO, SeguroVehicularServiceImpl seguroService) {
+        this.seguroDAO = seguroDAO;
+        this.seguroService = seguroService;
+    }
+
+    /**
+     * Registra un observador que se notifica por cada cambio aplicado (despues del commit de su lote).
+     */
+    public void agregarObservador(ObservadorCambios observador) {
+        observadores.add(observador);
+    }
+
+    /**
+     * Concilia el padron contra las polizas activas de la aseguradora.
+     * @param archivo El padron, ordenado por nroPoliza (orden de String.compareTo, en mayusculas).
+     * @param aseguradora La aseguradora del padron: solo sus polizas pueden salir como BAJA, y las
+     *                    lineas de otra aseguradora salen como ILEGIBLE.
+     * @param aplicar true para aplicar las diferencias; false para solo informarlas.
+     * @param informe Recibe cada diferencia (si se aplica, despues de aplicar su lote).
+     * @return Los totales.
+     * @throws IllegalStateException Si el archivo no esta ordenado (o, al aplicar, tiene lineas sin poliza).
+     */
+    public Resumen conciliar(Path archivo, String aseguradora, boolean aplicar, Consumer<Diferencia> informe) throws Exception {
+        if (aseguradora == null || aseguradora.trim().isEmpty()) {
+            throw new IllegalArgumentException("La aseguradora es obligatoria.");
+        }
+        if (aplicar) {
+            verificarArchivo(archivo); // Nada se aplica si el archivo no sirve
+        }
+        Resumen resumen = new Resumen();
+        try (LectorPadronPolizas lector = new LectorPadronPolizas(archivo)) {
+            Mezcla mezcla = new Mezcla(lector, aseguradora.trim(), aplicar, informe, resumen);
+            mezcla.avanzarArchivo();
+            try {
+                resumen.polizasVigentes = AccesoBD.ejecutar(TipoOperacion.MASIVA,
+                        () -> seguroDAO.recorrerVigentesPorPoliza(aseguradora.trim(), mezcla::compararConBase));
+            } catch (ErrorEnRecorrido e) {
+                throw e.getCause();
+            }
+            while (mezcla.claveArchivo != null) { // Lo que queda del archivo no esta en la base
+                mezcla.emitirArchivoSinBase();
+                mezcla.avanzarArchivo();
+            }
+            mezcla.verificarAltas();
+            mezcla.vaciar();
+        }
+        return resumen;
+    }
+
+    // Pasada previa (solo lectura del archivo): orden y claves presentes
+    private static void verificarArchivo(Path archivo) throws IOException {
+        try (LectorPadronPolizas lector = new LectorPadronPolizas(archivo)) {
+            String anterior = null;
+            while (true) {
+                String clave;
+                try {
+                    NovedadPoliza n = lector.siguiente();
+                    if (n == null) {
+                        return;
+                    }
+                    clave = n.getSeguro().getNroPoliza();
+                } catch (LectorPadronPolizas.LineaIlegible e) {
+                    clave = e.getNroPoliza();
+                    if (clave == null) {
+                        throw new IllegalStateException("No se aplica nada: la " + e.getMessage()
+                                + " no tiene nro. de poliza (su poliza se tomaria como baja).");
+                    }
+                }
+                if (anterior != null && clave.compareTo(anterior) < 0) {
+                    throw new IllegalStateException("El archivo no esta ordenado por nroPoliza: " + clave + " despues de " + anterior + ".");
+                }
+                anterior = clave;
+            }
+        }
+    }
+
+    // Estado del merge: la fila actual del archivo y el lote pendiente de aplicar
+    private final class Mezcla {
+
+        private final LectorPadronPolizas lector;
+        private final String aseguradora;
+        private final boolean aplicar;
+        private final Consumer<Diferencia> informe;
+        private final Resumen resumen;
+        private final List<Diferencia> pendientes = new ArrayList<>(TAMANIO_LOTE);
+        private final List<Diferencia> altasPorVerificar = new ArrayList<>(TAMANIO_LOTE);
+
+        private String claveArchivo;          // null = archivo terminado
+        private NovedadPoliza novedadArchivo; // null si la linea actual es ilegible
+        private String ultimaClaveArchivo;
+        private String ultimaClaveBase;
+
+        Mezcla(LectorPadronPolizas lector, String aseguradora, boolean aplicar, Consumer<Diferencia> informe, Resumen resumen) {
+            this.lector = lector;
+            this.aseguradora = aseguradora;
+            this.aplicar = aplicar;
+            this.informe = informe;
+            this.resumen = resumen;
+        }
+
+        // Lee la siguiente fila con clave (las ilegibles sin clave y las repetidas se informan y se saltean;
+        // las de otra aseguradora se informan como ilegibles y su poliza no se toma como baja)
+        void avanzarArchivo() throws IOException {
+            while (true) {
+                NovedadPoliza n;
+                String clave;
+                try {
+                    n = lector.siguiente();
+                    if (n == null) {
+                        claveArchivo = null;
+                        return;
+                    }
+                    clave = n.getSeguro().getNroPoliza();
+                } catch (LectorPadronPolizas.LineaIlegible e) {
+                    resumen.filasArchivo++;
+                    emitir(new Diferencia(TipoDiferencia.ILEGIBLE, e.getNroPoliza(), null, null, e.getMessage()));
+                    if (e.getNroPoliza() == null) {
+                        continue;
+                    }
+                    n = null;
+                    clave = e.getNroPoliza(); // Se sabe que la poliza esta en el archivo: no es baja
+                }
+                if (n != null) {
+                    resumen.filasArchivo++;
+                    if (!n.getSeguro().getAseguradora().equalsIgnoreCase(aseguradora)) {
+                        emitir(new Diferencia(TipoDiferencia.ILEGIBLE, clave, n, null, "linea " + n.getLinea()
+                                + ": aseguradora " + n.getSeguro().getAseguradora() + " (el padron es de " + aseguradora + ")"));
+                        n = null;
+                    }
+                }
+                if (ultimaClaveArchivo != null) {
+                    int orden = clave.compareTo(ultimaClaveArchivo);
+                    if (orden < 0) {
+                        throw new IllegalStateException("El archivo no esta ordenado por nroPoliza: " + clave
+                                + " despues de " + ultimaClaveArchivo + ".");
+                    }
+                    if (orden == 0) {
+                        if (n != null) {
+                            emitir(new Diferencia(TipoDiferencia.ILEGIBLE, clave, n, null, "poliza repetida (linea " + n.getLinea() + ")"));
+                        }
+                        continue;
+                    }
+                }
+                ultimaClaveArchivo = clave;
+                claveArchivo = clave;
+                novedadArchivo = n;
+                return;
+            }
+        }
+
+        // Recibe cada poliza vigente del cursor, en orden
+        void compararConBase(PolizaVigente vigente) {
+            try {
+                String claveBase = vigente.getSeguro().getNroPoliza().toUpperCase();
+                if (ultimaClaveBase != null && claveBase.compareTo(ultimaClaveBase) <= 0) {
+                    throw new IllegalStateException("La base no entrego las polizas ordenadas: " + claveBase
+                            + " despues de " + ultimaClaveBase + ".");
+                }
+                ultimaClaveBase = claveBase;
+
+                while (claveArchivo != null && claveArchivo.compareTo(claveBase) < 0) {
+                    emitirArchivoSinBase();
+                    avanzarArchivo();
+                }
+                if (claveArchivo != null && claveArchivo.equals(claveBase)) {
+                    if (novedadArchivo != null) {
+                        compararFila(novedadArchivo, vigente);
+                    }
+                    avanzarArchivo();
+                } else {
+                    emitir(new Diferencia(TipoDiferencia.BAJA, claveBase, null, vigente, "no esta en el archivo"));
+                }
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new ErrorEnRecorrido(e);
+            }
+        }
+
+        void emitirArchivoSinBase() throws Exception {
+            if (novedadArchivo != null) {
+                altasPorVerificar.add(new Diferencia(TipoDiferencia.ALTA, claveArchivo, novedadArchivo, null, "dominio " + novedadArchivo.getDominio()));
+                if (altasPorVerificar.size() == TAMANIO_LOTE) {
+                    verificarAltas();
+                }
+            }
+        }
+
+        // Una poliza que no esta entre las vigentes de la aseguradora puede estar vigente en otra:
+        // no es un alta (el upsert la tomaria como una modificacion de la poliza de la otra aseguradora)
+        void verificarAltas() throws Exception {
+            if (altasPorVerificar.isEmpty()) {
+                return;
+            }
+            List<String> polizas = new ArrayList<>(altasPorVerificar.size());
+            for (Diferencia d : altasPorVerificar) {
+                polizas.add(d.nroPoliza);
+            }
+            ResultadoBusquedaMasiva<String, SeguroVehicular> existentes =
+                    AccesoBD.ejecutar(TipoOperacion.LECTURA, () -> seguroDAO.buscarPorPolizas(polizas));
+            for (Diferencia d : altasPorVerificar) {
+                SeguroVehicular existente = existentes.get(d.nroPoliza);
+                if (existente == null) {
+                    emitir(d);
+                } else {
+                    emitir(new Diferencia(TipoDiferencia.ILEGIBLE, d.nroPoliza, d.novedad, null, "linea " + d.novedad.getLinea()
+                            + ": la poliza ya existe en la aseguradora " + existente.getAseguradora()));
+                }
+            }
+            altasPorVerificar.clear();
+        }
+
+        private void compararFila(NovedadPoliza novedad, PolizaVigente vigente) {
+            SeguroVehicular nuevo = novedad.getSeguro();
+            SeguroVehicular actual = vigente.getSeguro();
+            nuevo.setId(actual.getId());
+
+            List<String> cambios = new ArrayList<>();
+            if (!Objects.equals(actual.getAseguradora(), nuevo.getAseguradora())) {
+                cambios.add("aseguradora " + actual.getAseguradora() + " -> " + nuevo.getAseguradora());
+            }
+            if (actual.getCobertura() != nuevo.getCobertura()) {
+                cambios.add("cobertura " + actual.getCobertura() + " -> " + nuevo.getCobertura());
+            }
+            if (!Objects.equals(actual.getVencimiento(), nuevo.getVencimiento())) {
+                cambios.add("vencimiento " + actual.getVencimiento() + " -> " + nuevo.getVencimiento());
+            }
+            if (!vigente.getDominio().equalsIgnoreCase(novedad.getDominio())) {
+                cambios.add(0, "dominio " + vigente.getDominio() + " -> " + novedad.getDominio());
+                emitir(new Diferencia(TipoDiferencia.CAMBIO_VEHICULO, actual.getNroPoliza(), novedad, vigente, String.join(", ", cambios)));
+            } else if (!cambios.isEmpty()) {
+                emitir(new Diferencia(TipoDiferencia.MODIFICACION, actual.getNroPoliza(), novedad, vigente, String.join(", ", cambios)));
+            }
+        }
+
+        private void emitir(Diferencia d) {
+            resumen.diferencias.merge(d.tipo, 1L, Long::sum);
+            if (!aplicar || d.tipo == TipoDiferencia.ILEGIBLE) {
+                informe.accept(d);
+                return;
+            }
+            pendientes.add(d);
+            if (pendientes.size() == TAMANIO_LOTE) {
+                vaciar();
+            }
+        }
+
+        // Aplica el lote pendiente y lo informa
+        void vaciar() {
+            if (pendientes.isEmpty()) {
+                return;
+            }
+            aplicarLote(pendientes, resumen);
+            for (Diferencia d : pendientes) {
+                informe.accept(d);
+            }
+            pendientes.clear();
+        }
+    }
+
+    // ============================================================
+    // APLICACION DE UN LOTE DE DIFERENCIAS
+    // ============================================================
+
+    private void aplicarLote(List<Diferencia> lote, Resumen resumen) {
+        OpcionesTransaccion opciones = OpcionesTransaccion.predeterminadas()
+                .conTipo(TipoOperacion.ESCRITURA)
+                .conRegistroEnConsola(false);
+
+        // 1. Altas y modificaciones: un upsert multi-fila
+        Map<NovedadPoliza, Diferencia> porNovedad = new IdentityHashMap<>();
+        List<NovedadPoliza> upserts = new ArrayList<>();
+        // 2. Bajas y cambios de vehiculo: de a uno, cada sublote con su punto de guardado
+        List<Diferencia> individuales = new ArrayList<>();
+        for (Diferencia d : lote) {
+            if (d.tipo == TipoDiferencia.BAJA) {
+                individuales.add(d);
+                continue;
+            }
+            try {
+                seguroService.validar(d.novedad.getSeguro());
+            } catch (IllegalArgumentException e) {
+                d.resolver(false, "rechazada: " + e.getMessage());
+                continue;
+            }
+            if (d.tipo == TipoDiferencia.CAMBIO_VEHICULO) {
+                individuales.add(d);
+            } else {
+                porNovedad.put(d.novedad, d);
+                upserts.add(d.novedad);
+            }
+        }
+
+        if (!upserts.isEmpty()) {
+            try {
+                ResultadoUpsert resultado = TransactionManager.ejecutarConReintentos(
+                        tm -> seguroDAO.upsertTx(upserts, tm.getConnection()), opciones);
+                for (ResultadoUpsert.Fila fila : resultado.getFilas()) {
+                    Diferencia d = porNovedad.get(fila.getNovedad());
+                    if (fila.getDesenlace() == ResultadoUpsert.Desenlace.RECHAZADA) {
+                        d.resolver(false, "rechazada: " + fila.getMotivo());
+                        continue;
+                    }
+                    d.resolver(true, fila.getDesenlace().name());
+                    if (fila.getDesenlace() != ResultadoUpsert.Desenlace.SIN_CAMBIOS) {
+                        for (ObservadorCambios o : observadores) {
+                            o.seguroGuardado(fila.getNovedad().getSeguro(), fila.getIdVehiculo());
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                for (NovedadPoliza n : upserts) {
+                    porNovedad.get(n).resolver(false, "no aplicada: " + e.getMessage());
+                }
+            }
+        }
+
+        if (!individuales.isEmpty()) {
+            try {
+                ResultadoLote<Diferencia> resultado = TransactionManager.ejecutarLote(individuales, TAMANIO_SUBLOTE, (d, tm) -> {
+                    if (d.tipo == TipoDiferencia.BAJA) {
+                        seguroDAO.eliminarTx((int) d.vigente.getSeguro().getId(), tm.getConnection());
+                    } else {
+                        d.idVehiculoDestino = seguroDAO.moverAVehiculoTx(d.novedad.getSeguro(), d.novedad.getDominio(), tm.getConnection());
+                    }
+                }, opciones);
+                for (ResultadoLote.Fallo<Diferencia> fallo : resultado.getFallidos()) {
+                    fallo.getItem().resolver(false, "rechazada: " + fallo.getError());
+                }
+                for (Diferencia d : individuales) {
+                    if (d.aplicacion != null) {
+                        continue; // Fallo
+                    }
+                    d.resolver(true, d.tipo == TipoDiferencia.BAJA ? "dada de baja" : "movida");
+                    long idSeguro = d.vigente.getSeguro().getId();
+                    for (ObservadorCambios o : observadores) {
+                        o.seguroEliminado(idSeguro);
+                        if (d.tipo == TipoDiferencia.CAMBIO_VEHICULO) {
+                            o.seguroGuardado(d.novedad.getSeguro(), d.idVehiculoDestino);
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                for (Diferencia d : individuales) {
+                    d.resolver(false, "no aplicada: " + e.getMessage());
+                }
+            }
+        }
+
+        for (Diferencia d : lote) {
+            if (d.aplicada) {
+                resumen.aplicadas++;
+            } else {
+                resumen.fallidas++;
+            }
+        }
+    }
+
+    // Transporta por el Consumer del cursor los errores con chequeo (archivo, aplicacion)
+    private static final class ErrorEnRecorrido extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        ErrorEnRecorrido(Exception causa) {
+            super(causa);
+        }
+
+        @Override
+        public synchronized Exception getCause() {
+            return (Exception) super.getCause();
+        }
+    }
+}
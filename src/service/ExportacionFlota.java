@@ -0,0 +1,610 @@
+package service;
+
+import config.AccesoBD;
+import config.SaturacionException;
+import config.TipoOperacion;
+import dao.VehiculoDAO;
+import entities.SeguroVehicular;
+import entities.Vehiculo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exportacion de la flota (vehiculos activos con su seguro vigente) a CSV o JSON Lines.
+ * <ul>
+ *   <li>El rango de IDs se divide en tramos que recorren varios lectores en paralelo, cada uno
+ *       con su propia conexion en streaming (dentro del cupo MASIVA). Si el cupo esta ocupado por
+ *       otro proceso masivo, el lector que no consigue permiso se retira y los demas leen sus
+ *       tramos: la exportacion se cancela solo si no queda ningun lector.</li>
+ *   <li>Cada tramo se escribe a su archivo parcial: las filas se codifican directo a bytes en un
+ *       ByteBuffer que se vuelca al FileChannel, sin armar un String por fila.</li>
+ *   <li>Al final los parciales se concatenan en orden con transferTo (copia dentro del sistema
+ *       operativo), asi el archivo queda ordenado por ID. Con gzip cada parcial es un miembro
+ *       gzip aparte: la concatenacion de miembros es un .gz valido.</li>
+ * </ul>
+ * Cada tramo es una lectura consistente por separado: una fila que cambia durante la exportacion
+ * sale con los datos que tenia cuando se leyo su tramo.
+ */
+public class ExportacionFlota {
+
+    public enum Formato { CSV, JSONL }
+
+    /** Tramos por lector: con tramos mas chicos, el lector que termina antes toma otro. */
+    private static final int TRAMOS_POR_LECTOR = 4;
+    private static final int TAMANIO_BUFFER = 256 * 1024;
+    private static final int TAMANIO_BUFFER_GZIP = 64 * 1024;
+    // Lugar libre que se asegura antes de cada fila (los textos vuelven a revisar por caracter)
+    private static final int MARGEN_FILA = 1024;
+
+    private final VehiculoDAO vehiculoDAO;
+
+    public ExportacionFlota(VehiculoDAO vehiculoDAO) {
+        this.vehiculoDAO = vehiculoDAO;
+    }
+
+    /**
+     * Lo que hizo una exportacion.
+     */
+    public static final class Resumen {
+
+        private final long filas;
+        private final long bytes;
+        private final int tramos;
+        private final int lectores;
+        private final long ms;
+
+        Resumen(long filas, long bytes, int tramos, int lectores, long ms) {
+            this.filas = filas;
+            this.bytes = bytes;
+            this.tramos = tramos;
+            this.lectores = lectores;
+            this.ms = ms;
+        }
+
+        public long getFilas() {
+            return filas;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        /** Resumen de una linea para mostrar por consola. */
+        public String resumen() {
+            long msNoNulo = Math.max(ms, 1);
+            return "Filas: " + filas + " | Bytes: " + bytes + " | Tramos: " + tramos + " | Lectores: " + lectores
+                    + " | " + ms + " ms (" + (filas * 1000 / msNoNulo) + " filas/s, "
+                    + (bytes * 1000 / msNoNulo / 1024) + " KB/s)";
+        }
+    }
+
+    /** Lectores en paralelo permitidos: los permisos del compartimento MASIVA. */
+    public static int maximoLectores() {
+        return AccesoBD.compartimento(TipoOperacion.MASIVA).getPermisos();
+    }
+
+    /** Lectores sugeridos: todos los permisos MASIVA menos uno, que queda para otros procesos masivos. */
+    public static int lectoresSugeridos() {
+        return Math.max(1, maximoLectores() - 1);
+    }
+
+    /**
+     * Exporta todos los vehiculos activos, con su seguro, ordenados por ID.
+     * El archivo destino se reemplaza recien al final: si la exportacion falla queda como estaba.
+     *
+     * @param destino El archivo a escribir.
+     * @param formato CSV (con encabezado) o JSONL (un objeto por linea).
+     * @param comprimir Si se escribe comprimido con gzip.
+     * @param lectores Conexiones leyendo en paralelo, entre 1 y {@link #maximoLectores()}.
+     * @return Filas y bytes escritos.
+     * @throws Exception Si falla la lectura de algun tramo o la escritura.
+     */
+    public Resumen exportar(Path destino, Formato formato, boolean comprimir, int lectores) throws Exception {
+        if (destino == null || formato == null) {
+            throw new IllegalArgumentException("El destino y el formato son obligatorios.");
+        }
+        if (lectores < 1 || lectores > maximoLectores()) {
+            throw new IllegalArgumentException("Los lectores deben estar entre 1 y " + maximoLectores() + ".");
+        }
+        long inicio = System.nanoTime();
+        Path archivo = destino.toAbsolutePath();
+        Path carpeta = archivo.getParent();
+        Files.createDirectories(carpeta);
+        String nombre = archivo.getFileName().toString();
+
+        long[] rango = AccesoBD.ejecutar(TipoOperacion.MASIVA, vehiculoDAO::rangoIdsActivos);
+        List<long[]> tramos = rango == null ? new ArrayList<>() : dividir(rango[0], rango[1], lectores * TRAMOS_POR_LECTOR);
+
+        // Parte 0: el encabezado (vacia en JSONL); despues una parte por tramo
+        List<Path> partes = new ArrayList<>(tramos.size() + 1);
+        Path temporal = null;
+        try {
+            for (int i = 0; i <= tramos.size(); i++) {
+                partes.add(Files.createTempFile(carpeta, nombre + ".", ".parte"));
+            }
+            try (Codificador codificador = new Codificador(partes.get(0), formato, comprimir)) {
+                codificador.encabezado();
+            }
+            long filas = leerTramos(tramos, partes.subList(1, partes.size()), formato, comprimir, lectores);
+
+            temporal = crearTemporal(carpeta, nombre);
+            copiarPermisos(archivo, temporal);
+            concatenar(partes, temporal);
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            temporal = null;
+
+            long ms = (System.nanoTime() - inicio) / 1_000_000;
+            return new Resumen(filas, Files.size(archivo), tramos.size(), lectores, ms);
+        } finally {
+            for (Path parte : partes) {
+                Files.deleteIfExists(parte);
+            }
+            if (temporal != null) {
+                Files.deleteIfExists(temporal);
+            }
+        }
+    }
+
+    // Tramos contiguos de igual ancho (los IDs borrados dejan huecos: por eso hay mas tramos que lectores)
+    private static List<long[]> dividir(long min, long max, int cantidad) {
+        List<long[]> tramos = new ArrayList<>(cantidad);
+        long ancho = Math.max(1, (max - min) / cantidad + 1);
+        for (long desde = min; desde <= max; desde += ancho) {
+            tramos.add(new long[] {desde, Math.min(max, desde + ancho - 1)});
+            if (max - desde < ancho) {
+                break; // Evita desbordar desde + ancho cerca de Long.MAX_VALUE
+            }
+        }
+        return tramos;
+    }
+
+    private long leerTramos(List<long[]> tramos, List<Path> partes, Formato formato, boolean comprimir,
+                            int lectores) throws Exception {
+        Queue<Integer> porLeer = new ConcurrentLinkedQueue<>();
+        for (int i = 0; i < tramos.size(); i++) {
+            porLeer.add(i);
+        }
+        AtomicLong filas = new AtomicLong();
+        AtomicBoolean cancelada = new AtomicBoolean();
+        AtomicInteger activos = new AtomicInteger(lectores);
+        AtomicInteger hilos = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(lectores, r -> {
+            Thread t = new Thread(r, "exportacion-" + hilos.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<?>> futuros = new ArrayList<>(lectores);
+            for (int l = 0; l < lectores; l++) {
+                futuros.add(pool.submit(() -> {
+                    boolean retirado = false;
+                    try {
+                        Integer i;
+                        while (!cancelada.get() && (i = porLeer.poll()) != null) {
+                            try {
+                                filas.addAndGet(exportarTramo(tramos.get(i), partes.get(i), formato, comprimir, cancelada));
+                            } catch (SaturacionException e) {
+                                // Otro proceso masivo ocupa el cupo: si queda otro lector, este se retira
+                                // y deja su tramo a los demas en lugar de cancelar la exportacion
+                                if (retirarse(activos)) {
+                                    retirado = true;
+                                    porLeer.add(i);
+                                    return null;
+                                }
+                                cancelada.set(true);
+                                throw e;
+                            } catch (Exception e) {
+                                cancelada.set(true); // Los demas lectores cortan en la proxima fila
+                                throw e;
+                            }
+                        }
+                        return null;
+                    } finally {
+                        if (!retirado) {
+                            activos.decrementAndGet();
+                        }
+                    }
+                }));
+            }
+            Exception primerError = null;
+            for (Future<?> futuro : futuros) {
+                try {
+                    futuro.get();
+                } catch (ExecutionException e) {
+                    if (primerError == null || primerError instanceof ExportacionCancelada) {
+                        primerError = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                    }
+                }
+            }
+            if (primerError != null) {
+                throw primerError;
+            }
+            // Un tramo devuelto por un lector que se retiro justo cuando los demas terminaban
+            Integer i;
+            while ((i = porLeer.poll()) != null) {
+                filas.addAndGet(exportarTramo(tramos.get(i), partes.get(i), formato, comprimir, cancelada));
+            }
+            return filas.get();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Da de baja un lector solo si queda al menos otro activo
+    private static boolean retirarse(AtomicInteger activos) {
+        while (true) {
+            int n = activos.get();
+            if (n <= 1) {
+                return false;
+            }
+            if (activos.compareAndSet(n, n - 1)) {
+                return true;
+            }
+        }
+    }
+
+    private long exportarTramo(long[] tramo, Path parte, Formato formato, boolean comprimir,
+                               AtomicBoolean cancelada) throws Exception {
+        try (Codificador codificador = new Codificador(parte, formato, comprimir)) {
+            return AccesoBD.ejecutar(TipoOperacion.MASIVA, () -> vehiculoDAO.recorrerActivosEnRango(tramo[0], tramo[1], v -> {
+                if (cancelada.get()) {
+                    throw new ExportacionCancelada();
+                }
+                try {
+                    codificador.fila(v);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // No se usa Files.createTempFile: en POSIX crea el archivo con permisos 0600 y el ATOMIC_MOVE
+    // se los pasaria a la exportacion. Asi queda con los permisos por defecto (umask), como un archivo nuevo
+    private static Path crearTemporal(Path carpeta, String nombre) throws IOException {
+        while (true) {
+            Path candidato = carpeta.resolve(nombre + "." + Long.toUnsignedString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+            try {
+                return Files.createFile(candidato);
+            } catch (FileAlreadyExistsException e) {
+                // Nombre ocupado: se prueba con otro
+            }
+        }
+    }
+
+    // Si se reemplaza un archivo existente, el nuevo conserva sus permisos
+    private static void copiarPermisos(Path archivo, Path temporal) throws IOException {
+        if (Files.exists(archivo) && Files.getFileStore(temporal).supportsFileAttributeView(PosixFileAttributeView.class)) {
+            Files.setPosixFilePermissions(temporal, Files.getPosixFilePermissions(archivo));
+        }
+    }
+
+    private static void concatenar(List<Path> partes, Path destino) throws IOException {
+        try (FileChannel salida = FileChannel.open(destino, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Path parte : partes) {
+                try (FileChannel entrada = FileChannel.open(parte, StandardOpenOption.READ)) {
+                    long tamanio = entrada.size();
+                    long posicion = 0;
+                    while (posicion < tamanio) {
+                        posicion += entrada.transferTo(posicion, tamanio - posicion, salida);
+                    }
+                }
+            }
+        }
+    }
+
+    // Corta el recorrido de un lector cuando otro ya fallo
+    private static final class ExportacionCancelada extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        ExportacionCancelada() {
+            super("Exportacion cancelada por un error en otro tramo");
+        }
+    }
+
+    // ============================================================
+    // CODIFICACION A BYTES
+    // ============================================================
+
+    private static final byte[] CSV_ENCABEZADO = ascii("id,dominio,marca,modelo,anio,nroChasis,"
+            + "seguro_id,aseguradora,nroPoliza,cobertura,vencimiento\n");
+    private static final byte[] CSV_SIN_SEGURO = ascii(",,,,,");
+
+    private static final byte[] J_ID = ascii("{\"id\":");
+    private static final byte[] J_DOMINIO = ascii(",\"dominio\":");
+    private static final byte[] J_MARCA = ascii(",\"marca\":");
+    private static final byte[] J_MODELO = ascii(",\"modelo\":");
+    private static final byte[] J_ANIO = ascii(",\"anio\":");
+    private static final byte[] J_CHASIS = ascii(",\"nroChasis\":");
+    private static final byte[] J_SEGURO = ascii(",\"seguro\":");
+    private static final byte[] J_ASEGURADORA = ascii(",\"aseguradora\":");
+    private static final byte[] J_POLIZA = ascii(",\"nroPoliza\":");
+    private static final byte[] J_COBERTURA = ascii(",\"cobertura\":");
+    private static final byte[] J_VENCIMIENTO = ascii(",\"vencimiento\":");
+    private static final byte[] J_NULL = ascii("null");
+    private static final byte[] HEX = ascii("0123456789abcdef");
+
+    private static byte[] ascii(String texto) {
+        return texto.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Escribe filas a un archivo: codifica cada campo directo al buffer (UTF-8, con el escape del
+     * formato) y vuelca el buffer al canal, o al gzip, cuando se llena. No es thread-safe: cada
+     * lector tiene el suyo.
+     */
+    private static final class Codificador implements AutoCloseable {
+
+        private final FileChannel canal;
+        private final GZIPOutputStream gzip; // null sin compresion
+        private final ByteBuffer buffer;
+        private final boolean csv;
+        private final byte[] digitos = new byte[20];
+
+        Codificador(Path archivo, Formato formato, boolean comprimir) throws IOException {
+            this.canal = FileChannel.open(archivo, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.csv = formato == Formato.CSV;
+            if (comprimir) {
+                // El deflater lee del arreglo del buffer: tiene que ser de heap
+                this.gzip = new GZIPOutputStream(Channels.newOutputStream(canal), TAMANIO_BUFFER_GZIP);
+                this.buffer = ByteBuffer.allocate(TAMANIO_BUFFER);
+            } else {
+                // Directo: el canal escribe sin copiarlo a un buffer intermedio
+                this.gzip = null;
+                this.buffer = ByteBuffer.allocateDirect(TAMANIO_BUFFER);
+            }
+        }
+
+        void encabezado() throws IOException {
+            if (csv) {
+                buffer.put(CSV_ENCABEZADO);
+            }
+        }
+
+        void fila(Vehiculo v) throws IOException {
+            if (buffer.remaining() < MARGEN_FILA) {
+                vaciar();
+            }
+            if (csv) {
+                filaCsv(v);
+            } else {
+                filaJson(v);
+            }
+        }
+
+        private void filaCsv(Vehiculo v) throws IOException {
+            numero(v.getId());
+            buffer.put((byte) ',');
+            textoCsv(v.getDominio());
+            buffer.put((byte) ',');
+            textoCsv(v.getMarca());
+            buffer.put((byte) ',');
+            textoCsv(v.getModelo());
+            buffer.put((byte) ',');
+            numero(v.getAnio());
+            buffer.put((byte) ',');
+            textoCsv(v.getNroChasis());
+            buffer.put((byte) ',');
+            SeguroVehicular s = v.getSeguro();
+            if (s == null) {
+                buffer.put(CSV_SIN_SEGURO);
+            } else {
+                numero(s.getId());
+                buffer.put((byte) ',');
+                textoCsv(s.getAseguradora());
+                buffer.put((byte) ',');
+                textoCsv(s.getNroPoliza());
+                buffer.put((byte) ',');
+                textoCsv(s.getCobertura() == null ? null : s.getCobertura().name());
+                buffer.put((byte) ',');
+                if (s.getVencimiento() != null) {
+                    fecha(s.getVencimiento());
+                }
+            }
+            buffer.put((byte) '\n');
+        }
+
+        private void filaJson(Vehiculo v) throws IOException {
+            buffer.put(J_ID);
+            numero(v.getId());
+            buffer.put(J_DOMINIO);
+            textoJson(v.getDominio());
+            buffer.put(J_MARCA);
+            textoJson(v.getMarca());
+            buffer.put(J_MODELO);
+            textoJson(v.getModelo());
+            buffer.put(J_ANIO);
+            numero(v.getAnio());
+            buffer.put(J_CHASIS);
+            textoJson(v.getNroChasis());
+            buffer.put(J_SEGURO);
+            SeguroVehicular s = v.getSeguro();
+            if (s == null) {
+                buffer.put(J_NULL);
+            } else {
+                buffer.put(J_ID);
+                numero(s.getId());
+                buffer.put(J_ASEGURADORA);
+                textoJson(s.getAseguradora());
+                buffer.put(J_POLIZA);
+                textoJson(s.getNroPoliza());
+                buffer.put(J_COBERTURA);
+                textoJson(s.getCobertura() == null ? null : s.getCobertura().name());
+                buffer.put(J_VENCIMIENTO);
+                if (s.getVencimiento() == null) {
+                    buffer.put(J_NULL);
+                } else {
+                    buffer.put((byte) '"');
+                    fecha(s.getVencimiento());
+                    buffer.put((byte) '"');
+                }
+                buffer.put((byte) '}');
+            }
+            buffer.put((byte) '}');
+            buffer.put((byte) '\n');
+        }
+
+        private void numero(long n) {
+            int i = digitos.length;
+            long resto = n;
+            do {
+                digitos[--i] = (byte) ('0' + Math.abs(resto % 10));
+                resto /= 10;
+            } while (resto != 0);
+            if (n < 0) {
+                buffer.put((byte) '-');
+            }
+            buffer.put(digitos, i, digitos.length - i);
+        }
+
+        // yyyy-MM-dd (anios de 4 cifras)
+        private void fecha(LocalDate f) {
+            dosCifras(f.getYear() / 100);
+            dosCifras(f.getYear() % 100);
+            buffer.put((byte) '-');
+            dosCifras(f.getMonthValue());
+            buffer.put((byte) '-');
+            dosCifras(f.getDayOfMonth());
+        }
+
+        private void dosCifras(int n) {
+            buffer.put((byte) ('0' + n / 10));
+            buffer.put((byte) ('0' + n % 10));
+        }
+
+        // RFC 4180: entre comillas solo si hace falta, con las comillas duplicadas. null = campo vacio.
+        private void textoCsv(String texto) throws IOException {
+            if (texto == null) {
+                return;
+            }
+            boolean comillas = false;
+            for (int i = 0; i < texto.length() && !comillas; i++) {
+                char c = texto.charAt(i);
+                comillas = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (comillas) {
+                buffer.put((byte) '"');
+            }
+            for (int i = 0; i < texto.length(); i++) {
+                if (buffer.remaining() < 8) {
+                    vaciar();
+                }
+                char c = texto.charAt(i);
+                if (c == '"') {
+                    buffer.put((byte) '"');
+                }
+                i = utf8(texto, i);
+            }
+            if (comillas) {
+                buffer.put((byte) '"');
+            }
+        }
+
+        private void textoJson(String texto) throws IOException {
+            if (texto == null) {
+                buffer.put(J_NULL);
+                return;
+            }
+            buffer.put((byte) '"');
+            for (int i = 0; i < texto.length(); i++) {
+                if (buffer.remaining() < 8) {
+                    vaciar();
+                }
+                char c = texto.charAt(i);
+                if (c == '"' || c == '\\') {
+                    buffer.put((byte) '\\').put((byte) c);
+                } else if (c == '\n') {
+                    buffer.put((byte) '\\').put((byte) 'n');
+                } else if (c == '\r') {
+                    buffer.put((byte) '\\').put((byte) 'r');
+                } else if (c == '\t') {
+                    buffer.put((byte) '\\').put((byte) 't');
+                } else if (c < 0x20) {
+                    buffer.put((byte) '\\').put((byte) 'u').put((byte) '0').put((byte) '0')
+                            .put(HEX[c >> 4]).put(HEX[c & 0xF]);
+                } else {
+                    i = utf8(texto, i);
+                }
+            }
+            buffer.put((byte) '"');
+        }
+
+        // Codifica el caracter en la posicion i; devuelve la ultima posicion usada (i + 1 si era un par sustituto)
+        private int utf8(String texto, int i) {
+            char c = texto.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)))
+                        .put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < texto.length()
+                    && Character.isLowSurrogate(texto.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, texto.charAt(i + 1));
+                buffer.put((byte) (0xF0 | (cp >> 18)))
+                        .put((byte) (0x80 | ((cp >> 12) & 0x3F)))
+                        .put((byte) (0x80 | ((cp >> 6) & 0x3F)))
+                        .put((byte) (0x80 | (cp & 0x3F)));
+                return i + 1;
+            } else if (Character.isSurrogate(c)) {
+                buffer.put((byte) '?'); // Sustituto suelto: no es texto valido
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)))
+                        .put((byte) (0x80 | ((c >> 6) & 0x3F)))
+                        .put((byte) (0x80 | (c & 0x3F)));
+            }
+            return i;
+        }
+
+        private void vaciar() throws IOException {
+            buffer.flip();
+            if (gzip != null) {
+                gzip.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            } else {
+                while (buffer.hasRemaining()) {
+                    canal.write(buffer);
+                }
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                vaciar();
+                if (gzip != null) {
+                    gzip.close(); // Escribe el final del miembro gzip de esta parte
+                }
+            } finally {
+                canal.close();
+            }
+        }
+    }
+}
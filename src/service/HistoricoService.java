@@ -0,0 +1,71 @@
+package service;
+
+import config.AccesoBD;
+import config.OpcionesTransaccion;
+import config.TipoOperacion;
+import config.TransactionManager;
+import dao.HistoricoDAO;
+import dao.RegistroHistorico;
+import entities.SeguroVehicular;
+import entities.Vehiculo;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consultas a pedido sobre las filas archivadas (solo lectura).
+ * El movimiento de filas al historico lo hace {@link ArchivadoHistorico}.
+ */
+public class HistoricoService {
+
+    private final HistoricoDAO historicoDAO;
+
+    public HistoricoService(HistoricoDAO historicoDAO) {
+        this.historicoDAO = historicoDAO;
+    }
+
+    /** Versiones archivadas de un dominio (la mas reciente primero). */
+    public List<RegistroHistorico<Vehiculo>> buscarVehiculosPorDominio(String dominio) throws Exception {
+        if (dominio == null || dominio.trim().isEmpty()) {
+            throw new IllegalArgumentException("El dominio no puede estar vacio.");
+        }
+        return AccesoBD.ejecutar(TipoOperacion.LECTURA, () -> historicoDAO.buscarVehiculosPorDominio(dominio.trim().toUpperCase()));
+    }
+
+    /**
+     * Versiones archivadas de un dominio, cada una con sus seguros archivados.
+     * Son varias lecturas seguidas: se hacen en una sola transaccion de solo lectura
+     * (READ ONLY, REPEATABLE READ) sobre una unica conexion, asi un archivado que corre al
+     * mismo tiempo no deja un vehiculo sin los seguros que se archivaron con el.
+     */
+    public Map<RegistroHistorico<Vehiculo>, List<RegistroHistorico<SeguroVehicular>>> buscarHistorialPorDominio(String dominio) throws Exception {
+        if (dominio == null || dominio.trim().isEmpty()) {
+            throw new IllegalArgumentException("El dominio no puede estar vacio.");
+        }
+        String clave = dominio.trim().toUpperCase();
+        return TransactionManager.ejecutarConReintentos(tm -> {
+            Map<RegistroHistorico<Vehiculo>, List<RegistroHistorico<SeguroVehicular>>> historial = new LinkedHashMap<>();
+            for (RegistroHistorico<Vehiculo> vehiculo : historicoDAO.buscarVehiculosPorDominioTx(clave, tm.getConnection())) {
+                historial.put(vehiculo, historicoDAO.buscarSegurosPorVehiculoTx(vehiculo.getEntidad().getId(), tm.getConnection()));
+            }
+            return historial;
+        }, OpcionesTransaccion.lecturas());
+    }
+
+    /** Seguros archivados de un vehiculo, por su ID original. */
+    public List<RegistroHistorico<SeguroVehicular>> buscarSegurosPorVehiculo(long idVehiculo) throws Exception {
+        if (idVehiculo <= 0) {
+            throw new IllegalArgumentException("ID de vehiculo invalido.");
+        }
+        return AccesoBD.ejecutar(TipoOperacion.LECTURA, () -> historicoDAO.buscarSegurosPorVehiculo(idVehiculo));
+    }
+
+    /** Versiones archivadas de una poliza (la mas reciente primero). */
+    public List<RegistroHistorico<SeguroVehicular>> buscarSegurosPorPoliza(String nroPoliza) throws Exception {
+        if (nroPoliza == null || nroPoliza.trim().isEmpty()) {
+            throw new IllegalArgumentException("El número de póliza es obligatorio.");
+        }
+        return AccesoBD.ejecutar(TipoOperacion.LECTURA, () -> historicoDAO.buscarSegurosPorPoliza(nroPoliza.trim().toUpperCase()));
+    }
+}
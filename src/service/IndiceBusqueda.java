@@ -0,0 +1,299 @@
+package service;
+
+import dao.VehiculoDAO;
+import entities.SeguroVehicular;
+import entities.Vehiculo;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * Indice invertido en memoria sobre Vehiculo.marca, Vehiculo.modelo y SeguroVehicular.aseguradora.
+ * <ul>
+ *   <li>Cada valor se normaliza (minusculas, sin acentos) y se parte en palabras; cada palabra
+ *       apunta al conjunto de IDs de vehiculo que la contienen.</li>
+ *   <li>Las palabras se guardan ordenadas, asi una busqueda por prefijo es un rango del mapa.</li>
+ *   <li>Una consulta de varias palabras ("toyota cor") devuelve los vehiculos donde TODAS las
+ *       palabras matchean (por prefijo) en alguno de los tres campos.</li>
+ *   <li>Se construye con un recorrido streaming de la tabla y despues se mantiene al dia con
+ *       las escrituras de la capa Service ({@link ObservadorCambios}).</li>
+ * </ul>
+ * Las lecturas no bloquean; las escrituras se serializan.
+ */
+public class IndiceBusqueda implements ObservadorCambios {
+
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern DIACRITICOS = Pattern.compile("\\p{M}+");
+
+    /** Datos del indice. Se reemplazan completos al reconstruir. */
+    private static final class Datos {
+        final Map<Long, Vehiculo> vehiculos = new ConcurrentHashMap<>();
+        final Map<Long, Long> vehiculoPorSeguro = new ConcurrentHashMap<>();
+        final NavigableMap<String, Set<Long>> terminos = new ConcurrentSkipListMap<>();
+    }
+
+    private volatile Datos datos = new Datos();
+    private volatile boolean construido = false;
+    private volatile long duracionConstruccionMs;
+    private volatile String ultimoError;
+
+    // Cambios recibidos mientras se reconstruye: se re-aplican sobre el indice nuevo
+    private List<Runnable> pendientes;
+
+    // ============================================================
+    // CONSTRUCCION
+    // ============================================================
+
+    /**
+     * Reconstruye el indice completo con un recorrido streaming de los vehiculos activos.
+     * Mientras tanto se sigue respondiendo con el indice anterior. Un error queda en el resumen.
+     */
+    public void reconstruir(VehiculoDAO vehiculoDAO) {
+        try {
+            reconstruir(RecorridoFlota.desdeBase(vehiculoDAO));
+        } catch (Exception e) {
+            // Ya quedo en ultimoError
+        }
+    }
+
+    /**
+     * Empieza a guardar los cambios que llegan para re-aplicarlos sobre el indice que arme la
+     * proxima reconstruccion. Se llama antes de leer la fuente cuando esa lectura no la hace el
+     * recorrido mismo (ej. antes de la puesta al dia de la instantanea): asi un cambio que llega
+     * entre la lectura y la reconstruccion no se pierde.
+     */
+    public synchronized void iniciarCaptura() {
+        if (pendientes == null) {
+            pendientes = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Reconstruye el indice completo desde la fuente indicada (la base o una instantanea).
+     * @throws Exception Si falla el recorrido: el indice anterior queda como estaba.
+     */
+    public void reconstruir(RecorridoFlota fuente) throws Exception {
+        long inicio = System.nanoTime();
+        iniciarCaptura();
+        try {
+            Datos nuevos = new Datos();
+            fuente.recorrer(v -> indexar(nuevos, copiar(v)));
+            synchronized (this) {
+                datos = nuevos;
+                for (Runnable cambio : pendientes) {
+                    cambio.run(); // Los cambios leen "datos" al ejecutarse: ahora van al indice nuevo
+                }
+                pendientes = null;
+                construido = true;
+            }
+            duracionConstruccionMs = (System.nanoTime() - inicio) / 1_000_000;
+            ultimoError = null;
+        } catch (Exception e) {
+            synchronized (this) {
+                pendientes = null;
+            }
+            ultimoError = e.getMessage();
+            throw e;
+        }
+    }
+
+    /** Indica si el indice ya se construyo al menos una vez. */
+    public boolean isConstruido() {
+        return construido;
+    }
+
+    // ============================================================
+    // BUSQUEDA
+    // ============================================================
+
+    /**
+     * Busca vehiculos cuya marca, modelo o aseguradora contengan palabras que empiecen
+     * con cada una de las palabras de la consulta (sin distinguir mayusculas ni acentos).
+     * @param consulta Texto libre, ej. "toyota corolla", "sanc", "ford fo".
+     * @return Los vehiculos encontrados (copias), ordenados por ID.
+     */
+    public List<Vehiculo> buscar(String consulta) {
+        Datos d = datos;
+        List<String> palabras = palabras(consulta);
+        if (palabras.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Set<Long> resultado = null;
+        for (String palabra : palabras) {
+            Set<Long> coincidencias = new HashSet<>();
+            for (Set<Long> ids : d.terminos.subMap(palabra, true, palabra + Character.MAX_VALUE, false).values()) {
+                coincidencias.addAll(ids);
+            }
+            if (resultado == null) {
+                resultado = coincidencias;
+            } else {
+                resultado.retainAll(coincidencias);
+            }
+            if (resultado.isEmpty()) {
+                break;
+            }
+        }
+
+        List<Vehiculo> vehiculos = new ArrayList<>(resultado.size());
+        for (Long id : resultado) {
+            Vehiculo v = d.vehiculos.get(id);
+            if (v != null) {
+                vehiculos.add(copiar(v));
+            }
+        }
+        vehiculos.sort(Comparator.comparingLong(Vehiculo::getId));
+        return vehiculos;
+    }
+
+    /** Resumen del estado del indice para mostrar por consola. */
+    public String resumen() {
+        Datos d = datos;
+        return (construido ? "Construido" : "En construccion")
+                + " | Vehiculos: " + d.vehiculos.size()
+                + " | Terminos: " + d.terminos.size()
+                + " | Ultima construccion: " + duracionConstruccionMs + " ms"
+                + (ultimoError == null ? "" : " | Ultimo error: " + ultimoError);
+    }
+
+    // ============================================================
+    // MANTENIMIENTO INCREMENTAL (ObservadorCambios)
+    // ============================================================
+
+    @Override
+    public void vehiculoGuardado(Vehiculo vehiculo) {
+        Vehiculo copia = copiar(vehiculo);
+        aplicar(() -> {
+            Datos d = datos;
+            desindexar(d, copia.getId());
+            indexar(d, copia);
+        });
+    }
+
+    @Override
+    public void vehiculoEliminado(long idVehiculo) {
+        aplicar(() -> desindexar(datos, idVehiculo));
+    }
+
+    @Override
+    public void seguroGuardado(SeguroVehicular seguro, long idVehiculo) {
+        SeguroVehicular copiaSeguro = copiar(seguro);
+        aplicar(() -> {
+            Datos d = datos;
+            long id = idVehiculo > 0 ? idVehiculo : d.vehiculoPorSeguro.getOrDefault(copiaSeguro.getId(), 0L);
+            Vehiculo actual = d.vehiculos.get(id);
+            if (actual == null) {
+                return; // Vehiculo fuera del indice (o desconocido): no hay nada que actualizar
+            }
+            Vehiculo copia = copiar(actual);
+            copia.setSeguro(copiaSeguro);
+            desindexar(d, id);
+            indexar(d, copia);
+        });
+    }
+
+    @Override
+    public void seguroEliminado(long idSeguro) {
+        aplicar(() -> {
+            Datos d = datos;
+            Long id = d.vehiculoPorSeguro.get(idSeguro);
+            Vehiculo actual = id == null ? null : d.vehiculos.get(id);
+            if (actual == null) {
+                return;
+            }
+            Vehiculo copia = copiar(actual);
+            copia.setSeguro(null);
+            desindexar(d, id);
+            indexar(d, copia);
+        });
+    }
+
+    /** Aplica el cambio ahora y, si hay una reconstruccion en curso, lo guarda para re-aplicarlo. */
+    private synchronized void aplicar(Runnable cambio) {
+        cambio.run();
+        if (pendientes != null) {
+            pendientes.add(cambio);
+        }
+    }
+
+    // ============================================================
+    // AUXILIARES
+    // ============================================================
+
+    private static void indexar(Datos d, Vehiculo v) {
+        d.vehiculos.put(v.getId(), v);
+        for (String termino : terminosDe(v)) {
+            d.terminos.computeIfAbsent(termino, t -> ConcurrentHashMap.newKeySet()).add(v.getId());
+        }
+        if (v.getSeguro() != null) {
+            d.vehiculoPorSeguro.put(v.getSeguro().getId(), v.getId());
+        }
+    }
+
+    private static void desindexar(Datos d, long idVehiculo) {
+        Vehiculo anterior = d.vehiculos.remove(idVehiculo);
+        if (anterior == null) {
+            return;
+        }
+        for (String termino : terminosDe(anterior)) {
+            d.terminos.computeIfPresent(termino, (t, ids) -> {
+                ids.remove(idVehiculo);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+        if (anterior.getSeguro() != null) {
+            d.vehiculoPorSeguro.remove(anterior.getSeguro().getId());
+        }
+    }
+
+    private static Set<String> terminosDe(Vehiculo v) {
+        Set<String> terminos = new HashSet<>(palabras(v.getMarca()));
+        terminos.addAll(palabras(v.getModelo()));
+        if (v.getSeguro() != null) {
+            terminos.addAll(palabras(v.getSeguro().getAseguradora()));
+        }
+        return terminos;
+    }
+
+    /** Normaliza (minusculas, sin acentos) y separa en palabras. */
+    static List<String> palabras(String texto) {
+        List<String> palabras = new ArrayList<>();
+        if (texto == null) {
+            return palabras;
+        }
+        String normalizado = DIACRITICOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        for (String palabra : SEPARADORES.split(normalizado)) {
+            if (!palabra.isEmpty()) {
+                palabras.add(palabra);
+            }
+        }
+        return palabras;
+    }
+
+    // El indice guarda copias: el menu puede seguir modificando sus objetos sin afectarlo
+    private static Vehiculo copiar(Vehiculo v) {
+        Vehiculo copia = new Vehiculo(v.getId(), v.isEliminado(), v.getDominio(), v.getMarca(),
+                v.getModelo(), v.getAnio(), v.getNroChasis());
+        if (v.getSeguro() != null) {
+            copia.setSeguro(copiar(v.getSeguro()));
+        }
+        return copia;
+    }
+
+    private static SeguroVehicular copiar(SeguroVehicular s) {
+        return new SeguroVehicular(s.getId(), s.isEliminado(), s.getAseguradora(), s.getNroPoliza(),
+                s.getCobertura(), s.getVencimiento());
+    }
+}
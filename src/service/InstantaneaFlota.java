@@ -0,0 +1,493 @@
+package service;
+
+import config.AccesoBD;
+import config.OpcionesTransaccion;
+import config.TipoOperacion;
+import config.TransactionManager;
+import dao.SeguroVehicularDAO;
+import dao.VehiculoDAO;
+import entities.Cobertura;
+import entities.SeguroVehicular;
+import entities.Vehiculo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Instantanea binaria de la flota activa en disco, para arrancar las estructuras en memoria
+ * (indice, analitica) sin recorrer toda la base.
+ * <ul>
+ *   <li>Se escribe periodicamente con un recorrido streaming de la base, a un archivo temporal
+ *       que despues reemplaza al anterior (nunca queda un archivo a medio escribir).</li>
+ *   <li>Al arrancar se lee entera a un buffer del heap, se verifica encabezado, version y CRC32, y se pone
+ *       al dia leyendo de la base solo las filas con {@code actualizado} posterior a la marca de
+ *       tiempo de la instantanea.</li>
+ *   <li>Si el archivo falta, es de otra version, esta corrupto o es demasiado viejo, se descarta
+ *       y se recorre la base como siempre.</li>
+ * </ul>
+ * Formato (big-endian):
+ * <pre>
+ *   Encabezado (40 bytes): magico "FLTA" | version (short) | reservado (short) | marca de tiempo
+ *     (long, ms) | vehiculos (int) | cadenas (int) | offset del diccionario (long) | CRC32 (int) | reservado (int)
+ *   Vehiculos, en orden de ID: id (long) | dominio | marca (int) | modelo (int) | anio (short)
+ *     | nroChasis | tieneSeguro (byte) [ id (long) | aseguradora (int) | nroPoliza | cobertura (byte)
+ *     | vencimiento (int, dia epoch) ]
+ *   Diccionario: las cadenas de marca, modelo y aseguradora (los int de arriba son su posicion)
+ *   Cadena: largo en bytes (short, -1 = null) + UTF-8
+ * </pre>
+ * El CRC32 cubre todo lo que sigue al encabezado y despues el encabezado mismo, con el campo
+ * del CRC en cero.
+ */
+public class InstantaneaFlota {
+
+    private static final int MAGICO = 0x464C5441; // "FLTA"
+    /** Version del formato. Subirla si cambian los registros (o el orden de {@link Cobertura}). */
+    public static final short VERSION = 2;
+    private static final int LARGO_ENCABEZADO = 40;
+    private static final int POSICION_CRC = 32;
+    // Registro de vehiculo mas chico posible: sin seguro y con las dos cadenas vacias
+    private static final int REGISTRO_MINIMO = 8 + 2 + 4 + 4 + 2 + 2 + 1;
+    private static final int TAMANIO_BUFFER = 256 * 1024;
+    // Un registro entra de sobra: las columnas de texto son VARCHAR de hasta 80 caracteres
+    private static final int MARGEN_REGISTRO = 4096;
+    private static final Cobertura[] COBERTURAS = Cobertura.values();
+
+    private final Path archivo;
+    private final VehiculoDAO vehiculoDAO;
+    private final SeguroVehicularDAO seguroDAO;
+    private final long antiguedadMaximaMs;
+
+    private final AtomicBoolean enEscritura = new AtomicBoolean(false);
+
+    // --- Progreso ---
+    private volatile String ultimaEscritura;
+    private volatile String ultimaCarga;
+    private volatile String ultimoError;
+
+    /**
+     * @param antiguedadMaximaMs Una instantanea mas vieja se descarta. Tiene que ser menor que la
+     *        retencion del archivado historico: una fila dada de baja despues de la instantanea y
+     *        archivada antes de cargarla ya no estaria en la tabla para la puesta al dia.
+     */
+    public InstantaneaFlota(Path archivo, VehiculoDAO vehiculoDAO, SeguroVehicularDAO seguroDAO, long antiguedadMaximaMs) {
+        this.archivo = archivo.toAbsolutePath();
+        this.vehiculoDAO = vehiculoDAO;
+        this.seguroDAO = seguroDAO;
+        this.antiguedadMaximaMs = antiguedadMaximaMs;
+    }
+
+    /**
+     * Programa la escritura periodica de la instantanea.
+     * @see MantenimientoSegurosVencidos#programar(ScheduledExecutorService, long, long, TimeUnit)
+     */
+    public void programar(ScheduledExecutorService scheduler, long demoraInicial, long periodo, TimeUnit unidad) {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                guardar();
+            } catch (Exception e) {
+                // Ya quedo en ultimoError; no se imprime porque correria sobre el menu
+            }
+        }, demoraInicial, periodo, unidad);
+    }
+
+    // ============================================================
+    // ESCRITURA
+    // ============================================================
+
+    /**
+     * Escribe una instantanea nueva con un recorrido de la base. Si ya hay una escritura en curso no hace nada.
+     * @throws Exception Si falla la lectura o la escritura (la instantanea anterior queda como estaba).
+     */
+    public void guardar() throws Exception {
+        if (!enEscritura.compareAndSet(false, true)) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        Path temporal = null;
+        try {
+            // La marca se toma con el reloj de la base y antes de leer, con un margen: una transaccion
+            // que empezo antes y confirma durante el recorrido tiene "actualizado" anterior a su commit.
+            // Ninguna dura mas que el plazo de su tipo, asi que con el mayor plazo alcanza.
+            long marca = AccesoBD.ejecutar(TipoOperacion.LECTURA, vehiculoDAO::ahoraEnBase).getTime() - margenMs();
+
+            Files.createDirectories(archivo.getParent());
+            temporal = Files.createTempFile(archivo.getParent(), archivo.getFileName() + ".", ".tmp");
+            int vehiculos;
+            try (Escritor escritor = new Escritor(temporal)) {
+                try {
+                    AccesoBD.ejecutar(TipoOperacion.MASIVA, () -> vehiculoDAO.recorrerActivosEnRango(0, Long.MAX_VALUE, v -> {
+                        try {
+                            escritor.vehiculo(v);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }));
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                vehiculos = escritor.terminar(marca);
+            }
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            temporal = null;
+
+            ultimaEscritura = LocalDateTime.now().withNano(0) + " (" + vehiculos + " vehiculos, "
+                    + Files.size(archivo) / 1024 + " KB, " + (System.nanoTime() - inicio) / 1_000_000 + " ms)";
+            ultimoError = null;
+        } catch (Exception e) {
+            ultimoError = "Escritura: " + e.getMessage();
+            throw e;
+        } finally {
+            if (temporal != null) {
+                Files.deleteIfExists(temporal);
+            }
+            enEscritura.set(false);
+        }
+    }
+
+    private static long margenMs() {
+        long margen = 0;
+        for (TipoOperacion tipo : TipoOperacion.values()) {
+            margen = Math.max(margen, tipo.getPlazoMs());
+        }
+        return margen;
+    }
+
+    // Escribe los vehiculos al cuerpo y al final el diccionario y el encabezado (con el CRC)
+    private static final class Escritor implements AutoCloseable {
+
+        private final FileChannel canal;
+        private final ByteBuffer buffer = ByteBuffer.allocate(TAMANIO_BUFFER);
+        private final CRC32 crc = new CRC32();
+        private final Map<String, Integer> cadenas = new LinkedHashMap<>();
+        private int vehiculos;
+        private long ultimoId = Long.MIN_VALUE;
+
+        Escritor(Path destino) throws IOException {
+            canal = FileChannel.open(destino, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            canal.position(LARGO_ENCABEZADO); // El encabezado se escribe al final
+        }
+
+        void vehiculo(Vehiculo v) throws IOException {
+            if (v.getId() <= ultimoId) {
+                throw new IllegalStateException("Los vehiculos deben llegar en orden de ID (" + v.getId() + " despues de " + ultimoId + ").");
+            }
+            ultimoId = v.getId();
+            if (buffer.remaining() < MARGEN_REGISTRO) {
+                vaciar();
+            }
+            buffer.putLong(v.getId());
+            cadena(v.getDominio());
+            buffer.putInt(indice(v.getMarca()));
+            buffer.putInt(indice(v.getModelo()));
+            buffer.putShort((short) v.getAnio());
+            cadena(v.getNroChasis());
+            SeguroVehicular s = v.getSeguro();
+            if (s == null) {
+                buffer.put((byte) 0);
+            } else {
+                buffer.put((byte) 1);
+                buffer.putLong(s.getId());
+                buffer.putInt(indice(s.getAseguradora()));
+                cadena(s.getNroPoliza());
+                buffer.put((byte) s.getCobertura().ordinal());
+                buffer.putInt((int) s.getVencimiento().toEpochDay());
+            }
+            vehiculos++;
+        }
+
+        /** Escribe el diccionario y el encabezado. @return La cantidad de vehiculos escritos. */
+        int terminar(long marca) throws IOException {
+            vaciar();
+            long offsetDiccionario = canal.position();
+            for (String texto : cadenas.keySet()) {
+                if (buffer.remaining() < MARGEN_REGISTRO) {
+                    vaciar();
+                }
+                cadena(texto);
+            }
+            vaciar();
+
+            ByteBuffer encabezado = ByteBuffer.allocate(LARGO_ENCABEZADO);
+            encabezado.putInt(MAGICO).putShort(VERSION).putShort((short) 0)
+                    .putLong(marca)
+                    .putInt(vehiculos)
+                    .putInt(cadenas.size())
+                    .putLong(offsetDiccionario)
+                    .putInt(0) // CRC: en cero mientras se calcula
+                    .putInt(0);
+            crc.update(encabezado.array());
+            encabezado.putInt(POSICION_CRC, (int) crc.getValue()).flip();
+            long posicion = 0;
+            while (encabezado.hasRemaining()) {
+                posicion += canal.write(encabezado, posicion);
+            }
+            canal.force(false); // En disco antes de reemplazar a la anterior
+            return vehiculos;
+        }
+
+        private int indice(String texto) {
+            return cadenas.computeIfAbsent(texto == null ? "" : texto, t -> cadenas.size());
+        }
+
+        private void cadena(String texto) throws IOException {
+            if (texto == null) {
+                buffer.putShort((short) -1);
+                return;
+            }
+            byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > Short.MAX_VALUE) {
+                throw new IOException("Texto demasiado largo para la instantanea (" + bytes.length + " bytes).");
+            }
+            if (buffer.remaining() < bytes.length + 2) {
+                vaciar();
+            }
+            buffer.putShort((short) bytes.length);
+            buffer.put(bytes);
+        }
+
+        private void vaciar() throws IOException {
+            buffer.flip();
+            crc.update(buffer.array(), 0, buffer.limit());
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            canal.close();
+        }
+    }
+
+    // ============================================================
+    // CARGA
+    // ============================================================
+
+    /**
+     * Abre la instantanea y la pone al dia con los cambios de la base posteriores a su marca.
+     * Quien mantiene una estructura con los avisos de {@link ObservadorCambios} tiene que empezar a
+     * guardarlos antes de llamar (ver {@link IndiceBusqueda#iniciarCaptura()}): un cambio confirmado
+     * despues de la puesta al dia no esta en la fuente.
+     * @return Una fuente para {@link IndiceBusqueda#reconstruir(RecorridoFlota)} y
+     *         {@link AnaliticaFlota#refrescar(RecorridoFlota)} (se puede recorrer varias veces),
+     *         o null si no hay una instantanea utilizable: entonces hay que recorrer la base.
+     */
+    public RecorridoFlota abrir() {
+        if (!Files.exists(archivo)) {
+            ultimaCarga = "Sin instantanea";
+            return null;
+        }
+        long inicio = System.nanoTime();
+        try {
+            // Sin mmap: en Windows un archivo mapeado no se puede reemplazar hasta que el GC libera
+            // el mapeo, y el proximo guardar() fallaria al mover el temporal encima
+            ByteBuffer datos;
+            try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+                long tamanio = canal.size();
+                if (tamanio < LARGO_ENCABEZADO || tamanio > Integer.MAX_VALUE - 8) {
+                    throw new IOException("Tamanio de archivo invalido: " + tamanio + " bytes.");
+                }
+                datos = ByteBuffer.allocate((int) tamanio);
+                while (datos.hasRemaining()) {
+                    if (canal.read(datos) < 0) {
+                        throw new IOException("El archivo se acorto mientras se leia.");
+                    }
+                }
+                datos.flip();
+            }
+            if (datos.getInt(0) != MAGICO) {
+                throw new IOException("No es un archivo de instantanea.");
+            }
+            if (datos.getShort(4) != VERSION) {
+                throw new IOException("Version " + datos.getShort(4) + " (se espera " + VERSION + ").");
+            }
+            long marca = datos.getLong(8);
+            int vehiculos = datos.getInt(16);
+            int cantidadCadenas = datos.getInt(20);
+            long offsetDiccionario = datos.getLong(24);
+            int crcGuardado = datos.getInt(POSICION_CRC);
+            if (vehiculos < 0 || cantidadCadenas < 0
+                    || offsetDiccionario < LARGO_ENCABEZADO || offsetDiccionario > datos.capacity()
+                    || (long) vehiculos * REGISTRO_MINIMO > offsetDiccionario - LARGO_ENCABEZADO
+                    || (long) cantidadCadenas * 2 > datos.capacity() - offsetDiccionario) {
+                throw new IOException("Encabezado corrupto.");
+            }
+            CRC32 crc = new CRC32();
+            crc.update(datos.duplicate().position(LARGO_ENCABEZADO));
+            ByteBuffer encabezado = ByteBuffer.allocate(LARGO_ENCABEZADO);
+            encabezado.put(datos.duplicate().position(0).limit(LARGO_ENCABEZADO)).putInt(POSICION_CRC, 0).flip();
+            crc.update(encabezado);
+            if ((int) crc.getValue() != crcGuardado) {
+                throw new IOException("CRC32 no coincide (archivo corrupto o incompleto).");
+            }
+            long antiguedad = System.currentTimeMillis() - marca;
+            if (antiguedad > antiguedadMaximaMs) {
+                throw new IOException("Demasiado vieja (" + antiguedad / 3_600_000 + " h).");
+            }
+
+            ByteBuffer diccionario = datos.duplicate().position((int) offsetDiccionario);
+            String[] cadenas = new String[cantidadCadenas];
+            for (int i = 0; i < cantidadCadenas; i++) {
+                cadenas[i] = cadena(diccionario);
+            }
+
+            // Puesta al dia: solo lo cambiado desde la marca. Las dos consultas van en una transaccion
+            // READ ONLY REPEATABLE READ: ven la misma foto, asi un seguro que cambia entre una y otra
+            // no queda marcado como cambiado sin que su vehiculo este entre los cambios
+            Timestamp desde = new Timestamp(marca);
+            Set<Long> segurosCambiados = new HashSet<>();
+            TreeMap<Long, Vehiculo> cambios = new TreeMap<>();
+            TransactionManager.ejecutarConReintentos(tm -> {
+                segurosCambiados.clear(); // Un reintento vuelve a leer todo
+                cambios.clear();
+                segurosCambiados.addAll(seguroDAO.buscarIdsCambiadosDesdeTx(desde, tm.getConnection()));
+                return vehiculoDAO.recorrerCambiadosDesdeTx(desde, v -> cambios.put(v.getId(), v), tm.getConnection());
+            }, OpcionesTransaccion.lecturas().conTipo(TipoOperacion.MASIVA));
+
+            ultimaCarga = LocalDateTime.now().withNano(0) + " (" + vehiculos + " vehiculos en la instantanea, "
+                    + cambios.size() + " cambiados desde " + new Timestamp(marca).toLocalDateTime().withNano(0)
+                    + ", " + (System.nanoTime() - inicio) / 1_000_000 + " ms)";
+            return new Carga(datos, (int) offsetDiccionario, vehiculos, cadenas, cambios, segurosCambiados);
+        } catch (Exception e) {
+            ultimaCarga = "Descartada: " + e.getMessage();
+            return null;
+        }
+    }
+
+    /**
+     * Descarta la instantanea abierta porque fallo al recorrerla (datos que el CRC no detecto):
+     * queda en el estado de la carga y quien la abrio vuelve a la base.
+     */
+    public void descartar(String motivo) {
+        ultimaCarga = "Descartada al recorrerla: " + motivo;
+    }
+
+    // La instantanea leida mas los cambios: se recorren juntos en orden de ID (sort-merge)
+    private static final class Carga implements RecorridoFlota {
+
+        private final ByteBuffer datos;
+        private final int finCuerpo;
+        private final int vehiculos;
+        private final String[] cadenas;
+        private final TreeMap<Long, Vehiculo> cambios;
+        private final Set<Long> segurosCambiados;
+
+        Carga(ByteBuffer datos, int finCuerpo, int vehiculos, String[] cadenas,
+              TreeMap<Long, Vehiculo> cambios, Set<Long> segurosCambiados) {
+            this.datos = datos;
+            this.finCuerpo = finCuerpo;
+            this.vehiculos = vehiculos;
+            this.cadenas = cadenas;
+            this.cambios = cambios;
+            this.segurosCambiados = segurosCambiados;
+        }
+
+        @Override
+        public long recorrer(Consumer<Vehiculo> consumidor) {
+            ByteBuffer cuerpo = datos.duplicate().position(LARGO_ENCABEZADO).limit(finCuerpo);
+            Iterator<Vehiculo> pendientes = cambios.values().iterator();
+            Vehiculo cambio = pendientes.hasNext() ? pendientes.next() : null;
+            long entregados = 0;
+            for (int i = 0; i < vehiculos; i++) {
+                Vehiculo v = leerVehiculo(cuerpo);
+                // Los cambios con ID menor son vehiculos nuevos (o dados de baja que no estaban)
+                while (cambio != null && cambio.getId() < v.getId()) {
+                    if (!cambio.isEliminado()) {
+                        consumidor.accept(cambio);
+                        entregados++;
+                    }
+                    cambio = pendientes.hasNext() ? pendientes.next() : null;
+                }
+                if (cambio != null && cambio.getId() == v.getId()) {
+                    v = cambio.isEliminado() ? null : cambio; // La version de la base reemplaza a la guardada
+                    cambio = pendientes.hasNext() ? pendientes.next() : null;
+                } else if (v.getSeguro() != null && segurosCambiados.contains(v.getSeguro().getId())) {
+                    // La poliza cambio pero el vehiculo no esta entre los cambiados: ya no es suya
+                    // (paso a otro vehiculo); si le hubieran dado otra, el vehiculo estaria en los cambios
+                    v.setSeguro(null);
+                }
+                if (v != null) {
+                    consumidor.accept(v);
+                    entregados++;
+                }
+            }
+            if (cuerpo.hasRemaining()) {
+                throw new IllegalStateException("La instantanea tiene " + cuerpo.remaining() + " bytes de mas despues de los vehiculos.");
+            }
+            while (cambio != null) {
+                if (!cambio.isEliminado()) {
+                    consumidor.accept(cambio);
+                    entregados++;
+                }
+                cambio = pendientes.hasNext() ? pendientes.next() : null;
+            }
+            return entregados;
+        }
+
+        private Vehiculo leerVehiculo(ByteBuffer b) {
+            Vehiculo v = new Vehiculo();
+            v.setId(b.getLong());
+            v.setDominio(cadena(b));
+            v.setMarca(cadenas[b.getInt()]);
+            v.setModelo(cadenas[b.getInt()]);
+            v.setAnio(b.getShort());
+            v.setNroChasis(cadena(b));
+            if (b.get() == 1) {
+                SeguroVehicular s = new SeguroVehicular();
+                s.setId(b.getLong());
+                s.setAseguradora(cadenas[b.getInt()]);
+                s.setNroPoliza(cadena(b));
+                s.setCobertura(COBERTURAS[b.get()]);
+                s.setVencimiento(LocalDate.ofEpochDay(b.getInt()));
+                s.iniciarSeguimiento();
+                v.setSeguro(s);
+            }
+            v.iniciarSeguimiento();
+            return v;
+        }
+    }
+
+    private static String cadena(ByteBuffer b) {
+        short largo = b.getShort();
+        if (largo < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[largo];
+        b.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // ============================================================
+    // ESTADO
+    // ============================================================
+
+    /** Resumen para mostrar por consola. */
+    public String resumen() {
+        return (enEscritura.get() ? "ESCRIBIENDO" : "en espera")
+                + " | Ultima escritura: " + (ultimaEscritura == null ? "-" : ultimaEscritura)
+                + " | Carga al iniciar: " + (ultimaCarga == null ? "-" : ultimaCarga)
+                + (ultimoError == null ? "" : " | Ultimo error: " + ultimoError);
+    }
+}
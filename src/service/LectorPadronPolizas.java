@@ -0,0 +1,87 @@
+package service;
+
+import dao.NovedadPoliza;
+import entities.Cobertura;
+import entities.SeguroVehicular;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Lee de a una linea el padron de polizas de una aseguradora
+ * (CSV {@code dominio;nroPoliza;aseguradora;cobertura;vencimiento}, con o sin encabezado).
+ * No carga el archivo en memoria, asi sirve para padrones grandes.
+ */
+public class LectorPadronPolizas implements AutoCloseable {
+
+    /** Una linea que no se pudo interpretar. */
+    public static final class LineaIlegible extends Exception {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int linea;
+        private final String nroPoliza;
+
+        LineaIlegible(int linea, String nroPoliza, String motivo) {
+            super("linea " + linea + ": " + motivo);
+            this.linea = linea;
+            this.nroPoliza = nroPoliza;
+        }
+
+        public int getLinea() {
+            return linea;
+        }
+
+        /** El nro. de poliza de la linea, si se pudo leer (null si no). */
+        public String getNroPoliza() {
+            return nroPoliza;
+        }
+    }
+
+    private final BufferedReader lector;
+    private int numeroLinea = 0;
+
+    public LectorPadronPolizas(Path archivo) throws IOException {
+        this.lector = Files.newBufferedReader(archivo, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * La siguiente fila del padron (se saltean las lineas vacias y el encabezado).
+     * @return La fila, o null al llegar al final del archivo.
+     * @throws LineaIlegible Si la linea no tiene el formato esperado (la lectura puede seguir).
+     */
+    public NovedadPoliza siguiente() throws IOException, LineaIlegible {
+        String linea;
+        do {
+            linea = lector.readLine();
+            if (linea == null) {
+                return null;
+            }
+            numeroLinea++;
+            linea = linea.trim();
+        } while (linea.isEmpty() || (numeroLinea == 1 && linea.toLowerCase().startsWith("dominio")));
+
+        String[] campos = linea.split("[;,]", -1);
+        String nroPoliza = campos.length > 1 && !campos[1].trim().isEmpty() ? campos[1].trim().toUpperCase() : null;
+        if (campos.length != 5) {
+            throw new LineaIlegible(numeroLinea, nroPoliza, "se esperaban 5 campos y hay " + campos.length);
+        }
+        try {
+            SeguroVehicular seguro = new SeguroVehicular(0, false, campos[2].trim(), nroPoliza,
+                    Cobertura.valueOf(campos[3].trim().toUpperCase()), LocalDate.parse(campos[4].trim()));
+            return new NovedadPoliza(numeroLinea, campos[0].trim().toUpperCase().replace("-", ""), seguro);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new LineaIlegible(numeroLinea, nroPoliza, e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lector.close();
+    }
+}
@@ -0,0 +1,162 @@
+package service;
+
+import config.OpcionesTransaccion;
+import config.TipoOperacion;
+import config.TransactionManager;
+import dao.SeguroVehicularDAO;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Proceso de mantenimiento en segundo plano que da de baja logica (eliminado = TRUE)
+ * los seguros cuyo vencimiento ya paso.
+ * <ul>
+ *   <li>Trabaja por chunks chicos recorriendo el indice (eliminado, vencimiento).</li>
+ *   <li>Cada chunk es una transaccion propia y corta (con reintentos), asi nunca retiene locks mucho tiempo.</li>
+ *   <li>Hace una pausa entre chunks para no competir con las operaciones del menu.</li>
+ *   <li>Es reanudable: las filas ya procesadas salen del rango del indice, asi que si se
+ *       detiene (o se cae la aplicacion) la proxima pasada sigue con las que faltan.</li>
+ * </ul>
+ */
+public class MantenimientoSegurosVencidos implements Runnable {
+
+    private final SeguroVehicularDAO seguroDAO;
+    private final int tamanioChunk;
+    private final long pausaEntreChunksMs;
+    private final List<ObservadorCambios> observadores = new CopyOnWriteArrayList<>();
+
+    private final AtomicBoolean enEjecucion = new AtomicBoolean(false);
+    private volatile boolean detenido = false;
+
+    // --- Progreso ---
+    private final AtomicLong pasadas = new AtomicLong();
+    private final AtomicLong chunksProcesados = new AtomicLong();
+    private final AtomicLong segurosDadosDeBaja = new AtomicLong();
+    private final AtomicLong segurosPasadaActual = new AtomicLong();
+    private volatile LocalDateTime ultimaEjecucion;
+    private volatile String ultimoError;
+
+    public MantenimientoSegurosVencidos(SeguroVehicularDAO seguroDAO, int tamanioChunk, long pausaEntreChunksMs) {
+        if (tamanioChunk <= 0 || tamanioChunk > 1000) {
+            throw new IllegalArgumentException("El tamanio de chunk debe estar entre 1 y 1000.");
+        }
+        this.seguroDAO = seguroDAO;
+        this.tamanioChunk = tamanioChunk;
+        this.pausaEntreChunksMs = pausaEntreChunksMs;
+    }
+
+    /**
+     * Registra un observador que se notifica por cada seguro dado de baja (despues del commit de su chunk).
+     */
+    public void agregarObservador(ObservadorCambios observador) {
+        observadores.add(observador);
+    }
+
+    /**
+     * Programa el proceso para que se ejecute periodicamente.
+     * @param scheduler El scheduler (se recomienda de hilos daemon).
+     * @param demoraInicial Demora antes de la primera pasada.
+     * @param periodo Tiempo entre el fin de una pasada y el inicio de la siguiente.
+     */
+    public void programar(ScheduledExecutorService scheduler, long demoraInicial, long periodo, TimeUnit unidad) {
+        scheduler.scheduleWithFixedDelay(this, demoraInicial, periodo, unidad);
+    }
+
+    /**
+     * Pide que la pasada en curso se detenga al terminar el chunk actual.
+     * Sin pasada en curso no hace nada: no cancela de antemano la proxima.
+     */
+    public void detener() {
+        if (enEjecucion.get()) {
+            detenido = true;
+        }
+    }
+
+    /**
+     * Ejecuta una pasada completa (hasta que no quedan vencidos o se pide detener).
+     * Si ya hay una pasada en curso no hace nada.
+     */
+    @Override
+    public void run() {
+        if (!enEjecucion.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            detenido = false; // Un pedido de una pasada anterior no frena esta
+            pasadas.incrementAndGet();
+            segurosPasadaActual.set(0);
+            ultimoError = null;
+            LocalDate corte = LocalDate.now(); // Fijo durante toda la pasada
+            OpcionesTransaccion opciones = OpcionesTransaccion.predeterminadas()
+                    .conTipo(TipoOperacion.MASIVA) // Compite por el cupo masivo, no con las escrituras del menu
+                    .conRegistroEnConsola(false);
+
+            while (!detenido && !Thread.currentThread().isInterrupted()) {
+                // Los IDs se leen con FOR UPDATE: nadie puede renovar esas polizas antes del UPDATE, asi
+                // que se dan de baja todas y se puede avisar a los observadores por cada ID leido
+                List<Long> chunk = TransactionManager.ejecutarConReintentos(tm -> {
+                    List<Long> ids = seguroDAO.buscarIdsVencidosTx(corte, tamanioChunk, tm.getConnection());
+                    int eliminados = seguroDAO.eliminarVencidosTx(ids, corte, tm.getConnection());
+                    if (eliminados != ids.size()) {
+                        throw new SQLException("Se bloquearon " + ids.size() + " polizas vencidas pero se dieron de baja " + eliminados + ".");
+                    }
+                    return ids;
+                }, opciones);
+
+                if (chunk.isEmpty()) {
+                    break; // No quedan vencidos
+                }
+                int dadosDeBaja = chunk.size();
+                for (Long idSeguro : chunk) {
+                    for (ObservadorCambios o : observadores) {
+                        o.seguroEliminado(idSeguro);
+                    }
+                }
+                chunksProcesados.incrementAndGet();
+                segurosDadosDeBaja.addAndGet(dadosDeBaja);
+                segurosPasadaActual.addAndGet(dadosDeBaja);
+
+                if (pausaEntreChunksMs > 0) {
+                    Thread.sleep(pausaEntreChunksMs); // Throttling
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // No se imprime: correria sobre el menu. Queda en el resumen de progreso.
+            ultimoError = e.getMessage();
+        } finally {
+            ultimaEjecucion = LocalDateTime.now();
+            enEjecucion.set(false);
+        }
+    }
+
+    // --- Progreso ---
+
+    public boolean isEnEjecucion() {
+        return enEjecucion.get();
+    }
+
+    public long getSegurosDadosDeBaja() {
+        return segurosDadosDeBaja.get();
+    }
+
+    /** Resumen del progreso para mostrar por consola. */
+    public String resumen() {
+        return "Estado: " + (enEjecucion.get() ? "EN EJECUCION" : "en espera")
+                + " | Pasadas: " + pasadas.get()
+                + " | Chunks: " + chunksProcesados.get()
+                + " | Bajas (total): " + segurosDadosDeBaja.get()
+                + " | Bajas (pasada actual/ultima): " + segurosPasadaActual.get()
+                + " | Ultima ejecucion: " + (ultimaEjecucion == null ? "-" : ultimaEjecucion.withNano(0))
+                + (ultimoError == null ? "" : " | Ultimo error: " + ultimoError);
+    }
+}
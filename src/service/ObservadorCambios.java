@@ -0,0 +1,28 @@
+package service;
+
+import entities.SeguroVehicular;
+import entities.Vehiculo;
+
+/**
+ * Observador de las escrituras confirmadas (despues del COMMIT) en la capa Service.
+ * Lo usan las estructuras en memoria (indices, caches) para mantenerse al dia
+ * sin volver a leer toda la base. Todos los metodos tienen implementacion vacia
+ * para que cada observador implemente solo lo que le interesa.
+ */
+public interface ObservadorCambios {
+
+    /** Se inserto o actualizo un vehiculo (con su seguro, si lo tiene). */
+    default void vehiculoGuardado(Vehiculo vehiculo) {}
+
+    /** Se dio de baja logica un vehiculo (y su seguro). */
+    default void vehiculoEliminado(long idVehiculo) {}
+
+    /**
+     * Se inserto o actualizo un seguro por el CRUD independiente.
+     * @param idVehiculo El vehiculo al que pertenece, o 0 si el llamador no lo conoce (actualizacion).
+     */
+    default void seguroGuardado(SeguroVehicular seguro, long idVehiculo) {}
+
+    /** Se dio de baja logica un seguro. */
+    default void seguroEliminado(long idSeguro) {}
+}
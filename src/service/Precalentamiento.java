@@ -0,0 +1,247 @@
+package service;
+
+import config.AccesoBD;
+import config.DatabaseConnection;
+import config.OperacionBD;
+import config.TipoOperacion;
+import dao.HistoricoDAO;
+import dao.SeguroVehicularDAO;
+import dao.VehiculoDAO;
+import entities.Vehiculo;
+
+import java.sql.Connection;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Precalentamiento al iniciar la aplicacion, en hilos de fondo mientras se muestra el menu.
+ * Dos recorridos en paralelo:
+ * <ul>
+ *   <li>Base: carga del driver y primera conexion (la mas cara), preparacion de las sentencias
+ *       frecuentes de los DAO y unas lecturas reales que pasan por los mapeos de
+ *       ResultSet a entidad las veces suficientes para que la JVM los compile.</li>
+ *   <li>Caches: indice de busqueda y analitica, desde la instantanea en disco si hay una
+ *       utilizable; si no (o si falla al recorrerla), desde la base, y despues se escribe una
+ *       instantanea nueva.</li>
+ * </ul>
+ * Un paso que falla no frena a los demas (salvo la conexion: sin ella se saltean los de la base).
+ * El estado se ve en el encabezado del menu y el detalle en la opcion 22.
+ */
+public class Precalentamiento {
+
+    public enum Estado { PENDIENTE, EN_CURSO, TERMINADO }
+
+    // Filas que se mapean: alcanza para que el JIT compile los mapeos (y calienta esas paginas en MySQL)
+    private static final int FILAS_MAPEO = 500;
+    private static final int VUELTAS_MAPEO = 3;
+
+    /**
+     * Un paso del precalentamiento.
+     */
+    public static final class Paso {
+
+        private final String nombre;
+        private volatile Estado estado = Estado.PENDIENTE;
+        private volatile long ms;
+        private volatile String detalle;
+        private volatile String error;
+
+        Paso(String nombre) {
+            this.nombre = nombre;
+        }
+
+        public String getNombre() {
+            return nombre;
+        }
+
+        public Estado getEstado() {
+            return estado;
+        }
+
+        /** Error del paso, o null si termino bien (o todavia no termino). */
+        public String getError() {
+            return error;
+        }
+
+        /** Descripcion de una linea. */
+        public String descripcion() {
+            switch (estado) {
+                case PENDIENTE:
+                    return nombre + ": pendiente";
+                case EN_CURSO:
+                    return nombre + ": en curso";
+                default:
+                    return nombre + ": " + (error != null ? "ERROR " + error : detalle) + " (" + ms + " ms)";
+            }
+        }
+    }
+
+    private final VehiculoDAO vehiculoDAO;
+    private final SeguroVehicularDAO seguroDAO;
+    private final HistoricoDAO historicoDAO;
+    private final InstantaneaFlota instantanea;
+    private final IndiceBusqueda indice;
+    private final AnaliticaFlota analitica;
+
+    private final Paso conexion = new Paso("Conexion");
+    private final Paso sentencias = new Paso("Sentencias");
+    private final Paso mapeo = new Paso("Mapeo");
+    private final Paso caches = new Paso("Caches");
+    private final List<Paso> pasos = List.of(conexion, sentencias, mapeo, caches);
+
+    private final AtomicInteger recorridosPendientes = new AtomicInteger(2);
+    private volatile long inicioNanos;
+    private volatile long duracionMs = -1;
+
+    public Precalentamiento(VehiculoDAO vehiculoDAO, SeguroVehicularDAO seguroDAO, HistoricoDAO historicoDAO,
+                            InstantaneaFlota instantanea, IndiceBusqueda indice, AnaliticaFlota analitica) {
+        this.vehiculoDAO = vehiculoDAO;
+        this.seguroDAO = seguroDAO;
+        this.historicoDAO = historicoDAO;
+        this.instantanea = instantanea;
+        this.indice = indice;
+        this.analitica = analitica;
+    }
+
+    /**
+     * Lanza los dos recorridos en el executor y vuelve enseguida. Conviene uno propio de dos hilos
+     * daemon: los recorridos son largos y en un executor compartido demorarian a las otras tareas.
+     */
+    public void iniciar(Executor executor) {
+        inicioNanos = System.nanoTime();
+        executor.execute(this::calentarBase);
+        executor.execute(this::cargarCaches);
+    }
+
+    private void calentarBase() {
+        try {
+            boolean conectado = ejecutar(conexion, () -> AccesoBD.ejecutar(TipoOperacion.LECTURA, () -> {
+                try (Connection conn = DatabaseConnection.getConnection()) {
+                    return conn.getMetaData().getDatabaseProductName() + " " + conn.getMetaData().getDatabaseProductVersion();
+                }
+            }));
+            if (!conectado) {
+                saltear(sentencias);
+                saltear(mapeo);
+                return;
+            }
+            ejecutar(sentencias, () -> AccesoBD.ejecutar(TipoOperacion.LECTURA, () -> {
+                try (Connection conn = DatabaseConnection.getConnection()) {
+                    int cantidad = vehiculoDAO.prepararSentencias(conn) + seguroDAO.prepararSentencias(conn);
+                    return cantidad + " preparadas";
+                }
+            }));
+            ejecutar(mapeo, this::recorrerMapeos);
+        } finally {
+            recorridoTerminado();
+        }
+    }
+
+    // Lecturas reales por los mapeos de vehiculo (con seguro), seguro y historico
+    private String recorrerMapeos() throws Exception {
+        List<Vehiculo> pagina = List.of();
+        for (int i = 0; i < VUELTAS_MAPEO; i++) {
+            pagina = AccesoBD.ejecutar(TipoOperacion.LECTURA, () -> vehiculoDAO.getPagina(0, FILAS_MAPEO));
+        }
+        if (!pagina.isEmpty()) {
+            Vehiculo v = pagina.get(0);
+            AccesoBD.ejecutar(TipoOperacion.LECTURA, () -> vehiculoDAO.buscarPorCampoClave(v.getDominio(), null));
+            if (v.getSeguro() != null) {
+                AccesoBD.ejecutar(TipoOperacion.LECTURA, () -> seguroDAO.buscarPorCampoClave(v.getSeguro().getNroPoliza(), null));
+            }
+            AccesoBD.ejecutar(TipoOperacion.LECTURA, () -> historicoDAO.buscarVehiculosPorDominio(v.getDominio()));
+        }
+        return (pagina.size() * VUELTAS_MAPEO) + " filas mapeadas";
+    }
+
+    private void cargarCaches() {
+        try {
+            ejecutar(caches, () -> {
+                indice.iniciarCaptura(); // Antes de la puesta al dia de la instantanea
+                RecorridoFlota fuente = instantanea.abrir();
+                String origen = "desde la base";
+                if (fuente != null) {
+                    try {
+                        indice.reconstruir(fuente);
+                        analitica.refrescar(fuente);
+                        return "desde la instantanea";
+                    } catch (Exception e) {
+                        instantanea.descartar(e.getMessage()); // Se sigue con la base
+                        origen = "desde la base (instantanea descartada: " + e.getMessage() + ")";
+                    }
+                }
+                // Un error de aca en adelante (indice, analitica o escritura) deja el paso con ERROR
+                indice.iniciarCaptura(); // Si la reconstruccion fallo, la corto
+                fuente = RecorridoFlota.desdeBase(vehiculoDAO);
+                indice.reconstruir(fuente);
+                analitica.refrescar(fuente);
+                instantanea.guardar();
+                return origen + ", instantanea nueva escrita";
+            });
+        } finally {
+            recorridoTerminado();
+        }
+    }
+
+    private boolean ejecutar(Paso paso, OperacionBD<String> trabajo) {
+        paso.estado = Estado.EN_CURSO;
+        long inicio = System.nanoTime();
+        try {
+            paso.detalle = trabajo.ejecutar();
+            return true;
+        } catch (Exception | LinkageError e) {
+            // LinkageError: falta el driver de MySQL (se carga con la primera conexion)
+            paso.error = e.getMessage();
+            return false;
+        } finally {
+            paso.ms = (System.nanoTime() - inicio) / 1_000_000;
+            paso.estado = Estado.TERMINADO;
+        }
+    }
+
+    private void saltear(Paso paso) {
+        paso.error = "salteado (sin conexion)";
+        paso.estado = Estado.TERMINADO;
+    }
+
+    private void recorridoTerminado() {
+        if (recorridosPendientes.decrementAndGet() == 0) {
+            duracionMs = (System.nanoTime() - inicioNanos) / 1_000_000;
+        }
+    }
+
+    // ============================================================
+    // ESTADO
+    // ============================================================
+
+    public boolean isTerminado() {
+        return duracionMs >= 0;
+    }
+
+    public List<Paso> getPasos() {
+        return pasos;
+    }
+
+    /** Estado corto para el encabezado del menu (hasta 34 caracteres). */
+    public String descripcionEstado() {
+        if (inicioNanos == 0) {
+            return "sin iniciar";
+        }
+        if (!isTerminado()) {
+            long terminados = pasos.stream().filter(p -> p.estado == Estado.TERMINADO).count();
+            return "precalentando (" + terminados + "/" + pasos.size() + " pasos)...";
+        }
+        boolean conErrores = pasos.stream().anyMatch(p -> p.error != null);
+        return conErrores ? "listo con errores (ver opcion 22)" : "listo en " + duracionMs + " ms";
+    }
+
+    /** Resumen para mostrar por consola. */
+    public String resumen() {
+        StringBuilder sb = new StringBuilder(isTerminado() ? "Terminado en " + duracionMs + " ms" : "En curso");
+        for (Paso paso : pasos) {
+            sb.append(" | ").append(paso.descripcion());
+        }
+        return sb.toString();
+    }
+}
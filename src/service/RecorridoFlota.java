@@ -0,0 +1,28 @@
+package service;
+
+import config.AccesoBD;
+import config.TipoOperacion;
+import dao.VehiculoDAO;
+import entities.Vehiculo;
+
+import java.util.function.Consumer;
+
+/**
+ * Fuente de la flota activa (vehiculos con su seguro) para armar estructuras en memoria:
+ * la base, o una instantanea en disco puesta al dia ({@link InstantaneaFlota}).
+ */
+@FunctionalInterface
+public interface RecorridoFlota {
+
+    /**
+     * Entrega cada vehiculo activo una vez.
+     * @return La cantidad de vehiculos entregados.
+     * @throws Exception Si falla la lectura (de la base, o de una instantanea con datos invalidos).
+     */
+    long recorrer(Consumer<Vehiculo> consumidor) throws Exception;
+
+    /** Recorrido streaming de la tabla (cupo MASIVA). */
+    static RecorridoFlota desdeBase(VehiculoDAO vehiculoDAO) {
+        return consumidor -> AccesoBD.ejecutar(TipoOperacion.MASIVA, () -> vehiculoDAO.recorrerActivos(consumidor));
+    }
+}
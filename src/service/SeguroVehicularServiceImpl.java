@@ -1,22 +1,44 @@
 package service;
 
-import config.DatabaseConnection;
+import config.AccesoBD;
+import config.OpcionesTransaccion;
+import config.TipoOperacion;
 import config.TransactionManager; // <-- IMPORTADO PARA EL PROBLEMA 1
+import config.UnidadDeTrabajo;
+import dao.CriteriosBusqueda;
+import dao.CriteriosRenovacion;
+import dao.NovedadPoliza;
+import dao.ResultadoBusquedaMasiva;
+import dao.ResultadoRenovacion;
+import dao.ResultadoUpsert;
 import dao.SeguroVehicularDAO;
 import entities.SeguroVehicular;
 
 import java.sql.Connection;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class SeguroVehicularServiceImpl implements GenericService<SeguroVehicular> {
 
     private final SeguroVehicularDAO seguroDAO;
+    private final List<ObservadorCambios> observadores = new CopyOnWriteArrayList<>();
 
     public SeguroVehicularServiceImpl(SeguroVehicularDAO seguroDAO) {
         this.seguroDAO = seguroDAO;
     }
 
+    /**
+     * Registra un observador que se notifica despues de cada escritura confirmada.
+     */
+    public void agregarObservador(ObservadorCambios observador) {
+        observadores.add(observador);
+    }
+
     // ============================================================
     // VALIDACIONES DE NEGOCIO (OBLIGATORIAS)
     // (Sin cambios)
@@ -46,7 +68,13 @@ public class SeguroVehicularServiceImpl implements GenericService<SeguroVehicula
     // (Sin cambios)
     // ============================================================
     public void validarUnicidadPoliza(String nroPoliza, Connection conn) throws Exception {
-        if (seguroDAO.buscarPorCampoClave(nroPoliza.toUpperCase(), conn) != null) {
+        validarUnicidadPoliza(nroPoliza, 0, conn);
+    }
+
+    // idPropio: el seguro que se esta actualizando no cuenta como duplicado (0 = ninguno)
+    private void validarUnicidadPoliza(String nroPoliza, long idPropio, Connection conn) throws Exception {
+        SeguroVehicular existente = AccesoBD.ejecutar(TipoOperacion.LECTURA, () -> seguroDAO.buscarPorCampoClave(nroPoliza.toUpperCase(), conn));
+        if (existente != null && existente.getId() != idPropio) {
             throw new IllegalArgumentException("Ya existe un seguro activo con la póliza: " + nroPoliza);
         }
     }
@@ -56,7 +84,24 @@ public class SeguroVehicularServiceImpl implements GenericService<SeguroVehicula
     // (Sin cambios)
     // ============================================================
     public SeguroVehicular buscarPorPoliza(String nroPoliza) throws Exception {
-        return seguroDAO.buscarPorCampoClave(nroPoliza.toUpperCase(), null);
+        return AccesoBD.ejecutar(TipoOperacion.LECTURA, () -> seguroDAO.buscarPorCampoClave(nroPoliza.toUpperCase(), null));
+    }
+
+    // ============================================================
+    // BUSQUEDAS MASIVAS (una conexion, consultas IN por chunks)
+    // ============================================================
+    public ResultadoBusquedaMasiva<Long, SeguroVehicular> getByIds(Collection<Long> ids) throws Exception {
+        if (ids == null) {
+            throw new IllegalArgumentException("La lista de IDs no puede ser nula.");
+        }
+        return AccesoBD.ejecutar(TipoOperacion.MASIVA, () -> seguroDAO.getByIds(ids));
+    }
+
+    public ResultadoBusquedaMasiva<String, SeguroVehicular> buscarPorPolizas(Collection<String> polizas) throws Exception {
+        if (polizas == null) {
+            throw new IllegalArgumentException("La lista de polizas no puede ser nula.");
+        }
+        return AccesoBD.ejecutar(TipoOperacion.MASIVA, () -> seguroDAO.buscarPorPolizas(polizas));
     }
 
     // ============================================================
@@ -72,10 +117,8 @@ public class SeguroVehicularServiceImpl implements GenericService<SeguroVehicula
         }
         
         // --- INICIO CORRECCIÓN (PROBLEMA 1 Y 2) ---
-        try (Connection conn = DatabaseConnection.getConnection();
-             TransactionManager tm = new TransactionManager(conn)) {
-
-            tm.startTransaction();
+        // Unidad de trabajo con reintento automatico ante deadlocks / lock wait timeout
+        Transacciones.ejecutar("insercion del seguro", tm -> {
 
             // La validación de unicidad AHORA usa la conexión transaccional
             validarUnicidadPoliza(seguro.getNroPoliza(), tm.getConnection());
@@ -85,14 +128,13 @@ public class SeguroVehicularServiceImpl implements GenericService<SeguroVehicula
             
             // 2. Seteamos ese ID en el objeto original (Solución ID: 0)
             seguro.setId(nuevoId); 
+            return null;
+        });
+        // --- FIN CORRECCIÓN ---
 
-            tm.commit();
-
-        } catch (Exception e) {
-            // El rollback es automático
-            throw new Exception("Error en la transaccion de insercion del seguro: " + e.getMessage());
+        for (ObservadorCambios o : observadores) {
+            o.seguroGuardado(seguro, idVehiculo);
         }
-        // --- FIN CORRECCIÓN ---
     }
 
     // No se usa para B independiente → obligatorio lanzar excepción
@@ -110,32 +152,40 @@ public class SeguroVehicularServiceImpl implements GenericService<SeguroVehicula
 
         validar(seguro);
 
-        SeguroVehicular actual = seguroDAO.getById((int) seguro.getId());
-        if (actual == null) {
-            throw new IllegalArgumentException("El seguro que intenta actualizar no existe.");
-        }
-
-        // --- INICIO CORRECCIÓN (PROBLEMA 1) ---
-        try (Connection conn = DatabaseConnection.getConnection();
-             TransactionManager tm = new TransactionManager(conn)) {
-            
-            tm.startTransaction();
-
-            // Si cambia póliza → verificar unicidad DENTRO de la transacción
-            if (!actual.getNroPoliza().equalsIgnoreCase(seguro.getNroPoliza())) {
-                validarUnicidadPoliza(seguro.getNroPoliza(), tm.getConnection());
+        // La validacion previa y la transaccion comparten una sola conexion
+        UnidadDeTrabajo unidad = UnidadDeTrabajo.abrir();
+        try {
+            // Validamos la existencia ANTES de iniciar la transacción
+            SeguroVehicular actual = getById((int) seguro.getId());
+            if (actual == null) {
+                throw new IllegalArgumentException("El seguro que intenta actualizar no existe.");
             }
+            // Si ya estaba leido en la unidad, actual es el mismo objeto: manda su seguimiento de cambios
+            boolean cambiaPoliza = actual == seguro
+                    ? seguro.getCamposModificados().contains("nroPoliza")
+                    : !actual.getNroPoliza().equalsIgnoreCase(seguro.getNroPoliza());
+
+            // --- INICIO CORRECCIÓN (PROBLEMA 1) ---
+            Transacciones.ejecutar("actualizacion del seguro", tm -> {
+
+                // Si cambia póliza → verificar unicidad DENTRO de la transacción
+                // (sin contar el propio seguro: cambiar solo mayusculas/minusculas no es un duplicado)
+                if (cambiaPoliza) {
+                    validarUnicidadPoliza(seguro.getNroPoliza(), seguro.getId(), tm.getConnection());
+                }
+
+                // El DAO usa la conexión transaccional (falla si el seguro fue dado de baja)
+                seguroDAO.actualizarTx(seguro, tm.getConnection());
+                return null;
+            });
+            // --- FIN CORRECCIÓN ---
+        } finally {
+            unidad.close();
+        }
 
-            // El DAO usa la conexión transaccional
-            seguroDAO.actualizarTx(seguro, tm.getConnection());
-
-            tm.commit();
-
-        } catch (Exception e) {
-            // El rollback es automático
-            throw new Exception("Error en la transaccion de actualizacion del seguro: " + e.getMessage());
+        for (ObservadorCambios o : observadores) {
+            o.seguroGuardado(seguro, 0);
         }
-        // --- FIN CORRECCIÓN ---
     }
 
 // ============================================================
@@ -145,26 +195,190 @@ public class SeguroVehicularServiceImpl implements GenericService<SeguroVehicula
     @Override
     public void eliminar(int id) throws Exception {
 
-        // Validamos la existencia ANTES de iniciar la transacción
-        if (seguroDAO.getById(id) == null) {
-            throw new IllegalArgumentException("El seguro con ID " + id + " no existe o ya fue eliminado.");
+        // La validacion previa y la transaccion comparten una sola conexion
+        UnidadDeTrabajo unidad = UnidadDeTrabajo.abrir();
+        try {
+            // Validamos la existencia ANTES de iniciar la transacción
+            if (getById(id) == null) {
+                throw new IllegalArgumentException("El seguro con ID " + id + " no existe o ya fue eliminado.");
+            }
+
+            Transacciones.ejecutar("eliminacion del seguro", tm -> {
+                // El DAO usa la conexión transaccional
+                seguroDAO.eliminarTx(id, tm.getConnection());
+                return null;
+            });
+        } finally {
+            unidad.close();
         }
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             TransactionManager tm = new TransactionManager(conn)) {
+        for (ObservadorCambios o : observadores) {
+            o.seguroEliminado(id);
+        }
+    }
 
-            tm.startTransaction();
-            
-            // El DAO usa la conexión transaccional
-            seguroDAO.eliminarTx(id, tm.getConnection());
-            
-            tm.commit();
+    // ============================================================
+    // PADRON DE POLIZAS DE UNA ASEGURADORA (upsert masivo)
+    // ============================================================
 
-        } catch (Exception e) {
-            // --- INICIO DE LA CORRECCIÓN ---
-            // Faltaba el "+" y "e.getMessage()"
-            throw new Exception("Error en la transaccion de eliminacion del seguro: " + e.getMessage());
-            // --- FIN DE LA CORRECCIÓN ---
+    /**
+     * Sincroniza un padron de polizas: las que no existen se insertan, las existentes se actualizan
+     * si cambio algun dato y las demas quedan sin cambios. Cada chunk de
+     * {@link SeguroVehicularDAO#TAMANIO_CHUNK_UPSERT} filas es una transaccion corta (con reintentos)
+     * de pocas idas a la base, en lugar de buscar y guardar poliza por poliza.
+     * <p>
+     * Las filas invalidas o repetidas se rechazan antes de ir a la base. Si un chunk falla, lo ya
+     * confirmado queda y las filas restantes se informan como rechazadas con el error.
+     *
+     * @param novedades Las filas del padron.
+     * @return El desenlace de cada fila.
+     */
+    public ResultadoUpsert sincronizarPolizas(List<NovedadPoliza> novedades) {
+        if (novedades == null) {
+            throw new IllegalArgumentException("La lista de polizas no puede ser nula.");
+        }
+        ResultadoUpsert resultado = new ResultadoUpsert();
+
+        // Validacion y duplicados, sin ir a la base
+        List<NovedadPoliza> validas = new ArrayList<>(novedades.size());
+        Map<String, NovedadPoliza> porPoliza = new HashMap<>();
+        for (NovedadPoliza n : novedades) {
+            try {
+                if (n.getDominio() == null || n.getDominio().trim().isEmpty()) {
+                    throw new IllegalArgumentException("El dominio es obligatorio.");
+                }
+                validar(n.getSeguro());
+            } catch (IllegalArgumentException e) {
+                resultado.rechazar(n, e.getMessage());
+                continue;
+            }
+            NovedadPoliza previa = porPoliza.putIfAbsent(n.getSeguro().getNroPoliza().toUpperCase(), n);
+            if (previa != null) {
+                resultado.rechazar(n, "Poliza repetida en el padron (ya esta en la linea " + previa.getLinea() + ")");
+                continue;
+            }
+            validas.add(n);
+        }
+
+        OpcionesTransaccion opciones = OpcionesTransaccion.predeterminadas()
+                .conTipo(TipoOperacion.MASIVA)
+                .conRegistroEnConsola(false);
+        int tamanio = SeguroVehicularDAO.TAMANIO_CHUNK_UPSERT;
+        for (int desde = 0; desde < validas.size(); desde += tamanio) {
+            List<NovedadPoliza> chunk = validas.subList(desde, Math.min(desde + tamanio, validas.size()));
+            ResultadoUpsert parcial;
+            try {
+                parcial = TransactionManager.ejecutarConReintentos(tm -> seguroDAO.upsertTx(chunk, tm.getConnection()), opciones);
+            } catch (Exception e) {
+                for (NovedadPoliza n : validas.subList(desde, validas.size())) {
+                    resultado.rechazar(n, "No se proceso: " + e.getMessage());
+                }
+                break;
+            }
+            resultado.agregarTodo(parcial);
+            for (ResultadoUpsert.Fila fila : parcial.getFilas()) {
+                if (fila.getDesenlace() == ResultadoUpsert.Desenlace.INSERTADA
+                        || fila.getDesenlace() == ResultadoUpsert.Desenlace.ACTUALIZADA) {
+                    for (ObservadorCambios o : observadores) {
+                        o.seguroGuardado(fila.getNovedad().getSeguro(), fila.getIdVehiculo());
+                    }
+                }
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Renovacion masiva: fija o corre el vencimiento de todas las polizas activas que cumplen
+     * los filtros (aseguradora, cobertura y/o rango de vencimiento actual).
+     * <p>
+     * Trabaja por chunks de {@link SeguroVehicularDAO#TAMANIO_CHUNK_RENOVACION} polizas, cada uno en
+     * su propia transaccion corta: un SELECT de los IDs candidatos (sin bloqueos), un SELECT ... FOR UPDATE
+     * de esos IDs y un unico UPDATE por chunk. Se aplica la
+     * misma regla que en el alta: el vencimiento renovado tiene que ser FUTURO; las polizas que no la
+     * cumplen (ej. vencidas hace mas que la extension) no se tocan y se cuentan aparte.
+     * Si un chunk falla, lo ya confirmado queda y el error se informa en el resultado.
+     *
+     * @param criterios Filtros (al menos uno) y forma de renovar (fecha fija o meses).
+     * @return Las cantidades de polizas encontradas, renovadas y omitidas.
+     */
+    public ResultadoRenovacion renovarPolizas(CriteriosRenovacion criterios) {
+        if (criterios == null || !criterios.tieneFiltros()) {
+            throw new IllegalArgumentException("Indique al menos un filtro (aseguradora, cobertura o rango de vencimiento).");
+        }
+        if ((criterios.getNuevoVencimiento() == null) == (criterios.getMesesExtension() == null)) {
+            throw new IllegalArgumentException("Indique una fecha de vencimiento nueva o una cantidad de meses (una sola).");
+        }
+        LocalDate hoy = LocalDate.now(); // Fijo durante toda la renovacion
+        if (criterios.getNuevoVencimiento() != null && !criterios.getNuevoVencimiento().isAfter(hoy)) {
+            throw new IllegalArgumentException("La fecha de vencimiento debe ser FUTURA.");
+        }
+        if (criterios.getMesesExtension() != null
+                && (criterios.getMesesExtension() < 1 || criterios.getMesesExtension() > CriteriosRenovacion.MAX_MESES_EXTENSION)) {
+            throw new IllegalArgumentException("Los meses de extension deben estar entre 1 y " + CriteriosRenovacion.MAX_MESES_EXTENSION + ".");
+        }
+
+        ResultadoRenovacion resultado = new ResultadoRenovacion();
+        OpcionesTransaccion opciones = OpcionesTransaccion.predeterminadas()
+                .conTipo(TipoOperacion.MASIVA)
+                .conRegistroEnConsola(false);
+        long despuesDeId = 0;
+        while (true) {
+            long desde = despuesDeId;
+            ChunkRenovacion chunk;
+            try {
+                chunk = TransactionManager.ejecutarConReintentos(tm -> {
+                    List<Long> candidatas = seguroDAO.buscarIdsParaRenovarTx(criterios, desde,
+                            SeguroVehicularDAO.TAMANIO_CHUNK_RENOVACION, tm.getConnection());
+                    List<SeguroVehicular> encontradas = seguroDAO.bloquearParaRenovarTx(candidatas, criterios,
+                            tm.getConnection());
+                    List<SeguroVehicular> aplicables = new ArrayList<>(encontradas.size());
+                    List<Long> ids = new ArrayList<>(encontradas.size());
+                    for (SeguroVehicular seguro : encontradas) {
+                        LocalDate renovado = criterios.vencimientoRenovado(seguro.getVencimiento());
+                        if (renovado.isAfter(hoy)) {
+                            seguro.setVencimiento(renovado);
+                            aplicables.add(seguro);
+                            ids.add(seguro.getId());
+                        }
+                    }
+                    int renovadas = seguroDAO.renovarTx(ids, criterios, tm.getConnection());
+                    long ultimoId = candidatas.isEmpty() ? 0 : candidatas.get(candidatas.size() - 1);
+                    return new ChunkRenovacion(encontradas, aplicables, renovadas, ultimoId);
+                }, opciones);
+            } catch (Exception e) {
+                resultado.setError(e.getMessage());
+                break;
+            }
+            if (chunk.ultimoId == 0) {
+                break; // No quedan candidatas
+            }
+            resultado.sumarChunk(chunk.encontradas.size(), chunk.renovadas,
+                    chunk.encontradas.size() - chunk.aplicables.size());
+            for (SeguroVehicular seguro : chunk.aplicables) {
+                for (ObservadorCambios o : observadores) {
+                    o.seguroGuardado(seguro, 0);
+                }
+            }
+            despuesDeId = chunk.ultimoId; // La ultima candidata, aunque ya no cumpliera los filtros
+        }
+        return resultado;
+    }
+
+    // Lo hecho en un chunk de la renovacion masiva
+    private static final class ChunkRenovacion {
+
+        private final List<SeguroVehicular> encontradas;
+        private final List<SeguroVehicular> aplicables;
+        private final int renovadas;
+        private final long ultimoId; // Ultima candidata del chunk (0 si no quedaban)
+
+        ChunkRenovacion(List<SeguroVehicular> encontradas, List<SeguroVehicular> aplicables, int renovadas,
+                        long ultimoId) {
+            this.encontradas = encontradas;
+            this.aplicables = aplicables;
+            this.renovadas = renovadas;
+            this.ultimoId = ultimoId;
         }
     }
 
@@ -174,11 +388,21 @@ public class SeguroVehicularServiceImpl implements GenericService<SeguroVehicula
     // ============================================================
     @Override
     public SeguroVehicular getById(int id) throws Exception {
-        return seguroDAO.getById(id);
+        return AccesoBD.ejecutar(TipoOperacion.LECTURA, () -> seguroDAO.getById(id));
     }
 
     @Override
     public List<SeguroVehicular> getAll() throws Exception {
-        return seguroDAO.getAll();
+        return AccesoBD.ejecutar(TipoOperacion.LECTURA, seguroDAO::getAll);
+    }
+
+    /**
+     * Pagina de seguros activos ordenados por ID, a partir del ultimo ID de la pagina anterior.
+     */
+    public List<SeguroVehicular> getPagina(long despuesDeId, int tamanio) throws Exception {
+        if (tamanio < 1 || tamanio > CriteriosBusqueda.LIMITE_MAXIMO) {
+            throw new IllegalArgumentException("El tamaño de pagina debe estar entre 1 y " + CriteriosBusqueda.LIMITE_MAXIMO + ".");
+        }
+        return AccesoBD.ejecutar(TipoOperacion.LECTURA, () -> seguroDAO.getPagina(despuesDeId, tamanio));
     }
 }
\ No newline at end of file
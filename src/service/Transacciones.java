@@ -0,0 +1,38 @@
+package service;
+
+import config.CircuitoAbiertoException;
+import config.OperacionTransaccional;
+import config.SaturacionException;
+import config.TiempoAgotadoException;
+import config.TransactionManager;
+
+/**
+ * Transacciones de las operaciones CRUD de los servicios, con un unico tratamiento de errores.
+ */
+final class Transacciones {
+
+    private Transacciones() {
+    }
+
+    /**
+     * Ejecuta la operacion en una transaccion con reintentos
+     * ({@link TransactionManager#ejecutarConReintentos(OperacionTransaccional)}).
+     * <p>
+     * Los rechazos de acceso (plazo agotado, compartimento lleno, disyuntor abierto) se propagan
+     * tal cual: son errores distintos (y contados) de los de negocio. Cualquier otro error se
+     * informa como "Error en la transaccion de ..." (el rollback ya se hizo).
+     *
+     * @param descripcion Que se estaba haciendo, para el mensaje de error (ej. "insercion").
+     * @param operacion La unidad de trabajo.
+     * @return El resultado de la operacion.
+     */
+    static <T> T ejecutar(String descripcion, OperacionTransaccional<T> operacion) throws Exception {
+        try {
+            return TransactionManager.ejecutarConReintentos(operacion);
+        } catch (TiempoAgotadoException | SaturacionException | CircuitoAbiertoException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new Exception("Error en la transaccion de " + descripcion + ": " + e.getMessage());
+        }
+    }
+}
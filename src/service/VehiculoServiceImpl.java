@@ -1,25 +1,45 @@
 package service;
 
-import config.DatabaseConnection;
+import config.AccesoBD;
+import config.OpcionesTransaccion;
+import config.TipoOperacion;
 import config.TransactionManager;
+import config.UnidadDeTrabajo;
+import dao.ConsultasIn;
+import dao.CriteriosBusqueda;
+import dao.ResultadoBajaMasiva;
+import dao.ResultadoBusquedaMasiva;
 import dao.VehiculoDAO;
 import entities.Vehiculo;
 import entities.SeguroVehicular;
 
 import java.sql.Connection;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class VehiculoServiceImpl implements GenericService<Vehiculo> {
 
     private final VehiculoDAO vehiculoDAO;
     private final SeguroVehicularServiceImpl seguroService;
+    private final List<ObservadorCambios> observadores = new CopyOnWriteArrayList<>();
 
     public VehiculoServiceImpl(VehiculoDAO vehiculoDAO, SeguroVehicularServiceImpl seguroService) {
         this.vehiculoDAO = vehiculoDAO;
         this.seguroService = seguroService;
     }
 
+    /**
+     * Registra un observador que se notifica despues de cada escritura confirmada.
+     */
+    public void agregarObservador(ObservadorCambios observador) {
+        observadores.add(observador);
+    }
+
     // ============================================================
     // VALIDACIONES DE NEGOCIO (OBLIGATORIAS POR CONSIGNA)
     // ============================================================
@@ -57,7 +77,7 @@ public class VehiculoServiceImpl implements GenericService<Vehiculo> {
     // ============================================================
     public void validarUnicidad(String dominio) throws Exception {
         // 🔥 ESTA ES LA FIRMA CORRECTA SEGÚN TU DAO
-        if (vehiculoDAO.buscarPorCampoClave(dominio.toUpperCase(), null) != null) {
+        if (AccesoBD.ejecutar(TipoOperacion.LECTURA, () -> vehiculoDAO.buscarPorCampoClave(dominio.toUpperCase(), null)) != null) {
             throw new IllegalArgumentException("Ya existe un vehiculo activo con el dominio: " + dominio);
         }
     }
@@ -69,18 +89,31 @@ public class VehiculoServiceImpl implements GenericService<Vehiculo> {
     public void insertar(Vehiculo vehiculo) throws Exception {
 
         validar(vehiculo);
-        validarUnicidad(vehiculo.getDominio());
 
-        // Validamos el seguro si viene en el objeto
-        if (vehiculo.getSeguro() != null) {
-            seguroService.validar(vehiculo.getSeguro());
-            seguroService.validarUnicidadPoliza(vehiculo.getSeguro().getNroPoliza(), null);
+        // Validaciones y transaccion comparten una sola conexion (ver UnidadDeTrabajo)
+        UnidadDeTrabajo unidad = UnidadDeTrabajo.abrir();
+        try {
+            validarUnicidad(vehiculo.getDominio());
+
+            // Validamos el seguro si viene en el objeto
+            if (vehiculo.getSeguro() != null) {
+                seguroService.validar(vehiculo.getSeguro());
+                seguroService.validarUnicidadPoliza(vehiculo.getSeguro().getNroPoliza(), null);
+            }
+
+            insertarTx(vehiculo);
+        } finally {
+            unidad.close();
         }
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             TransactionManager tm = new TransactionManager(conn)) {
+        for (ObservadorCambios o : observadores) {
+            o.vehiculoGuardado(vehiculo);
+        }
+    }
 
-            tm.startTransaction();
+    private void insertarTx(Vehiculo vehiculo) throws Exception {
+        // Unidad de trabajo con reintento automatico ante deadlocks / lock wait timeout
+        Transacciones.ejecutar("insercion", tm -> {
 
             // 1 — Insertamos el vehículo
             long vehiculoId = vehiculoDAO.insertarTx(vehiculo, tm.getConnection());
@@ -95,12 +128,8 @@ public class VehiculoServiceImpl implements GenericService<Vehiculo> {
                 );
                 seguro.setId(seguroId);
             }
-
-            tm.commit();
-
-        } catch (Exception e) {
-            throw new Exception("Error en la transaccion de insercion: " + e.getMessage());
-        }
+            return null;
+        });
     }
 
     // ============================================================
@@ -111,10 +140,7 @@ public class VehiculoServiceImpl implements GenericService<Vehiculo> {
 
         validar(vehiculo);
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             TransactionManager tm = new TransactionManager(conn)) {
-
-            tm.startTransaction();
+        Transacciones.ejecutar("actualizacion", tm -> {
 
             // Actualizar A
             vehiculoDAO.actualizarTx(vehiculo, tm.getConnection());
@@ -124,11 +150,11 @@ public class VehiculoServiceImpl implements GenericService<Vehiculo> {
                 seguroService.validar(vehiculo.getSeguro());
                 vehiculoDAO.seguroDAO.actualizarTx(vehiculo.getSeguro(), tm.getConnection());
             }
+            return null;
+        });
 
-            tm.commit();
-
-        } catch (Exception e) {
-            throw new Exception("Error en la transaccion de actualizacion: " + e.getMessage());
+        for (ObservadorCambios o : observadores) {
+            o.vehiculoGuardado(vehiculo);
         }
     }
 
@@ -138,28 +164,101 @@ public class VehiculoServiceImpl implements GenericService<Vehiculo> {
     @Override
     public void eliminar(int id) throws Exception {
 
-        Vehiculo vehiculo = vehiculoDAO.getById(id);
-        if (vehiculo == null) {
-            throw new Exception("Vehiculo con ID " + id + " no encontrado o ya eliminado.");
+        // La lectura previa y la transaccion comparten una sola conexion
+        UnidadDeTrabajo unidad = UnidadDeTrabajo.abrir();
+        try {
+            Vehiculo vehiculo = getById(id);
+            if (vehiculo == null) {
+                throw new Exception("Vehiculo con ID " + id + " no encontrado o ya eliminado.");
+            }
+
+            Transacciones.ejecutar("eliminacion", tm -> {
+
+                vehiculoDAO.eliminarTx(id, tm.getConnection());
+
+                if (vehiculo.getSeguro() != null) {
+                    int seguroId = (int) vehiculo.getSeguro().getId();
+                    vehiculoDAO.seguroDAO.eliminarTx(seguroId, tm.getConnection());
+                }
+                return null;
+            });
+        } finally {
+            unidad.close();
         }
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             TransactionManager tm = new TransactionManager(conn)) {
+        for (ObservadorCambios o : observadores) {
+            o.vehiculoEliminado(id);
+        }
+    }
 
-            tm.startTransaction();
+    // ============================================================
+    // BAJA MASIVA (por conjunto, transacciones acotadas por chunk)
+    // ============================================================
 
-            vehiculoDAO.eliminarTx(id, tm.getConnection());
+    /**
+     * Da de baja logica muchos vehiculos (y sus seguros) por ID.
+     * @see #eliminarPorDominios(Collection)
+     */
+    public ResultadoBajaMasiva<Long> eliminarPorIds(Collection<Long> ids) {
+        if (ids == null) {
+            throw new IllegalArgumentException("La lista de IDs no puede ser nula.");
+        }
+        return eliminarMasivo(ConsultasIn.clavesDistintas(ids, UnaryOperator.identity()), vehiculoDAO::eliminarPorIdsTx);
+    }
 
-            if (vehiculo.getSeguro() != null) {
-                int seguroId = (int) vehiculo.getSeguro().getId();
-                vehiculoDAO.seguroDAO.eliminarTx(seguroId, tm.getConnection());
-            }
+    /**
+     * Da de baja logica muchos vehiculos (y sus seguros) por dominio. Cada chunk de
+     * {@link ConsultasIn#TAMANIO_CHUNK} claves es una transaccion corta (con reintentos) de tres
+     * sentencias por conjunto, en lugar de una busqueda y una transaccion por vehiculo.
+     * Si un chunk falla, lo ya confirmado queda y las claves restantes se informan como NO_PROCESADO.
+     * @return El desenlace de cada clave (sin repetidas, en el orden de entrada).
+     */
+    public ResultadoBajaMasiva<String> eliminarPorDominios(Collection<String> dominios) {
+        if (dominios == null) {
+            throw new IllegalArgumentException("La lista de dominios no puede ser nula.");
+        }
+        return eliminarMasivo(ConsultasIn.clavesDistintas(dominios, String::toUpperCase), vehiculoDAO::eliminarPorDominiosTx);
+    }
 
-            tm.commit();
+    // Baja de un chunk dentro de la transaccion: devuelve las claves dadas de baja
+    private interface BajaPorChunk<K> {
+        Map<K, Long> eliminar(List<K> chunk, Connection conn, Consumer<Integer> seguros) throws Exception;
+    }
 
-        } catch (Exception e) {
-            throw new Exception("Error en la transaccion de eliminacion: " + e.getMessage());
+    private <K> ResultadoBajaMasiva<K> eliminarMasivo(List<K> claves, BajaPorChunk<K> baja) {
+        ResultadoBajaMasiva<K> resultado = new ResultadoBajaMasiva<>();
+        OpcionesTransaccion opciones = OpcionesTransaccion.predeterminadas()
+                .conTipo(TipoOperacion.MASIVA)
+                .conRegistroEnConsola(false);
+        int tamanio = ConsultasIn.TAMANIO_CHUNK;
+        for (int desde = 0; desde < claves.size(); desde += tamanio) {
+            List<K> chunk = claves.subList(desde, Math.min(desde + tamanio, claves.size()));
+            int[] seguros = {0};
+            Map<K, Long> eliminadas;
+            try {
+                eliminadas = TransactionManager.ejecutarConReintentos(tm -> {
+                    seguros[0] = 0; // Nuevo en cada intento
+                    return baja.eliminar(chunk, tm.getConnection(), n -> seguros[0] += n);
+                }, opciones);
+            } catch (Exception e) {
+                for (K clave : claves.subList(desde, claves.size())) {
+                    resultado.registrar(clave, ResultadoBajaMasiva.Desenlace.NO_PROCESADO);
+                }
+                resultado.setError(e.getMessage());
+                break;
+            }
+            resultado.sumarSeguros(seguros[0]);
+            for (K clave : chunk) {
+                resultado.registrar(clave, eliminadas.containsKey(clave)
+                        ? ResultadoBajaMasiva.Desenlace.DADO_DE_BAJA : ResultadoBajaMasiva.Desenlace.NO_ENCONTRADO);
+            }
+            for (Long id : eliminadas.values()) {
+                for (ObservadorCambios o : observadores) {
+                    o.vehiculoEliminado(id);
+                }
+            }
         }
+        return resultado;
     }
 
     // ============================================================
@@ -167,15 +266,66 @@ public class VehiculoServiceImpl implements GenericService<Vehiculo> {
     // ============================================================
     @Override
     public Vehiculo getById(int id) throws Exception {
-        return vehiculoDAO.getById(id);
+        return AccesoBD.ejecutar(TipoOperacion.LECTURA, () -> vehiculoDAO.getById(id));
     }
 
     @Override
     public List<Vehiculo> getAll() throws Exception {
-        return vehiculoDAO.getAll();
+        return AccesoBD.ejecutar(TipoOperacion.LECTURA, vehiculoDAO::getAll);
+    }
+
+    /**
+     * Pagina de vehiculos activos ordenados por ID, a partir del ultimo ID de la pagina anterior.
+     */
+    public List<Vehiculo> getPagina(long despuesDeId, int tamanio) throws Exception {
+        if (tamanio < 1 || tamanio > CriteriosBusqueda.LIMITE_MAXIMO) {
+            throw new IllegalArgumentException("El tamaño de pagina debe estar entre 1 y " + CriteriosBusqueda.LIMITE_MAXIMO + ".");
+        }
+        return AccesoBD.ejecutar(TipoOperacion.LECTURA, () -> vehiculoDAO.getPagina(despuesDeId, tamanio));
     }
 
     public Vehiculo buscarPorDominio(String dominio) throws Exception {
-        return vehiculoDAO.buscarPorCampoClave(dominio.toUpperCase(), null);
+        return AccesoBD.ejecutar(TipoOperacion.LECTURA, () -> vehiculoDAO.buscarPorCampoClave(dominio.toUpperCase(), null));
+    }
+
+    // ============================================================
+    // BUSQUEDAS MASIVAS (una conexion, consultas IN por chunks)
+    // ============================================================
+    public ResultadoBusquedaMasiva<Long, Vehiculo> getByIds(Collection<Long> ids) throws Exception {
+        if (ids == null) {
+            throw new IllegalArgumentException("La lista de IDs no puede ser nula.");
+        }
+        return AccesoBD.ejecutar(TipoOperacion.MASIVA, () -> vehiculoDAO.getByIds(ids));
+    }
+
+    public ResultadoBusquedaMasiva<String, Vehiculo> buscarPorDominios(Collection<String> dominios) throws Exception {
+        if (dominios == null) {
+            throw new IllegalArgumentException("La lista de dominios no puede ser nula.");
+        }
+        return AccesoBD.ejecutar(TipoOperacion.MASIVA, () -> vehiculoDAO.buscarPorDominios(dominios));
+    }
+
+    // ============================================================
+    // BUSQUEDA POR CRITERIOS (filtrado en SQL)
+    // ============================================================
+    public List<Vehiculo> buscarPorCriterios(CriteriosBusqueda criterios) throws Exception {
+        if (criterios == null) {
+            throw new IllegalArgumentException("Los criterios de busqueda no pueden ser nulos.");
+        }
+        if (criterios.getAnioDesde() != null && criterios.getAnioHasta() != null
+                && criterios.getAnioDesde() > criterios.getAnioHasta()) {
+            throw new IllegalArgumentException("El año desde no puede ser mayor que el año hasta.");
+        }
+        if (criterios.getVencimientoDesde() != null && criterios.getVencimientoHasta() != null
+                && criterios.getVencimientoDesde().isAfter(criterios.getVencimientoHasta())) {
+            throw new IllegalArgumentException("El vencimiento desde no puede ser posterior al vencimiento hasta.");
+        }
+        if (Boolean.FALSE.equals(criterios.getConSeguro()) && criterios.tieneFiltrosDePoliza()) {
+            throw new IllegalArgumentException("Los filtros de poliza (cobertura, aseguradora, vencimiento) no se pueden combinar con 'sin seguro'.");
+        }
+        if (criterios.getLimite() < 1 || criterios.getLimite() > CriteriosBusqueda.LIMITE_MAXIMO) {
+            throw new IllegalArgumentException("El limite debe estar entre 1 y " + CriteriosBusqueda.LIMITE_MAXIMO + ".");
+        }
+        return AccesoBD.ejecutar(TipoOperacion.LECTURA, () -> vehiculoDAO.buscarPorCriterios(criterios));
     }
 }